@@ -33,6 +33,7 @@ import com.osgifx.console.agent.dto.RuntimeDTO;
 import com.osgifx.console.agent.dto.XBundleDTO;
 import com.osgifx.console.agent.dto.XBundleLoggerContextDTO;
 import com.osgifx.console.agent.dto.XCdiContainerDTO;
+import com.osgifx.console.agent.dto.XClassHistogramDTO;
 import com.osgifx.console.agent.dto.XComponentDTO;
 import com.osgifx.console.agent.dto.XConditionDTO;
 import com.osgifx.console.agent.dto.XConfigurationDTO;
@@ -43,12 +44,15 @@ import com.osgifx.console.agent.dto.XHeapUsageDTO;
 import com.osgifx.console.agent.dto.XHttpComponentDTO;
 import com.osgifx.console.agent.dto.XJaxRsComponentDTO;
 import com.osgifx.console.agent.dto.XMemoryInfoDTO;
+import com.osgifx.console.agent.dto.XMetricsDTO;
+import com.osgifx.console.agent.dto.XProfileDTO;
 import com.osgifx.console.agent.dto.XPropertyDTO;
 import com.osgifx.console.agent.dto.XResultDTO;
 import com.osgifx.console.agent.dto.XRoleDTO;
 import com.osgifx.console.agent.dto.XRuntimeCapabilityDTO;
 import com.osgifx.console.agent.dto.XServiceDTO;
 import com.osgifx.console.agent.dto.XThreadDTO;
+import com.osgifx.console.agent.dto.XTransferDTO;
 import com.osgifx.console.agent.rpc.mqtt.api.Mqtt5Publisher;
 import com.osgifx.console.agent.rpc.mqtt.api.Mqtt5Subscriber;
 import com.osgifx.console.agent.spi.extension.AgentExtension;
@@ -208,6 +212,80 @@ public interface Agent extends AgentSnapshot {
      */
     String AGENT_RPC_MAX_BYTE_ARRAY_SIZE_KEY = "osgi.fx.agent.rpc.max.byte.array.size";
 
+    /**
+     * The property key to specify the highest binary wire format version the agent agrees
+     * on (defaults to {@code 2}).
+     * <p>
+     * Set it to {@code 1} to keep the original fixed-width wire format.
+     *
+     * @since 12.0
+     */
+    String AGENT_RPC_WIRE_VERSION_KEY = "osgi.fx.agent.rpc.wire.version";
+
+    /**
+     * The property key to specify whether the DTO codecs of the binary wire format version
+     * {@code 2} are generated per DTO class at first use (defaults to {@code true}).
+     * <p>
+     * Set it to {@code false} to always use the per-field accessors.
+     *
+     * @since 12.0
+     */
+    String AGENT_RPC_GENERATED_CODECS_KEY = "osgi.fx.agent.rpc.generated.codecs";
+
+    /**
+     * The property key to specify the size of a single chunk (in bytes) of a chunked
+     * transfer (defaults to 1 MB).
+     * <p>
+     * Reduce it if the MQTT broker limits the maximum message size.
+     *
+     * @since 12.0
+     */
+    String AGENT_TRANSFER_CHUNK_SIZE_KEY = "osgi.fx.agent.transfer.chunk.size";
+
+    /**
+     * The property key to specify the size of the log buffer segment (in bytes) that
+     * keeps the most recent log entries (defaults to 1 MB).
+     *
+     * @since 12.0
+     */
+    String AGENT_LOG_BUFFER_SIZE_KEY = "osgi.fx.agent.log.buffer.size";
+
+    /**
+     * The property key to specify whether the log buffer is mapped from a file in the
+     * agent's data area (defaults to {@code false}).
+     * <p>
+     * A mapped log buffer persists every log entry as soon as it is written, survives
+     * crashes of the runtime and does not occupy the heap.
+     *
+     * @since 12.0
+     */
+    String AGENT_LOG_BUFFER_MAPPED_KEY = "osgi.fx.agent.log.buffer.mapped";
+
+    /**
+     * The property key to specify the interval (in milliseconds) at which the agent samples
+     * the runtime metrics (defaults to {@code 1000}).
+     * <p>
+     * Every 10 samples are additionally aggregated into a coarser sample, and every 6 of
+     * these into an even coarser one, such that a longer history is retained within the
+     * same fixed amount of memory.
+     *
+     * @since 12.0
+     */
+    String AGENT_METRICS_INTERVAL_KEY = "osgi.fx.agent.metrics.interval";
+
+    /**
+     * The property key to specify the time (in milliseconds) after which a snapshot that
+     * has not been requested is dropped (defaults to {@code 300000}).
+     * <p>
+     * Snapshots are only kept up to date in the background while a supervisor is attached
+     * and has requested them within this time. Otherwise framework events only mark them
+     * dirty, and the next request regenerates them synchronously. A supervisor connected
+     * over MQTT is only attached until it has not sent any request within this time.
+     *
+     * @since 12.0
+     */
+    String AGENT_SNAPSHOT_TTL_KEY = "osgi.fx.agent.snapshot.ttl";
+
     /**
      * The port for attaching to a remote Gogo CommandSession
      */
@@ -390,6 +468,18 @@ public interface Agent extends AgentSnapshot {
      */
     void disableReceivingLog();
 
+    /**
+     * Narrows the logs received from the remote agent down to the specified bundle and
+     * level. The matching logs are then delivered in batches using
+     * {@link com.osgifx.console.supervisor.Supervisor#onLogEntries(List)}.
+     *
+     * @param bundleId the bundle identifier, or {@code -1} for the logs of all bundles
+     * @param level the least severe log level (1 = error, 2 = warning, 3 = info,
+     *            4 = debug), or {@code 0} for all levels
+     * @since 12.0
+     */
+    void subscribeLogs(long bundleId, int level);
+
     /**
      * Checks if the receiving of events is enabled
      *
@@ -407,6 +497,19 @@ public interface Agent extends AgentSnapshot {
      */
     void disableReceivingEvent();
 
+    /**
+     * Narrows the events received from the remote agent down to the specified topics and
+     * LDAP filter. The matching events are then delivered in batches using
+     * {@link com.osgifx.console.supervisor.Supervisor#onOSGiEvents(List)}.
+     *
+     * @param topics the event topics, where {@code *} at the end matches all sub-topics
+     *            (an empty list matches all topics)
+     * @param filter the LDAP filter matched against the event properties (can be
+     *            {@code null})
+     * @since 12.0
+     */
+    void subscribeEvents(List<String> topics, String filter);
+
     /**
      * Executes the specified terminal (CLI) command in a separate process.
      *
@@ -426,6 +529,17 @@ public interface Agent extends AgentSnapshot {
      */
     boolean ping();
 
+    /**
+     * Agrees on the binary wire format version of the messages sent by the agent. The
+     * agent switches to the agreed version right away. Messages of any supported version
+     * are accepted by both sides regardless of the agreed version.
+     *
+     * @param maxVersion the highest wire format version supported by the caller
+     * @return the agreed wire format version
+     * @since 12.0
+     */
+    int negotiateWireVersion(int maxVersion);
+
     /**
      * Refreshes the framework wiring.
      * <p>
@@ -665,6 +779,35 @@ public interface Agent extends AgentSnapshot {
      */
     XMemoryInfoDTO getMemoryInfo();
 
+    /**
+     * Returns the runtime metrics sampled by the agent in a single call.
+     * <p>
+     * The agent retains the most recent samples at several resolutions: every sampling
+     * interval for the last minutes, every 10 sampling intervals for the last hours and
+     * every 60 sampling intervals for the last day.
+     *
+     * @param resolution the requested interval between two samples in milliseconds, the
+     *            finest retained resolution which is not finer than the requested one is
+     *            returned
+     * @param since the time in milliseconds since the epoch after which the samples must
+     *            have been taken ({@code 0} for all retained samples)
+     * @return the sampled metrics
+     * @since 12.0
+     */
+    XMetricsDTO getMetrics(long resolution, long since);
+
+    /**
+     * Subscribes to the runtime metrics sampled by the agent. The samples of the requested
+     * resolution are then delivered as soon as they have been taken using
+     * {@link com.osgifx.console.supervisor.Supervisor#onMetrics(XMetricsDTO)}, where every
+     * delivery only contains the samples taken since the previous one.
+     *
+     * @param resolution the requested interval between two samples in milliseconds (see
+     *            {@link #getMetrics(long, long)}), or {@code 0} to unsubscribe
+     * @since 12.0
+     */
+    void subscribeMetrics(long resolution);
+
     /**
      * Returns the set of registered Gogo commands
      * <p>
@@ -830,7 +973,10 @@ public interface Agent extends AgentSnapshot {
      * Performs a heap dump in the remote machine
      *
      * @return the heap dump information
+     * @deprecated the whole heap dump is held in memory on both sides, use
+     *             {@link #openHeapdumpTransfer()} instead
      */
+    @Deprecated
     byte[] heapdump() throws Exception;
 
     /**
@@ -857,6 +1003,20 @@ public interface Agent extends AgentSnapshot {
      */
     byte[] getLogSnapshot(long fromTime, long toTime);
 
+    /**
+     * Returns a binary snapshot of the logs of a bundle within the timeframe and at
+     * least as severe as the specified level.
+     *
+     * @param fromTime start timestamp (epoch millis, inclusive)
+     * @param toTime end timestamp (epoch millis, inclusive)
+     * @param bundleId the bundle identifier, or {@code -1} for the logs of all bundles
+     * @param level the least severe log level (1 = error, 2 = warning, 3 = info,
+     *            4 = debug), or {@code 0} for all levels
+     * @return the raw byte array containing the binary log entries
+     * @since 12.0
+     */
+    byte[] getLogSnapshot(long fromTime, long toTime, long bundleId, int level);
+
     /**
      * Searches strictly inside the bundle JAR and its attached fragments.
      * <p>
@@ -1000,6 +1160,103 @@ public interface Agent extends AgentSnapshot {
      */
     String createThreadDumpLocally(String outputPath) throws Exception;
 
+    /**
+     * Starts sampling the stacks of all runnable threads in the remote JVM and
+     * aggregates them into a call tree, discarding the call tree of the previous
+     * profiling.
+     * <p>
+     * The profiling stops on its own once the duration has elapsed. The interval is at
+     * least 5 ms and the duration at most 10 minutes.
+     *
+     * @param interval the interval between two samples in milliseconds
+     * @param duration the duration after which the profiling stops in milliseconds
+     * @return {@code true} if the profiling has been started, {@code false} if a
+     *         profiling is already running
+     * @since 12.0
+     */
+    boolean startProfiling(long interval, long duration);
+
+    /**
+     * Stops the running profiling before its duration has elapsed. The call tree sampled
+     * so far is retained.
+     *
+     * @since 12.0
+     */
+    void stopProfiling();
+
+    /**
+     * Returns the call tree of the running or the most recent profiling in which every
+     * frame is attributed to the bundle whose class loader defines its class.
+     *
+     * @return the LZ4-compressed binary encoded {@link XProfileDTO}, or an empty array if
+     *         no profiling has been started yet
+     * @since 12.0
+     */
+    byte[] profile();
+
+    /**
+     * Takes a histogram of the objects on the heap per class and per bundle. It is much
+     * cheaper than a heap dump, hence two histograms taken some minutes apart can be
+     * compared to find the bundles whose objects grow.
+     *
+     * @param isLiveOnly {@code true} to count only the reachable objects after a full
+     *            garbage collection, {@code false} to count all objects without a collection
+     * @return the LZ4-compressed binary encoded {@link XClassHistogramDTO}, or an empty array
+     *         if the JVM does not support class histograms
+     * @since 12.0
+     */
+    byte[] classHistogram(boolean isLiveOnly);
+
+    /**
+     * Creates a GZIP-compressed heap dump on the agent's disk and opens a chunked
+     * transfer for it.
+     * <p>
+     * Unlike {@link #heapdump()}, the heap dump is never loaded into memory. The
+     * caller pulls it using {@link #readTransferChunk(String, long)} and closes the
+     * transfer using {@link #closeTransfer(String)}.
+     *
+     * @return the transfer, or {@code null} if JMX is not available
+     * @throws Exception if the heap dump creation fails
+     * @since 12.0
+     */
+    XTransferDTO openHeapdumpTransfer() throws Exception;
+
+    /**
+     * Creates a GZIP-compressed thread dump on the agent's disk and opens a chunked
+     * transfer for it.
+     *
+     * @return the transfer
+     * @throws Exception if the thread dump creation fails
+     * @see #openHeapdumpTransfer()
+     * @since 12.0
+     */
+    XTransferDTO openThreadDumpTransfer() throws Exception;
+
+    /**
+     * Reads the chunk of the specified transfer starting at the specified offset.
+     * <p>
+     * The next chunk is only sent once it is requested which provides the flow control.
+     * An interrupted transfer can be resumed by requesting the offset of the first
+     * missing byte.
+     *
+     * @param transferId the transfer ID
+     * @param offset the offset of the first byte to read
+     * @return at most {@link XTransferDTO#chunkSize} bytes, or an empty array if the
+     *         offset is at the end of the payload
+     * @throws Exception if the transfer does not exist (anymore) or cannot be read
+     * @since 12.0
+     */
+    byte[] readTransferChunk(String transferId, long offset) throws Exception;
+
+    /**
+     * Closes the specified transfer and deletes its payload from the agent's disk.
+     * Transfers that are not closed are discarded after a period of inactivity.
+     *
+     * @param transferId the transfer ID
+     * @since 12.0
+     */
+    void closeTransfer(String transferId);
+
     /**
      * Returns the availability of all optional OSGi compendium features tracked by
      * the agent (SCR, ConfigAdmin, JAX-RS, HTTP, CDI, HealthCheck, etc.).
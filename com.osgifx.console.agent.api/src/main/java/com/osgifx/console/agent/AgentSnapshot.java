@@ -47,6 +47,19 @@ public interface AgentSnapshot {
      */
     byte[] bundles();
 
+    /**
+     * Returns a compressed binary delta of all bundles since the specified snapshot version.
+     * <p>
+     * The returned payload can be decoded using
+     * {@link com.osgifx.console.agent.rpc.codec.SnapshotDecoder#decodeDelta(byte[], Class)}.
+     * If the version is not known to the agent anymore (or is {@code -1}), the full list
+     * is returned.
+     *
+     * @param sinceVersion the last snapshot version seen by the caller, or {@code -1}
+     * @return the compressed byte array containing the bundle delta
+     */
+    byte[] bundles(long sinceVersion);
+
     /**
      * Returns a compressed binary snapshot of all components.
      *
@@ -54,6 +67,15 @@ public interface AgentSnapshot {
      */
     byte[] components();
 
+    /**
+     * Returns a compressed binary delta of all components since the specified snapshot version.
+     *
+     * @param sinceVersion the last snapshot version seen by the caller, or {@code -1}
+     * @return the compressed byte array containing the component delta
+     * @see #bundles(long)
+     */
+    byte[] components(long sinceVersion);
+
     /**
      * Returns a compressed binary snapshot of all services.
      *
@@ -61,6 +83,15 @@ public interface AgentSnapshot {
      */
     byte[] services();
 
+    /**
+     * Returns a compressed binary delta of all services since the specified snapshot version.
+     *
+     * @param sinceVersion the last snapshot version seen by the caller, or {@code -1}
+     * @return the compressed byte array containing the service delta
+     * @see #bundles(long)
+     */
+    byte[] services(long sinceVersion);
+
     /**
      * Returns a compressed binary snapshot of all configurations.
      *
@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.dto;
+
+/**
+ * A data transfer object (DTO) representing a histogram of the objects on the heap of the
+ * remote runtime per class and per bundle.
+ * <p>
+ * The classes and the bundles are stored column by column, i.e. the element {@code i} of
+ * every class array belongs to the class {@code i} and the element {@code j} of every
+ * bundle array belongs to the bundle {@code j}. Both are ordered by their shallow size,
+ * the largest first. The objects whose class is defined by the JVM or by an unknown
+ * bundle are attributed to the bundle ID {@code -1}.
+ *
+ * @since 12.0
+ */
+public class XClassHistogramDTO {
+
+    /** The time the histogram has been taken at in milliseconds since the epoch */
+    public long timestamp;
+
+    /** Whether only the reachable objects have been counted after a full garbage collection */
+    public boolean isLiveOnly;
+
+    /** The total number of objects */
+    public long totalInstances;
+
+    /** The total shallow size of all objects in bytes */
+    public long totalBytes;
+
+    /** The names of the classes, array classes in their JVM notation, e.g. {@code [B} */
+    public String[] classNames;
+
+    /** The ID of the bundle defining every class, or {@code -1} */
+    public long[] classBundles;
+
+    /** The number of objects of every class */
+    public long[] classInstances;
+
+    /** The shallow size of all objects of every class in bytes */
+    public long[] classBytes;
+
+    /** The IDs of the bundles */
+    public long[] bundleIds;
+
+    /** The number of objects of the classes defined by every bundle */
+    public long[] bundleInstances;
+
+    /** The shallow size of all objects of the classes defined by every bundle in bytes */
+    public long[] bundleBytes;
+
+}
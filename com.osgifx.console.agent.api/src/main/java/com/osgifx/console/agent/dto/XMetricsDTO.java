@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.dto;
+
+/**
+ * A data transfer object (DTO) representing a window of the runtime metrics sampled by
+ * the agent.
+ * <p>
+ * The samples are stored column by column, i.e. the element {@code i} of every array
+ * belongs to the sample taken at {@code timestamps[i]}. The samples are ordered from the
+ * oldest to the most recent one.
+ *
+ * @since 12.0
+ */
+public class XMetricsDTO {
+
+    /** The interval between two consecutive samples in milliseconds */
+    public long interval;
+
+    /** The times the samples have been taken at in milliseconds since the epoch */
+    public long[] timestamps;
+
+    /** The amount of used heap memory in bytes */
+    public long[] heapUsed;
+
+    /** The amount of committed heap memory in bytes */
+    public long[] heapCommitted;
+
+    /** The maximum amount of heap memory in bytes, or {@code -1} if undefined */
+    public long[] heapMax;
+
+    /** The amount of used non-heap memory in bytes */
+    public long[] nonHeapUsed;
+
+    /** The amount of committed non-heap memory in bytes */
+    public long[] nonHeapCommitted;
+
+    /** The total number of garbage collections of all collectors since the JVM start */
+    public long[] gcCount;
+
+    /** The total time of garbage collections of all collectors since the JVM start in milliseconds */
+    public long[] gcTime;
+
+    /** The number of live threads */
+    public long[] threadCount;
+
+    /** The number of live daemon threads */
+    public long[] daemonThreadCount;
+
+    /** The number of currently loaded classes */
+    public long[] loadedClassCount;
+
+    /** The total number of classes unloaded since the JVM start */
+    public long[] unloadedClassCount;
+
+    /** The number of messages waiting on the interactive lanes of all socket connections */
+    public long[] interactiveDepth;
+
+    /**
+     * The average time the messages written on the interactive lanes of all socket connections
+     * since the previous sample have been waiting in microseconds, or {@code 0} if none
+     */
+    public long[] interactiveLatency;
+
+    /** The number of messages waiting on the bulk lanes of all socket connections */
+    public long[] bulkDepth;
+
+    /**
+     * The average time the messages written on the bulk lanes of all socket connections since
+     * the previous sample have been waiting in microseconds, or {@code 0} if none
+     */
+    public long[] bulkLatency;
+
+    /** The CPU load of the JVM process between {@code 0} and {@code 1}, or {@code -1} if not available */
+    public double[] processCpuLoad;
+
+    /** The CPU load of the whole system between {@code 0} and {@code 1}, or {@code -1} if not available */
+    public double[] systemCpuLoad;
+
+}
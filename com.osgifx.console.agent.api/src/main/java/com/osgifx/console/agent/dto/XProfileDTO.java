@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.dto;
+
+/**
+ * A data transfer object (DTO) representing the call tree aggregated by the sampling
+ * profiler of the agent.
+ * <p>
+ * The frames are interned, i.e. every distinct method is only contained once in
+ * {@link #frames} and referenced by its index. The nodes of the call tree are stored
+ * column by column, i.e. the element {@code i} of every node array belongs to the node
+ * {@code i}. The node {@code 0} is the synthetic root of all sampled stacks, and a parent
+ * always precedes its children.
+ *
+ * @since 12.0
+ */
+public class XProfileDTO {
+
+    /** The time the profiling has been started at in milliseconds since the epoch */
+    public long startTime;
+
+    /** The time the most recent sample has been taken at in milliseconds since the epoch */
+    public long endTime;
+
+    /** The interval between two samples in milliseconds */
+    public long interval;
+
+    /** The number of sampled stacks of runnable threads */
+    public int samples;
+
+    /** Whether the profiling is still running */
+    public boolean isRunning;
+
+    /** Whether frames have been folded into their caller as the call tree reached its maximum size */
+    public boolean isTruncated;
+
+    /** The interned frames in the form {@code class.method} */
+    public String[] frames;
+
+    /** The ID of the bundle whose class loader defines the class of every frame, or {@code -1} */
+    public long[] frameBundles;
+
+    /** The frame of every node, or {@code -1} for the root */
+    public int[] nodeFrames;
+
+    /** The parent of every node, or {@code -1} for the root */
+    public int[] nodeParents;
+
+    /** The number of sampled stacks every node is part of */
+    public int[] nodeSamples;
+
+}
@@ -54,4 +54,34 @@ public class XThreadDTO extends DTO {
     /** Indicates whether the thread is in a deadlocked state. */
     public boolean isDeadlocked;
 
+    /**
+     * The CPU time consumed by the thread in nanoseconds, or {@code -1} if not available.
+     *
+     * @since 12.0
+     */
+    public long cpuTime;
+
+    /**
+     * The CPU time consumed by the thread during the most recent sampling interval in
+     * percent of a single core, or {@code -1} if not available.
+     *
+     * @since 12.0
+     */
+    public double cpuUsage;
+
+    /**
+     * The bytes allocated by the thread on the heap, or {@code -1} if not available.
+     *
+     * @since 12.0
+     */
+    public long allocatedBytes;
+
+    /**
+     * The bytes allocated by the thread per second during the most recent sampling
+     * interval, or {@code -1} if not available.
+     *
+     * @since 12.0
+     */
+    public double allocationRate;
+
 }
\ No newline at end of file
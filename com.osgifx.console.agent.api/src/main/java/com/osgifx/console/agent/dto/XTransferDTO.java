@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.dto;
+
+import org.osgi.dto.DTO;
+
+/**
+ * Represents a chunked transfer of a large payload (such as a heap dump) that has
+ * been prepared on the agent's disk. The payload is pulled chunk by chunk using the
+ * transfer ID, so that neither the agent nor the supervisor ever holds the whole
+ * payload in memory.
+ *
+ * @since 12.0
+ */
+public class XTransferDTO extends DTO {
+
+    /** The unique ID of the transfer */
+    public String id;
+
+    /** The suggested file name of the payload */
+    public String name;
+
+    /** The total size of the payload in bytes */
+    public long size;
+
+    /** The maximum number of bytes returned for a single chunk */
+    public int chunkSize;
+
+}
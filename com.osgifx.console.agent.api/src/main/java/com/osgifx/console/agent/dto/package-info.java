@@ -14,5 +14,5 @@
  * the License.
  ******************************************************************************/
 @org.osgi.annotation.bundle.Export
-@org.osgi.annotation.versioning.Version("7.1.0")
+@org.osgi.annotation.versioning.Version("7.2.0")
 package com.osgifx.console.agent.dto;
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.rpc;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.function.Function;
+
+/**
+ * Records the method and the arguments of a single invocation on a proxy of the
+ * remote interface, so that the invocation can be sent without blocking the caller.
+ *
+ * @param <R> the remote type
+ */
+public final class InvocationRecorder<R> {
+
+    public static final class Invocation {
+        public final Method   method;
+        public final Object[] args;
+
+        Invocation(final Method method, final Object[] args) {
+            this.method = method;
+            this.args   = args;
+        }
+    }
+
+    private final Class<R>                remoteClass;
+    private final R                       proxy;
+    private final ThreadLocal<Invocation> recorded = new ThreadLocal<>();
+
+    @SuppressWarnings("unchecked")
+    public InvocationRecorder(final Class<R> remoteClass) {
+        this.remoteClass = remoteClass;
+        this.proxy       = (R) Proxy.newProxyInstance(remoteClass.getClassLoader(), new Class<?>[] { remoteClass },
+                (target, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class)
+                        return method.invoke(new Object(), args);
+                    recorded.set(new Invocation(method, args));
+                    // the result is never used, but primitives must not be unboxed from null
+                    final Class<?> returnType = method.getReturnType();
+                    if (returnType.isPrimitive() && returnType != void.class)
+                        return Array.get(Array.newInstance(returnType, 1), 0);
+                    return null;
+                });
+    }
+
+    /**
+     * Records the invocation performed by the specified function.
+     *
+     * @param invocation the function invoking exactly one method of the remote interface
+     * @return the recorded invocation
+     * @throws IllegalArgumentException if the function does not invoke any method
+     */
+    public Invocation record(final Function<R, ?> invocation) {
+        try {
+            invocation.apply(proxy);
+            final Invocation result = recorded.get();
+            if (result == null)
+                throw new IllegalArgumentException("No method of " + remoteClass.getName() + " has been invoked");
+            return result;
+        } finally {
+            recorded.remove();
+        }
+    }
+
+}
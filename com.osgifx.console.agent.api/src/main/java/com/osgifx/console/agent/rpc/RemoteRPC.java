@@ -16,6 +16,10 @@
 package com.osgifx.console.agent.rpc;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * Defines a remote RPC mechanism over an underlying connection, such as a socket or MQTT.
@@ -51,4 +55,46 @@ public interface RemoteRPC<L, R> {
      */
     boolean isOpen();
 
+    /**
+     * Sets the binary wire format version of the outgoing messages. Incoming messages
+     * are decoded regardless of their wire format version.
+     *
+     * @param version the wire format version
+     */
+    void setWireVersion(int version);
+
+    /**
+     * Invokes the remote method called by the specified function without blocking the
+     * calling thread, for example, {@code rpc.callAsync(agent -> agent.getAllServices())}.
+     * <p>
+     * Cancelling the returned future also cancels the invocation on the remote side,
+     * that is, the thread executing it gets interrupted.
+     *
+     * @param <T> the result type
+     * @param invocation the function invoking exactly one method of the remote proxy
+     * @return the future result of the invocation
+     * @since 12.0
+     */
+    <T> CompletableFuture<T> callAsync(Function<R, T> invocation);
+
+    /**
+     * Invokes the remote methods called by the specified functions in a single round trip,
+     * if the remote side supports it.
+     * <p>
+     * Each invocation completes on its own, hence a failing invocation only fails its own
+     * future. The default implementation sends every invocation separately using
+     * {@link #callAsync(Function)}.
+     *
+     * @param invocations the functions, each invoking exactly one method of the remote proxy
+     * @return the future results of the invocations in the same order
+     * @since 12.0
+     */
+    default List<CompletableFuture<Object>> callBatch(final List<Function<R, ?>> invocations) {
+        final List<CompletableFuture<Object>> results = new ArrayList<>(invocations.size());
+        for (final Function<R, ?> invocation : invocations) {
+            results.add(callAsync(invocation::apply));
+        }
+        return results;
+    }
+
 }
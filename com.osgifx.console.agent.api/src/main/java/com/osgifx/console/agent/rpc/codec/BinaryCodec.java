@@ -15,6 +15,7 @@
  ******************************************************************************/
 package com.osgifx.console.agent.rpc.codec;
 
+import static com.osgifx.console.agent.Agent.AGENT_RPC_GENERATED_CODECS_KEY;
 import static com.osgifx.console.agent.Agent.AGENT_RPC_MAX_BYTE_ARRAY_SIZE_KEY;
 import static com.osgifx.console.agent.Agent.AGENT_RPC_MAX_COLLECTION_SIZE_KEY;
 import static com.osgifx.console.agent.Agent.AGENT_RPC_MAX_MAP_SIZE_KEY;
@@ -22,8 +23,10 @@ import static com.osgifx.console.agent.Agent.AGENT_RPC_MAX_MAP_SIZE_KEY;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.invoke.CallSite;
 import java.lang.invoke.LambdaMetafactory;
 import java.lang.invoke.MethodHandle;
@@ -39,13 +42,16 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import org.osgi.framework.BundleContext;
 
@@ -64,6 +70,8 @@ import org.osgi.framework.BundleContext;
  * fields (when Unsafe is missing).</li>
  * </ul>
  * </li>
+ * <li><b>Generated Codecs:</b> In the {@link #WIRE_V2} format, the fields of a DTO class are written by a single
+ * {@code MethodHandle} tree generated at first use, the accessors above remain the fallback.</li>
  * <li><b>Schema-less:</b> Removes field names from payload.</li>
  * <li><b>Zero-Boxing:</b> Primitives are handled efficiently.</li>
  * <li><b>Portable:</b> Works on all JVMs 1.8+.</li>
@@ -71,16 +79,35 @@ import org.osgi.framework.BundleContext;
  */
 public class BinaryCodec {
 
-    private static final Map<Class<?>, FieldAccessor[]> accessorCache         = new ConcurrentHashMap<>();
-    private static final Map<Class<?>, Supplier<?>>     factoryCache          = new ConcurrentHashMap<>();
-    private static final MethodHandles.Lookup           lookup                = MethodHandles.lookup();
-    private static final Comparator<Field>              FIELD_NAME_COMPARATOR = Comparator.comparing(Field::getName);
+    private static final Map<Class<?>, FieldAccessor[]>           accessorCache         = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Optional<GeneratedCodec>> generatedCache        = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Supplier<?>>               factoryCache          = new ConcurrentHashMap<>();
+    private static final MethodHandles.Lookup                     lookup                = MethodHandles.lookup();
+    private static final Comparator<Field>                        FIELD_NAME_COMPARATOR = Comparator
+            .comparing(Field::getName);
+
+    /**
+     * The original wire format: fixed-width numbers and modified UTF-8 strings.
+     */
+    public static final int WIRE_V1 = 1;
+
+    /**
+     * The compact wire format: zig-zag varints for numbers and lengths, a per-message
+     * string table that back-references repeated strings and packed primitive arrays.
+     */
+    public static final int WIRE_V2 = 2;
 
     // Configuration limits (read once at construction)
     private final int MAX_COLLECTION_SIZE;
     private final int MAX_MAP_SIZE;
     private final int MAX_BYTE_ARRAY_SIZE;
 
+    // Whether DTOs are written by generated codecs instead of field accessors in the v2 format
+    private final boolean generatedCodecs;
+
+    // Wire format version of outgoing messages, incoming messages of any version are accepted
+    private volatile int wireVersion = WIRE_V1;
+
     // Default limits
     private static final int DEFAULT_MAX_COLLECTION_SIZE = 1_000_000;
     private static final int DEFAULT_MAX_MAP_SIZE        = 500_000;
@@ -221,10 +248,12 @@ public class BinaryCodec {
             MAX_MAP_SIZE        = getIntProperty(context, AGENT_RPC_MAX_MAP_SIZE_KEY, DEFAULT_MAX_MAP_SIZE);
             MAX_BYTE_ARRAY_SIZE = getIntProperty(context, AGENT_RPC_MAX_BYTE_ARRAY_SIZE_KEY,
                     DEFAULT_MAX_BYTE_ARRAY_SIZE);
+            generatedCodecs     = !"false".equalsIgnoreCase(context.getProperty(AGENT_RPC_GENERATED_CODECS_KEY));
         } else {
             MAX_COLLECTION_SIZE = DEFAULT_MAX_COLLECTION_SIZE;
             MAX_MAP_SIZE        = DEFAULT_MAX_MAP_SIZE;
             MAX_BYTE_ARRAY_SIZE = DEFAULT_MAX_BYTE_ARRAY_SIZE;
+            generatedCodecs     = true;
         }
     }
 
@@ -240,12 +269,38 @@ public class BinaryCodec {
         return defaultValue;
     }
 
+    /**
+     * Returns the wire format version used by {@link #encode(Object)} and
+     * {@link #encode(Object, DataOutputStream)}.
+     *
+     * @return the wire format version
+     */
+    public int getWireVersion() {
+        return wireVersion;
+    }
+
+    /**
+     * Sets the wire format version used by {@link #encode(Object)} and
+     * {@link #encode(Object, DataOutputStream)}. Must only be switched to {@link #WIRE_V2}
+     * once the remote peer has agreed on it. Decoding is not affected as the version of
+     * every message is detected on its own.
+     *
+     * @param version the wire format version ({@link #WIRE_V1} or {@link #WIRE_V2})
+     */
+    public void setWireVersion(final int version) {
+        if (version != WIRE_V1 && version != WIRE_V2) {
+            throw new IllegalArgumentException("Unsupported wire format version: " + version);
+        }
+        wireVersion = version;
+    }
+
     /**
      * Clears the static caches to prevent classloader leaks.
      * Should be called when the agent bundle is stopped.
      */
     public static void clearCache() {
         accessorCache.clear();
+        generatedCache.clear();
         factoryCache.clear();
     }
 
@@ -266,6 +321,10 @@ public class BinaryCodec {
     private static final byte MAP          = 13;
     private static final byte CHAR         = 14;
     private static final byte STRING_LARGE = 15;
+    private static final byte PACKED       = 16;
+
+    // Leading byte of a v2 message, never used as a type tag
+    private static final byte COMPACT_HEADER = (byte) 0xC2;
 
     // --- ENCODER ---
     /**
@@ -276,12 +335,25 @@ public class BinaryCodec {
      * @throws Exception if encoding fails
      */
     public byte[] encode(final Object obj) throws Exception {
+        return encode(obj, wireVersion);
+    }
+
+    /**
+     * Encodes an object into a binary byte array using the specified wire format version,
+     * independent of the {@linkplain #getWireVersion() current version} of this codec.
+     *
+     * @param obj the object to encode
+     * @param version the wire format version ({@link #WIRE_V1} or {@link #WIRE_V2})
+     * @return the binary representation
+     * @throws Exception if encoding fails
+     */
+    public byte[] encode(final Object obj, final int version) throws Exception {
         if (obj == null) {
             return new byte[] { NULL };
         }
         final FastByteArrayOutputStream baos = new FastByteArrayOutputStream(1024);
         try (DataOutputStream dos = new DataOutputStream(baos)) {
-            encode(obj, dos);
+            encode(obj, dos, version);
             dos.flush();
             final byte[] buffer = baos.getBuffer();
             final int    size   = baos.size();
@@ -294,7 +366,37 @@ public class BinaryCodec {
         }
     }
 
-    public void encode(Object obj, DataOutputStream out) throws Exception {
+    /**
+     * Encodes an object using the current {@linkplain #getWireVersion() wire format version}.
+     *
+     * @param obj the object to encode
+     * @param out the output stream
+     * @throws Exception if encoding fails
+     */
+    public void encode(final Object obj, final DataOutputStream out) throws Exception {
+        encode(obj, out, wireVersion);
+    }
+
+    /**
+     * Encodes an object using the specified wire format version. A {@link #WIRE_V2} message
+     * starts with a header byte that is never used as a type tag, so that {@link #decode(DataInputStream, Type)}
+     * detects the version of every message on its own.
+     *
+     * @param obj the object to encode
+     * @param out the output stream
+     * @param version the wire format version ({@link #WIRE_V1} or {@link #WIRE_V2})
+     * @throws Exception if encoding fails
+     */
+    public void encode(final Object obj, final DataOutputStream out, final int version) throws Exception {
+        if (version == WIRE_V2) {
+            out.writeByte(COMPACT_HEADER);
+            encodeCompact(obj, new CompactDataOutput(out));
+        } else {
+            encodeObject(obj, out);
+        }
+    }
+
+    private void encodeObject(Object obj, DataOutputStream out) throws Exception {
         if (obj == null) {
             out.writeByte(NULL);
             return;
@@ -343,14 +445,14 @@ public class BinaryCodec {
             Collection<?> col = (Collection<?>) obj;
             out.writeInt(col.size());
             for (Object item : col)
-                encode(item, out);
+                encodeObject(item, out);
         } else if (Map.class.isAssignableFrom(clz)) {
             out.writeByte(MAP);
             Map<?, ?> map = (Map<?, ?>) obj;
             out.writeInt(map.size());
             for (Map.Entry<?, ?> entry : map.entrySet()) {
-                encode(entry.getKey(), out);
-                encode(entry.getValue(), out);
+                encodeObject(entry.getKey(), out);
+                encodeObject(entry.getValue(), out);
             }
         } else if (clz.isArray()) {
             if (clz.getComponentType() == byte.class) {
@@ -364,7 +466,7 @@ public class BinaryCodec {
                 int len = Array.getLength(obj);
                 out.writeInt(len);
                 for (int i = 0; i < len; i++)
-                    encode(Array.get(obj, i), out);
+                    encodeObject(Array.get(obj, i), out);
             }
         } else {
             // DTO or POJO
@@ -375,6 +477,49 @@ public class BinaryCodec {
         }
     }
 
+    /**
+     * Encodes a list in the same representation as {@link #encode(Object, int)} and records the
+     * fingerprint (64-bit FNV-1a) of every single element on the way.
+     * <p>
+     * A fingerprint only covers the element itself: in {@link #WIRE_V2} the string table
+     * references are replaced by the content of the strings, so that the fingerprint of an
+     * element does not depend on its predecessors and is comparable across snapshots.
+     *
+     * @param elements the elements to encode
+     * @param version the wire format version ({@link #WIRE_V1} or {@link #WIRE_V2})
+     * @param fingerprints receives the fingerprint of every element, at least as long as the list
+     * @return the binary representation of the list
+     * @throws Exception if encoding fails
+     */
+    public byte[] encodeList(final List<?> elements, final int version, final long[] fingerprints)
+            throws Exception {
+        final FastByteArrayOutputStream baos        = new FastByteArrayOutputStream(1024);
+        final FingerprintOutputStream   fingerprint = new FingerprintOutputStream(baos);
+        if (version == WIRE_V2) {
+            final CompactDataOutput out = new CompactDataOutput(fingerprint);
+            out.writeByte(COMPACT_HEADER);
+            out.writeByte(LIST);
+            out.writeUnsignedVarInt(elements.size());
+            for (int i = 0; i < elements.size(); i++) {
+                fingerprint.reset();
+                encodeCompact(elements.get(i), out);
+                fingerprints[i] = fingerprint.reset();
+            }
+            out.flush();
+        } else {
+            final DataOutputStream out = new DataOutputStream(fingerprint);
+            out.writeByte(LIST);
+            out.writeInt(elements.size());
+            for (int i = 0; i < elements.size(); i++) {
+                fingerprint.reset();
+                encodeObject(elements.get(i), out);
+                fingerprints[i] = fingerprint.reset();
+            }
+            out.flush();
+        }
+        return baos.toByteArray();
+    }
+
     public <T> T decode(final byte[] data, final Class<T> type) {
         return decode(data, (Type) type);
     }
@@ -448,14 +593,216 @@ public class BinaryCodec {
         }
     }
 
+    /**
+     * Computes the 64-bit FNV-1a hash of the bytes passed through to the wrapped stream.
+     */
+    static final class FingerprintOutputStream extends FilterOutputStream {
+        private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+        private static final long PRIME        = 0x100000001b3L;
+
+        private long    hash = OFFSET_BASIS;
+        private boolean paused;
+
+        FingerprintOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (!paused) {
+                mix(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (!paused) {
+                for (int i = off; i < off + len; i++) {
+                    mix(b[i]);
+                }
+            }
+        }
+
+        void mix(int b) {
+            hash ^= b & 0xff;
+            hash *= PRIME;
+        }
+
+        void mix(String value) {
+            final int length = value.length();
+            mix(length >>> 24);
+            mix(length >>> 16);
+            mix(length >>> 8);
+            mix(length);
+            for (int i = 0; i < length; i++) {
+                final char c = value.charAt(i);
+                mix(c >>> 8);
+                mix(c);
+            }
+        }
+
+        void pause() {
+            paused = true;
+        }
+
+        void resume() {
+            paused = false;
+        }
+
+        /** Returns the hash of the bytes written since the last reset and starts over. */
+        long reset() {
+            final long current = hash;
+            hash = OFFSET_BASIS;
+            return current;
+        }
+    }
+
+    /**
+     * Writes a single {@link #WIRE_V2} message and keeps its string table.
+     */
+    static final class CompactDataOutput extends DataOutputStream {
+        private final Map<String, Integer>    strings = new HashMap<>();
+        private final FingerprintOutputStream fingerprint;
+
+        CompactDataOutput(OutputStream out) {
+            super(out);
+            fingerprint = out instanceof FingerprintOutputStream ? (FingerprintOutputStream) out : null;
+        }
+
+        void writeUnsignedVarInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        void writeVarInt(int value) throws IOException {
+            writeUnsignedVarInt((value << 1) ^ (value >> 31));
+        }
+
+        void writeVarLong(long value) throws IOException {
+            long zigZag = (value << 1) ^ (value >> 63);
+            while ((zigZag & ~0x7FL) != 0) {
+                writeByte((int) (zigZag & 0x7F) | 0x80);
+                zigZag >>>= 7;
+            }
+            writeByte((int) zigZag);
+        }
+
+        /**
+         * Writes {@code index + 1} of an already written string, otherwise {@code 0}
+         * followed by the length and the UTF-8 bytes of the new string.
+         */
+        void writeString(String value) throws IOException {
+            if (fingerprint == null) {
+                writeTableEntry(value);
+                return;
+            }
+            // the table reference depends on the preceding strings, so only the content is fingerprinted
+            fingerprint.pause();
+            try {
+                writeTableEntry(value);
+            } finally {
+                fingerprint.resume();
+            }
+            fingerprint.mix(value);
+        }
+
+        private void writeTableEntry(String value) throws IOException {
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeUnsignedVarInt(index + 1);
+                return;
+            }
+            strings.put(value, strings.size());
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeUnsignedVarInt(0);
+            writeUnsignedVarInt(bytes.length);
+            write(bytes);
+        }
+    }
+
+    /**
+     * Reads a single {@link #WIRE_V2} message and keeps its string table.
+     */
+    static final class CompactDataInput extends DataInputStream {
+        private final List<String> strings = new ArrayList<>();
+        private final int          maxStringSize;
+
+        CompactDataInput(InputStream in, int maxStringSize) {
+            super(in);
+            this.maxStringSize = maxStringSize;
+        }
+
+        int readUnsignedVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0)
+                    return value;
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        int readVarInt() throws IOException {
+            int zigZag = readUnsignedVarInt();
+            return (zigZag >>> 1) ^ -(zigZag & 1);
+        }
+
+        short readVarShort() throws IOException {
+            return (short) readVarInt();
+        }
+
+        long readVarLong() throws IOException {
+            long zigZag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                zigZag |= (long) (b & 0x7F) << shift;
+                if (b >= 0)
+                    return (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+            throw new IOException("Malformed varlong");
+        }
+
+        String readString() throws IOException {
+            int ref = readUnsignedVarInt();
+            if (ref != 0) {
+                if (ref < 0 || ref > strings.size()) {
+                    throw new IOException("Unknown string reference: " + ref);
+                }
+                return strings.get(ref - 1);
+            }
+            int len = readUnsignedVarInt();
+            // Validate string size to prevent memory exhaustion
+            if (len < 0 || len > maxStringSize) {
+                throw new IOException(String.format(
+                        "String size limit exceeded: requested %d bytes, limit is %d bytes. "
+                                + "This may indicate an attack or an unexpectedly large string.",
+                        len, maxStringSize));
+            }
+            byte[] bytes = new byte[len];
+            readFully(bytes);
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(value);
+            return value;
+        }
+    }
+
     @SuppressWarnings({ "unchecked" })
     public <T> T decode(final DataInputStream in, final Type type) throws Exception {
-        return (T) decodeObject(in, type);
+        final byte tag = in.readByte();
+        if (tag == COMPACT_HEADER) {
+            return (T) decodeCompact(new CompactDataInput(in, MAX_BYTE_ARRAY_SIZE), type);
+        }
+        return (T) decodeObject(tag, in, type);
     }
 
     @SuppressWarnings({ "unchecked", "rawtypes" })
-    private Object decodeObject(DataInputStream in, Type type) throws Exception {
-        byte tag = in.readByte();
+    private Object decodeObject(byte tag, DataInputStream in, Type type) throws Exception {
         if (tag == NULL)
             return null;
 
@@ -466,12 +813,7 @@ public class BinaryCodec {
             case LIST: {
                 int size = in.readInt();
                 // Validate collection size to prevent collection bomb attacks
-                if (size < 0 || size > MAX_COLLECTION_SIZE) {
-                    throw new IOException(String.format(
-                            "Collection size limit exceeded: requested %d elements, limit is %d. "
-                                    + "This may indicate a collection bomb attack or an unexpectedly large collection.",
-                            size, MAX_COLLECTION_SIZE));
-                }
+                checkCollectionSize(size);
                 Type compType = Object.class;
                 if (type instanceof ParameterizedType)
                     compType = ((ParameterizedType) type).getActualTypeArguments()[0];
@@ -496,12 +838,7 @@ public class BinaryCodec {
             case MAP: {
                 int size = in.readInt();
                 // Validate map size to prevent collection bomb attacks
-                if (size < 0 || size > MAX_MAP_SIZE) {
-                    throw new IOException(String.format(
-                            "Map size limit exceeded: requested %d entries, limit is %d. "
-                                    + "This may indicate a collection bomb attack or an unexpectedly large map.",
-                            size, MAX_MAP_SIZE));
-                }
+                checkMapSize(size);
                 Map<Object, Object> map   = new LinkedHashMap<>(size);
                 Type                kType = Object.class;
                 Type                vType = Object.class;
@@ -518,12 +855,7 @@ public class BinaryCodec {
                 in.readUTF(); // Skip type signature
                 int len = in.readInt();
                 // Validate byte array size to prevent memory exhaustion
-                if (len < 0 || len > MAX_BYTE_ARRAY_SIZE) {
-                    throw new IOException(String.format(
-                            "Byte array size limit exceeded: requested %d bytes, limit is %d bytes. "
-                                    + "This may indicate a collection bomb attack or an unexpectedly large array.",
-                            len, MAX_BYTE_ARRAY_SIZE));
-                }
+                checkByteArraySize(len);
                 byte[] data = new byte[len];
                 in.readFully(data);
                 return data;
@@ -579,15 +911,371 @@ public class BinaryCodec {
         }
     }
 
+    private void checkCollectionSize(final int size) throws IOException {
+        if (size < 0 || size > MAX_COLLECTION_SIZE) {
+            throw new IOException(String.format(
+                    "Collection size limit exceeded: requested %d elements, limit is %d. "
+                            + "This may indicate a collection bomb attack or an unexpectedly large collection.",
+                    size, MAX_COLLECTION_SIZE));
+        }
+    }
+
+    private void checkMapSize(final int size) throws IOException {
+        if (size < 0 || size > MAX_MAP_SIZE) {
+            throw new IOException(String.format(
+                    "Map size limit exceeded: requested %d entries, limit is %d. "
+                            + "This may indicate a collection bomb attack or an unexpectedly large map.",
+                    size, MAX_MAP_SIZE));
+        }
+    }
+
+    private void checkByteArraySize(final int len) throws IOException {
+        if (len < 0 || len > MAX_BYTE_ARRAY_SIZE) {
+            throw new IOException(String.format(
+                    "Byte array size limit exceeded: requested %d bytes, limit is %d bytes. "
+                            + "This may indicate a collection bomb attack or an unexpectedly large array.",
+                    len, MAX_BYTE_ARRAY_SIZE));
+        }
+    }
+
+    // --- COMPACT (V2) ENCODER ---
+
+    void encodeCompact(Object obj, CompactDataOutput out) throws Exception {
+        if (obj == null) {
+            out.writeByte(NULL);
+            return;
+        }
+        Class<?> clz = obj.getClass();
+        if (clz == Integer.class) {
+            out.writeByte(INT);
+            out.writeVarInt((Integer) obj);
+        } else if (clz == String.class) {
+            out.writeByte(STRING);
+            out.writeString((String) obj);
+        } else if (clz == Boolean.class) {
+            out.writeByte(BOOL);
+            out.writeBoolean((Boolean) obj);
+        } else if (clz == Long.class) {
+            out.writeByte(LONG);
+            out.writeVarLong((Long) obj);
+        } else if (clz == Double.class) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) obj);
+        } else if (clz == Float.class) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) obj);
+        } else if (clz == Byte.class) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) obj);
+        } else if (clz == Short.class) {
+            out.writeByte(SHORT);
+            out.writeVarInt((Short) obj);
+        } else if (clz == Character.class) {
+            out.writeByte(CHAR);
+            out.writeChar((Character) obj);
+        } else if (clz.isEnum()) {
+            out.writeByte(ENUM);
+            out.writeString(((Enum<?>) obj).name());
+        } else if (Collection.class.isAssignableFrom(clz)) {
+            out.writeByte(LIST);
+            Collection<?> col = (Collection<?>) obj;
+            out.writeUnsignedVarInt(col.size());
+            for (Object item : col)
+                encodeCompact(item, out);
+        } else if (Map.class.isAssignableFrom(clz)) {
+            out.writeByte(MAP);
+            Map<?, ?> map = (Map<?, ?>) obj;
+            out.writeUnsignedVarInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                encodeCompact(entry.getKey(), out);
+                encodeCompact(entry.getValue(), out);
+            }
+        } else if (clz.isArray()) {
+            if (clz.getComponentType().isPrimitive()) {
+                out.writeByte(PACKED);
+                encodePacked(obj, clz.getComponentType(), out);
+            } else {
+                out.writeByte(LIST);
+                int len = Array.getLength(obj);
+                out.writeUnsignedVarInt(len);
+                for (int i = 0; i < len; i++)
+                    encodeCompact(Array.get(obj, i), out);
+            }
+        } else {
+            // DTO or POJO
+            out.writeByte(DTO);
+            GeneratedCodec generated = getGeneratedCodec(clz);
+            if (generated != null) {
+                generated.encode(this, obj, out);
+                return;
+            }
+            FieldAccessor[] accessors = getAccessors(clz);
+            for (FieldAccessor acc : accessors)
+                acc.encodeCompact(obj, out, this);
+        }
+    }
+
+    /**
+     * Writes a primitive array as a single block: the component tag, the length and
+     * the untagged elements.
+     */
+    private static void encodePacked(Object array, Class<?> componentType, CompactDataOutput out) throws IOException {
+        if (componentType == byte.class) {
+            byte[] values = (byte[]) array;
+            out.writeByte(BYTE);
+            out.writeUnsignedVarInt(values.length);
+            out.write(values);
+        } else if (componentType == int.class) {
+            int[] values = (int[]) array;
+            out.writeByte(INT);
+            out.writeUnsignedVarInt(values.length);
+            for (int v : values)
+                out.writeVarInt(v);
+        } else if (componentType == long.class) {
+            long[] values = (long[]) array;
+            out.writeByte(LONG);
+            out.writeUnsignedVarInt(values.length);
+            for (long v : values)
+                out.writeVarLong(v);
+        } else if (componentType == boolean.class) {
+            boolean[] values = (boolean[]) array;
+            out.writeByte(BOOL);
+            out.writeUnsignedVarInt(values.length);
+            for (boolean v : values)
+                out.writeBoolean(v);
+        } else if (componentType == short.class) {
+            short[] values = (short[]) array;
+            out.writeByte(SHORT);
+            out.writeUnsignedVarInt(values.length);
+            for (short v : values)
+                out.writeVarInt(v);
+        } else if (componentType == char.class) {
+            char[] values = (char[]) array;
+            out.writeByte(CHAR);
+            out.writeUnsignedVarInt(values.length);
+            for (char v : values)
+                out.writeUnsignedVarInt(v);
+        } else if (componentType == float.class) {
+            float[] values = (float[]) array;
+            out.writeByte(FLOAT);
+            out.writeUnsignedVarInt(values.length);
+            for (float v : values)
+                out.writeFloat(v);
+        } else {
+            double[] values = (double[]) array;
+            out.writeByte(DOUBLE);
+            out.writeUnsignedVarInt(values.length);
+            for (double v : values)
+                out.writeDouble(v);
+        }
+    }
+
+    // --- COMPACT (V2) DECODER ---
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    Object decodeCompact(CompactDataInput in, Type type) throws Exception {
+        byte tag = in.readByte();
+        if (tag == NULL)
+            return null;
+
+        Class<?> rawClass = (type instanceof Class) ? (Class<?>) type
+                : (Class<?>) ((ParameterizedType) type).getRawType();
+
+        switch (tag) {
+            case LIST: {
+                int size = in.readUnsignedVarInt();
+                checkCollectionSize(size);
+                Type compType = Object.class;
+                if (type instanceof ParameterizedType)
+                    compType = ((ParameterizedType) type).getActualTypeArguments()[0];
+                else if (rawClass.isArray())
+                    compType = rawClass.getComponentType();
+
+                if (rawClass.isArray()) {
+                    Object arr = Array.newInstance((Class<?>) compType, size);
+                    for (int i = 0; i < size; i++)
+                        Array.set(arr, i, decodeCompact(in, compType));
+                    return arr;
+                }
+
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++)
+                    list.add(decodeCompact(in, compType));
+
+                if (Set.class.isAssignableFrom(rawClass))
+                    return new LinkedHashSet<>(list);
+                return list;
+            }
+            case MAP: {
+                int size = in.readUnsignedVarInt();
+                checkMapSize(size);
+                Map<Object, Object> map   = new LinkedHashMap<>(size);
+                Type                kType = Object.class;
+                Type                vType = Object.class;
+                if (type instanceof ParameterizedType) {
+                    Type[] args = ((ParameterizedType) type).getActualTypeArguments();
+                    kType = args[0];
+                    vType = args[1];
+                }
+                for (int i = 0; i < size; i++)
+                    map.put(decodeCompact(in, kType), decodeCompact(in, vType));
+                return map;
+            }
+            case PACKED:
+                return decodePacked(in, rawClass);
+            case DTO: {
+                Object         instance  = getFactory(rawClass).get();
+                GeneratedCodec generated = getGeneratedCodec(rawClass);
+                if (generated != null) {
+                    generated.decode(this, instance, in);
+                    return instance;
+                }
+                FieldAccessor[] accessors = getAccessors(rawClass);
+                for (FieldAccessor acc : accessors)
+                    acc.decodeCompact(instance, in, this);
+                return instance;
+            }
+            case BOOL:
+                return in.readBoolean();
+            case INT:
+                return in.readVarInt();
+            case LONG:
+                return in.readVarLong();
+            case DOUBLE:
+                return in.readDouble();
+            case FLOAT:
+                return in.readFloat();
+            case BYTE:
+                return in.readByte();
+            case SHORT:
+                return in.readVarShort();
+            case CHAR:
+                return in.readChar();
+            case STRING:
+                return in.readString();
+            case ENUM: {
+                final String name = in.readString();
+                if (rawClass.isEnum()) {
+                    return Enum.valueOf((Class<Enum>) rawClass, name);
+                }
+                return name;
+            }
+            default:
+                throw new IOException("Unknown tag: " + tag);
+        }
+    }
+
+    private Object decodePacked(CompactDataInput in, Class<?> rawClass) throws IOException {
+        byte   componentTag = in.readByte();
+        int    len          = in.readUnsignedVarInt();
+        Object array;
+        switch (componentTag) {
+            case BYTE: {
+                // byte arrays are always decoded as such, as in the v1 format
+                checkByteArraySize(len);
+                byte[] values = new byte[len];
+                in.readFully(values);
+                return values;
+            }
+            case INT: {
+                checkCollectionSize(len);
+                int[] values = new int[len];
+                for (int i = 0; i < len; i++)
+                    values[i] = in.readVarInt();
+                array = values;
+                break;
+            }
+            case LONG: {
+                checkCollectionSize(len);
+                long[] values = new long[len];
+                for (int i = 0; i < len; i++)
+                    values[i] = in.readVarLong();
+                array = values;
+                break;
+            }
+            case BOOL: {
+                checkCollectionSize(len);
+                boolean[] values = new boolean[len];
+                for (int i = 0; i < len; i++)
+                    values[i] = in.readBoolean();
+                array = values;
+                break;
+            }
+            case SHORT: {
+                checkCollectionSize(len);
+                short[] values = new short[len];
+                for (int i = 0; i < len; i++)
+                    values[i] = in.readVarShort();
+                array = values;
+                break;
+            }
+            case CHAR: {
+                checkCollectionSize(len);
+                char[] values = new char[len];
+                for (int i = 0; i < len; i++)
+                    values[i] = (char) in.readUnsignedVarInt();
+                array = values;
+                break;
+            }
+            case FLOAT: {
+                checkCollectionSize(len);
+                float[] values = new float[len];
+                for (int i = 0; i < len; i++)
+                    values[i] = in.readFloat();
+                array = values;
+                break;
+            }
+            case DOUBLE: {
+                checkCollectionSize(len);
+                double[] values = new double[len];
+                for (int i = 0; i < len; i++)
+                    values[i] = in.readDouble();
+                array = values;
+                break;
+            }
+            default:
+                throw new IOException("Unknown packed array tag: " + componentTag);
+        }
+        if (rawClass.isArray()) {
+            return array;
+        }
+        // the receiver expects a collection, the v1 format yields a list for primitive arrays as well
+        List<Object> list = new ArrayList<>(len);
+        for (int i = 0; i < len; i++)
+            list.add(Array.get(array, i));
+        if (Set.class.isAssignableFrom(rawClass))
+            return new LinkedHashSet<>(list);
+        return list;
+    }
+
     private FieldAccessor[] getAccessors(Class<?> clz) {
         return accessorCache.computeIfAbsent(clz, c -> {
-            return Arrays.stream(c.getFields()) // OSGi DTOs use public fields
-                    .filter(f -> !Modifier.isStatic(f.getModifiers())).sorted(FIELD_NAME_COMPARATOR)
+            return getFields(c).stream()
                     .map(f -> unsafe != null ? createUnsafeAccessor(f) : createStandardAccessor(f))
                     .toArray(FieldAccessor[]::new);
         });
     }
 
+    private GeneratedCodec getGeneratedCodec(Class<?> clz) {
+        if (!generatedCodecs) {
+            return null;
+        }
+        return generatedCache.computeIfAbsent(clz, c -> {
+            try {
+                return Optional.of(GeneratedCodec.generate(getFields(c)));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // e.g. inaccessible DTO classes, fall back to the field accessors
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+
+    private static List<Field> getFields(Class<?> clz) {
+        return Arrays.stream(clz.getFields()) // OSGi DTOs use public fields
+                .filter(f -> !Modifier.isStatic(f.getModifiers())).sorted(FIELD_NAME_COMPARATOR)
+                .collect(Collectors.toList());
+    }
+
     private Supplier<?> getFactory(Class<?> clz) {
         return factoryCache.computeIfAbsent(clz, c -> {
             try {
@@ -669,6 +1357,11 @@ public class BinaryCodec {
         void encode(Object instance, DataOutputStream out, BinaryCodec codec) throws Exception;
 
         void decode(Object instance, DataInputStream in, BinaryCodec codec) throws Exception;
+
+        // primitive fields are written without a tag in the v2 format as their type is known
+        void encodeCompact(Object instance, CompactDataOutput out, BinaryCodec codec) throws Exception;
+
+        void decodeCompact(Object instance, CompactDataInput in, BinaryCodec codec) throws Exception;
     }
 
     // --- UNSAFE IMPLEMENTATIONS (Lambda Wrappers) ---
@@ -790,6 +1483,14 @@ public class BinaryCodec {
                 throw new IOException();
             PUT_INT.put(i, offset, in.readInt());
         }
+
+        public void encodeCompact(Object i, CompactDataOutput out, BinaryCodec c) throws Exception {
+            out.writeVarInt(GET_INT.get(i, offset));
+        }
+
+        public void decodeCompact(Object i, CompactDataInput in, BinaryCodec c) throws Exception {
+            PUT_INT.put(i, offset, in.readVarInt());
+        }
     }
 
     static class LambdaBoolean implements FieldAccessor {
@@ -809,6 +1510,14 @@ public class BinaryCodec {
                 throw new IOException();
             PUT_BOOL.put(i, offset, in.readBoolean());
         }
+
+        public void encodeCompact(Object i, CompactDataOutput out, BinaryCodec c) throws Exception {
+            out.writeBoolean(GET_BOOL.get(i, offset));
+        }
+
+        public void decodeCompact(Object i, CompactDataInput in, BinaryCodec c) throws Exception {
+            PUT_BOOL.put(i, offset, in.readBoolean());
+        }
     }
 
     static class LambdaLong implements FieldAccessor {
@@ -828,6 +1537,14 @@ public class BinaryCodec {
                 throw new IOException();
             PUT_LONG.put(i, offset, in.readLong());
         }
+
+        public void encodeCompact(Object i, CompactDataOutput out, BinaryCodec c) throws Exception {
+            out.writeVarLong(GET_LONG.get(i, offset));
+        }
+
+        public void decodeCompact(Object i, CompactDataInput in, BinaryCodec c) throws Exception {
+            PUT_LONG.put(i, offset, in.readVarLong());
+        }
     }
 
     static class LambdaDouble implements FieldAccessor {
@@ -847,6 +1564,14 @@ public class BinaryCodec {
                 throw new IOException();
             PUT_DOUBLE.put(i, offset, in.readDouble());
         }
+
+        public void encodeCompact(Object i, CompactDataOutput out, BinaryCodec c) throws Exception {
+            out.writeDouble(GET_DOUBLE.get(i, offset));
+        }
+
+        public void decodeCompact(Object i, CompactDataInput in, BinaryCodec c) throws Exception {
+            PUT_DOUBLE.put(i, offset, in.readDouble());
+        }
     }
 
     static class LambdaFloat implements FieldAccessor {
@@ -866,6 +1591,14 @@ public class BinaryCodec {
                 throw new IOException();
             PUT_FLOAT.put(i, offset, in.readFloat());
         }
+
+        public void encodeCompact(Object i, CompactDataOutput out, BinaryCodec c) throws Exception {
+            out.writeFloat(GET_FLOAT.get(i, offset));
+        }
+
+        public void decodeCompact(Object i, CompactDataInput in, BinaryCodec c) throws Exception {
+            PUT_FLOAT.put(i, offset, in.readFloat());
+        }
     }
 
     static class LambdaByte implements FieldAccessor {
@@ -885,6 +1618,14 @@ public class BinaryCodec {
                 throw new IOException();
             PUT_BYTE.put(i, offset, in.readByte());
         }
+
+        public void encodeCompact(Object i, CompactDataOutput out, BinaryCodec c) throws Exception {
+            out.writeByte(GET_BYTE.get(i, offset));
+        }
+
+        public void decodeCompact(Object i, CompactDataInput in, BinaryCodec c) throws Exception {
+            PUT_BYTE.put(i, offset, in.readByte());
+        }
     }
 
     static class LambdaShort implements FieldAccessor {
@@ -904,6 +1645,14 @@ public class BinaryCodec {
                 throw new IOException();
             PUT_SHORT.put(i, offset, in.readShort());
         }
+
+        public void encodeCompact(Object i, CompactDataOutput out, BinaryCodec c) throws Exception {
+            out.writeVarInt(GET_SHORT.get(i, offset));
+        }
+
+        public void decodeCompact(Object i, CompactDataInput in, BinaryCodec c) throws Exception {
+            PUT_SHORT.put(i, offset, in.readVarShort());
+        }
     }
 
     static class LambdaChar implements FieldAccessor {
@@ -923,6 +1672,14 @@ public class BinaryCodec {
                 throw new IOException();
             PUT_CHAR.put(i, offset, in.readChar());
         }
+
+        public void encodeCompact(Object i, CompactDataOutput out, BinaryCodec c) throws Exception {
+            out.writeChar(GET_CHAR.get(i, offset));
+        }
+
+        public void decodeCompact(Object i, CompactDataInput in, BinaryCodec c) throws Exception {
+            PUT_CHAR.put(i, offset, in.readChar());
+        }
     }
 
     static class LambdaObject implements FieldAccessor {
@@ -935,12 +1692,20 @@ public class BinaryCodec {
         }
 
         public void encode(Object i, DataOutputStream out, BinaryCodec c) throws Exception {
-            c.encode(GET_OBJECT.get(i, offset), out);
+            c.encodeObject(GET_OBJECT.get(i, offset), out);
         }
 
         public void decode(Object i, DataInputStream in, BinaryCodec c) throws Exception {
             PUT_OBJECT.put(i, offset, c.decode(in, type));
         }
+
+        public void encodeCompact(Object i, CompactDataOutput out, BinaryCodec c) throws Exception {
+            c.encodeCompact(GET_OBJECT.get(i, offset), out);
+        }
+
+        public void decodeCompact(Object i, CompactDataInput in, BinaryCodec c) throws Exception {
+            PUT_OBJECT.put(i, offset, c.decodeCompact(in, type));
+        }
     }
 
     static class StandardInt implements FieldAccessor {
@@ -970,6 +1735,22 @@ public class BinaryCodec {
                 throw new RuntimeException(t);
             }
         }
+
+        public void encodeCompact(Object i, CompactDataOutput out, BinaryCodec c) throws Exception {
+            try {
+                out.writeVarInt((int) get.invokeExact(i));
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
+
+        public void decodeCompact(Object i, CompactDataInput in, BinaryCodec c) throws Exception {
+            try {
+                set.invokeExact(i, in.readVarInt());
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
     }
 
     static class StandardBoolean implements FieldAccessor {
@@ -999,6 +1780,22 @@ public class BinaryCodec {
                 throw new RuntimeException(t);
             }
         }
+
+        public void encodeCompact(Object i, CompactDataOutput out, BinaryCodec c) throws Exception {
+            try {
+                out.writeBoolean((boolean) get.invokeExact(i));
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
+
+        public void decodeCompact(Object i, CompactDataInput in, BinaryCodec c) throws Exception {
+            try {
+                set.invokeExact(i, in.readBoolean());
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
     }
 
     static class StandardLong implements FieldAccessor {
@@ -1028,6 +1825,22 @@ public class BinaryCodec {
                 throw new RuntimeException(t);
             }
         }
+
+        public void encodeCompact(Object i, CompactDataOutput out, BinaryCodec c) throws Exception {
+            try {
+                out.writeVarLong((long) get.invokeExact(i));
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
+
+        public void decodeCompact(Object i, CompactDataInput in, BinaryCodec c) throws Exception {
+            try {
+                set.invokeExact(i, in.readVarLong());
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
     }
 
     static class StandardDouble implements FieldAccessor {
@@ -1057,6 +1870,22 @@ public class BinaryCodec {
                 throw new RuntimeException(t);
             }
         }
+
+        public void encodeCompact(Object i, CompactDataOutput out, BinaryCodec c) throws Exception {
+            try {
+                out.writeDouble((double) get.invokeExact(i));
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
+
+        public void decodeCompact(Object i, CompactDataInput in, BinaryCodec c) throws Exception {
+            try {
+                set.invokeExact(i, in.readDouble());
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
     }
 
     static class StandardFloat implements FieldAccessor {
@@ -1086,6 +1915,22 @@ public class BinaryCodec {
                 throw new RuntimeException(t);
             }
         }
+
+        public void encodeCompact(Object i, CompactDataOutput out, BinaryCodec c) throws Exception {
+            try {
+                out.writeFloat((float) get.invokeExact(i));
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
+
+        public void decodeCompact(Object i, CompactDataInput in, BinaryCodec c) throws Exception {
+            try {
+                set.invokeExact(i, in.readFloat());
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
     }
 
     static class StandardByte implements FieldAccessor {
@@ -1115,6 +1960,22 @@ public class BinaryCodec {
                 throw new RuntimeException(t);
             }
         }
+
+        public void encodeCompact(Object i, CompactDataOutput out, BinaryCodec c) throws Exception {
+            try {
+                out.writeByte((byte) get.invokeExact(i));
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
+
+        public void decodeCompact(Object i, CompactDataInput in, BinaryCodec c) throws Exception {
+            try {
+                set.invokeExact(i, in.readByte());
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
     }
 
     static class StandardShort implements FieldAccessor {
@@ -1144,6 +2005,22 @@ public class BinaryCodec {
                 throw new RuntimeException(t);
             }
         }
+
+        public void encodeCompact(Object i, CompactDataOutput out, BinaryCodec c) throws Exception {
+            try {
+                out.writeVarInt((short) get.invokeExact(i));
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
+
+        public void decodeCompact(Object i, CompactDataInput in, BinaryCodec c) throws Exception {
+            try {
+                set.invokeExact(i, in.readVarShort());
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
     }
 
     static class StandardChar implements FieldAccessor {
@@ -1173,6 +2050,22 @@ public class BinaryCodec {
                 throw new RuntimeException(t);
             }
         }
+
+        public void encodeCompact(Object i, CompactDataOutput out, BinaryCodec c) throws Exception {
+            try {
+                out.writeChar((char) get.invokeExact(i));
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
+
+        public void decodeCompact(Object i, CompactDataInput in, BinaryCodec c) throws Exception {
+            try {
+                set.invokeExact(i, in.readChar());
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
     }
 
     static class StandardObject implements FieldAccessor {
@@ -1188,7 +2081,7 @@ public class BinaryCodec {
 
         public void encode(Object i, DataOutputStream out, BinaryCodec c) throws Exception {
             try {
-                c.encode(get.invoke(i), out);
+                c.encodeObject(get.invoke(i), out);
             } catch (Throwable t) {
                 throw new RuntimeException(t);
             }
@@ -1201,5 +2094,21 @@ public class BinaryCodec {
                 throw new RuntimeException(t);
             }
         }
+
+        public void encodeCompact(Object i, CompactDataOutput out, BinaryCodec c) throws Exception {
+            try {
+                c.encodeCompact(get.invoke(i), out);
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
+
+        public void decodeCompact(Object i, CompactDataInput in, BinaryCodec c) throws Exception {
+            try {
+                set.invoke(i, c.decodeCompact(in, type));
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.rpc.codec;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import com.osgifx.console.agent.rpc.codec.BinaryCodec.CompactDataInput;
+import com.osgifx.console.agent.rpc.codec.BinaryCodec.CompactDataOutput;
+
+/**
+ * A {@link BinaryCodec#WIRE_V2} encoder and decoder specialized for a single DTO class.
+ * <p>
+ * At first use, the field reads and writes of all fields are combined into a single
+ * {@link MethodHandle} tree per direction, so that a DTO is written without dispatching
+ * through a {@code FieldAccessor} per field. Primitive fields are written inline and
+ * untagged, exactly like the accessor based fallback does, hence both produce the same
+ * wire format.
+ */
+final class GeneratedCodec {
+
+    private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+    // (codec, dto, out) and (codec, dto, in)
+    private static final MethodType ENCODER_TYPE = methodType(void.class, BinaryCodec.class, Object.class,
+            CompactDataOutput.class);
+    private static final MethodType DECODER_TYPE = methodType(void.class, BinaryCodec.class, Object.class,
+            CompactDataInput.class);
+
+    private final MethodHandle encoder;
+    private final MethodHandle decoder;
+
+    private GeneratedCodec(final MethodHandle encoder, final MethodHandle decoder) {
+        this.encoder = encoder;
+        this.decoder = decoder;
+    }
+
+    /**
+     * Generates the codec for the specified fields of a DTO class.
+     *
+     * @param fields the non-static fields in wire order
+     * @return the generated codec
+     * @throws ReflectiveOperationException if a field or a codec method cannot be accessed
+     */
+    static GeneratedCodec generate(final List<Field> fields) throws ReflectiveOperationException {
+        MethodHandle encoder = noop(ENCODER_TYPE);
+        MethodHandle decoder = noop(DECODER_TYPE);
+        // the combiner of a fold runs first, so the chains are built from the last field backwards
+        for (int i = fields.size() - 1; i >= 0; i--) {
+            final Field field = fields.get(i);
+            encoder = MethodHandles.foldArguments(encoder, encoder(field));
+            decoder = MethodHandles.foldArguments(decoder, decoder(field));
+        }
+        return new GeneratedCodec(encoder, decoder);
+    }
+
+    void encode(final BinaryCodec codec, final Object dto, final CompactDataOutput out) throws Exception {
+        try {
+            encoder.invokeExact(codec, dto, out);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (final Throwable t) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    void decode(final BinaryCodec codec, final Object dto, final CompactDataInput in) throws Exception {
+        try {
+            decoder.invokeExact(codec, dto, in);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (final Throwable t) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    private static MethodHandle encoder(final Field field) throws ReflectiveOperationException {
+        final Class<?>     type   = field.getType();
+        final MethodHandle getter = lookup.unreflectGetter(field);
+        if (!type.isPrimitive()) {
+            // (codec, value, out) -> (codec, dto, out)
+            final MethodHandle write = lookup.findVirtual(BinaryCodec.class, "encodeCompact",
+                    methodType(void.class, Object.class, CompactDataOutput.class));
+            return MethodHandles.filterArguments(write, 1, getter.asType(methodType(Object.class, Object.class)));
+        }
+        final Class<?>     valueType  = writerType(type);
+        final MethodHandle write      = lookup.findVirtual(CompactDataOutput.class, writerName(type),
+                methodType(void.class, valueType));
+        final MethodHandle writeField = MethodHandles.filterArguments(write, 1,
+                getter.asType(methodType(valueType, Object.class)));
+        // (out, dto) -> (codec, dto, out)
+        return MethodHandles.permuteArguments(writeField, ENCODER_TYPE, 2, 1);
+    }
+
+    private static MethodHandle decoder(final Field field) throws ReflectiveOperationException {
+        final Class<?>     type   = field.getType();
+        final MethodHandle setter = lookup.unreflectSetter(field);
+        if (!type.isPrimitive()) {
+            // (codec, in) -> (codec, dto, in) returning the decoded value
+            MethodHandle read = lookup.findVirtual(BinaryCodec.class, "decodeCompact",
+                    methodType(Object.class, CompactDataInput.class, Type.class));
+            read = MethodHandles.insertArguments(read, 2, field.getGenericType());
+            read = MethodHandles.dropArguments(read, 1, Object.class);
+            // (dto, value) -> (value, codec, dto, in)
+            final MethodHandle set = MethodHandles.permuteArguments(
+                    setter.asType(methodType(void.class, Object.class, Object.class)),
+                    methodType(void.class, Object.class, BinaryCodec.class, Object.class, CompactDataInput.class), 2,
+                    0);
+            return MethodHandles.foldArguments(set, read);
+        }
+        final MethodHandle read = lookup.findVirtual(CompactDataInput.class, readerName(type), methodType(type));
+        final MethodHandle set  = MethodHandles.filterArguments(setter.asType(methodType(void.class, Object.class, type)),
+                1, read);
+        // (dto, in) -> (codec, dto, in)
+        return MethodHandles.dropArguments(set, 0, BinaryCodec.class);
+    }
+
+    private static String writerName(final Class<?> type) {
+        if (type == int.class || type == short.class)
+            return "writeVarInt";
+        if (type == long.class)
+            return "writeVarLong";
+        if (type == boolean.class)
+            return "writeBoolean";
+        if (type == byte.class)
+            return "writeByte";
+        if (type == char.class)
+            return "writeChar";
+        if (type == float.class)
+            return "writeFloat";
+        return "writeDouble";
+    }
+
+    private static Class<?> writerType(final Class<?> type) {
+        // DataOutputStream writes bytes, shorts and chars from an int
+        if (type == byte.class || type == short.class || type == char.class)
+            return int.class;
+        return type;
+    }
+
+    private static String readerName(final Class<?> type) {
+        if (type == int.class)
+            return "readVarInt";
+        if (type == short.class)
+            return "readVarShort";
+        if (type == long.class)
+            return "readVarLong";
+        if (type == boolean.class)
+            return "readBoolean";
+        if (type == byte.class)
+            return "readByte";
+        if (type == char.class)
+            return "readChar";
+        if (type == float.class)
+            return "readFloat";
+        return "readDouble";
+    }
+
+    private static MethodHandle noop(final MethodType type) throws ReflectiveOperationException {
+        final MethodHandle noop = lookup.findStatic(GeneratedCodec.class, "noop", methodType(void.class));
+        return MethodHandles.dropArguments(noop, 0, type.parameterList());
+    }
+
+    private static void noop() {
+        // terminates the chains of field handles
+    }
+
+}
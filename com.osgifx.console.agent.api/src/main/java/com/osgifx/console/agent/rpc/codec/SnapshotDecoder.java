@@ -110,6 +110,25 @@ public final class SnapshotDecoder {
         }
     }
 
+    /**
+     * Decompresses and decodes a versioned snapshot delta.
+     *
+     * @param <T> the DTO type
+     * @param snapshot the compressed binary delta
+     * @param type the expected DTO type
+     * @return the decoded delta, or {@code null} if snapshot is null
+     */
+    public <T> SnapshotDelta<T> decodeDelta(final byte[] snapshot, final Class<T> type) {
+        if (snapshot == null || snapshot.length == 0) {
+            return null;
+        }
+        try {
+            return SnapshotDelta.decode(codec, snapshot, type);
+        } catch (final IOException e) {
+            throw new RuntimeException("Failed to decompress snapshot delta", e);
+        }
+    }
+
     private static class ListParameterizedType implements ParameterizedType {
         private final Class<?> type;
 
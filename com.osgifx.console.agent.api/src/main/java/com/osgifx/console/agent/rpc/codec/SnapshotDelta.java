@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.rpc.codec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.osgifx.console.agent.rpc.codec.BinaryCodec.FastByteArrayInputStream;
+import com.osgifx.console.agent.rpc.codec.BinaryCodec.FastByteArrayOutputStream;
+
+/**
+ * A versioned, keyed delta of a snapshot list.
+ * <p>
+ * Snapshot endpoints that accept the last seen snapshot version reply with one
+ * of three kinds of payload:
+ * <ul>
+ * <li>{@link Kind#NOT_MODIFIED} - the caller's view is still current</li>
+ * <li>{@link Kind#FULL} - the complete list (the caller's version is unknown or too old)</li>
+ * <li>{@link Kind#DELTA} - only the added or changed DTOs and the keys of the removed ones</li>
+ * </ul>
+ * Every DTO is accompanied by the key the agent uses to identify it, so that the
+ * caller can apply the delta without knowing the identity semantics of the DTO type.
+ * <p>
+ * Wire format (LZ4-compressed with {@link Lz4Codec#compressWithLength(byte[])}):
+ *
+ * <pre>
+ * [kind:byte][version:long][keys:List&lt;String&gt;][items:List&lt;T&gt;][removed:List&lt;String&gt;]
+ * </pre>
+ *
+ * @param <T> the type of DTO contained in the snapshot list
+ * @since 12.0
+ */
+public final class SnapshotDelta<T> {
+
+    /**
+     * The kind of a {@link SnapshotDelta}
+     */
+    public enum Kind {
+        NOT_MODIFIED,
+        FULL,
+        DELTA
+    }
+
+    private final Kind         kind;
+    private final long         version;
+    private final List<String> keys;
+    private final List<T>      items;
+    private final List<String> removed;
+
+    private SnapshotDelta(final Kind kind,
+                          final long version,
+                          final List<String> keys,
+                          final List<T> items,
+                          final List<String> removed) {
+        this.kind    = kind;
+        this.version = version;
+        this.keys    = keys;
+        this.items   = items;
+        this.removed = removed;
+    }
+
+    public static <T> SnapshotDelta<T> notModified(final long version) {
+        return new SnapshotDelta<>(Kind.NOT_MODIFIED, version, Collections.emptyList(), Collections.emptyList(),
+                                   Collections.emptyList());
+    }
+
+    public static <T> SnapshotDelta<T> full(final long version, final List<String> keys, final List<T> items) {
+        return new SnapshotDelta<>(Kind.FULL, version, keys, items, Collections.emptyList());
+    }
+
+    public static <T> SnapshotDelta<T> delta(final long version,
+                                             final List<String> keys,
+                                             final List<T> items,
+                                             final List<String> removed) {
+        return new SnapshotDelta<>(Kind.DELTA, version, keys, items, removed);
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Returns the keys of {@link #items()}, index by index
+     *
+     * @return the item keys
+     */
+    public List<String> keys() {
+        return keys;
+    }
+
+    /**
+     * Returns all DTOs for {@link Kind#FULL} or the added and changed DTOs for {@link Kind#DELTA}
+     *
+     * @return the DTOs
+     */
+    public List<T> items() {
+        return items;
+    }
+
+    /**
+     * Returns the keys of the removed DTOs (only for {@link Kind#DELTA})
+     *
+     * @return the removed keys
+     */
+    public List<String> removed() {
+        return removed;
+    }
+
+    /**
+     * Applies this delta to the given keyed view and returns the resulting DTOs
+     * in iteration order. Changed DTOs retain their position, new DTOs are appended.
+     *
+     * @param view the keyed view of the previously applied snapshot (will be updated)
+     * @return the DTOs after applying this delta
+     */
+    public List<T> applyTo(final Map<String, T> view) {
+        if (kind == Kind.FULL) {
+            view.clear();
+        }
+        if (kind != Kind.NOT_MODIFIED) {
+            for (final String key : removed) {
+                view.remove(key);
+            }
+            for (int i = 0; i < items.size(); i++) {
+                view.put(keys.get(i), items.get(i));
+            }
+        }
+        return new ArrayList<>(view.values());
+    }
+
+    /**
+     * Encodes and compresses this delta using the current wire format version of the codec.
+     *
+     * @param codec the codec to use
+     * @return the compressed binary representation
+     * @throws Exception if encoding fails
+     */
+    public byte[] encode(final BinaryCodec codec) throws Exception {
+        return encode(codec, codec.getWireVersion());
+    }
+
+    /**
+     * Encodes and compresses this delta using the specified wire format version.
+     *
+     * @param codec the codec to use
+     * @param wireVersion the wire format version ({@link BinaryCodec#WIRE_V1} or {@link BinaryCodec#WIRE_V2})
+     * @return the compressed binary representation
+     * @throws Exception if encoding fails
+     */
+    public byte[] encode(final BinaryCodec codec, final int wireVersion) throws Exception {
+        final FastByteArrayOutputStream baos = new FastByteArrayOutputStream(1024);
+        try (DataOutputStream dos = new DataOutputStream(baos)) {
+            dos.writeByte(kind.ordinal());
+            dos.writeLong(version);
+            codec.encode(keys, dos, wireVersion);
+            codec.encode(items, dos, wireVersion);
+            codec.encode(removed, dos, wireVersion);
+            dos.flush();
+            return Lz4Codec.compressWithLength(baos.toByteArray());
+        }
+    }
+
+    /**
+     * Decompresses and decodes a delta.
+     *
+     * @param <T> the DTO type
+     * @param codec the codec to use
+     * @param data the compressed binary representation
+     * @param type the expected DTO type
+     * @return the decoded delta
+     * @throws IOException if decompression or decoding fails
+     */
+    public static <T> SnapshotDelta<T> decode(final BinaryCodec codec,
+                                              final byte[] data,
+                                              final Class<T> type) throws IOException {
+        final byte[] decompressed = Lz4Codec.decompressWithLength(data, Integer.MAX_VALUE);
+        try (DataInputStream in = new DataInputStream(new FastByteArrayInputStream(decompressed))) {
+            final int kindOrdinal = in.readByte();
+            if (kindOrdinal < 0 || kindOrdinal >= Kind.values().length) {
+                throw new IOException("Unknown snapshot delta kind: " + kindOrdinal);
+            }
+            final Kind         kind    = Kind.values()[kindOrdinal];
+            final long         version = in.readLong();
+            final List<String> keys    = codec.decode(in, new ListType(String.class));
+            final List<T>      items   = codec.decode(in, new ListType(type));
+            final List<String> removed = codec.decode(in, new ListType(String.class));
+            if (keys.size() != items.size()) {
+                throw new IOException("Snapshot delta keys and items mismatch: " + keys.size() + " != " + items.size());
+            }
+            return new SnapshotDelta<>(kind, version, keys, items, removed);
+        } catch (final IOException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new IOException("Failed to decode snapshot delta", e);
+        }
+    }
+
+    /**
+     * Creates a new, empty keyed view to be used with {@link #applyTo(Map)}.
+     *
+     * @param <T> the DTO type
+     * @return the keyed view
+     */
+    public static <T> Map<String, T> newView() {
+        return new LinkedHashMap<>();
+    }
+
+    private static class ListType implements ParameterizedType {
+        private final Class<?> type;
+
+        private ListType(final Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        public Type[] getActualTypeArguments() {
+            return new Type[] { type };
+        }
+
+        @Override
+        public Type getRawType() {
+            return List.class;
+        }
+
+        @Override
+        public Type getOwnerType() {
+            return null;
+        }
+    }
+
+}
@@ -14,5 +14,5 @@
  * the License.
  ******************************************************************************/
 @org.osgi.annotation.bundle.Export
-@org.osgi.annotation.versioning.Version("1.0.0")
+@org.osgi.annotation.versioning.Version("1.1.0")
 package com.osgifx.console.agent.rpc.codec;
\ No newline at end of file
@@ -35,6 +35,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -54,6 +56,8 @@ import org.osgi.util.tracker.ServiceTracker;
 
 import com.j256.simplelogging.FluentLogger;
 import com.j256.simplelogging.LoggerFactory;
+import com.osgifx.console.agent.rpc.InvocationRecorder;
+import com.osgifx.console.agent.rpc.InvocationRecorder.Invocation;
 import com.osgifx.console.agent.rpc.Lz4InputStream;
 import com.osgifx.console.agent.rpc.MethodKey;
 import com.osgifx.console.agent.rpc.RemoteRPC;
@@ -109,16 +113,31 @@ public class MqttRPC<L, R> implements Closeable, RemoteRPC<L, R> {
     // Empty array constant for zero-arg methods
     private static final Object[] EMPTY_OBJECT_ARRAY = new Object[0];
 
+    // Cancels the invocation of the request with the same correlation ID (ignored by older peers)
+    private static final String CANCEL = "#cancel";
+    // Carries several encoded invocations which are answered in a single response
+    private static final String BATCH  = "#batch";
+
+    // the peer executes batches (agreed on the compact wire format)
+    private volatile boolean extended;
+
+    // notified of every request of the peer, whose presence is only known by its requests
+    private volatile Runnable requestListener;
+
+    // Threads currently invoking local methods by correlation ID
+    private final Map<String, Thread> running = new ConcurrentHashMap<>();
+
     // Adaptive Compression Threshold
     private final AtomicInteger compressionThreshold  = new AtomicInteger(1024);
     private final AtomicInteger compressionSamples    = new AtomicInteger(0);
     private final AtomicInteger totalCompressionRatio = new AtomicInteger(0);
 
-    private final L               local;
-    private R                     remote;
-    private final Class<R>        remoteClass;
-    private final ExecutorService executor;
-    private final ReentrantLock   remoteLock = new ReentrantLock();
+    private final L                     local;
+    private R                           remote;
+    private final Class<R>              remoteClass;
+    private final InvocationRecorder<R> recorder;
+    private final ExecutorService       executor;
+    private final ReentrantLock         remoteLock = new ReentrantLock();
 
     @SuppressWarnings("unchecked")
     public MqttRPC(final BundleContext bundleContext,
@@ -130,6 +149,7 @@ public class MqttRPC<L, R> implements Closeable, RemoteRPC<L, R> {
 
         this.bundleContext = bundleContext;
         this.remoteClass   = remoteClass;
+        this.recorder      = new InvocationRecorder<>(remoteClass);
         this.local         = local == null ? (L) this : local;
         this.pubTopic      = pubTopic;
         this.subTopic      = subTopic;
@@ -169,6 +189,16 @@ public class MqttRPC<L, R> implements Closeable, RemoteRPC<L, R> {
         }
     }
 
+    /**
+     * Sets the listener that is notified of every request received from the peer before
+     * the request is handled.
+     *
+     * @param listener the listener, or {@code null} to remove it
+     */
+    public void setRequestListener(final Runnable listener) {
+        requestListener = listener;
+    }
+
     @Override
     public void open() {
         if (!started.compareAndSet(false, true)) {
@@ -292,10 +322,192 @@ public class MqttRPC<L, R> implements Closeable, RemoteRPC<L, R> {
         }
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> callAsync(final Function<R, T> invocation) {
+        final CompletableFuture<Object> future        = new CompletableFuture<>();
+        final String                    correlationId = UUID.randomUUID().toString();
+        try {
+            final Invocation call    = recorder.record(invocation);
+            final byte[]     payload = encodeRequest(call.method.getName(), call.args);
+
+            final MqttRequestMultiplexer multiplexer = multiplexerTracker.getService();
+            if (multiplexer == null) {
+                throw new IOException("MqttRequestMultiplexer is unavailable");
+            }
+            final CancellablePromise<Message> promise = withMessageContextBuilder(mcb -> {
+                final Message request = mcb.channel(pubTopic).correlationId(correlationId)
+                        .content(ByteBuffer.wrap(payload)).buildMessage();
+                return multiplexer.request(request, mcb.channel(pubTopic + "/reply").buildContext());
+            });
+            promise.onSuccess(response -> {
+                try {
+                    future.complete(decodeResponse(response, call.method.getGenericReturnType()));
+                } catch (final Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }).onFailure(future::completeExceptionally);
+            future.whenComplete((r, e) -> {
+                if (future.isCancelled()) {
+                    promise.cancel();
+                    sendCancel(correlationId);
+                }
+            });
+        } catch (final Exception e) {
+            future.completeExceptionally(e);
+        }
+        return (CompletableFuture<T>) future;
+    }
+
+    @Override
+    public List<CompletableFuture<Object>> callBatch(final List<Function<R, ?>> invocations) {
+        if (!extended) {
+            return RemoteRPC.super.callBatch(invocations);
+        }
+        final List<CompletableFuture<Object>> futures = new ArrayList<>(invocations.size());
+        for (int i = 0; i < invocations.size(); i++) {
+            futures.add(new CompletableFuture<>());
+        }
+        try {
+            final Type[]   types = new Type[invocations.size()];
+            final Object[] calls = new Object[invocations.size()];
+            for (int i = 0; i < invocations.size(); i++) {
+                final Invocation call = recorder.record(invocations.get(i));
+                types[i] = call.method.getGenericReturnType();
+                calls[i] = encodeCall(call);
+            }
+            final byte[] payload = encodeRequest(BATCH, calls);
+
+            final MqttRequestMultiplexer multiplexer = multiplexerTracker.getService();
+            if (multiplexer == null) {
+                throw new IOException("MqttRequestMultiplexer is unavailable");
+            }
+            final CancellablePromise<Message> promise = withMessageContextBuilder(mcb -> {
+                final Message request = mcb.channel(pubTopic).correlationId(UUID.randomUUID().toString())
+                        .content(ByteBuffer.wrap(payload)).buildMessage();
+                return multiplexer.request(request, mcb.channel(pubTopic + "/reply").buildContext());
+            });
+            promise.onSuccess(response -> {
+                try {
+                    completeBatch(futures, types, (byte[]) decodeResponse(response, byte[].class));
+                } catch (final Exception e) {
+                    futures.forEach(f -> f.completeExceptionally(e));
+                }
+            }).onFailure(e -> futures.forEach(f -> f.completeExceptionally(e)));
+        } catch (final Exception e) {
+            futures.forEach(f -> f.completeExceptionally(e));
+        }
+        return futures;
+    }
+
+    private byte[] encodeCall(final Invocation call) throws Exception {
+        final FastByteArrayOutputStream bout = new FastByteArrayOutputStream(256);
+        final DataOutputStream          out  = new DataOutputStream(bout);
+        out.writeUTF(call.method.getName());
+        final Object[] args = call.args == null ? EMPTY_OBJECT_ARRAY : call.args;
+        out.writeShort(args.length);
+        final FastByteArrayOutputStream argBout = new FastByteArrayOutputStream(256);
+        final DataOutputStream          argOut  = new DataOutputStream(argBout);
+        for (final Object arg : args) {
+            argBout.reset();
+            codec.encode(arg, argOut);
+            out.writeInt(argBout.size());
+            out.write(argBout.getBuffer(), 0, argBout.size());
+        }
+        out.flush();
+        return bout.toByteArray();
+    }
+
+    private void completeBatch(final List<CompletableFuture<Object>> futures,
+                               final Type[] types,
+                               final byte[] results) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FastByteArrayInputStream(results))) {
+            for (int i = 0; i < futures.size(); i++) {
+                final boolean failed = in.readBoolean();
+                final byte[]  value  = new byte[in.readInt()];
+                in.readFully(value);
+                try (DataInputStream valueIn = new DataInputStream(new FastByteArrayInputStream(value))) {
+                    if (failed) {
+                        final String errorMsg = (String) codec.decode(valueIn, String.class);
+                        futures.get(i).completeExceptionally(new RuntimeException("Remote RPC Error: " + errorMsg));
+                    } else {
+                        futures.get(i).complete(types[i] == void.class ? null : codec.decode(valueIn, types[i]));
+                    }
+                } catch (final Exception e) {
+                    futures.get(i).completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private byte[] executeBatch(final String correlationId, final List<byte[]> calls) throws Exception {
+        // each result is written as its status followed by the length and the encoded value or error
+        final FastByteArrayOutputStream bout     = new FastByteArrayOutputStream(4096);
+        final DataOutputStream          out      = new DataOutputStream(bout);
+        final FastByteArrayOutputStream valueOut = new FastByteArrayOutputStream(1024);
+        final DataOutputStream          valueDos = new DataOutputStream(valueOut);
+        for (final byte[] encoded : calls) {
+            Object  result;
+            boolean failed = false;
+            try (DataInputStream argIn = new DataInputStream(new FastByteArrayInputStream(encoded));
+                    DataInputStream call = new DataInputStream(
+                            new FastByteArrayInputStream((byte[]) codec.decode(argIn, byte[].class)))) {
+                final String   methodName = call.readUTF();
+                final int      count      = call.readShort();
+                final Object[] params     = new Object[count];
+                final Method   m          = methodKeyCache.get(new MethodKey(methodName, count));
+                if (m == null) {
+                    throw new NoSuchMethodException("Method not found: " + methodName);
+                }
+                final Type[] genericTypes = genericParameterTypeCache.get(m);
+                for (int i = 0; i < count; i++) {
+                    final byte[] arg = new byte[call.readInt()];
+                    call.readFully(arg);
+                    try (DataInputStream in = new DataInputStream(new FastByteArrayInputStream(arg))) {
+                        params[i] = codec.decode(in, genericTypes[i]);
+                    }
+                }
+                result = invoke(correlationId, m, params);
+            } catch (Throwable t) {
+                failed = true;
+                result = Exceptions.unrollCause(t, InvocationTargetException.class).getMessage();
+            }
+            valueOut.reset();
+            codec.encode(result, valueDos);
+            out.writeBoolean(failed);
+            out.writeInt(valueOut.size());
+            out.write(valueOut.getBuffer(), 0, valueOut.size());
+        }
+        out.flush();
+        return bout.toByteArray();
+    }
+
+    private void sendCancel(final String correlationId) {
+        final MessagePublisher publisher = publisherTracker.getService();
+        if (publisher == null) {
+            return;
+        }
+        try {
+            final byte[] payload = encodeRequest(CANCEL, null);
+            // no reply channel, hence the peer never responds
+            withMessageContextBuilder(mcb -> {
+                publisher.publish(mcb.channel(pubTopic).correlationId(correlationId).content(ByteBuffer.wrap(payload))
+                        .buildMessage());
+                return null;
+            });
+        } catch (final Exception e) {
+            logger.atWarn().msg("Cannot cancel remote invocation '{}'").arg(correlationId).throwable(e).log();
+        }
+    }
+
     private byte[] encodeRequest(Method method, Object[] args) throws IOException {
+        return encodeRequest(method.getName(), args);
+    }
+
+    private byte[] encodeRequest(String methodName, Object[] args) throws IOException {
         final FastByteArrayOutputStream bout = buffer.get();
         return adaptivelyCompress(bout, out -> {
-            out.writeUTF(method.getName());
+            out.writeUTF(methodName);
             if (args != null) {
                 out.writeShort(args.length);
                 FastByteArrayOutputStream argBout = argBuffer.get();
@@ -443,6 +655,33 @@ public class MqttRPC<L, R> implements Closeable, RemoteRPC<L, R> {
                 }
             }
 
+            String replyTo  = msg.getContext().getReplyToChannel();
+            String correlId = msg.getContext().getCorrelationId();
+
+            final Runnable listener = requestListener;
+            if (listener != null) {
+                listener.run();
+            }
+
+            if (CANCEL.equals(methodName)) {
+                // interrupts only while the invocation is running, see invoke()
+                if (correlId != null) {
+                    running.computeIfPresent(correlId, (k, thread) -> {
+                        thread.interrupt();
+                        return thread;
+                    });
+                }
+                return;
+            }
+
+            if (BATCH.equals(methodName)) {
+                final byte[] results = executeBatch(correlId, rawArgs);
+                if (replyTo != null && correlId != null) {
+                    sendResponse(replyTo, correlId, results, false, null);
+                }
+                return;
+            }
+
             // Execute
             Object  result   = null;
             boolean isError  = false;
@@ -456,7 +695,7 @@ public class MqttRPC<L, R> implements Closeable, RemoteRPC<L, R> {
                 // Fast-path for zero-argument methods
                 if (rawArgs.size() == 0) {
                     try {
-                        result = m.invoke(local, EMPTY_OBJECT_ARRAY);
+                        result = invoke(correlId, m, EMPTY_OBJECT_ARRAY);
                     } catch (Throwable t) {
                         isError  = true;
                         errorMsg = Exceptions.unrollCause(t, InvocationTargetException.class).getMessage();
@@ -487,7 +726,7 @@ public class MqttRPC<L, R> implements Closeable, RemoteRPC<L, R> {
                         for (int i = 0; i < rawArgs.size(); i++) {
                             tempParams[i] = null;
                         }
-                        result = m.invoke(local, args);
+                        result = invoke(correlId, m, args);
                     } catch (Throwable t) {
                         isError  = true;
                         errorMsg = Exceptions.unrollCause(t, InvocationTargetException.class).getMessage();
@@ -499,9 +738,6 @@ public class MqttRPC<L, R> implements Closeable, RemoteRPC<L, R> {
             }
 
             // Send Response (Dynamic Routing)
-            String replyTo  = msg.getContext().getReplyToChannel();
-            String correlId = msg.getContext().getCorrelationId();
-
             if (replyTo != null && correlId != null) {
                 sendResponse(replyTo, correlId, result, isError, errorMsg);
             }
@@ -511,6 +747,20 @@ public class MqttRPC<L, R> implements Closeable, RemoteRPC<L, R> {
         }
     }
 
+    private Object invoke(String correlationId, Method m, Object[] args) throws Exception {
+        if (correlationId == null) {
+            return m.invoke(local, args);
+        }
+        running.put(correlationId, Thread.currentThread());
+        try {
+            return m.invoke(local, args);
+        } finally {
+            running.remove(correlationId);
+            // clears a cancellation that arrived after the invocation has finished
+            Thread.interrupted();
+        }
+    }
+
     private void sendResponse(String topic, String correlationId, Object result, boolean isError, String errorMsg) {
         Optional<MessagePublisher> publisherOpt = Optional.ofNullable(publisherTracker.getService());
 
@@ -555,6 +805,12 @@ public class MqttRPC<L, R> implements Closeable, RemoteRPC<L, R> {
         return !stopped.get();
     }
 
+    @Override
+    public void setWireVersion(final int version) {
+        codec.setWireVersion(version);
+        extended = version >= BinaryCodec.WIRE_V2;
+    }
+
     // Update adaptive compression threshold based on compression ratio
     private void updateCompressionThreshold(int uncompressedSize, int compressedSize) {
         // Calculate compression ratio as percentage (e.g., 50 = 50% compression)
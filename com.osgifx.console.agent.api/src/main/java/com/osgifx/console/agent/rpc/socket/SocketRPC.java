@@ -16,9 +16,11 @@
 package com.osgifx.console.agent.rpc.socket;
 
 import static com.osgifx.console.agent.Agent.AGENT_RPC_MAX_DECOMPRESSED_SIZE_KEY;
+import static com.osgifx.console.agent.rpc.codec.BinaryCodec.WIRE_V2;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.DataInputStream;
@@ -34,23 +36,29 @@ import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 import org.osgi.framework.BundleContext;
 
 import com.j256.simplelogging.FluentLogger;
 import com.j256.simplelogging.LoggerFactory;
+import com.osgifx.console.agent.rpc.InvocationRecorder;
+import com.osgifx.console.agent.rpc.InvocationRecorder.Invocation;
 import com.osgifx.console.agent.rpc.Lz4InputStream;
 import com.osgifx.console.agent.rpc.MethodKey;
 import com.osgifx.console.agent.rpc.RemoteRPC;
@@ -64,16 +72,23 @@ import aQute.bnd.exceptions.Exceptions;
 /**
  * Socket Implementation of RemoteRPC.
  * Optimized for constrained networks using TCP_NODELAY, Buffering, and LZ4 compression.
+ * <p>
+ * Outgoing messages are scheduled on two {@link Lane lanes}. Messages that fit in a single
+ * frame are sent on the interactive lane which is always served first, larger ones on the
+ * bulk lane. Once both peers agreed on {@link BinaryCodec#WIRE_V2}, bulk messages are split
+ * into frames which are interleaved with the other messages, so that a large response, such
+ * as a heap dump, does not block small calls until it has been written completely.
  */
 public class SocketRPC<L, R> extends Thread implements Closeable, RemoteRPC<L, R> {
 
     private final DataInputStream         in;
     private final DataOutputStream        out;
-    private final AtomicInteger           id       = new AtomicInteger(10_000);
-    private final Map<Integer, RpcResult> promises = new ConcurrentHashMap<>();
-    private final AtomicBoolean           stopped  = new AtomicBoolean();
-    private final ThreadLocal<Integer>    msgId    = new ThreadLocal<>();
-    private final FluentLogger            logger   = LoggerFactory.getFluentLogger(getClass());
+    private final AtomicInteger           id         = new AtomicInteger(10_000);
+    private final Map<Integer, RpcResult> promises   = new ConcurrentHashMap<>();
+    private final AtomicBoolean           stopped    = new AtomicBoolean();
+    private final AtomicBoolean           terminated = new AtomicBoolean();
+    private final ThreadLocal<Integer>    msgId      = new ThreadLocal<>();
+    private final FluentLogger            logger     = LoggerFactory.getFluentLogger(getClass());
 
     // Shared codec and reusable buffers
     private final BinaryCodec                            codec;
@@ -95,6 +110,29 @@ public class SocketRPC<L, R> extends Thread implements Closeable, RemoteRPC<L, R
     // Empty array constant for zero-arg methods
     private static final Object[] EMPTY_OBJECT_ARRAY = new Object[0];
 
+    // Frames of fragmented messages (not valid method names, hence never dispatched)
+    private static final String FRAGMENT      = "#+";
+    private static final String LAST_FRAGMENT = "#.";
+    private static final int    FRAME_SIZE    = 64 * 1024;
+
+    // Cancels the invocation of the message with the same ID (ignored by older peers)
+    private static final String CANCEL = "#cancel";
+    // Carries several encoded invocations which are answered in a single response
+    private static final String BATCH  = "#batch";
+
+    // Threads currently invoking local methods by message ID
+    private final Map<Integer, Thread> running = new ConcurrentHashMap<>();
+
+    // Outgoing lanes in the order they are served
+    private final LaneQueue[]   lanes    = { new LaneQueue(Lane.INTERACTIVE), new LaneQueue(Lane.BULK) };
+    private final AtomicInteger streamId = new AtomicInteger(1);
+    private volatile boolean    extended; // the peer reassembles fragments and executes batches
+
+    private final ThreadLocal<FastByteArrayOutputStream> messageBuffer      = ThreadLocal
+            .withInitial(() -> new FastByteArrayOutputStream(4096));
+    private final ThreadLocal<DataOutputStream>          messageEncodingOut = ThreadLocal
+            .withInitial(() -> new DataOutputStream(messageBuffer.get()));
+
     // Promise Pool (max 16 results)
     private final Queue<RpcResult> resultPool           = new ConcurrentLinkedQueue<>();
     private static final int       MAX_RESULT_POOL_SIZE = 16;
@@ -104,16 +142,21 @@ public class SocketRPC<L, R> extends Thread implements Closeable, RemoteRPC<L, R
     private final AtomicInteger compressionSamples    = new AtomicInteger(0);
     private final AtomicInteger totalCompressionRatio = new AtomicInteger(0);
 
-    private L                   local;
-    private R                   remote;
-    private final Class<R>      remoteClass;
-    private ExecutorService     executor;
-    private final ReentrantLock outLock = new ReentrantLock();
+    private L                           local;
+    private R                           remote;
+    private final Class<R>              remoteClass;
+    private final InvocationRecorder<R> recorder;
+    private ExecutorService             executor;
+    private final ReentrantLock         outLock = new ReentrantLock();
 
     private static class RpcResult {
-        CountDownLatch latch;
-        byte[]         value;
-        boolean        exception;
+        CountDownLatch                  latch;
+        byte[]                          value;
+        boolean                         exception;
+        CompletableFuture<Object>       future; // set for asynchronous calls
+        Type                            type;   // the result type of asynchronous calls
+        List<CompletableFuture<Object>> batch;  // set for batches
+        Type[]                          types;  // the result types of batches
 
         RpcResult() {
             reset();
@@ -123,6 +166,130 @@ public class SocketRPC<L, R> extends Thread implements Closeable, RemoteRPC<L, R
             this.latch     = new CountDownLatch(1);
             this.value     = null;
             this.exception = false;
+            this.future    = null;
+            this.type      = null;
+            this.batch     = null;
+            this.types     = null;
+        }
+    }
+
+    /**
+     * The lanes outgoing messages are scheduled on.
+     */
+    public enum Lane {
+        /** Messages fitting in a single frame, always written first */
+        INTERACTIVE,
+        /** Larger messages, written frame by frame whenever no interactive message is pending */
+        BULK
+    }
+
+    /**
+     * A snapshot of the statistics of a single {@link Lane}.
+     */
+    public static final class LaneStatistics {
+        private final Lane lane;
+        private final int  queueDepth;
+        private final long messages;
+        private final long totalLatencyMicros;
+        private final long averageLatencyMicros;
+        private final long maxLatencyMicros;
+
+        LaneStatistics(final Lane lane,
+                       final int queueDepth,
+                       final long messages,
+                       final long totalLatencyMicros,
+                       final long averageLatencyMicros,
+                       final long maxLatencyMicros) {
+            this.lane                 = lane;
+            this.queueDepth           = queueDepth;
+            this.messages             = messages;
+            this.totalLatencyMicros   = totalLatencyMicros;
+            this.averageLatencyMicros = averageLatencyMicros;
+            this.maxLatencyMicros     = maxLatencyMicros;
+        }
+
+        /** @return the lane */
+        public Lane lane() {
+            return lane;
+        }
+
+        /** @return the number of messages currently waiting to be written completely */
+        public int queueDepth() {
+            return queueDepth;
+        }
+
+        /** @return the number of messages written so far */
+        public long messages() {
+            return messages;
+        }
+
+        /** @return the sum of the times between queueing and writing the last frame of all written messages */
+        public long totalLatencyMicros() {
+            return totalLatencyMicros;
+        }
+
+        /** @return the average time between queueing and writing the last frame of a message */
+        public long averageLatencyMicros() {
+            return averageLatencyMicros;
+        }
+
+        /** @return the maximum time between queueing and writing the last frame of a message */
+        public long maxLatencyMicros() {
+            return maxLatencyMicros;
+        }
+
+        @Override
+        public String toString() {
+            return lane + "[queueDepth=" + queueDepth + ", messages=" + messages + ", averageLatencyMicros="
+                    + averageLatencyMicros + ", maxLatencyMicros=" + maxLatencyMicros + "]";
+        }
+    }
+
+    private static final class LaneQueue {
+        final Lane            lane;
+        final Queue<Outgoing> messages     = new ConcurrentLinkedQueue<>();
+        final AtomicInteger   depth        = new AtomicInteger();
+        final AtomicLong      written      = new AtomicLong();
+        final AtomicLong      totalLatency = new AtomicLong();
+        final AtomicLong      maxLatency   = new AtomicLong();
+
+        LaneQueue(final Lane lane) {
+            this.lane = lane;
+        }
+
+        void completed(final Outgoing message) {
+            final long latency = System.nanoTime() - message.queued;
+            depth.decrementAndGet();
+            written.incrementAndGet();
+            totalLatency.addAndGet(latency);
+            long max;
+            while (latency > (max = maxLatency.get()) && !maxLatency.compareAndSet(max, latency)) {
+                // retry
+            }
+        }
+
+        LaneStatistics statistics() {
+            final long count = written.get();
+            final long total = totalLatency.get();
+            return new LaneStatistics(lane, depth.get(), count, TimeUnit.NANOSECONDS.toMicros(total),
+                                      count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(total / count),
+                                      TimeUnit.NANOSECONDS.toMicros(maxLatency.get()));
+        }
+    }
+
+    private static final class Outgoing {
+        final byte[] data;
+        final int    length;
+        final int    stream; // 0 if the message is written as a whole
+        final long   queued;
+        int          offset;  // guarded by outLock
+        boolean      written; // guarded by outLock
+
+        Outgoing(final byte[] data, final int length, final int stream) {
+            this.data   = data;
+            this.length = length;
+            this.stream = stream;
+            this.queued = System.nanoTime();
         }
     }
 
@@ -188,6 +355,7 @@ public class SocketRPC<L, R> extends Thread implements Closeable, RemoteRPC<L, R
         super("fx-agent-rpc::" + remoteClass.getName());
         setDaemon(true);
         this.remoteClass = remoteClass;
+        this.recorder    = new InvocationRecorder<>(remoteClass);
         this.local       = local == null ? (L) this : local;
         this.in          = in;
         this.out         = out;
@@ -243,6 +411,10 @@ public class SocketRPC<L, R> extends Thread implements Closeable, RemoteRPC<L, R
     }
 
     protected void terminate(final String message) {
+        if (terminated.compareAndSet(false, true)) {
+            // reached by close() as well as by the reader, the lanes are summarized once per connection
+            logger.atInfo().msg("RPC lane statistics of the closed channel: {}").arg(getLaneStatistics()).log();
+        }
         try {
             if (in != null)
                 in.close();
@@ -263,6 +435,14 @@ public class SocketRPC<L, R> extends Thread implements Closeable, RemoteRPC<L, R
         }
         final byte[] errorData = bout.toByteArray();
         for (final RpcResult result : promises.values()) {
+            if (result.future != null) {
+                result.future.completeExceptionally(new RuntimeException(message));
+                continue;
+            }
+            if (result.batch != null) {
+                result.batch.forEach(f -> f.completeExceptionally(new RuntimeException(message)));
+                continue;
+            }
             result.exception = true;
             result.value     = errorData;
             result.latch.countDown();
@@ -284,7 +464,7 @@ public class SocketRPC<L, R> extends Thread implements Closeable, RemoteRPC<L, R
                                 return method.invoke(new Object(), args);
                             int msgId = -1;
                             try {
-                                msgId = send(id.getAndIncrement(), method, args);
+                                msgId = send(id.getAndIncrement(), method, args, null);
                                 if (method.getReturnType() == void.class) {
                                     promises.remove(msgId);
                                     return null;
@@ -312,31 +492,109 @@ public class SocketRPC<L, R> extends Thread implements Closeable, RemoteRPC<L, R
         return !stopped.get();
     }
 
+    @Override
+    public void setWireVersion(final int version) {
+        codec.setWireVersion(version);
+        // peers supporting the compact wire format also support fragments and batches
+        extended = version >= WIRE_V2;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> callAsync(final Function<R, T> invocation) {
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        final int                       msgId  = id.getAndIncrement();
+        try {
+            final Invocation call = recorder.record(invocation);
+            send(msgId, call.method, call.args, future);
+            if (call.method.getReturnType() == void.class) {
+                promises.remove(msgId);
+                future.complete(null);
+            }
+        } catch (final Exception e) {
+            promises.remove(msgId);
+            future.completeExceptionally(e);
+        }
+        future.whenComplete((r, e) -> {
+            if (future.isCancelled() && promises.remove(msgId) != null) {
+                sendCancel(msgId);
+            }
+        });
+        return (CompletableFuture<T>) future;
+    }
+
+    @Override
+    public List<CompletableFuture<Object>> callBatch(final List<Function<R, ?>> invocations) {
+        if (!extended) {
+            return RemoteRPC.super.callBatch(invocations);
+        }
+        final int                             msgId   = id.getAndIncrement();
+        final List<CompletableFuture<Object>> futures = new ArrayList<>(invocations.size());
+        final Type[]                          types   = new Type[invocations.size()];
+        final Object[]                        calls   = new Object[invocations.size()];
+        for (int i = 0; i < invocations.size(); i++) {
+            futures.add(new CompletableFuture<>());
+        }
+        try {
+            for (int i = 0; i < invocations.size(); i++) {
+                final Invocation call = recorder.record(invocations.get(i));
+                types[i] = call.method.getGenericReturnType();
+                calls[i] = encodeCall(call);
+            }
+            final RpcResult result = new RpcResult();
+            result.batch = futures;
+            result.types = types;
+            promises.put(msgId, result);
+            writeMessage(BATCH, msgId, calls);
+        } catch (final Exception e) {
+            promises.remove(msgId);
+            futures.forEach(f -> f.completeExceptionally(e));
+        }
+        return futures;
+    }
+
+    /**
+     * Returns the current statistics of the outgoing lanes.
+     *
+     * @return the statistics of all lanes in the order they are served
+     */
+    public List<LaneStatistics> getLaneStatistics() {
+        final List<LaneStatistics> statistics = new ArrayList<>(lanes.length);
+        for (final LaneQueue lane : lanes) {
+            statistics.add(lane.statistics());
+        }
+        return Collections.unmodifiableList(statistics);
+    }
+
     @Override
     public void run() {
+        // partially received fragmented messages by stream
+        final Map<Integer, FastByteArrayOutputStream> fragments = new HashMap<>();
         while (!isInterrupted() && !stopped.get()) {
             try {
-                final String       cmd   = in.readUTF();
-                final int          id    = in.readInt();
-                final int          count = in.readShort();
-                final List<byte[]> args  = new ArrayList<>(count);
-                for (int i = 0; i < count; i++) {
-                    final int    length = in.readInt();
-                    final byte[] data   = new byte[length];
-                    in.readFully(data);
-                    args.add(data);
+                final String       cmd  = in.readUTF();
+                final int          id   = in.readInt();
+                final List<byte[]> args = readArguments(in);
+                if (CANCEL.equals(cmd)) {
+                    cancel(id);
+                    continue;
+                }
+                if (!FRAGMENT.equals(cmd) && !LAST_FRAGMENT.equals(cmd)) {
+                    dispatch(cmd, id, args);
+                    continue;
+                }
+                FastByteArrayOutputStream stream = fragments.get(id);
+                if (stream == null) {
+                    stream = new FastByteArrayOutputStream(2 * FRAME_SIZE);
+                    fragments.put(id, stream);
+                }
+                stream.write(args.get(0));
+                if (LAST_FRAGMENT.equals(cmd)) {
+                    fragments.remove(id);
+                    final DataInputStream message = new DataInputStream(
+                            new ByteArrayInputStream(stream.getBuffer(), 0, stream.size()));
+                    dispatch(message.readUTF(), message.readInt(), readArguments(message));
                 }
-                final Runnable r = () -> {
-                    try {
-                        msgId.set(id);
-                        executeCommand(cmd, id, args);
-                    } catch (Exception e) {
-                        logger.atError().msg("Error executing command").throwable(e).log();
-                    } finally {
-                        msgId.remove();
-                    }
-                };
-                executor.execute(r);
             } catch (SocketTimeoutException ee) {
                 // Ignore
             } catch (Exception ee) {
@@ -350,6 +608,64 @@ public class SocketRPC<L, R> extends Thread implements Closeable, RemoteRPC<L, R
         terminate("RPC channel closed");
     }
 
+    private static List<byte[]> readArguments(final DataInputStream in) throws IOException {
+        final int          count = in.readShort();
+        final List<byte[]> args  = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final int    length = in.readInt();
+            final byte[] data   = new byte[length];
+            in.readFully(data);
+            args.add(data);
+        }
+        return args;
+    }
+
+    private void cancel(final int id) {
+        // interrupts only while the invocation is running, see invoke()
+        running.computeIfPresent(id, (k, thread) -> {
+            thread.interrupt();
+            return thread;
+        });
+    }
+
+    private Object invoke(final int id, final Method m, final Object[] parameters) throws Exception {
+        running.put(id, Thread.currentThread());
+        try {
+            return m.invoke(local, parameters);
+        } finally {
+            running.remove(id);
+            // clears a cancellation that arrived after the invocation has finished
+            Thread.interrupted();
+        }
+    }
+
+    private void sendCancel(final int msgId) {
+        try {
+            final FastByteArrayOutputStream message    = new FastByteArrayOutputStream(16);
+            final DataOutputStream          messageOut = new DataOutputStream(message);
+            messageOut.writeUTF(CANCEL);
+            messageOut.writeInt(msgId);
+            messageOut.writeShort(0);
+            write(message.getBuffer(), message.size());
+        } catch (final IOException e) {
+            logger.atWarn().msg("Cannot cancel remote invocation '{}'").arg(msgId).throwable(e).log();
+        }
+    }
+
+    private void dispatch(final String cmd, final int id, final List<byte[]> args) {
+        final Runnable r = () -> {
+            try {
+                msgId.set(id);
+                executeCommand(cmd, id, args);
+            } catch (Exception e) {
+                logger.atError().msg("Error executing command").throwable(e).log();
+            } finally {
+                msgId.remove();
+            }
+        };
+        executor.execute(r);
+    }
+
     private Method getMethod(final String cmd, final int count) {
         // Use ThreadLocal MethodKey for zero-allocation lookup
         MethodKey key = methodKeyHolder.get();
@@ -374,94 +690,181 @@ public class SocketRPC<L, R> extends Thread implements Closeable, RemoteRPC<L, R
                 && bytes.length == (8 + compLen);
     }
 
-    private int send(final int msgId, final Method m, Object[] values) throws Exception {
+    private int send(final int msgId, final Method m, Object[] values, final CompletableFuture<Object> future)
+            throws Exception {
         if (stopped.get())
             throw new IOException("RPC channel is closed");
         if (m != null) {
             // Get RpcResult from pool or create new
-            RpcResult result = resultPool.poll();
+            RpcResult result = future == null ? resultPool.poll() : null;
             if (result == null) {
                 result = new RpcResult();
             } else {
                 result.reset();
             }
+            result.future = future;
+            result.type   = future == null ? null : m.getGenericReturnType();
             promises.put(msgId, result);
         }
-        outLock.lock();
-        try {
-            // Use cached method name bytes if available
-            if (m != null) {
-                byte[] nameBytes = methodNameBytesCache.get(m);
-                if (nameBytes != null) {
-                    out.write(nameBytes);
-                } else {
-                    out.writeUTF(m.getName());
-                }
+        writeMessage(m, msgId, values);
+        return msgId;
+    }
+
+    private void writeMessage(final Method m, final int msgId, final Object[] values) throws Exception {
+        // Use cached method name bytes if available
+        final byte[] nameBytes = m == null ? null : methodNameBytesCache.get(m);
+        writeMessage(m == null ? "" : m.getName(), nameBytes, msgId, values);
+    }
+
+    private void writeMessage(final String cmd, final int msgId, final Object[] values) throws Exception {
+        writeMessage(cmd, null, msgId, values);
+    }
+
+    private void writeMessage(final String cmd, final byte[] cmdBytes, final int msgId, final Object[] values)
+            throws Exception {
+        FastByteArrayOutputStream message    = messageBuffer.get();
+        DataOutputStream          messageOut = messageEncodingOut.get();
+        message.reset();
+        if (cmdBytes != null) {
+            messageOut.write(cmdBytes);
+        } else {
+            messageOut.writeUTF(cmd);
+        }
+        messageOut.writeInt(msgId);
+        writeValues(messageOut, values);
+        messageOut.flush();
+        // the message is encoded outside of the lock and only its frames are written under it
+        write(message.getBuffer(), message.size());
+        if (message.size() > 1024 * 1024) {
+            message    = new FastByteArrayOutputStream(4096);
+            messageOut = new DataOutputStream(message);
+            messageBuffer.set(message);
+            messageEncodingOut.set(messageOut);
+        }
+    }
+
+    private byte[] encodeCall(final Invocation call) throws Exception {
+        final FastByteArrayOutputStream bout = new FastByteArrayOutputStream(256);
+        final DataOutputStream          out  = new DataOutputStream(bout);
+        out.writeUTF(call.method.getName());
+        writeValues(out, call.args);
+        out.flush();
+        return bout.toByteArray();
+    }
+
+    private void writeValues(final DataOutputStream messageOut, Object[] values) throws Exception {
+        if (values == null)
+            values = new String[] {};
+        messageOut.writeShort(values.length);
+        FastByteArrayOutputStream bout    = buffer.get();
+        DataOutputStream          dataOut = encodingOut.get();
+        for (final Object value : values) {
+            if (value instanceof byte[]) {
+                final byte[] data = (byte[]) value;
+                messageOut.writeInt(data.length);
+                messageOut.write(data);
             } else {
-                out.writeUTF("");
-            }
-            out.writeInt(msgId);
-            if (values == null)
-                values = new String[] {};
-            out.writeShort(values.length);
-            FastByteArrayOutputStream bout    = buffer.get();
-            DataOutputStream          dataOut = encodingOut.get();
-            for (final Object value : values) {
-                if (value instanceof byte[]) {
-                    final byte[] data = (byte[]) value;
-                    out.writeInt(data.length);
-                    out.write(data);
-                } else {
-                    bout.reset();
-                    // Adaptive Compression: Serialize first, then decide
-                    // We use a cached DataOutputStream wrapper around the buffer
-                    codec.encode(value, dataOut);
-
-                    final int    length    = bout.size();
-                    final byte[] rawBuffer = bout.getBuffer();
-
-                    // Use adaptive compression threshold
-                    final int threshold = compressionThreshold.get();
-                    if (length >= threshold) {
-                        // LZ4 compression - use Lz4Codec directly
-                        byte[] compressed = Lz4Codec.compress(rawBuffer, 0, length);
-
-                        // Lz4Codec returns uncompressed data if compression doesn't help
-                        // Check if actually compressed by comparing sizes
-                        if (compressed.length < length) {
-                            // Write LZ4 header: compressed length + uncompressed length
-                            int totalLength = 8 + compressed.length;
-                            out.writeInt(totalLength); // Total length including header
-                            out.writeInt(compressed.length); // Compressed length
-                            out.writeInt(length); // Uncompressed length
-                            out.write(compressed);
-
-                            // Update adaptive threshold based on compression ratio
-                            updateCompressionThreshold(length, compressed.length);
-                        } else {
-                            // Compression didn't help, send raw
-                            out.writeInt(length);
-                            out.write(rawBuffer, 0, length);
-                        }
+                bout.reset();
+                // Adaptive Compression: Serialize first, then decide
+                // We use a cached DataOutputStream wrapper around the buffer
+                codec.encode(value, dataOut);
+
+                final int    length    = bout.size();
+                final byte[] rawBuffer = bout.getBuffer();
+
+                // Use adaptive compression threshold
+                final int threshold = compressionThreshold.get();
+                if (length >= threshold) {
+                    // LZ4 compression - use Lz4Codec directly
+                    byte[] compressed = Lz4Codec.compress(rawBuffer, 0, length);
+
+                    // Lz4Codec returns uncompressed data if compression doesn't help
+                    // Check if actually compressed by comparing sizes
+                    if (compressed.length < length) {
+                        // Write LZ4 header: compressed length + uncompressed length
+                        int totalLength = 8 + compressed.length;
+                        messageOut.writeInt(totalLength); // Total length including header
+                        messageOut.writeInt(compressed.length); // Compressed length
+                        messageOut.writeInt(length); // Uncompressed length
+                        messageOut.write(compressed);
+
+                        // Update adaptive threshold based on compression ratio
+                        updateCompressionThreshold(length, compressed.length);
                     } else {
-                        // Send raw - Zero Copy from buffer
-                        out.writeInt(length);
-                        out.write(rawBuffer, 0, length);
+                        // Compression didn't help, send raw
+                        messageOut.writeInt(length);
+                        messageOut.write(rawBuffer, 0, length);
                     }
+                } else {
+                    // Send raw - Zero Copy from buffer
+                    messageOut.writeInt(length);
+                    messageOut.write(rawBuffer, 0, length);
+                }
 
-                    if (length > 1024 * 1024) {
-                        bout    = new FastByteArrayOutputStream(4096);
-                        dataOut = new DataOutputStream(bout);
-                        buffer.set(bout);
-                        encodingOut.set(dataOut);
-                    }
+                if (length > 1024 * 1024) {
+                    bout    = new FastByteArrayOutputStream(4096);
+                    dataOut = new DataOutputStream(bout);
+                    buffer.set(bout);
+                    encodingOut.set(dataOut);
                 }
             }
+        }
+    }
+
+    /**
+     * Queues the encoded message on its lane and writes frames until the message has been
+     * written completely. The thread holding the lock always writes the next frame of the
+     * highest priority lane, hence a bulk message yields to the interactive ones after each
+     * of its frames.
+     */
+    private void write(final byte[] data, final int length) throws IOException {
+        final boolean   fragmented = extended && length > FRAME_SIZE;
+        final LaneQueue lane       = lanes[length > FRAME_SIZE ? 1 : 0];
+        final Outgoing  message    = new Outgoing(data, length, fragmented ? streamId.getAndIncrement() : 0);
+        lane.depth.incrementAndGet();
+        lane.messages.offer(message);
+        while (true) {
+            outLock.lock();
+            try {
+                if (message.written)
+                    return;
+                if (stopped.get() || !writeNextFrame())
+                    throw new IOException("RPC channel is closed");
+            } finally {
+                outLock.unlock();
+            }
+        }
+    }
+
+    // must be called while holding outLock
+    private boolean writeNextFrame() throws IOException {
+        for (final LaneQueue lane : lanes) {
+            final Outgoing message = lane.messages.poll();
+            if (message == null)
+                continue;
+            if (message.stream == 0) {
+                out.write(message.data, 0, message.length);
+                message.offset = message.length;
+            } else {
+                final int length = Math.min(FRAME_SIZE, message.length - message.offset);
+                out.writeUTF(message.offset + length == message.length ? LAST_FRAGMENT : FRAGMENT);
+                out.writeInt(message.stream);
+                out.writeShort(1);
+                out.writeInt(length);
+                out.write(message.data, message.offset, length);
+                message.offset += length;
+            }
             out.flush();
-        } finally {
-            outLock.unlock();
+            if (message.offset < message.length) {
+                // round robin between the bulk messages
+                lane.messages.offer(message);
+            } else {
+                message.written = true;
+                lane.completed(message);
+            }
+            return true;
         }
-        return msgId;
+        return false;
     }
 
     @SuppressWarnings("unchecked")
@@ -474,23 +877,7 @@ public class SocketRPC<L, R> extends Thread implements Closeable, RemoteRPC<L, R
             if (!completed)
                 return null;
 
-            if (result.value == null)
-                return null;
-            if (type == byte[].class && !result.exception)
-                return (T) result.value;
-
-            InputStream source = new FastByteArrayInputStream(result.value);
-            if (isLz4(result.value)) {
-                source = new Lz4InputStream(source, maxDecompressedSize);
-            }
-
-            try (DataInputStream dataIn = new DataInputStream(source)) {
-                if (result.exception) {
-                    final String msg = (String) codec.decode(dataIn, String.class);
-                    throw new RuntimeException(msg);
-                }
-                return (T) codec.decode(dataIn, type);
-            }
+            return (T) decodeResult(result.value, result.exception, type);
         } finally {
             promises.remove(id);
             // Return RpcResult to pool
@@ -501,9 +888,31 @@ public class SocketRPC<L, R> extends Thread implements Closeable, RemoteRPC<L, R
         }
     }
 
+    private Object decodeResult(final byte[] value, final boolean exception, final Type type) throws Exception {
+        if (value == null)
+            return null;
+        if (type == byte[].class && !exception)
+            return value;
+
+        InputStream source = new FastByteArrayInputStream(value);
+        if (isLz4(value)) {
+            source = new Lz4InputStream(source, maxDecompressedSize);
+        }
+
+        try (DataInputStream dataIn = new DataInputStream(source)) {
+            if (exception) {
+                final String msg = (String) codec.decode(dataIn, String.class);
+                throw new RuntimeException(msg);
+            }
+            return codec.decode(dataIn, type);
+        }
+    }
+
     private void executeCommand(final String cmd, final int id, final List<byte[]> args) throws Exception {
         if (cmd.isEmpty()) {
-            response(id, args.get(0));
+            response(id, args);
+        } else if (BATCH.equals(cmd)) {
+            executeBatch(id, args);
         } else {
             final Method m = getMethod(cmd, args.size());
             if (m == null)
@@ -512,18 +921,18 @@ public class SocketRPC<L, R> extends Thread implements Closeable, RemoteRPC<L, R
             // Fast-path for zero-argument methods
             if (args.size() == 0) {
                 try {
-                    final Object result = m.invoke(local, EMPTY_OBJECT_ARRAY);
+                    final Object result = invoke(id, m, EMPTY_OBJECT_ARRAY);
                     if (returnTypeCache.get(m) == void.class)
                         return;
                     try {
-                        send(id, null, new Object[] { result });
+                        send(id, null, new Object[] { result }, null);
                     } catch (final Exception e) {
                         terminate();
                     }
                 } catch (Throwable t) {
                     t = Exceptions.unrollCause(t, InvocationTargetException.class);
                     try {
-                        send(-id, null, new Object[] { t + "" });
+                        send(-id, null, new Object[] { t + "" }, null);
                     } catch (final Exception e) {
                         terminate();
                     }
@@ -531,54 +940,21 @@ public class SocketRPC<L, R> extends Thread implements Closeable, RemoteRPC<L, R
                 return;
             }
 
-            // Use cached parameter types
-            final Class<?>[] paramTypes   = parameterTypeCache.get(m);
-            final Type[]     genericTypes = genericParameterTypeCache.get(m);
-
-            // Reuse parameter array for decoding, but create exact-sized array for invoke
-            Object[] tempParams = parameterBuffer.get();
-            if (tempParams.length < args.size()) {
-                tempParams = new Object[Math.max(8, args.size())];
-                parameterBuffer.set(tempParams);
-            }
-
-            for (int i = 0; i < args.size(); i++) {
-                final Class<?> type = paramTypes[i];
-                if (type == byte[].class) {
-                    tempParams[i] = args.get(i);
-                } else {
-                    final byte[] argData = args.get(i);
-                    InputStream  source  = new FastByteArrayInputStream(argData);
-                    if (isLz4(argData)) {
-                        source = new Lz4InputStream(source, maxDecompressedSize);
-                    }
-
-                    try (DataInputStream dataIn = new DataInputStream(source)) {
-                        tempParams[i] = codec.decode(dataIn, genericTypes[i]);
-                    }
-                }
-            }
-
-            // Create exact-sized array for method invocation
-            final Object[] parameters = Arrays.copyOf(tempParams, args.size());
+            final Object[] parameters = decodeParameters(m, args);
 
             try {
-                // Clear used slots in temp array to avoid memory leaks
-                for (int i = 0; i < args.size(); i++) {
-                    tempParams[i] = null;
-                }
-                final Object result = m.invoke(local, parameters);
+                final Object result = invoke(id, m, parameters);
                 if (returnTypeCache.get(m) == void.class)
                     return;
                 try {
-                    send(id, null, new Object[] { result });
+                    send(id, null, new Object[] { result }, null);
                 } catch (final Exception e) {
                     terminate();
                 }
             } catch (Throwable t) {
                 t = Exceptions.unrollCause(t, InvocationTargetException.class);
                 try {
-                    send(-id, null, new Object[] { t + "" });
+                    send(-id, null, new Object[] { t + "" }, null);
                 } catch (final Exception e) {
                     terminate();
                 }
@@ -586,14 +962,89 @@ public class SocketRPC<L, R> extends Thread implements Closeable, RemoteRPC<L, R
         }
     }
 
-    private void response(int msgId, final byte[] data) {
+    private Object[] decodeParameters(final Method m, final List<byte[]> args) throws Exception {
+        // Use cached parameter types
+        final Class<?>[] paramTypes   = parameterTypeCache.get(m);
+        final Type[]     genericTypes = genericParameterTypeCache.get(m);
+
+        // Reuse parameter array for decoding, but create exact-sized array for invoke
+        Object[] tempParams = parameterBuffer.get();
+        if (tempParams.length < args.size()) {
+            tempParams = new Object[Math.max(8, args.size())];
+            parameterBuffer.set(tempParams);
+        }
+
+        for (int i = 0; i < args.size(); i++) {
+            final Class<?> type = paramTypes[i];
+            if (type == byte[].class) {
+                tempParams[i] = args.get(i);
+            } else {
+                final byte[] argData = args.get(i);
+                InputStream  source  = new FastByteArrayInputStream(argData);
+                if (isLz4(argData)) {
+                    source = new Lz4InputStream(source, maxDecompressedSize);
+                }
+
+                try (DataInputStream dataIn = new DataInputStream(source)) {
+                    tempParams[i] = codec.decode(dataIn, genericTypes[i]);
+                }
+            }
+        }
+
+        // Create exact-sized array for method invocation
+        final Object[] parameters = Arrays.copyOf(tempParams, args.size());
+        // Clear used slots in temp array to avoid memory leaks
+        for (int i = 0; i < args.size(); i++) {
+            tempParams[i] = null;
+        }
+        return parameters;
+    }
+
+    private void executeBatch(final int id, final List<byte[]> calls) {
+        // the first value carries the status of each call followed by the results
+        final byte[]   failed  = new byte[calls.size()];
+        final Object[] results = new Object[calls.size() + 1];
+        results[0] = failed;
+        for (int i = 0; i < calls.size(); i++) {
+            try (DataInputStream call = new DataInputStream(new FastByteArrayInputStream(calls.get(i)))) {
+                final String       cmd  = call.readUTF();
+                final List<byte[]> args = readArguments(call);
+                final Method       m    = getMethod(cmd, args.size());
+                if (m == null)
+                    throw new NoSuchMethodException(cmd);
+                results[i + 1] = invoke(id, m, decodeParameters(m, args));
+            } catch (Throwable t) {
+                t              = Exceptions.unrollCause(t, InvocationTargetException.class);
+                failed[i]      = 1;
+                results[i + 1] = t + "";
+            }
+        }
+        try {
+            send(id, null, results, null);
+        } catch (final Exception e) {
+            terminate();
+        }
+    }
+
+    private void response(int msgId, final List<byte[]> args) {
         boolean exception = false;
         if (msgId < 0) {
             msgId     = -msgId;
             exception = true;
         }
+        final byte[]    data   = args.get(0);
         final RpcResult result = promises.get(msgId);
-        if (result != null) {
+        if (result != null && result.batch != null) {
+            promises.remove(msgId);
+            completeBatch(result, exception, args);
+        } else if (result != null && result.future != null) {
+            promises.remove(msgId);
+            try {
+                result.future.complete(decodeResult(data, exception, result.type));
+            } catch (final Exception e) {
+                result.future.completeExceptionally(e);
+            }
+        } else if (result != null) {
             result.value     = data;
             result.exception = exception;
             // Signal completion instead of notifyAll()
@@ -601,6 +1052,23 @@ public class SocketRPC<L, R> extends Thread implements Closeable, RemoteRPC<L, R
         }
     }
 
+    private void completeBatch(final RpcResult result, final boolean exception, final List<byte[]> args) {
+        final byte[] failed = exception ? null : args.get(0);
+        for (int i = 0; i < result.batch.size(); i++) {
+            final CompletableFuture<Object> future = result.batch.get(i);
+            try {
+                if (failed == null) {
+                    // the whole batch has failed
+                    future.complete(decodeResult(args.get(0), true, null));
+                } else {
+                    future.complete(decodeResult(args.get(i + 1), failed[i] != 0, result.types[i]));
+                }
+            } catch (final Exception e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
     // Update adaptive compression threshold based on compression ratio
     private void updateCompressionThreshold(int uncompressedSize, int compressedSize) {
         // Calculate compression ratio as percentage (e.g., 50 = 50% compression)
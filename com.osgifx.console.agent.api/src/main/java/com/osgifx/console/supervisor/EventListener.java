@@ -17,6 +17,7 @@ package com.osgifx.console.supervisor;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 import com.osgifx.console.agent.dto.XEventDTO;
 
@@ -55,4 +56,14 @@ public interface EventListener {
      * @param event the remote event
      */
     void onEvent(XEventDTO event);
+
+    /**
+     * The callback to be executed when a batch of events will be received
+     *
+     * @param events the remote events in the order they have been received
+     * @since 12.0
+     */
+    default void onEvents(final List<XEventDTO> events) {
+        events.forEach(this::onEvent);
+    }
 }
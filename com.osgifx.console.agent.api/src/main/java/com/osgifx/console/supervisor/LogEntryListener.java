@@ -15,6 +15,8 @@
  ******************************************************************************/
 package com.osgifx.console.supervisor;
 
+import java.util.List;
+
 import com.osgifx.console.agent.dto.XLogEntryDTO;
 
 /**
@@ -26,10 +28,44 @@ import com.osgifx.console.agent.dto.XLogEntryDTO;
 @FunctionalInterface
 public interface LogEntryListener {
 
+    /**
+     * By default, the logs of all bundles will be intercepted by this listener.
+     * However, you can also specify the bundle you are interested in.
+     *
+     * @return the bundle identifier, or {@code -1} for the logs of all bundles
+     * @since 12.0
+     */
+    default long bundleId() {
+        return -1;
+    }
+
+    /**
+     * By default, the logs of all levels will be intercepted by this listener.
+     * However, you can also specify the least severe level you are interested in.
+     *
+     * @return the least severe log level (1 = error, 2 = warning, 3 = info,
+     *         4 = debug), or {@code 0} for all levels
+     * @since 12.0
+     */
+    default int level() {
+        return 0;
+    }
+
     /**
      * The callback to be executed when the log event will be received
      *
      * @param logEntry the remote event for the log entry
      */
     void logged(XLogEntryDTO logEntry);
+
+    /**
+     * The callback to be executed when a batch of log events will be received
+     *
+     * @param logEntries the remote events for the log entries in the order they have
+     *            been logged
+     * @since 12.0
+     */
+    default void logged(final List<XLogEntryDTO> logEntries) {
+        logEntries.forEach(this::logged);
+    }
 }
@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.supervisor;
+
+import com.osgifx.console.agent.dto.XMetricsDTO;
+
+/**
+ * This is used to receive the runtime metrics sampled by the remote agent
+ *
+ * @see Supervisor#addMetricsListener(MetricsListener)
+ * @see Supervisor#removeMetricsListener(MetricsListener)
+ * @since 12.0
+ */
+@FunctionalInterface
+public interface MetricsListener {
+
+    /**
+     * By default, the metrics will be received at the sampling interval of the agent.
+     * However, you can also specify a coarser resolution you are interested in. As all
+     * listeners share a single subscription, the metrics might still be received at a
+     * finer resolution if another listener requests it.
+     *
+     * @return the requested interval between two samples in milliseconds, or {@code 0}
+     *         for the sampling interval of the agent
+     */
+    default long resolution() {
+        return 0;
+    }
+
+    /**
+     * The callback to be executed when a batch of metrics will be received
+     *
+     * @param metrics the samples taken since the previous batch
+     */
+    void onMetrics(XMetricsDTO metrics);
+
+}
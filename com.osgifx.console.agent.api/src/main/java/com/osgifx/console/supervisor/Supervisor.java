@@ -15,8 +15,19 @@
  ******************************************************************************/
 package com.osgifx.console.supervisor;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
 
 import org.osgi.annotation.versioning.ProviderType;
 import org.osgi.util.tracker.ServiceTracker;
@@ -27,6 +38,9 @@ import com.osgifx.console.agent.dto.XConditionDTO;
 import com.osgifx.console.agent.dto.XEventDTO;
 import com.osgifx.console.agent.dto.XJaxRsComponentDTO;
 import com.osgifx.console.agent.dto.XLogEntryDTO;
+import com.osgifx.console.agent.dto.XMetricsDTO;
+import com.osgifx.console.agent.dto.XTransferDTO;
+import com.osgifx.console.agent.rpc.codec.BinaryCodec;
 import com.osgifx.console.agent.spi.payload.LargePayloadHandler;
 
 /**
@@ -61,11 +75,56 @@ public interface Supervisor {
     /** The topic where an event will be sent when the event listener is removed */
     String EVENT_LISTENER_REMOVED_EVENT_TOPIC = "fx/console/supervisor/event/listener/removed";
 
+    /**
+     * The topic where an event will be sent when the metrics listener is added
+     *
+     * @since 12.0
+     */
+    String METRICS_LISTENER_ADDED_EVENT_TOPIC = "fx/console/supervisor/metrics/listener/added";
+
+    /**
+     * The topic where an event will be sent when the metrics listener is removed
+     *
+     * @since 12.0
+     */
+    String METRICS_LISTENER_REMOVED_EVENT_TOPIC = "fx/console/supervisor/metrics/listener/removed";
+
     /**
      * Returns the type of the RPC communication
      */
     RpcType getType();
 
+    /**
+     * Returns the binary wire format version agreed on with the remote agent.
+     * <p>
+     * The version is negotiated in the background after connecting, hence
+     * {@link BinaryCodec#WIRE_V1} is returned until the remote agent has answered.
+     *
+     * @return the agreed wire format version
+     * @since 12.0
+     */
+    default int getWireVersion() {
+        return BinaryCodec.WIRE_V1;
+    }
+
+    /**
+     * Checks whether the remote agent predates the agent methods introduced in 12.0, such
+     * as the versioned snapshots, the subscriptions and the batched invocations.
+     * <p>
+     * Agents that predate them never answer an unknown method, so that invoking one would
+     * block the caller until the RPC timeout elapses. Every agent answering the wire format
+     * negotiation supports them, regardless of the agreed version. As long as the remote
+     * agent has not answered, it is considered to be a legacy agent and callers must fall
+     * back to the methods available before.
+     *
+     * @return {@code true} if the remote agent has not answered the wire format negotiation,
+     *         otherwise {@code false}
+     * @since 12.0
+     */
+    default boolean isLegacyAgent() {
+        return true;
+    }
+
     /**
      * Connects to the provided socket using the specified options
      *
@@ -108,11 +167,45 @@ public interface Supervisor {
      */
     void onOSGiEvent(XEventDTO event);
 
+    /**
+     * Callback method for a batch of OSGi Event Admin Events
+     *
+     * @param events the events in the order they have been received by the agent
+     * @since 12.0
+     */
+    default void onOSGiEvents(final List<XEventDTO> events) {
+        for (final XEventDTO event : events) {
+            onOSGiEvent(event);
+        }
+    }
+
     /**
      * Callback method for logs
      */
     void logged(XLogEntryDTO event);
 
+    /**
+     * Callback method for a batch of logs
+     *
+     * @param events the logs in the order they have been logged
+     * @since 12.0
+     */
+    default void onLogEntries(final List<XLogEntryDTO> events) {
+        for (final XLogEntryDTO event : events) {
+            logged(event);
+        }
+    }
+
+    /**
+     * Callback method for a batch of runtime metrics
+     *
+     * @param metrics the samples taken since the previous batch
+     * @since 12.0
+     */
+    default void onMetrics(final XMetricsDTO metrics) {
+        // the runtime metrics are only delivered if subscribed
+    }
+
     /**
      * Registers the specified listener to listen to the OSGi events from the remote
      * machine
@@ -128,6 +221,17 @@ public interface Supervisor {
      */
     void removeOSGiEventListener(EventListener eventListener);
 
+    /**
+     * Pushes the changed topics or filter of the specified, already registered listener
+     * down to the remote agent. Listeners that are not registered are ignored.
+     *
+     * @param eventListener the event listener whose topics or filter have changed
+     * @since 12.0
+     */
+    default void updateOSGiEventListener(final EventListener eventListener) {
+        // the events are only narrowed down by remote agents
+    }
+
     /**
      * Registers the specified listener to receive to the OSGi logs from the remote
      * machine
@@ -143,6 +247,23 @@ public interface Supervisor {
      */
     void removeOSGiLogListener(LogEntryListener logEntryListener);
 
+    /**
+     * Registers the specified listener to receive the runtime metrics sampled by the
+     * remote machine
+     *
+     * @param metricsListener the metrics listener to register
+     * @since 12.0
+     */
+    void addMetricsListener(MetricsListener metricsListener);
+
+    /**
+     * Deregisters previously registered metrics listener
+     *
+     * @param metricsListener the metrics listener to deregister
+     * @since 12.0
+     */
+    void removeMetricsListener(MetricsListener metricsListener);
+
     /**
      * Returns the list of registered JAX-RS Whiteboard components in the runtime
      *
@@ -170,6 +291,113 @@ public interface Supervisor {
         return getAgent() == null ? Collections.emptyList() : getAgent().getAllConditions();
     }
 
+    /**
+     * Downloads the payload of the specified chunked transfer into the target file.
+     * <p>
+     * Chunks are pulled one after another and written to a part file next to the target
+     * file as they arrive. The part file is specific to the transfer, hence a download
+     * interrupted by an I/O failure resumes from the length of its part file when retried
+     * with the same transfer, whereas an unrelated file at the target location is never
+     * taken for a partial payload. Once the payload has been downloaded completely, the
+     * part file is moved to the target file and the transfer is closed on the agent.
+     * <p>
+     * Cancellation is cooperative: the cancellation flag is checked before every chunk,
+     * so that the calling thread never needs to be interrupted while the connection or
+     * the agent's transfer file is being accessed. A cancelled download deletes its part
+     * file and closes the transfer.
+     *
+     * @param transfer the transfer opened on the agent (cannot be {@code null})
+     * @param target the target file (cannot be {@code null})
+     * @param progress the consumer of the number of bytes downloaded so far (can be {@code null})
+     * @param cancelled the flag to check whether the download has been cancelled (can be {@code null})
+     * @return the target file
+     * @throws CancellationException if the download has been cancelled
+     * @throws Exception if the download fails
+     * @since 12.0
+     */
+    default File download(final XTransferDTO transfer,
+                          final File target,
+                          final LongConsumer progress,
+                          final BooleanSupplier cancelled) throws Exception {
+        final Agent agent = getAgent();
+        if (agent == null) {
+            throw new IOException("Agent not connected");
+        }
+        final File part = new File(target.getAbsoluteFile().getParentFile(),
+                                   target.getName() + "." + transfer.id + ".part");
+        try (RandomAccessFile file = new RandomAccessFile(part, "rw")) {
+            // a part file larger than the payload cannot belong to this transfer
+            long offset = file.length() > transfer.size ? 0 : file.length();
+            file.setLength(offset);
+            file.seek(offset);
+            while (offset < transfer.size) {
+                if (cancelled != null && cancelled.getAsBoolean()) {
+                    break;
+                }
+                final byte[] chunk = agent.readTransferChunk(transfer.id, offset);
+                if (chunk == null || chunk.length == 0) {
+                    throw new IOException("Unexpected end of transfer '" + transfer.name + "' at " + offset);
+                }
+                file.write(chunk);
+                offset += chunk.length;
+                if (progress != null) {
+                    progress.accept(offset);
+                }
+            }
+        }
+        if (cancelled != null && cancelled.getAsBoolean()) {
+            Files.deleteIfExists(part.toPath());
+            agent.closeTransfer(transfer.id);
+            throw new CancellationException("Download of '" + transfer.name + "' has been cancelled");
+        }
+        Files.move(part.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        agent.closeTransfer(transfer.id);
+        return target;
+    }
+
+    /**
+     * Invokes the agent method called by the specified function without blocking the
+     * calling thread, for example, {@code supervisor.callAsync(agent -> agent.bundles(version))}.
+     * <p>
+     * Implementations backed by a remote connection send the invocation without waiting
+     * for its result and cancel the invocation on the agent if the returned future gets
+     * cancelled. The default implementation invokes the agent on the common pool.
+     *
+     * @param <T> the result type
+     * @param invocation the function invoking exactly one method of the agent
+     * @return the future result of the invocation
+     * @since 12.0
+     */
+    default <T> CompletableFuture<T> callAsync(final Function<Agent, T> invocation) {
+        final Agent agent = getAgent();
+        if (agent == null) {
+            final CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(new IOException("Agent not connected"));
+            return future;
+        }
+        return CompletableFuture.supplyAsync(() -> invocation.apply(agent));
+    }
+
+    /**
+     * Invokes the agent methods called by the specified functions, in a single round trip
+     * if the connection supports it.
+     * <p>
+     * Each invocation completes on its own, hence a failing invocation only fails its own
+     * future. The default implementation invokes every function using
+     * {@link #callAsync(Function)}.
+     *
+     * @param invocations the functions, each invoking exactly one method of the agent
+     * @return the future results of the invocations in the same order
+     * @since 12.0
+     */
+    default List<CompletableFuture<Object>> callBatch(final List<Function<Agent, ?>> invocations) {
+        final List<CompletableFuture<Object>> results = new ArrayList<>(invocations.size());
+        for (final Function<Agent, ?> invocation : invocations) {
+            results.add(callAsync(invocation::apply));
+        }
+        return results;
+    }
+
     /**
      * Returns the associated agent
      *
@@ -16,12 +16,29 @@
 package com.osgifx.console.agent.rpc;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 
 import org.junit.Test;
 
+import com.osgifx.console.agent.dto.XBundleDTO;
+import com.osgifx.console.agent.dto.XBundleInfoDTO;
+import com.osgifx.console.agent.dto.XPackageDTO;
+import com.osgifx.console.agent.dto.XPackageType;
+import com.osgifx.console.agent.dto.XServiceDTO;
+import com.osgifx.console.agent.dto.XServiceInfoDTO;
 import com.osgifx.console.agent.rpc.codec.BinaryCodec;
 
 public class BinaryCodecTest {
@@ -74,4 +91,286 @@ public class BinaryCodecTest {
 
         assertArrayEquals(input, output);
     }
+
+    @Test
+    public void testCompactArrayDecoding() throws Exception {
+        BinaryCodec codec = new BinaryCodec();
+        codec.setWireVersion(BinaryCodec.WIRE_V2);
+
+        String[] strings = { "a", "b", "a", "c", "b" };
+        int[]    ints    = { 0, -1, 1, Integer.MIN_VALUE, Integer.MAX_VALUE };
+        long[]   longs   = { 0L, -1L, 300L, Long.MIN_VALUE, Long.MAX_VALUE };
+
+        assertArrayEquals(strings, codec.decode(codec.encode(strings), String[].class));
+        assertArrayEquals(ints, codec.decode(codec.encode(ints), int[].class));
+        assertArrayEquals(longs, codec.decode(codec.encode(longs), long[].class));
+    }
+
+    @Test
+    public void testMixedWireVersionDecoding() throws Exception {
+        BinaryCodec v1 = new BinaryCodec();
+        BinaryCodec v2 = new BinaryCodec();
+        v2.setWireVersion(BinaryCodec.WIRE_V2);
+
+        // messages of both versions in a single stream as every message carries its own version
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream      daos = new DataOutputStream(baos);
+        v1.encode(Arrays.asList("x", "y"), daos);
+        v2.encode(Arrays.asList("x", "y"), daos);
+        daos.flush();
+
+        DataInputStream in   = new DataInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        Type            type = new ListType(String.class);
+        assertEquals(Arrays.asList("x", "y"), v1.decode(in, type));
+        assertEquals(Arrays.asList("x", "y"), v1.decode(in, type));
+    }
+
+    @Test
+    public void testCompactBundleAndServiceDecoding() throws Exception {
+        BinaryCodec codec = new BinaryCodec();
+        codec.setWireVersion(BinaryCodec.WIRE_V2);
+
+        List<XBundleDTO>  bundles  = bundles(50);
+        List<XServiceDTO> services = services(100);
+
+        List<XBundleDTO>  decodedBundles  = codec.decode(codec.encode(bundles), new ListType(XBundleDTO.class));
+        List<XServiceDTO> decodedServices = codec.decode(codec.encode(services), new ListType(XServiceDTO.class));
+
+        assertEquals(bundles.size(), decodedBundles.size());
+        for (int i = 0; i < bundles.size(); i++) {
+            XBundleDTO expected = bundles.get(i);
+            XBundleDTO actual   = decodedBundles.get(i);
+            assertEquals(expected.id, actual.id);
+            assertEquals(expected.symbolicName, actual.symbolicName);
+            assertEquals(expected.lastModified, actual.lastModified);
+            assertEquals(expected.startLevel, actual.startLevel);
+            assertEquals(expected.manifestHeaders, actual.manifestHeaders);
+            assertEquals(expected.importedPackages.toString(), actual.importedPackages.toString());
+            assertEquals(expected.wiredBundlesAsRequirer.get(0).symbolicName,
+                    actual.wiredBundlesAsRequirer.get(0).symbolicName);
+        }
+        assertEquals(services.size(), decodedServices.size());
+        for (int i = 0; i < services.size(); i++) {
+            XServiceDTO expected = services.get(i);
+            XServiceDTO actual   = decodedServices.get(i);
+            assertEquals(expected.id, actual.id);
+            assertEquals(expected.types, actual.types);
+            assertEquals(expected.properties, actual.properties);
+            assertEquals(expected.registeringBundle, actual.registeringBundle);
+        }
+    }
+
+    @Test
+    public void testCompactPrimitiveFieldDecoding() throws Exception {
+        BinaryCodec codec = new BinaryCodec();
+        codec.setWireVersion(BinaryCodec.WIRE_V2);
+
+        PrimitivesDTO input = new PrimitivesDTO();
+        input.b      = -7;
+        input.c      = 'x';
+        input.d      = 3.5d;
+        input.f      = -1.25f;
+        input.flag   = true;
+        input.i      = Integer.MIN_VALUE;
+        input.l      = Long.MAX_VALUE;
+        input.s      = Short.MIN_VALUE;
+        input.nested = new PrimitivesDTO();
+        input.nested.i = 42;
+
+        PrimitivesDTO output = codec.decode(codec.encode(input), PrimitivesDTO.class);
+
+        assertEquals(input.b, output.b);
+        assertEquals(input.c, output.c);
+        assertEquals(Double.valueOf(input.d), Double.valueOf(output.d));
+        assertEquals(Float.valueOf(input.f), Float.valueOf(output.f));
+        assertEquals(input.flag, output.flag);
+        assertEquals(input.i, output.i);
+        assertEquals(input.l, output.l);
+        assertEquals(input.s, output.s);
+        assertEquals(42, output.nested.i);
+        assertNull(output.nested.nested);
+    }
+
+    @Test
+    public void testCompactWireFormatSize() throws Exception {
+        BinaryCodec v1 = new BinaryCodec();
+        BinaryCodec v2 = new BinaryCodec();
+        v2.setWireVersion(BinaryCodec.WIRE_V2);
+
+        // sizes are measured before LZ4 compression
+        compare("bundles", bundles(300), v1, v2);
+        compare("services", services(1000), v1, v2);
+    }
+
+    private static void compare(String name, List<?> dtos, BinaryCodec v1, BinaryCodec v2) throws Exception {
+        int v1Size = v1.encode(dtos).length;
+        int v2Size = v2.encode(dtos).length;
+
+        assertTrue(name + " must be smaller in the compact wire format", v2Size < v1Size * 0.7);
+    }
+
+    @Test
+    public void testEncodeWithExplicitWireVersion() throws Exception {
+        BinaryCodec codec = new BinaryCodec();
+        List<?>     dtos  = services(10);
+
+        byte[] v2 = codec.encode(dtos, BinaryCodec.WIRE_V2);
+
+        // the version of the codec itself is left untouched
+        assertEquals(BinaryCodec.WIRE_V1, codec.getWireVersion());
+        assertArrayEquals(codec.encode(dtos), codec.encode(dtos, BinaryCodec.WIRE_V1));
+        assertTrue(v2.length < codec.encode(dtos).length);
+
+        List<XServiceDTO> decoded = codec.decode(v2, new ListType(XServiceDTO.class));
+        assertEquals(10, decoded.size());
+    }
+
+    @Test
+    public void testEncodeListWithFingerprints() throws Exception {
+        BinaryCodec      codec   = new BinaryCodec();
+        List<XBundleDTO> bundles = bundles(20);
+
+        for (int version : new int[] { BinaryCodec.WIRE_V1, BinaryCodec.WIRE_V2 }) {
+            long[] fingerprints = new long[bundles.size()];
+            byte[] encoded      = codec.encodeList(bundles, version, fingerprints);
+
+            // the same representation as a plain encode, so it is decoded as usual
+            assertArrayEquals(codec.encode(bundles, version), encoded);
+
+            // the fingerprint of an element does not depend on the strings of its predecessors
+            List<XBundleDTO> tail             = bundles.subList(10, 20);
+            long[]           tailFingerprints = new long[tail.size()];
+            codec.encodeList(tail, version, tailFingerprints);
+            for (int i = 0; i < tail.size(); i++) {
+                assertEquals(fingerprints[10 + i], tailFingerprints[i]);
+            }
+
+            // a changed element changes only its own fingerprint
+            List<XBundleDTO> changed = bundles(20);
+            changed.get(5).state = "RESOLVED";
+            long[] changedFingerprints = new long[changed.size()];
+            codec.encodeList(changed, version, changedFingerprints);
+            for (int i = 0; i < changed.size(); i++) {
+                assertEquals(i == 5, fingerprints[i] != changedFingerprints[i]);
+            }
+        }
+    }
+
+    private static List<XBundleDTO> bundles(int count) {
+        List<XBundleDTO> bundles = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            XBundleDTO bundle = new XBundleDTO();
+            bundle.id                     = i;
+            bundle.symbolicName           = "org.example.module" + i;
+            bundle.version                = "1.0." + i % 10;
+            bundle.state                  = "ACTIVE";
+            bundle.location               = "reference:file:bundles/org.example.module" + i + ".jar";
+            bundle.category               = "example";
+            bundle.vendor                 = "Example Corp";
+            bundle.description            = "Example module";
+            bundle.documentation          = "https://example.org/docs";
+            bundle.revisions              = 1;
+            bundle.lastModified           = 1_700_000_000_000L + i;
+            bundle.dataFolderSize         = 4096;
+            bundle.startLevel             = 1;
+            bundle.frameworkStartLevel    = 1;
+            bundle.startDurationInMillis  = i % 50;
+            bundle.isPersistentlyStarted  = true;
+            bundle.exportedPackages       = packages("org.example.module" + i, 2, XPackageType.EXPORT);
+            bundle.importedPackages       = packages("org.example.module", 8, XPackageType.IMPORT);
+            bundle.wiredBundlesAsProvider = new ArrayList<>();
+            bundle.wiredBundlesAsRequirer = new ArrayList<>();
+            for (int j = 0; j < 4; j++) {
+                XBundleInfoDTO info = new XBundleInfoDTO();
+                info.id           = j;
+                info.symbolicName = "org.example.module" + j;
+                bundle.wiredBundlesAsRequirer.add(info);
+            }
+            bundle.registeredServices = new ArrayList<>();
+            bundle.usedServices       = new ArrayList<>();
+            XServiceInfoDTO service = new XServiceInfoDTO();
+            service.id          = i;
+            service.objectClass = "org.example.api.Service";
+            bundle.usedServices.add(service);
+            bundle.hostBundles       = new ArrayList<>();
+            bundle.fragmentsAttached = new ArrayList<>();
+            bundle.manifestHeaders   = new LinkedHashMap<>();
+            bundle.manifestHeaders.put("Bundle-ManifestVersion", "2");
+            bundle.manifestHeaders.put("Bundle-SymbolicName", bundle.symbolicName);
+            bundle.manifestHeaders.put("Bundle-Version", bundle.version);
+            bundle.manifestHeaders.put("Bundle-Vendor", bundle.vendor);
+            bundle.manifestHeaders.put("Created-By", "17.0.2 (Eclipse Adoptium)");
+            bundle.manifestHeaders.put("Require-Capability", "osgi.ee;filter:=\"(&(osgi.ee=JavaSE)(version=1.8))\"");
+            bundles.add(bundle);
+        }
+        return bundles;
+    }
+
+    private static List<XPackageDTO> packages(String prefix, int count, XPackageType type) {
+        List<XPackageDTO> packages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            XPackageDTO pkg = new XPackageDTO();
+            pkg.name    = prefix + i + ".api";
+            pkg.version = "1.0.0";
+            pkg.type    = type;
+            packages.add(pkg);
+        }
+        return packages;
+    }
+
+    private static List<XServiceDTO> services(int count) {
+        List<XServiceDTO> services = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            XServiceDTO service = new XServiceDTO();
+            service.id                = i;
+            service.bundleId          = i % 100;
+            service.registeringBundle = "org.example.module" + service.bundleId;
+            service.types             = Arrays.asList("org.example.api.Service" + i % 20);
+            service.usingBundles      = new ArrayList<>();
+            service.properties        = new LinkedHashMap<>();
+            service.properties.put("service.id", String.valueOf(i));
+            service.properties.put("service.bundleid", String.valueOf(service.bundleId));
+            service.properties.put("service.scope", "singleton");
+            service.properties.put("objectClass", "[org.example.api.Service" + i % 20 + "]");
+            service.properties.put("component.name", "org.example.impl.Component" + i);
+            service.properties.put("component.id", String.valueOf(i));
+            services.add(service);
+        }
+        return services;
+    }
+
+    public static class PrimitivesDTO {
+        public byte          b;
+        public char          c;
+        public double        d;
+        public float         f;
+        public boolean       flag;
+        public int           i;
+        public long          l;
+        public PrimitivesDTO nested;
+        public short         s;
+    }
+
+    private static class ListType implements ParameterizedType {
+        private final Class<?> type;
+
+        private ListType(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        public Type[] getActualTypeArguments() {
+            return new Type[] { type };
+        }
+
+        @Override
+        public Type getRawType() {
+            return List.class;
+        }
+
+        @Override
+        public Type getOwnerType() {
+            return null;
+        }
+    }
 }
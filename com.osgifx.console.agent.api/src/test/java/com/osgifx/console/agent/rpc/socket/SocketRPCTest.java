@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.rpc.socket;
+
+import static com.osgifx.console.agent.rpc.codec.BinaryCodec.WIRE_V2;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.osgifx.console.agent.rpc.socket.SocketRPC.Lane;
+import com.osgifx.console.agent.rpc.socket.SocketRPC.LaneStatistics;
+
+public class SocketRPCTest {
+
+    // 256 frames, written at a throttled rate of one frame per millisecond at least
+    private static final int BULK_SIZE = 16 * 1024 * 1024;
+
+    public interface Service {
+        boolean ping();
+
+        byte[] bulk(int size);
+    }
+
+    public static final class ServiceImpl implements Service {
+
+        @Override
+        public boolean ping() {
+            return true;
+        }
+
+        @Override
+        public byte[] bulk(final int size) {
+            // incompressible, hence the response is not shrunk below a single frame
+            final byte[] data = new byte[size];
+            new Random(size).nextBytes(data);
+            return data;
+        }
+    }
+
+    private ExecutorService             serverExecutor;
+    private ExecutorService             clientExecutor;
+    private Socket                      serverSocket;
+    private Socket                      clientSocket;
+    private SocketRPC<Service, Service> server;
+    private SocketRPC<Service, Service> client;
+
+    @Before
+    public void setUp() throws Exception {
+        try (ServerSocket listener = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            clientSocket = new Socket(InetAddress.getLoopbackAddress(), listener.getLocalPort());
+            serverSocket = listener.accept();
+        }
+        serverExecutor = Executors.newFixedThreadPool(4);
+        clientExecutor = Executors.newFixedThreadPool(4);
+
+        server = new SocketRPC<>(Service.class, new ServiceImpl(), serverSocket.getInputStream(),
+                                 new ThrottledOutputStream(serverSocket.getOutputStream()), serverExecutor);
+        client = new SocketRPC<>(Service.class, null, clientSocket.getInputStream(), clientSocket.getOutputStream(),
+                                 clientExecutor);
+        // both peers agreed on the compact wire format, hence bulk messages are fragmented
+        server.setWireVersion(WIRE_V2);
+        client.setWireVersion(WIRE_V2);
+        server.open();
+        client.open();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        server.close();
+        clientSocket.close();
+        serverSocket.close();
+    }
+
+    @Test
+    public void testPingCompletesWhileBulkResponseIsInFlight() throws Exception {
+        final CompletableFuture<byte[]> bulk = client.callAsync(service -> service.bulk(BULK_SIZE));
+
+        // wait until the response is being written frame by frame
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while (statistics(Lane.BULK).queueDepth() == 0) {
+            assertTrue("Bulk response has not been queued", System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+
+        assertTrue(client.getRemote().ping());
+        assertFalse("Bulk response has been written before the ping", bulk.isDone());
+
+        assertArrayEquals(new ServiceImpl().bulk(BULK_SIZE), bulk.get(60, TimeUnit.SECONDS));
+
+        final LaneStatistics interactive = statistics(Lane.INTERACTIVE);
+        final LaneStatistics bulkLane    = statistics(Lane.BULK);
+        assertEquals(1, interactive.messages());
+        assertEquals(0, bulkLane.queueDepth());
+        assertEquals(1, bulkLane.messages());
+        // the ping response waited for a single frame at most, the bulk response for all of its frames
+        assertTrue(interactive.maxLatencyMicros() < bulkLane.maxLatencyMicros());
+        assertEquals(bulkLane.totalLatencyMicros(), bulkLane.averageLatencyMicros());
+    }
+
+    private LaneStatistics statistics(final Lane lane) {
+        return server.getLaneStatistics().get(lane.ordinal());
+    }
+
+    // simulates a slow link, such that writing the bulk response takes a while
+    private static final class ThrottledOutputStream extends FilterOutputStream {
+
+        ThrottledOutputStream(final OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            // the filter would write byte by byte otherwise
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            super.flush();
+            try {
+                Thread.sleep(1);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+}
@@ -15,8 +15,12 @@
  ******************************************************************************/
 package com.osgifx.console.agent.admin;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -28,6 +32,7 @@ import com.j256.simplelogging.LoggerFactory;
 import com.osgifx.console.agent.rpc.codec.BinaryCodec;
 import com.osgifx.console.agent.rpc.codec.Lz4Codec;
 import com.osgifx.console.agent.rpc.codec.SnapshotDecoder;
+import com.osgifx.console.agent.rpc.codec.SnapshotDelta;
 
 /**
  * Base class for all admin classes that provide binary snapshots of the agent's state.
@@ -40,6 +45,13 @@ import com.osgifx.console.agent.rpc.codec.SnapshotDecoder;
  * <li><b>Hard Deadline:</b> 5000ms maximum wait to prevent UI starvation</li>
  * <li><b>Change-Count Synchronization:</b> Snapshots only regenerated when state actually changes</li>
  * <li><b>Atomic Caching:</b> Compressed {@code byte[]} stored in {@link AtomicReference} for zero-copy serving</li>
+ * <li><b>Versioned Deltas:</b> Admins that {@linkplain #key(Object) key} their DTOs keep a short history of
+ * per-DTO fingerprints, so that callers can fetch only the DTOs changed since a snapshot version</li>
+ * <li><b>Demand-Driven:</b> Once registered with a {@link SnapshotDemand}, snapshots are only regenerated in the
+ * background while a supervisor is attached and has requested them within the TTL, otherwise the admin is only
+ * marked dirty and idle snapshots are dropped</li>
+ * <li><b>Lazy Tracking:</b> The admin only starts tracking the state it snapshots once it is first demanded, i.e.
+ * its snapshot is requested or a supervisor attaches</li>
  * </ul>
  *
  * @param <T> the type of DTO contained in the snapshot list
@@ -49,18 +61,31 @@ public abstract class AbstractSnapshotAdmin<T> {
 
     protected static final long DEBOUNCE_DELAY_MS = 200;
     protected static final long MAX_WAIT_MS       = 5000;
+    protected static final int  DELTA_HISTORY     = 16;
 
     protected final BinaryCodec                         codec;
     protected final SnapshotDecoder                     decoder;
     protected final ScheduledExecutorService            executor;
     protected final AtomicReference<byte[]>             snapshot      = new AtomicReference<>();
-    protected final AtomicReference<List<T>>            cachedDtos    = new AtomicReference<>(Collections.emptyList());
+    protected final AtomicReference<List<T>>            cachedDtos    = new AtomicReference<>();
     protected final AtomicReference<ScheduledFuture<?>> scheduledTask = new AtomicReference<>();
 
     protected final AtomicLong lastEventTime      = new AtomicLong(0);
     protected final AtomicLong deadline           = new AtomicLong(0);
     protected final AtomicLong lastChangeCount    = new AtomicLong(-1);
     protected final AtomicLong pendingChangeCount = new AtomicLong(0);
+    protected final AtomicLong lastAccessTime     = new AtomicLong(0);
+
+    // seeded with the current time so that versions of a previous agent session are never mistaken for current ones
+    protected final AtomicLong snapshotVersion = new AtomicLong(System.currentTimeMillis());
+
+    private volatile List<String>              cachedKeys;
+    private volatile Map<String, Long>         cachedFingerprints;
+    private final Map<Long, Map<String, Long>> fingerprintHistory = new BoundedHistory<>(DELTA_HISTORY);
+    private volatile SnapshotDemand            demand;
+    private volatile int                       wireVersion        = BinaryCodec.WIRE_V1;
+    private volatile boolean                   initialized;
+    private boolean                            stopped;
 
     protected final FluentLogger logger = LoggerFactory.getFluentLogger(getClass());
 
@@ -79,11 +104,18 @@ public abstract class AbstractSnapshotAdmin<T> {
      * @return the binary snapshot data
      */
     public byte[] snapshot() {
-        if (snapshot.get() == null || pendingChangeCount.get() > lastChangeCount.get()) {
-            performSnapshot(pendingChangeCount.get());
-        }
+        ensureInitialized();
+        lastAccessTime.set(System.currentTimeMillis());
         final byte[] current = snapshot.get();
-        return current != null ? current : new byte[0];
+        if (current != null && !isStale()) {
+            return current;
+        }
+        // regenerating and reading under the lock keeps an eviction from slipping in between
+        synchronized (this) {
+            refreshIfStale();
+            final byte[] refreshed = snapshot.get();
+            return refreshed != null ? refreshed : new byte[0];
+        }
     }
 
     /**
@@ -96,6 +128,11 @@ public abstract class AbstractSnapshotAdmin<T> {
         lastEventTime.set(now);
         pendingChangeCount.set(changeCount);
 
+        // 0. Only mark dirty if nobody reads the snapshot, the next request regenerates it synchronously
+        if (!isDemanded()) {
+            return;
+        }
+
         // 1. Initialize Deadline if not set (CAS ensures we only set it on the FIRST event of a burst)
         deadline.compareAndSet(0, now + MAX_WAIT_MS);
 
@@ -112,6 +149,11 @@ public abstract class AbstractSnapshotAdmin<T> {
      * Checker task that decides whether to run the snapshot now or reschedule.
      */
     private void checkAndRun() {
+        if (!isDemanded()) {
+            // the supervisor has gone in the meantime
+            deadline.set(0);
+            return;
+        }
         final long now             = System.currentTimeMillis();
         final long lastEvent       = lastEventTime.get();
         final long currentDeadline = deadline.get();
@@ -148,8 +190,37 @@ public abstract class AbstractSnapshotAdmin<T> {
             if (Thread.currentThread().isInterrupted()) {
                 return;
             }
-            final byte[] encoded    = codec.encode(dtos);
+            final int         version      = wireVersion;
+            List<String>      keys         = keys(dtos);
+            Map<String, Long> fingerprints = null;
+            final byte[]      encoded;
+            if (keys == null) {
+                encoded = codec.encode(dtos, version);
+            } else {
+                final long[] hashes = new long[dtos.size()];
+                encoded      = codec.encodeList(dtos, version, hashes);
+                fingerprints = new HashMap<>(dtos.size() * 2);
+                for (int i = 0; i < hashes.length; i++) {
+                    fingerprints.put(keys.get(i), hashes[i]);
+                }
+            }
             final byte[] compressed = Lz4Codec.compressWithLength(encoded);
+
+            if (fingerprints != null && fingerprints.size() != keys.size()) {
+                logger.atWarn().msg("Duplicate snapshot keys in " + getClass().getSimpleName()).log();
+                keys         = null;
+                fingerprints = null;
+            }
+
+            // only advance the version if the content has actually changed
+            if (fingerprints == null || !fingerprints.equals(cachedFingerprints) || !keys.equals(cachedKeys)) {
+                final long next = snapshotVersion.incrementAndGet();
+                if (fingerprints != null) {
+                    fingerprintHistory.put(next, fingerprints);
+                }
+            }
+            this.cachedKeys         = keys;
+            this.cachedFingerprints = fingerprints;
             this.snapshot.set(compressed);
             this.cachedDtos.set(dtos);
             this.lastChangeCount.set(changeCount);
@@ -160,6 +231,90 @@ public abstract class AbstractSnapshotAdmin<T> {
         }
     }
 
+    /**
+     * Returns the delta between the specified snapshot version and the current snapshot.
+     * The delta is only computed if this admin {@linkplain #key(Object) keys} its DTOs
+     * and the specified version is still part of the history, otherwise the full list is
+     * returned.
+     *
+     * @param sinceVersion the last snapshot version seen by the caller, or {@code -1}
+     * @return the encoded and compressed {@link SnapshotDelta}
+     */
+    public synchronized byte[] delta(final long sinceVersion) {
+        ensureInitialized();
+        lastAccessTime.set(System.currentTimeMillis());
+        refreshIfStale();
+        try {
+            final long version = snapshotVersion.get();
+            if (snapshot.get() != null && sinceVersion == version) {
+                return SnapshotDelta.notModified(version).encode(codec, wireVersion);
+            }
+            final List<T>           cached   = cachedDtos.get();
+            final List<T>           dtos     = cached != null ? cached : Collections.emptyList();
+            final List<String>      keys     = cachedKeys;
+            final Map<String, Long> current  = cachedFingerprints;
+            final Map<String, Long> previous = fingerprintHistory.get(sinceVersion);
+            if (keys == null || current == null || previous == null) {
+                return SnapshotDelta.full(version, keys == null ? indexKeys(dtos.size()) : keys, dtos)
+                        .encode(codec, wireVersion);
+            }
+            final List<String> changedKeys = new ArrayList<>();
+            final List<T>      changed     = new ArrayList<>();
+            for (int i = 0; i < dtos.size(); i++) {
+                final String key = keys.get(i);
+                if (!current.get(key).equals(previous.get(key))) {
+                    changedKeys.add(key);
+                    changed.add(dtos.get(i));
+                }
+            }
+            final List<String> removed = new ArrayList<>();
+            for (final String key : previous.keySet()) {
+                if (!current.containsKey(key)) {
+                    removed.add(key);
+                }
+            }
+            // a delta that touches (almost) everything is not worth it
+            if (changed.size() + removed.size() >= dtos.size()) {
+                return SnapshotDelta.full(version, keys, dtos).encode(codec, wireVersion);
+            }
+            return SnapshotDelta.delta(version, changedKeys, changed, removed).encode(codec, wireVersion);
+        } catch (final Exception e) {
+            logger.atError().msg("Snapshot delta failed for " + getClass().getSimpleName()).throwable(e).log();
+            return new byte[0];
+        }
+    }
+
+    /**
+     * Returns the key that uniquely identifies the specified DTO in the snapshot list.
+     * Admins that override this method support {@linkplain #delta(long) delta} snapshots.
+     *
+     * @param dto the DTO
+     * @return the key, or {@code null} if the DTOs of this admin are not keyed
+     */
+    protected String key(final T dto) {
+        return null;
+    }
+
+    private List<String> keys(final List<T> dtos) {
+        final List<String> keys = new ArrayList<>(dtos.size());
+        for (final T dto : dtos) {
+            final String key = key(dto);
+            if (key == null) {
+                return null;
+            }
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    private static List<String> indexKeys(final int size) {
+        final List<String> keys = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            keys.add(String.valueOf(i));
+        }
+        return keys;
+    }
+
     /**
      * Generates a snapshot on-demand without caching or scheduling.
      * Useful for "cheap" data where background tracking is overkill.
@@ -167,12 +322,13 @@ public abstract class AbstractSnapshotAdmin<T> {
      * @return the encoded and compressed snapshot
      */
     protected byte[] liveSnapshot() {
+        ensureInitialized();
         try {
             final List<T> dtos = map();
             if (dtos == null) {
                 return new byte[0];
             }
-            final byte[] encoded = codec.encode(dtos);
+            final byte[] encoded = codec.encode(dtos, wireVersion);
             return Lz4Codec.compressWithLength(encoded);
         } catch (final Exception e) {
             logger.atError().msg("Live snapshot failed for " + getClass().getSimpleName()).throwable(e).log();
@@ -180,6 +336,27 @@ public abstract class AbstractSnapshotAdmin<T> {
         }
     }
 
+    /**
+     * Starts tracking the state this admin snapshots, e.g. by opening its service trackers.
+     * It is called once, when this admin is first demanded.
+     */
+    public abstract void init();
+
+    /**
+     * Initializes this admin unless it has already been initialized or stopped.
+     */
+    final void ensureInitialized() {
+        if (initialized) {
+            return;
+        }
+        synchronized (this) {
+            if (!initialized && !stopped) {
+                initialized = true;
+                init();
+            }
+        }
+    }
+
     /**
      * Maps the current domain state to a list of DTOs.
      *
@@ -188,12 +365,16 @@ public abstract class AbstractSnapshotAdmin<T> {
     protected abstract List<T> map() throws Exception;
 
     /**
-     * Invalidate the current snapshot and change count.
+     * Invalidate the current snapshot and change count. The snapshot is only marked stale,
+     * hence the next request regenerates it instead of getting an empty one.
      */
-    public void invalidate() {
+    public synchronized void invalidate() {
         snapshot.set(null);
-        cachedDtos.set(Collections.emptyList());
+        cachedDtos.set(null);
         lastChangeCount.set(-1);
+        fingerprintHistory.clear();
+        cachedKeys         = null;
+        cachedFingerprints = null;
     }
 
     /**
@@ -202,16 +383,103 @@ public abstract class AbstractSnapshotAdmin<T> {
      * @return the list of DTOs
      */
     public List<T> get() {
-        if (snapshot.get() == null || pendingChangeCount.get() > lastChangeCount.get()) {
+        ensureInitialized();
+        lastAccessTime.set(System.currentTimeMillis());
+        final List<T> current = cachedDtos.get();
+        if (current != null && !isStale()) {
+            return current;
+        }
+        // regenerating and reading under the lock keeps an eviction from slipping in between
+        synchronized (this) {
+            refreshIfStale();
+            final List<T> refreshed = cachedDtos.get();
+            return refreshed != null ? refreshed : Collections.emptyList();
+        }
+    }
+
+    private boolean isStale() {
+        return pendingChangeCount.get() > lastChangeCount.get();
+    }
+
+    // must be called with the lock held, so that the snapshot cannot be evicted in the meantime
+    private void refreshIfStale() {
+        if (snapshot.get() == null || cachedDtos.get() == null || isStale()) {
             performSnapshot(pendingChangeCount.get());
         }
-        return cachedDtos.get();
+    }
+
+    /**
+     * Drops the cached snapshot if it has not been requested since the specified time.
+     *
+     * @param expiry the time before which the last request must have happened
+     */
+    synchronized void evictIfIdle(final long expiry) {
+        if (snapshot.get() != null && lastAccessTime.get() < expiry) {
+            invalidate();
+            logger.atDebug().msg("Idle snapshot of " + getClass().getSimpleName() + " has been dropped").log();
+        }
+    }
+
+    /**
+     * Sets the wire format version of the snapshots served to the currently attached supervisor.
+     * The shared codec is never switched, so that each admin encodes with its own version and
+     * switching the version drops the snapshot and the fingerprints taken in the previous format.
+     *
+     * @param version the wire format version ({@link BinaryCodec#WIRE_V1} or {@link BinaryCodec#WIRE_V2})
+     */
+    public void setWireVersion(final int version) {
+        if (wireVersion != version) {
+            wireVersion = version;
+            invalidate();
+        }
+    }
+
+    /**
+     * Returns the wire format version of the snapshots served to the currently attached supervisor.
+     *
+     * @return the wire format version
+     */
+    protected int getWireVersion() {
+        return wireVersion;
+    }
+
+    void setDemand(final SnapshotDemand demand) {
+        this.demand = demand;
+    }
+
+    /**
+     * Returns whether the snapshot has to be kept up to date in the background.
+     *
+     * @return {@code true} if no demand is tracked or the snapshot is demanded
+     */
+    protected boolean isDemanded() {
+        final SnapshotDemand current = demand;
+        return current == null || current.isDemanded(lastAccessTime.get());
     }
 
     public void stop() {
+        synchronized (this) {
+            // an admin that has never been demanded must not start tracking afterwards
+            stopped = true;
+        }
         final ScheduledFuture<?> task = scheduledTask.get();
         if (task != null) {
             task.cancel(true);
         }
     }
+
+    private static final class BoundedHistory<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        private BoundedHistory(final int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
 }
@@ -39,6 +39,7 @@ public final class RemoteServiceAdminManager extends AbstractSnapshotAdmin<XRemo
         this.context = context;
     }
 
+    @Override
     public void init() {
         final Dictionary<String, Object> props = new Hashtable<>();
         props.put(EndpointEventListener.ENDPOINT_LISTENER_SCOPE, "(objectClass=*)");
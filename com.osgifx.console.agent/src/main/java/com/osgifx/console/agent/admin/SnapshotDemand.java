@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.admin;
+
+import static com.osgifx.console.agent.Agent.AGENT_SNAPSHOT_TTL_KEY;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.osgi.framework.BundleContext;
+
+/**
+ * Tracks whether the snapshots of the {@link AbstractSnapshotAdmin}s are demanded at all.
+ * <p>
+ * As long as no supervisor is attached, the admins only mark themselves dirty on
+ * framework events and the first request after such a quiet period regenerates the
+ * snapshot synchronously. The snapshots which have not been requested within the TTL are
+ * periodically dropped, such that an idle agent neither spends CPU on snapshots nobody
+ * reads nor retains their cached {@code byte[]} and DTOs.
+ * <p>
+ * A supervisor connected through a socket is attached for the lifetime of its connection.
+ * A supervisor communicating through a broker may vanish without notice instead, hence
+ * it only holds a lease that each of its requests renews and that expires once it has
+ * not sent any request within the TTL.
+ * <p>
+ * The admins only start tracking the framework once they are first demanded, i.e. a
+ * supervisor attaches or their snapshot is requested.
+ */
+public final class SnapshotDemand {
+
+    public static final long DEFAULT_TTL = 300_000;
+
+    private final long                           ttl;
+    private final ScheduledExecutorService       executor;
+    private final AtomicInteger                  supervisors = new AtomicInteger();
+    private final List<AbstractSnapshotAdmin<?>> admins      = new CopyOnWriteArrayList<>();
+    private final Map<Object, Long>              leases      = new ConcurrentHashMap<>();
+
+    private ScheduledFuture<?> future;
+
+    public SnapshotDemand(final BundleContext context, final ScheduledExecutorService executor) {
+        this.ttl      = getTtl(context);
+        this.executor = executor;
+    }
+
+    /**
+     * Lets the specified admin consult this demand before it regenerates its snapshot in
+     * the background.
+     *
+     * @param admin the admin to register
+     */
+    public void register(final AbstractSnapshotAdmin<?> admin) {
+        admin.setDemand(this);
+        admins.add(admin);
+    }
+
+    /**
+     * Returns the registered admins, i.e. the snapshot admins of the packages wired in
+     * this runtime.
+     *
+     * @return the registered admins
+     */
+    public List<AbstractSnapshotAdmin<?>> admins() {
+        return Collections.unmodifiableList(admins);
+    }
+
+    public synchronized void init() {
+        if (future == null) {
+            future = executor.scheduleWithFixedDelay(this::evictIdle, ttl, ttl, MILLISECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+        if (future != null) {
+            future.cancel(false);
+            future = null;
+        }
+        admins.clear();
+        leases.clear();
+    }
+
+    public void attach() {
+        supervisors.incrementAndGet();
+        // an attached supervisor demands all snapshots, hence the admins have to track their state from now on
+        for (final AbstractSnapshotAdmin<?> admin : admins) {
+            admin.ensureInitialized();
+        }
+    }
+
+    public void detach() {
+        supervisors.decrementAndGet();
+    }
+
+    /**
+     * Attaches the supervisor identified by the specified owner until its lease expires,
+     * or renews its lease if it is already attached.
+     *
+     * @param owner the owner of the lease
+     */
+    public void renew(final Object owner) {
+        if (leases.put(owner, System.currentTimeMillis()) == null) {
+            attach();
+        }
+    }
+
+    /**
+     * Detaches the supervisor identified by the specified owner before its lease expires.
+     *
+     * @param owner the owner of the lease
+     */
+    public void release(final Object owner) {
+        if (leases.remove(owner) != null) {
+            detach();
+        }
+    }
+
+    /**
+     * Returns whether any supervisor is attached, either for the lifetime of its connection
+     * or by a lease.
+     *
+     * @return {@code true} if at least one supervisor is attached
+     */
+    public boolean isAttached() {
+        return supervisors.get() > 0;
+    }
+
+    /**
+     * Returns whether a snapshot last requested at the specified time has to be kept up to
+     * date in the background.
+     *
+     * @param lastAccess the time the snapshot has been requested at the last time
+     * @return {@code true} if a supervisor is attached and requested it within the TTL
+     */
+    boolean isDemanded(final long lastAccess) {
+        return isAttached() && System.currentTimeMillis() - lastAccess < ttl;
+    }
+
+    private void evictIdle() {
+        final long expiry = System.currentTimeMillis() - ttl;
+        for (final Map.Entry<Object, Long> lease : leases.entrySet()) {
+            // a lease renewed in the meantime is not removed
+            if (lease.getValue() < expiry && leases.remove(lease.getKey(), lease.getValue())) {
+                detach();
+            }
+        }
+        for (final AbstractSnapshotAdmin<?> admin : admins) {
+            admin.evictIfIdle(expiry);
+        }
+    }
+
+    private static long getTtl(final BundleContext context) {
+        final String value = context.getProperty(AGENT_SNAPSHOT_TTL_KEY);
+        if (value != null) {
+            try {
+                final long ttl = Long.parseLong(value.trim());
+                if (ttl > 0) {
+                    return ttl;
+                }
+            } catch (final NumberFormatException e) {
+                // fall back to default
+            }
+        }
+        return DEFAULT_TTL;
+    }
+
+}
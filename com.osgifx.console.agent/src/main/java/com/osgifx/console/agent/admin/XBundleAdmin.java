@@ -48,7 +48,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
@@ -86,6 +88,8 @@ import jakarta.inject.Singleton;
 @Singleton
 public final class XBundleAdmin extends AbstractSnapshotAdmin<XBundleDTO> {
 
+    private static final long FULL_REBUILD_INTERVAL_MS = 60_000;
+
     private final BundleContext             context;
     private final BundleStartTimeCalculator bundleStartTimeCalculator;
     private BundleTracker<Object>           bundleTracker;
@@ -95,6 +99,12 @@ public final class XBundleAdmin extends AbstractSnapshotAdmin<XBundleDTO> {
     private volatile int      cachedFrameworkStartLevel = -1;
     private FrameworkListener frameworkStartLevelListener;
 
+    // DTOs of the unchanged bundles are reused, only the ones reported by the trackers are rebuilt
+    private final Map<Long, XBundleDTO> dtoCache     = new ConcurrentHashMap<>();
+    private final Set<Long>             dirtyBundles = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean         dirtyAll     = new AtomicBoolean(true);
+    private long                        lastFullBuild;
+
     protected static final FluentLogger logger = LoggerFactory.getFluentLogger(XBundleAdmin.class);
 
     @Inject
@@ -110,11 +120,13 @@ public final class XBundleAdmin extends AbstractSnapshotAdmin<XBundleDTO> {
         this.cachedFrameworkStartLevel = readFrameworkStartLevel();
     }
 
+    @Override
     public void init() {
         // Keep framework start level cache fresh
         frameworkStartLevelListener = event -> {
             if (event.getType() == STARTLEVEL_CHANGED) {
                 cachedFrameworkStartLevel = readFrameworkStartLevel();
+                dirtyAll.set(true);
                 scheduleUpdate(pendingChangeCount.incrementAndGet());
             }
         };
@@ -124,17 +136,20 @@ public final class XBundleAdmin extends AbstractSnapshotAdmin<XBundleDTO> {
                 | Bundle.ACTIVE | Bundle.STOPPING | Bundle.UNINSTALLED, null) {
             @Override
             public Object addingBundle(final Bundle bundle, final BundleEvent event) {
+                markDirty(bundle);
                 scheduleUpdate(pendingChangeCount.incrementAndGet());
                 return new Object();
             }
 
             @Override
             public void modifiedBundle(final Bundle bundle, final BundleEvent event, final Object object) {
+                markDirty(bundle);
                 scheduleUpdate(pendingChangeCount.incrementAndGet());
             }
 
             @Override
             public void removedBundle(final Bundle bundle, final BundleEvent event, final Object object) {
+                markDirty(bundle);
                 scheduleUpdate(pendingChangeCount.incrementAndGet());
             }
         };
@@ -145,17 +160,20 @@ public final class XBundleAdmin extends AbstractSnapshotAdmin<XBundleDTO> {
                                                                 null) {
                 @Override
                 public Object addingService(final ServiceReference<Object> reference) {
+                    markDirty(reference);
                     scheduleUpdate(pendingChangeCount.incrementAndGet());
                     return new Object();
                 }
 
                 @Override
                 public void modifiedService(final ServiceReference<Object> reference, final Object object) {
+                    markDirty(reference);
                     scheduleUpdate(pendingChangeCount.incrementAndGet());
                 }
 
                 @Override
                 public void removedService(final ServiceReference<Object> reference, final Object object) {
+                    markDirty(reference);
                     scheduleUpdate(pendingChangeCount.incrementAndGet());
                 }
             };
@@ -181,6 +199,12 @@ public final class XBundleAdmin extends AbstractSnapshotAdmin<XBundleDTO> {
         }
     }
 
+    @Override
+    public void invalidate() {
+        dirtyAll.set(true);
+        super.invalidate();
+    }
+
     // --- Adaptive Scheduler (Lock-Free) ---
     @Override
     protected List<XBundleDTO> map() throws Exception {
@@ -188,16 +212,120 @@ public final class XBundleAdmin extends AbstractSnapshotAdmin<XBundleDTO> {
         if (allBundles == null) {
             return Collections.emptyList();
         }
+        // attributes without any event (e.g. the data folder size) are refreshed by a periodic full rebuild
+        final long    now  = System.currentTimeMillis();
+        final boolean full = dirtyAll.getAndSet(false) || now - lastFullBuild >= FULL_REBUILD_INTERVAL_MS;
+        if (full) {
+            dirtyBundles.clear();
+            dtoCache.clear();
+            lastFullBuild = now;
+        }
+        final Set<Long> dirty = new HashSet<>(dirtyBundles);
+        dirtyBundles.removeAll(dirty);
+        try {
+            return map(allBundles, dirty);
+        } catch (final Exception e) {
+            // the drained bundles must not be lost
+            dirtyAll.set(true);
+            throw e;
+        }
+    }
+
+    private List<XBundleDTO> map(final Bundle[] allBundles, final Set<Long> dirty) throws InterruptedException {
+        final Map<Long, Bundle> bundles = new HashMap<>(allBundles.length * 2);
+        for (final Bundle bundle : allBundles) {
+            bundles.put(bundle.getBundleId(), bundle);
+        }
+        // the wiring of a bundle is part of the DTOs of its wired bundles, hence they are rebuilt as well
+        final Set<Long> rebuilt   = new HashSet<>();
+        final Set<Long> neighbors = new HashSet<>();
+        for (final Long id : dirty) {
+            if (!bundles.containsKey(id)) {
+                // uninstalled bundles are only known by their last DTO
+                addNeighbors(dtoCache.get(id), neighbors);
+            }
+        }
+        for (final Bundle bundle : allBundles) {
+            final long id = bundle.getBundleId();
+            if (dirty.contains(id) || !dtoCache.containsKey(id)) {
+                rebuild(bundle, neighbors);
+                rebuilt.add(id);
+            }
+        }
+        neighbors.removeAll(rebuilt);
+        for (final Long id : neighbors) {
+            final Bundle bundle = bundles.get(id);
+            if (bundle != null) {
+                rebuild(bundle, null);
+            }
+        }
+        dtoCache.keySet().retainAll(bundles.keySet());
+
         final List<XBundleDTO> dtos = new ArrayList<>(allBundles.length);
         for (final Bundle bundle : allBundles) {
-            if (Thread.currentThread().isInterrupted()) {
-                throw new InterruptedException();
+            final XBundleDTO dto = dtoCache.get(bundle.getBundleId());
+            if (dto != null) {
+                dtos.add(dto);
             }
-            dtos.add(toDTO(bundle, bundleStartTimeCalculator, cachedFrameworkStartLevel));
         }
         return dtos;
     }
 
+    private void rebuild(final Bundle bundle, final Set<Long> neighbors) throws InterruptedException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException();
+        }
+        final XBundleDTO dto      = toDTO(bundle, bundleStartTimeCalculator, cachedFrameworkStartLevel);
+        final XBundleDTO previous = dtoCache.put(dto.id, dto);
+        if (neighbors != null) {
+            addNeighbors(previous, neighbors);
+            addNeighbors(dto, neighbors);
+        }
+    }
+
+    private static void addNeighbors(final XBundleDTO dto, final Set<Long> neighbors) {
+        if (dto == null) {
+            return;
+        }
+        addIds(dto.wiredBundlesAsProvider, neighbors);
+        addIds(dto.wiredBundlesAsRequirer, neighbors);
+        addIds(dto.hostBundles, neighbors);
+        addIds(dto.fragmentsAttached, neighbors);
+    }
+
+    private static void addIds(final List<XBundleInfoDTO> bundles, final Set<Long> ids) {
+        if (bundles != null) {
+            for (final XBundleInfoDTO bundle : bundles) {
+                ids.add(bundle.id);
+            }
+        }
+    }
+
+    private void markDirty(final Bundle bundle) {
+        dirtyBundles.add(bundle.getBundleId());
+    }
+
+    private void markDirty(final ServiceReference<?> reference) {
+        final Bundle registrant = reference.getBundle();
+        if (registrant == null) {
+            // already unregistered, hence the registering bundle is unknown
+            dirtyAll.set(true);
+            return;
+        }
+        markDirty(registrant);
+        final Bundle[] users = reference.getUsingBundles();
+        if (users != null) {
+            for (final Bundle user : users) {
+                markDirty(user);
+            }
+        }
+    }
+
+    @Override
+    protected String key(final XBundleDTO dto) {
+        return String.valueOf(dto.id);
+    }
+
     public byte[] snapshot(final long bundleId) {
         if (context == null) {
             logger.atWarn().msg("Bundle context is null").log();
@@ -210,7 +338,7 @@ public final class XBundleAdmin extends AbstractSnapshotAdmin<XBundleDTO> {
         }
         final XBundleDTO dto = toDTO(bundle, bundleStartTimeCalculator, cachedFrameworkStartLevel);
         try {
-            final byte[] encoded = codec.encode(dto);
+            final byte[] encoded = codec.encode(dto, getWireVersion());
             return Lz4Codec.compressWithLength(encoded);
         } catch (final Exception e) {
             logger.atError().msg("Failed to compress single bundle snapshot").throwable(e).log();
@@ -68,6 +68,7 @@ public final class XCdiAdmin extends AbstractSnapshotAdmin<XCdiContainerDTO> {
         this.cdiRuntimeSupplier = cdiRuntimeSupplier;
     }
 
+    @Override
     public void init() {
         cdiTracker = new ServiceTracker<>(context, CDIComponentRuntime.class,
                                           new ServiceTrackerCustomizer<CDIComponentRuntime, CDIComponentRuntime>() {
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.admin;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.j256.simplelogging.FluentLogger;
+import com.j256.simplelogging.LoggerFactory;
+import com.osgifx.console.agent.dto.XClassHistogramDTO;
+import com.osgifx.console.agent.provider.BundleClassResolver;
+import com.osgifx.console.agent.provider.ClassHistogram;
+import com.osgifx.console.agent.rpc.codec.BinaryCodec;
+import com.osgifx.console.agent.rpc.codec.Lz4Codec;
+
+/**
+ * Takes histograms of the objects on the heap through the {@code GC.class_histogram}
+ * diagnostic command and attributes them to the bundles defining their classes.
+ * <p>
+ * Unlike a heap dump, a histogram only walks the heap once without writing it anywhere,
+ * hence it is cheap enough to be taken repeatedly on a production runtime to find the
+ * bundles whose objects grow.
+ */
+public final class XClassHistogramAdmin {
+
+    private static final String DIAGNOSTIC_COMMAND_MBEAN = "com.sun.management:type=DiagnosticCommand";
+    private static final String CLASS_HISTOGRAM          = "gcClassHistogram";
+
+    private final BinaryCodec         codec;
+    private final BundleClassResolver classResolver;
+    private final FluentLogger        logger = LoggerFactory.getFluentLogger(getClass());
+
+    public XClassHistogramAdmin(final BinaryCodec codec, final BundleClassResolver classResolver) {
+        this.codec         = codec;
+        this.classResolver = classResolver;
+    }
+
+    /**
+     * Takes a class histogram.
+     *
+     * @param isLiveOnly {@code true} to count only the reachable objects after a full
+     *            garbage collection, {@code false} to count all objects without pausing
+     *            for a collection
+     * @return the encoded and compressed {@link XClassHistogramDTO}, or an empty array if
+     *         the JVM does not provide the diagnostic command
+     */
+    public byte[] classHistogram(final boolean isLiveOnly) {
+        try {
+            final MBeanServer server    = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName  name      = new ObjectName(DIAGNOSTIC_COMMAND_MBEAN);
+            final String[]    arguments = isLiveOnly ? new String[0] : new String[] { "-all" };
+            final Object      histogram = server.invoke(name, CLASS_HISTOGRAM, new Object[] { arguments },
+                    new String[] { String[].class.getName() });
+
+            final XClassHistogramDTO dto = ClassHistogram.parse(String.valueOf(histogram));
+            dto.timestamp  = System.currentTimeMillis();
+            dto.isLiveOnly = isLiveOnly;
+            ClassHistogram.attribute(dto, classResolver.resolve(dto.classNames));
+
+            return Lz4Codec.compressWithLength(codec.encode(dto));
+        } catch (final Exception e) {
+            logger.atError().msg("Class histogram cannot be taken").throwable(e).log();
+            return new byte[0];
+        }
+    }
+
+}
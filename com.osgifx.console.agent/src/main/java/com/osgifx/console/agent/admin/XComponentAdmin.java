@@ -33,6 +33,7 @@ import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -93,6 +94,7 @@ public final class XComponentAdmin extends AbstractSnapshotAdmin<XComponentDTO>
 
     private final BundleContext                                              context;
     private ServiceTracker<ServiceComponentRuntime, ServiceComponentRuntime> scrTracker;
+    private volatile PidIndex                                                pidIndex;
 
     private static final String SATISFYING_CONDITION_TARGET   = "osgi.ds.satisfying.condition.target";
     private static final String SATISFYING_CONDITION_REF_NAME = "osgi.ds.satisfying.condition";
@@ -107,6 +109,7 @@ public final class XComponentAdmin extends AbstractSnapshotAdmin<XComponentDTO>
         this.context = context;
     }
 
+    @Override
     public void init() {
         scrTracker = new ServiceTracker<>(context, ServiceComponentRuntime.class,
                                           new ServiceTrackerCustomizer<ServiceComponentRuntime, ServiceComponentRuntime>() {
@@ -167,7 +170,35 @@ public final class XComponentAdmin extends AbstractSnapshotAdmin<XComponentDTO>
         return allDTOs;
     }
 
+    @Override
+    protected String key(final XComponentDTO dto) {
+        // unconfigured components share the ID -1 and are identified by their declaring bundle and name
+        return dto.registeringBundleId + "/" + dto.name + "/" + dto.id;
+    }
+
+    /**
+     * Returns the components of the current snapshot indexed by every PID they can be
+     * configured with, that is, their configuration PIDs, their name and their
+     * implementation class. The index belongs to the cached snapshot, hence it is only
+     * rebuilt once the SCR change count has moved on.
+     *
+     * @return the components by PID
+     */
+    public Map<String, List<XComponentDTO>> getComponentsByPid() {
+        final List<XComponentDTO> components = get();
+        if (components == null) {
+            return Collections.emptyMap();
+        }
+        PidIndex index = pidIndex;
+        if (index == null || index.components != components) {
+            index    = new PidIndex(components);
+            pidIndex = index;
+        }
+        return index.componentsByPid;
+    }
+
     public ServiceComponentRuntime getServiceComponentRuntime() {
+        ensureInitialized();
         return scrTracker == null ? null : scrTracker.getService();
     }
 
@@ -605,4 +636,28 @@ public final class XComponentAdmin extends AbstractSnapshotAdmin<XComponentDTO>
         return value.toString();
     }
 
+    private static final class PidIndex {
+        private final List<XComponentDTO>              components;
+        private final Map<String, List<XComponentDTO>> componentsByPid;
+
+        private PidIndex(final List<XComponentDTO> components) {
+            final Map<String, List<XComponentDTO>> index = new HashMap<>();
+            for (final XComponentDTO component : components) {
+                final Set<String> pids = new LinkedHashSet<>();
+                if (component.configurationPid != null) {
+                    pids.addAll(component.configurationPid);
+                }
+                pids.add(component.name);
+                pids.add(component.implementationClass);
+                for (final String pid : pids) {
+                    if (pid != null) {
+                        index.computeIfAbsent(pid, k -> new ArrayList<>()).add(component);
+                    }
+                }
+            }
+            this.components      = components;
+            this.componentsByPid = Collections.unmodifiableMap(index);
+        }
+    }
+
 }
@@ -70,6 +70,7 @@ public final class XConditionAdmin extends AbstractSnapshotAdmin<XConditionDTO>
         this.componentAdmin = componentAdmin;
     }
 
+    @Override
     public void init() {
         conditionTracker = new ServiceTracker<Condition, Condition>(context, Condition.class, null) {
             @Override
@@ -283,6 +284,7 @@ public final class XConditionAdmin extends AbstractSnapshotAdmin<XConditionDTO>
     }
 
     private ServiceReference<Condition> getRealReference(final long serviceId) {
+        ensureInitialized();
         final ServiceReference<Condition>[] refs = conditionTracker.getServiceReferences();
         if (refs != null) {
             for (final ServiceReference<Condition> ref : refs) {
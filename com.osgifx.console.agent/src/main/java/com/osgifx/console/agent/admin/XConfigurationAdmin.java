@@ -29,10 +29,12 @@ import java.util.ArrayList;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 
 import org.osgi.framework.BundleContext;
@@ -105,6 +107,7 @@ public final class XConfigurationAdmin extends AbstractSnapshotAdmin<XConfigurat
         this.packageWirings = packageWirings;
     }
 
+    @Override
     public void init() {
         configAdminTracker = new ServiceTracker<ConfigurationAdmin, ConfigurationAdmin>(context,
                                                                                         ConfigurationAdmin.class,
@@ -198,9 +201,10 @@ public final class XConfigurationAdmin extends AbstractSnapshotAdmin<XConfigurat
         // 3. Add Component Reference Filters
         if (packageWirings.isScrWired() && componentAdmin != null) {
             try {
-                final List<XComponentDTO> components = componentAdmin.map();
-                if (components != null && !components.isEmpty()) {
-                    dtos.forEach(c -> setComponentReferenceFilters(c, components));
+                // reuse the cached component snapshot which is only regenerated on SCR changes
+                final Map<String, List<XComponentDTO>> componentsByPid = componentAdmin.getComponentsByPid();
+                if (!componentsByPid.isEmpty()) {
+                    dtos.forEach(c -> setComponentReferenceFilters(c, componentsByPid));
                 }
             } catch (final Exception e) {
                 logger.atWarn().msg("Failed to retrieve components for reference filters").throwable(e).log();
@@ -223,6 +227,7 @@ public final class XConfigurationAdmin extends AbstractSnapshotAdmin<XConfigurat
     }
 
     private ConfigurationAdmin getConfigAdmin() {
+        ensureInitialized();
         return configAdminTracker == null ? null : configAdminTracker.getService();
     }
 
@@ -317,12 +322,16 @@ public final class XConfigurationAdmin extends AbstractSnapshotAdmin<XConfigurat
     }
 
     public void setComponentReferenceFilters(final XConfigurationDTO configuration,
-                                             final List<XComponentDTO> components) {
+                                             final Map<String, List<XComponentDTO>> componentsByPid) {
+        // the index covers all matching strategies: the component explicitly declares the PID
+        // in its configurationPid array, the DS default of the component name being used as
+        // PID and the configuration being named after the component's implementation class
+        final Set<XComponentDTO> components = new LinkedHashSet<>();
+        addComponents(components, componentsByPid, configuration.pid);
+        addComponents(components, componentsByPid, configuration.factoryPid);
+
         final List<XComponentReferenceFilterDTO> componentReferenceFilters = new ArrayList<>();
         for (final XComponentDTO component : components) {
-            if (!matchPID(component, configuration)) {
-                continue;
-            }
             final List<XComponentReferenceFilterDTO> referenceFilters = findAllReferenceFilters(component,
                     configuration);
             componentReferenceFilters.addAll(referenceFilters);
@@ -330,26 +339,16 @@ public final class XConfigurationAdmin extends AbstractSnapshotAdmin<XConfigurat
         configuration.componentReferenceFilters = componentReferenceFilters;
     }
 
-    private boolean matchPID(final XComponentDTO component, final XConfigurationDTO configuration) {
-        // Strategy 1: Component explicitly declares this PID in its configurationPid array
-        final boolean hasFactoryPID = component.configurationPid.contains(configuration.factoryPid);
-        final boolean hasConfigPID  = component.configurationPid.contains(configuration.pid);
-
-        // Strategy 2: DS default - component name is used as PID when configurationPid is not set
-        final boolean nameMatchesPID        = component.name.equals(configuration.pid);
-        final boolean nameMatchesFactoryPID = component.name.equals(configuration.factoryPid);
-
-        // Strategy 3: Configuration PID matches component's implementation class
-        // This handles cases where the configuration is named after the implementation class
-        final boolean implClassMatchesPID        = component.implementationClass != null
-                && component.implementationClass.equals(configuration.pid);
-        final boolean implClassMatchesFactoryPID = component.implementationClass != null
-                && component.implementationClass.equals(configuration.factoryPid);
-
-        final boolean matches = hasConfigPID || hasFactoryPID || nameMatchesPID || nameMatchesFactoryPID
-                || implClassMatchesPID || implClassMatchesFactoryPID;
-
-        return matches;
+    private static void addComponents(final Set<XComponentDTO> components,
+                                      final Map<String, List<XComponentDTO>> componentsByPid,
+                                      final String pid) {
+        if (pid == null) {
+            return;
+        }
+        final List<XComponentDTO> matches = componentsByPid.get(pid);
+        if (matches != null) {
+            components.addAll(matches);
+        }
     }
 
     private List<XComponentReferenceFilterDTO> findAllReferenceFilters(final XComponentDTO component,
@@ -75,6 +75,7 @@ public final class XHcAdmin extends AbstractSnapshotAdmin<XHealthCheckDTO> {
         this.felixHcExecutorSupplier = felixHcExecutorSupplier;
     }
 
+    @Override
     public void init() {
         hcTracker = new ServiceTracker<HealthCheck, HealthCheck>(context, HealthCheck.class, null) {
             @Override
@@ -65,6 +65,7 @@ public final class XHttpAdmin extends AbstractSnapshotAdmin<XHttpComponentDTO> {
         this.httpServiceRuntimeSupplier = httpServiceRuntimeSupplier;
     }
 
+    @Override
     public void init() {
         httpTracker = new ServiceTracker<>(context, HttpServiceRuntime.class,
                                            new ServiceTrackerCustomizer<HttpServiceRuntime, HttpServiceRuntime>() {
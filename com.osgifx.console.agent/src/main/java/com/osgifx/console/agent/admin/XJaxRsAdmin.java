@@ -67,6 +67,7 @@ public final class XJaxRsAdmin extends AbstractSnapshotAdmin<XJaxRsComponentDTO>
         this.jaxRsRuntimeSupplier = jaxRsRuntimeSupplier;
     }
 
+    @Override
     public void init() {
         jaxRsTracker = new ServiceTracker<>(context, JaxrsServiceRuntime.class,
                                             new ServiceTrackerCustomizer<JaxrsServiceRuntime, JaxrsServiceRuntime>() {
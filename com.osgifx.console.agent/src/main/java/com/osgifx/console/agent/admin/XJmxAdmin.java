@@ -100,8 +100,10 @@ public final class XJmxAdmin {
     }
 
     public byte[] heapdump() throws Exception {
-        final File location = new File(System.getProperty("user.dir"));
-        final File heapdump = new File(location, "" + System.currentTimeMillis() + ".hprof");
+        // dump to the temp directory rather than the working directory which might not be writable
+        final File heapdump = File.createTempFile("heapdump-", ".hprof");
+        // HotSpot's dumpHeap requires the file to NOT exist
+        heapdump.delete();
 
         initHotspotMBean();
         try {
@@ -74,6 +74,7 @@ public final class XLoggerAdmin extends AbstractSnapshotAdmin<XBundleLoggerConte
         isConfigAdminWired       = packageWirings.isConfigAdminWired();
     }
 
+    @Override
     public void init() {
         context.addBundleListener(this);
     }
@@ -0,0 +1,321 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.admin;
+
+import static com.osgifx.console.agent.Agent.AGENT_METRICS_INTERVAL_KEY;
+import static com.osgifx.console.agent.provider.MetricsBuffer.BULK_DEPTH;
+import static com.osgifx.console.agent.provider.MetricsBuffer.BULK_LATENCY;
+import static com.osgifx.console.agent.provider.MetricsBuffer.DAEMON_THREAD_COUNT;
+import static com.osgifx.console.agent.provider.MetricsBuffer.GC_COUNT;
+import static com.osgifx.console.agent.provider.MetricsBuffer.GC_TIME;
+import static com.osgifx.console.agent.provider.MetricsBuffer.HEAP_COMMITTED;
+import static com.osgifx.console.agent.provider.MetricsBuffer.HEAP_MAX;
+import static com.osgifx.console.agent.provider.MetricsBuffer.HEAP_USED;
+import static com.osgifx.console.agent.provider.MetricsBuffer.INTERACTIVE_DEPTH;
+import static com.osgifx.console.agent.provider.MetricsBuffer.INTERACTIVE_LATENCY;
+import static com.osgifx.console.agent.provider.MetricsBuffer.LOADED_CLASS_COUNT;
+import static com.osgifx.console.agent.provider.MetricsBuffer.LOADS;
+import static com.osgifx.console.agent.provider.MetricsBuffer.METRICS;
+import static com.osgifx.console.agent.provider.MetricsBuffer.NON_HEAP_COMMITTED;
+import static com.osgifx.console.agent.provider.MetricsBuffer.NON_HEAP_USED;
+import static com.osgifx.console.agent.provider.MetricsBuffer.PROCESS_CPU_LOAD;
+import static com.osgifx.console.agent.provider.MetricsBuffer.SYSTEM_CPU_LOAD;
+import static com.osgifx.console.agent.provider.MetricsBuffer.THREAD_COUNT;
+import static com.osgifx.console.agent.provider.MetricsBuffer.UNLOADED_CLASS_COUNT;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+import org.osgi.framework.BundleContext;
+
+import com.j256.simplelogging.FluentLogger;
+import com.j256.simplelogging.LoggerFactory;
+import com.osgifx.console.agent.dto.XMetricsDTO;
+import com.osgifx.console.agent.provider.MetricsBuffer;
+import com.osgifx.console.agent.rpc.socket.SocketRPC.Lane;
+import com.osgifx.console.agent.rpc.socket.SocketRPC.LaneStatistics;
+
+/**
+ * Samples the runtime metrics of the JVM periodically into a {@link MetricsBuffer}, such
+ * that their history is available to every supervisor at any time, and notifies the
+ * registered listeners about every taken sample.
+ * <p>
+ * The metrics are only sampled at the configured interval while a supervisor is attached.
+ * Otherwise they are sampled at the interval of the next coarser resolution of the buffer
+ * to keep the long-term history, such that an idle agent does not query the MXBeans every
+ * second.
+ * <p>
+ * The outgoing lanes of every registered socket connection are sampled along with the
+ * JVM, such that their queue depth and latency can be followed under load.
+ */
+public final class XMetricsAdmin {
+
+    private static final String OS_MXBEAN_CLASS = "com.sun.management.OperatingSystemMXBean";
+    private static final int    IDLE_RESOLUTION = 1;
+
+    private final long                         interval;
+    private final MetricsBuffer                buffer;
+    private final ScheduledExecutorService     executor;
+    private final List<LongConsumer>           listeners = new CopyOnWriteArrayList<>();
+    private final FluentLogger                 logger    = LoggerFactory.getFluentLogger(getClass());
+
+    private final List<Supplier<List<LaneStatistics>>> lanes = new CopyOnWriteArrayList<>();
+    private final MemoryMXBean                 memoryMBean;
+    private final ThreadMXBean                 threadMBean;
+    private final ClassLoadingMXBean           classLoadingMBean;
+    private final List<GarbageCollectorMXBean> gcMBeans;
+    private final OperatingSystemMXBean        osMBean;
+    private final Method                       processCpuLoad;
+    private final Method                       systemCpuLoad;
+
+    // only accessed by the sampling task which never runs concurrently with itself
+    private final long[]   values = new long[METRICS];
+    private final double[] loads  = new double[LOADS];
+
+    // the messages and their total latency of every lane of every connection at the previous sample
+    private final Map<Supplier<List<LaneStatistics>>, long[]> laneCounters  = new IdentityHashMap<>();
+    private final long[]                                      laneDepths    = new long[Lane.values().length];
+    private final long[]                                      laneMessages  = new long[Lane.values().length];
+    private final long[]                                      laneLatencies = new long[Lane.values().length];
+
+    private ScheduledFuture<?> future;
+    private boolean            started;
+    private int                supervisors;
+
+    public XMetricsAdmin(final BundleContext context, final ScheduledExecutorService executor) {
+        this.interval          = getInterval(context);
+        this.buffer            = new MetricsBuffer(interval);
+        this.executor          = executor;
+        this.memoryMBean       = ManagementFactory.getMemoryMXBean();
+        this.threadMBean       = ManagementFactory.getThreadMXBean();
+        this.classLoadingMBean = ManagementFactory.getClassLoadingMXBean();
+        this.gcMBeans          = ManagementFactory.getGarbageCollectorMXBeans();
+        this.osMBean           = ManagementFactory.getOperatingSystemMXBean();
+        this.processCpuLoad    = findLoadMethod(osMBean, "getProcessCpuLoad");
+        this.systemCpuLoad     = findLoadMethod(osMBean, "getSystemCpuLoad");
+    }
+
+    public synchronized void init() {
+        if (!started) {
+            started = true;
+            reschedule();
+        }
+    }
+
+    public synchronized void stop() {
+        started = false;
+        if (future != null) {
+            future.cancel(false);
+            future = null;
+        }
+        listeners.clear();
+    }
+
+    /**
+     * Switches to the configured sampling interval as long as a supervisor is attached.
+     */
+    public synchronized void attach() {
+        if (++supervisors == 1) {
+            reschedule();
+        }
+    }
+
+    public synchronized void detach() {
+        if (supervisors > 0 && --supervisors == 0) {
+            reschedule();
+        }
+    }
+
+    private void reschedule() {
+        if (!started) {
+            return;
+        }
+        if (future != null) {
+            future.cancel(false);
+        }
+        if (supervisors > 0) {
+            future = executor.scheduleAtFixedRate(() -> sample(0), 0, interval, MILLISECONDS);
+        } else {
+            final long idleInterval = buffer.intervalAt(IDLE_RESOLUTION);
+            future = executor.scheduleAtFixedRate(() -> sample(IDLE_RESOLUTION), idleInterval, idleInterval,
+                    MILLISECONDS);
+        }
+    }
+
+    /**
+     * Returns the sampled metrics of the specified resolution.
+     *
+     * @param resolution the requested interval between two samples in milliseconds
+     * @param since the time after which the samples must have been taken
+     * @return the sampled metrics
+     */
+    public XMetricsDTO getMetrics(final long resolution, final long since) {
+        return buffer.read(resolution, since);
+    }
+
+    /**
+     * Registers the specified listener which is notified with the timestamp of every
+     * taken sample on the sampling thread, hence it must not block.
+     *
+     * @param listener the listener to register
+     */
+    public void addListener(final LongConsumer listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(final LongConsumer listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Registers the statistics of the outgoing lanes of a connection, which are sampled as
+     * long as the connection is open.
+     *
+     * @param statistics the supplier of the current statistics of all lanes of the connection
+     */
+    public void addLanes(final Supplier<List<LaneStatistics>> statistics) {
+        lanes.add(statistics);
+    }
+
+    public void removeLanes(final Supplier<List<LaneStatistics>> statistics) {
+        lanes.remove(statistics);
+    }
+
+    private void sample(final int resolution) {
+        // an exception would suppress all subsequent executions of the periodic task
+        try {
+            final long        timestamp = System.currentTimeMillis();
+            final MemoryUsage heap      = memoryMBean.getHeapMemoryUsage();
+            final MemoryUsage nonHeap   = memoryMBean.getNonHeapMemoryUsage();
+
+            values[HEAP_USED]          = heap.getUsed();
+            values[HEAP_COMMITTED]     = heap.getCommitted();
+            values[HEAP_MAX]           = heap.getMax();
+            values[NON_HEAP_USED]      = nonHeap.getUsed();
+            values[NON_HEAP_COMMITTED] = nonHeap.getCommitted();
+
+            long gcCount = 0;
+            long gcTime  = 0;
+            for (final GarbageCollectorMXBean gcMBean : gcMBeans) {
+                // -1 if the collector does not provide it
+                gcCount += Math.max(0, gcMBean.getCollectionCount());
+                gcTime  += Math.max(0, gcMBean.getCollectionTime());
+            }
+            values[GC_COUNT] = gcCount;
+            values[GC_TIME]  = gcTime;
+
+            values[THREAD_COUNT]         = threadMBean.getThreadCount();
+            values[DAEMON_THREAD_COUNT]  = threadMBean.getDaemonThreadCount();
+            values[LOADED_CLASS_COUNT]   = classLoadingMBean.getLoadedClassCount();
+            values[UNLOADED_CLASS_COUNT] = classLoadingMBean.getUnloadedClassCount();
+
+            sampleLanes();
+
+            loads[PROCESS_CPU_LOAD] = readLoad(processCpuLoad);
+            loads[SYSTEM_CPU_LOAD]  = readLoad(systemCpuLoad);
+
+            buffer.add(resolution, timestamp, values, loads);
+            for (final LongConsumer listener : listeners) {
+                listener.accept(timestamp);
+            }
+        } catch (final Exception e) {
+            logger.atWarn().msg("Runtime metrics cannot be sampled").throwable(e).log();
+        }
+    }
+
+    private void sampleLanes() {
+        Arrays.fill(laneDepths, 0);
+        Arrays.fill(laneMessages, 0);
+        Arrays.fill(laneLatencies, 0);
+        // the counters of the closed connections are not needed anymore
+        laneCounters.keySet().retainAll(lanes);
+        for (final Supplier<List<LaneStatistics>> connection : lanes) {
+            final long[] previous = laneCounters.computeIfAbsent(connection, c -> new long[laneDepths.length * 2]);
+            for (final LaneStatistics statistics : connection.get()) {
+                final int lane = statistics.lane().ordinal();
+                laneDepths[lane]    += statistics.queueDepth();
+                laneMessages[lane]  += statistics.messages() - previous[lane * 2];
+                laneLatencies[lane] += statistics.totalLatencyMicros() - previous[lane * 2 + 1];
+                previous[lane * 2]     = statistics.messages();
+                previous[lane * 2 + 1] = statistics.totalLatencyMicros();
+            }
+        }
+        values[INTERACTIVE_DEPTH]   = laneDepths[Lane.INTERACTIVE.ordinal()];
+        values[INTERACTIVE_LATENCY] = averageLatency(Lane.INTERACTIVE);
+        values[BULK_DEPTH]          = laneDepths[Lane.BULK.ordinal()];
+        values[BULK_LATENCY]        = averageLatency(Lane.BULK);
+    }
+
+    private long averageLatency(final Lane lane) {
+        final long messages = laneMessages[lane.ordinal()];
+        return messages == 0 ? 0 : laneLatencies[lane.ordinal()] / messages;
+    }
+
+    private double readLoad(final Method method) {
+        if (method == null) {
+            return -1;
+        }
+        try {
+            final double load = ((Number) method.invoke(osMBean)).doubleValue();
+            // NaN or negative if not available (yet)
+            return load >= 0 ? load : -1;
+        } catch (final Exception e) {
+            return -1;
+        }
+    }
+
+    private static Method findLoadMethod(final OperatingSystemMXBean osMBean, final String name) {
+        // the loads are only provided by the HotSpot specific extension of the MXBean
+        try {
+            final Class<?> clazz = Class.forName(OS_MXBEAN_CLASS);
+            return clazz.isInstance(osMBean) ? clazz.getMethod(name) : null;
+        } catch (final Exception | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static long getInterval(final BundleContext context) {
+        final String value = context.getProperty(AGENT_METRICS_INTERVAL_KEY);
+        if (value != null) {
+            try {
+                final long interval = Long.parseLong(value.trim());
+                if (interval > 0) {
+                    return interval;
+                }
+            } catch (final NumberFormatException e) {
+                // fall back to default
+            }
+        }
+        return MetricsBuffer.DEFAULT_INTERVAL;
+    }
+
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.admin;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import com.j256.simplelogging.FluentLogger;
+import com.j256.simplelogging.LoggerFactory;
+import com.osgifx.console.agent.dto.XProfileDTO;
+import com.osgifx.console.agent.helper.ThreadFactoryBuilder;
+import com.osgifx.console.agent.provider.BundleClassResolver;
+import com.osgifx.console.agent.provider.ProfileTree;
+import com.osgifx.console.agent.rpc.codec.BinaryCodec;
+import com.osgifx.console.agent.rpc.codec.Lz4Codec;
+
+/**
+ * Samples the stacks of all runnable threads periodically for a bounded duration and
+ * aggregates them into a {@link ProfileTree}.
+ * <p>
+ * Only a single profiling runs at a time. Its call tree is retained until the next
+ * profiling is started, such that it can be fetched after it has finished.
+ * <p>
+ * Dumping all threads at short intervals keeps a thread busy, hence every profiling
+ * samples on its own thread instead of the scheduler shared by the agent.
+ */
+public final class XProfilerAdmin {
+
+    public static final long MIN_INTERVAL = 5;
+    public static final long MAX_DURATION = 600_000;
+
+    private static final String SAMPLER_THREAD_NAME = "osgifx-profiler";
+
+    private final BinaryCodec         codec;
+    private final ThreadMXBean        threadMBean;
+    private final BundleClassResolver classResolver;
+    private final FluentLogger        logger = LoggerFactory.getFluentLogger(getClass());
+
+    private ProfileTree              tree;
+    private ScheduledExecutorService sampler;
+    private ScheduledFuture<?>       future;
+    private long                     interval;
+    private long                     startTime;
+    private long                     endTime;
+    private long                     deadline;
+
+    public XProfilerAdmin(final BinaryCodec codec, final BundleClassResolver classResolver) {
+        this.codec         = codec;
+        this.threadMBean   = ManagementFactory.getThreadMXBean();
+        this.classResolver = classResolver;
+    }
+
+    /**
+     * Starts a new profiling, discarding the call tree of the previous one.
+     *
+     * @param interval the interval between two samples in milliseconds
+     * @param duration the duration after which the profiling stops in milliseconds
+     * @return {@code true} if the profiling has been started, {@code false} if a profiling
+     *         is already running
+     */
+    public synchronized boolean start(final long interval, final long duration) {
+        if (future != null) {
+            return false;
+        }
+        final long now = System.currentTimeMillis();
+
+        this.interval  = Math.max(MIN_INTERVAL, interval);
+        this.startTime = now;
+        this.endTime   = now;
+        this.deadline  = now + Math.min(MAX_DURATION, Math.max(this.interval, duration));
+        this.tree      = new ProfileTree();
+        this.sampler   = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setThreadFactoryName(SAMPLER_THREAD_NAME).setThreadNameFormat("-%d")
+                        .setDaemon(true).build());
+        this.future    = sampler.scheduleAtFixedRate(this::sample, 0, this.interval, MILLISECONDS);
+
+        logger.atInfo().msg("Profiling started with an interval of {} ms").arg(this.interval).log();
+        return true;
+    }
+
+    public synchronized void stop() {
+        if (future != null) {
+            future.cancel(false);
+            future = null;
+            // a sample in progress completes, the sampler thread terminates afterwards
+            sampler.shutdown();
+            sampler = null;
+            logger.atInfo().msg("Profiling stopped after {} samples").arg(tree.samples()).log();
+        }
+    }
+
+    /**
+     * Returns the call tree of the running or the most recent profiling.
+     *
+     * @return the encoded and compressed {@link XProfileDTO}, or an empty array if no
+     *         profiling has been started yet
+     */
+    public byte[] profile() {
+        final XProfileDTO dto;
+        synchronized (this) {
+            if (tree == null) {
+                return new byte[0];
+            }
+            dto           = tree.toDTO();
+            dto.startTime = startTime;
+            dto.endTime   = endTime;
+            dto.interval  = interval;
+            dto.isRunning = future != null;
+        }
+        try {
+            resolveBundles(dto);
+            return Lz4Codec.compressWithLength(codec.encode(dto));
+        } catch (final Exception e) {
+            logger.atError().msg("Profile cannot be encoded").throwable(e).log();
+            return new byte[0];
+        }
+    }
+
+    private void sample() {
+        // an exception would suppress all subsequent executions of the periodic task
+        try {
+            final ProfileTree current;
+            synchronized (this) {
+                current = tree;
+                endTime = System.currentTimeMillis();
+                if (endTime >= deadline) {
+                    stop();
+                    return;
+                }
+            }
+            final long self = Thread.currentThread().getId();
+            for (final ThreadInfo info : threadMBean.dumpAllThreads(false, false)) {
+                // only the threads executing (or ready to execute) burn CPU, the JVM internal ones have no stack
+                final StackTraceElement[] stack = info.getStackTrace();
+                if (info.getThreadState() == Thread.State.RUNNABLE && info.getThreadId() != self && stack.length > 0) {
+                    current.add(stack);
+                }
+            }
+        } catch (final Exception e) {
+            logger.atWarn().msg("Threads cannot be sampled").throwable(e).log();
+        }
+    }
+
+    private void resolveBundles(final XProfileDTO dto) {
+        final String[] classNames = new String[dto.frames.length];
+        for (int i = 0; i < classNames.length; i++) {
+            final String frame = dto.frames[i];
+            classNames[i] = frame.substring(0, frame.lastIndexOf('.'));
+        }
+        dto.frameBundles = classResolver.resolve(classNames);
+    }
+
+}
@@ -52,6 +52,7 @@ public final class XPropertyAdmin extends AbstractSnapshotAdmin<XPropertyDTO> {
         this.context = context;
     }
 
+    @Override
     public void init() {
         // No background polling needed for properties; cheap to get live.
     }
@@ -57,6 +57,7 @@ public final class XServiceAdmin extends AbstractSnapshotAdmin<XServiceDTO> {
         this.context = context;
     }
 
+    @Override
     public void init() {
         try {
             serviceTracker = new ServiceTracker<Object, Object>(context, context.createFilter("(objectClass=*)"),
@@ -111,6 +112,11 @@ public final class XServiceAdmin extends AbstractSnapshotAdmin<XServiceDTO> {
         return dtos;
     }
 
+    @Override
+    protected String key(final XServiceDTO dto) {
+        return String.valueOf(dto.id);
+    }
+
     private XServiceDTO toDTO(final ServiceReference<?> ref) {
         final ServiceReferenceDTO refDTO = toServiceReferenceDTO(ref);
         return toDTO(refDTO, context);
@@ -15,19 +15,29 @@
  ******************************************************************************/
 package com.osgifx.console.agent.admin;
 
+import static com.osgifx.console.agent.Agent.AGENT_METRICS_INTERVAL_KEY;
+import static java.util.Comparator.comparingDouble;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.stream.Collectors.toList;
 
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import org.osgi.framework.BundleContext;
 
 import com.osgifx.console.agent.dto.XThreadDTO;
+import com.osgifx.console.agent.provider.MetricsBuffer;
 import com.osgifx.console.agent.provider.PackageWirings;
+import com.osgifx.console.agent.provider.ThreadUsageTracker;
 import com.osgifx.console.agent.rpc.codec.BinaryCodec;
 import com.osgifx.console.agent.rpc.codec.SnapshotDecoder;
 
@@ -37,28 +47,69 @@ import jakarta.inject.Singleton;
 @Singleton
 public final class XThreadAdmin extends AbstractSnapshotAdmin<XThreadDTO> {
 
-    private final PackageWirings wirings;
+    private static final String THREAD_MXBEAN_CLASS = "com.sun.management.ThreadMXBean";
+
+    // the hottest threads first
+    private static final Comparator<XThreadDTO> BY_USAGE = comparingDouble((final XThreadDTO t) -> t.cpuUsage)
+            .thenComparingDouble(t -> t.allocationRate).reversed();
+
+    private final PackageWirings     wirings;
+    private final long               interval;
+    private final ThreadMXBean       threadMBean;
+    private final boolean            isCpuTimeSupported;
+    private final Method             bulkCpuTimes;
+    private final Method             allocatedBytes;
+    private final ThreadUsageTracker usageTracker = new ThreadUsageTracker();
+
+    // only accessed while sampling, which is guarded by the monitor
+    private long[] cpuTimes = new long[128];
+
+    private ScheduledFuture<?> usageFuture;
 
     @Inject
-    public XThreadAdmin(final PackageWirings wirings,
+    public XThreadAdmin(final BundleContext context,
+                        final PackageWirings wirings,
                         final BinaryCodec codec,
                         final SnapshotDecoder decoder,
                         final ScheduledExecutorService executor) {
         super(codec, decoder, executor);
-        this.wirings = wirings;
+        this.wirings            = wirings;
+        this.interval           = getInterval(context);
+        this.threadMBean        = ManagementFactory.getThreadMXBean();
+        this.isCpuTimeSupported = threadMBean.isThreadCpuTimeSupported();
+        this.bulkCpuTimes       = findBulkMethod(threadMBean, "getThreadCpuTime");
+        this.allocatedBytes     = findBulkMethod(threadMBean, "getThreadAllocatedBytes");
     }
 
-    public void init() {
-        // No background polling needed for threads; cheap to get live.
+    @Override
+    public synchronized void init() {
+        // the threads themselves are cheap to get live, only their usage is sampled
+        if (usageFuture == null && isCpuTimeSupported) {
+            usageFuture = executor.scheduleAtFixedRate(this::sampleUsage, 0, interval, MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (usageFuture != null) {
+            usageFuture.cancel(false);
+            usageFuture = null;
+        }
+        super.stop();
     }
 
     @Override
     public byte[] snapshot() {
+        lastAccessTime.set(System.currentTimeMillis());
+        sampleBaseline();
         return liveSnapshot();
     }
 
     @Override
     public List<XThreadDTO> get() {
+        ensureInitialized();
+        lastAccessTime.set(System.currentTimeMillis());
+        sampleBaseline();
         try {
             return map();
         } catch (final Exception e) {
@@ -72,7 +123,7 @@ public final class XThreadAdmin extends AbstractSnapshotAdmin<XThreadDTO> {
         final List<Thread>                     threadList = new ArrayList<>(threads.keySet());
         final long[]                           deadlocks  = getDeadlockedThreads();
 
-        return threadList.stream().map(t -> toDTO(t, deadlocks)).collect(toList());
+        return threadList.stream().map(t -> toDTO(t, deadlocks)).sorted(BY_USAGE).collect(toList());
     }
 
     private XThreadDTO toDTO(final Thread thread, final long[] deadlocks) {
@@ -87,6 +138,7 @@ public final class XThreadAdmin extends AbstractSnapshotAdmin<XThreadDTO> {
         dto.isAlive       = thread.isAlive();
         dto.isDaemon      = thread.isDaemon();
 
+        usageTracker.copyTo(dto);
         return dto;
     }
 
@@ -107,4 +159,93 @@ public final class XThreadAdmin extends AbstractSnapshotAdmin<XThreadDTO> {
         return null;
     }
 
+    private void sampleUsage() {
+        // an exception would suppress all subsequent executions of the periodic task
+        try {
+            if (!isDemanded()) {
+                // nobody looks at the threads, the rates are derived afresh once somebody does
+                usageTracker.clear();
+                return;
+            }
+            sample();
+        } catch (final Exception e) {
+            logger.atWarn().msg("Thread usage cannot be sampled").throwable(e).log();
+        }
+    }
+
+    /**
+     * Takes the first sample right away if the tracker has been cleared while nobody looked
+     * at the threads, such that the CPU time and the allocated bytes are known at once and
+     * the rates with the next periodic sample.
+     */
+    private void sampleBaseline() {
+        if (!isCpuTimeSupported || usageTracker.size() != 0) {
+            return;
+        }
+        try {
+            sample();
+        } catch (final Exception e) {
+            logger.atWarn().msg("Thread usage cannot be sampled").throwable(e).log();
+        }
+    }
+
+    private synchronized void sample() {
+        final long[] ids = threadMBean.getAllThreadIds();
+        usageTracker.add(System.nanoTime(), ids, readCpuTimes(ids), readAllocatedBytes(ids), ids.length);
+    }
+
+    private long[] readCpuTimes(final long[] ids) {
+        if (bulkCpuTimes != null) {
+            try {
+                return (long[]) bulkCpuTimes.invoke(threadMBean, (Object) ids);
+            } catch (final Exception e) {
+                // fall back to the CPU time of every single thread
+            }
+        }
+        if (cpuTimes.length < ids.length) {
+            cpuTimes = new long[ids.length * 2];
+        }
+        for (int i = 0; i < ids.length; i++) {
+            // -1 if the thread has terminated in the meantime
+            cpuTimes[i] = threadMBean.getThreadCpuTime(ids[i]);
+        }
+        return cpuTimes;
+    }
+
+    private long[] readAllocatedBytes(final long[] ids) {
+        if (allocatedBytes == null) {
+            return null;
+        }
+        try {
+            return (long[]) allocatedBytes.invoke(threadMBean, (Object) ids);
+        } catch (final Exception e) {
+            return null;
+        }
+    }
+
+    private static Method findBulkMethod(final ThreadMXBean threadMBean, final String name) {
+        // the values of many threads at once are only provided by the HotSpot specific extension of the MXBean
+        try {
+            final Class<?> clazz = Class.forName(THREAD_MXBEAN_CLASS);
+            return clazz.isInstance(threadMBean) ? clazz.getMethod(name, long[].class) : null;
+        } catch (final Exception | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static long getInterval(final BundleContext context) {
+        final String value = context.getProperty(AGENT_METRICS_INTERVAL_KEY);
+        if (value != null) {
+            try {
+                final long interval = Long.parseLong(value.trim());
+                if (interval > 0) {
+                    return interval;
+                }
+            } catch (final NumberFormatException e) {
+                // fall back to default
+            }
+        }
+        return MetricsBuffer.DEFAULT_INTERVAL;
+    }
+
 }
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.admin;
+
+import static com.osgifx.console.agent.Agent.AGENT_TRANSFER_CHUNK_SIZE_KEY;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.osgi.framework.BundleContext;
+
+import com.j256.simplelogging.FluentLogger;
+import com.j256.simplelogging.LoggerFactory;
+import com.osgifx.console.agent.dto.XTransferDTO;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * Serves large payloads (heap dumps, thread dumps) in fixed-size chunks straight
+ * from the agent's disk.
+ * <p>
+ * A payload is first written to a temporary file and registered as a transfer. The
+ * supervisor then pulls the chunks one by one using positional reads, so that an
+ * interrupted download can be resumed from any offset and the agent never holds more
+ * than a single chunk in memory. Transfers that are neither read nor closed for
+ * {@link #IDLE_TIMEOUT_MS} are discarded.
+ *
+ * @since 12.0
+ */
+@Singleton
+public final class XTransferAdmin {
+
+    private static final int  DEFAULT_CHUNK_SIZE = 1024 * 1024;
+    private static final long IDLE_TIMEOUT_MS    = TimeUnit.MINUTES.toMillis(10);
+
+    private final int                   chunkSize;
+    private final Map<String, Transfer> transfers = new ConcurrentHashMap<>();
+    private final ScheduledFuture<?>    purgeTask;
+    private final FluentLogger          logger    = LoggerFactory.getFluentLogger(getClass());
+
+    @Inject
+    public XTransferAdmin(final BundleContext context, final ScheduledExecutorService executor) {
+        chunkSize = getChunkSize(context);
+        purgeTask = executor.scheduleWithFixedDelay(this::purgeIdleTransfers, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Creates an empty temporary file to be filled with the payload of a transfer.
+     *
+     * @param suffix the file suffix
+     * @return the temporary file
+     * @throws IOException if the file cannot be created
+     */
+    public File createTempFile(final String suffix) throws IOException {
+        final File file = File.createTempFile("osgifx-transfer-", suffix);
+        file.deleteOnExit();
+        return file;
+    }
+
+    /**
+     * Registers the specified file as a new transfer. The file is owned by this admin
+     * from now on and gets deleted as soon as the transfer is closed.
+     *
+     * @param name the suggested file name of the payload
+     * @param file the file containing the payload
+     * @return the transfer
+     * @throws IOException if the file cannot be opened
+     */
+    public XTransferDTO open(final String name, final File file) throws IOException {
+        final Transfer transfer = new Transfer(file);
+        final String   id       = UUID.randomUUID().toString();
+        transfers.put(id, transfer);
+
+        final XTransferDTO dto = new XTransferDTO();
+        dto.id        = id;
+        dto.name      = name;
+        dto.size      = transfer.size;
+        dto.chunkSize = chunkSize;
+
+        logger.atInfo().msg("Transfer '{}' opened for '{}' ({} bytes)").arg(id).arg(name).arg(dto.size).log();
+        return dto;
+    }
+
+    public byte[] read(final String id, final long offset) throws IOException {
+        final Transfer transfer = transfers.get(id);
+        if (transfer == null) {
+            throw new IOException("Transfer '" + id + "' does not exist");
+        }
+        transfer.lastAccess = System.currentTimeMillis();
+
+        final long size = transfer.size;
+        if (offset < 0 || offset > size) {
+            throw new IOException("Offset " + offset + " is out of range for transfer '" + id + "' (" + size + ")");
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(chunkSize, size - offset));
+        while (buffer.hasRemaining()) {
+            // positional reads do not modify the channel's position, hence safe for concurrent requests
+            if (transfer.channel().read(buffer, offset + buffer.position()) == -1) {
+                break;
+            }
+        }
+        if (buffer.hasRemaining()) {
+            final byte[] partial = new byte[buffer.position()];
+            System.arraycopy(buffer.array(), 0, partial, 0, partial.length);
+            return partial;
+        }
+        return buffer.array();
+    }
+
+    public void close(final String id) {
+        final Transfer transfer = transfers.remove(id);
+        if (transfer != null) {
+            transfer.dispose();
+            logger.atInfo().msg("Transfer '{}' closed").arg(id).log();
+        }
+    }
+
+    public void stop() {
+        purgeTask.cancel(false);
+        transfers.keySet().forEach(this::close);
+    }
+
+    private void purgeIdleTransfers() {
+        final long now = System.currentTimeMillis();
+        transfers.forEach((id, transfer) -> {
+            if (now - transfer.lastAccess > IDLE_TIMEOUT_MS) {
+                logger.atInfo().msg("Discarding idle transfer '{}'").arg(id).log();
+                close(id);
+            }
+        });
+    }
+
+    private static int getChunkSize(final BundleContext context) {
+        final String value = context.getProperty(AGENT_TRANSFER_CHUNK_SIZE_KEY);
+        if (value != null) {
+            try {
+                final int size = Integer.parseInt(value.trim());
+                if (size > 0) {
+                    return size;
+                }
+            } catch (final NumberFormatException e) {
+                // fall back to default
+            }
+        }
+        return DEFAULT_CHUNK_SIZE;
+    }
+
+    private final class Transfer {
+        private final File        file;
+        private final long        size;
+        private FileChannel       channel;
+        private boolean           disposed;
+        private volatile long     lastAccess = System.currentTimeMillis();
+
+        private Transfer(final File file) throws IOException {
+            this.file    = file;
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            this.size    = channel.size();
+        }
+
+        /**
+         * Returns an open channel to the transfer file. A channel gets closed for good
+         * if a thread reading from it is interrupted, which must not fail the remaining
+         * chunks of the transfer, hence it is reopened on demand.
+         */
+        private synchronized FileChannel channel() throws IOException {
+            if (disposed) {
+                throw new ClosedChannelException();
+            }
+            if (!channel.isOpen()) {
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            }
+            return channel;
+        }
+
+        private synchronized void dispose() {
+            disposed = true;
+            try {
+                channel.close();
+            } catch (final IOException e) {
+                logger.atWarn().msg("Cannot close transfer file '{}'").arg(file).throwable(e).log();
+            }
+            if (!file.delete()) {
+                logger.atWarn().msg("Cannot delete transfer file '{}'").arg(file).log();
+            }
+        }
+    }
+
+}
@@ -73,6 +73,7 @@ public final class XUserAdmin extends AbstractSnapshotAdmin<XRoleDTO> implements
         this.userAdminSupplier = userAdminSupplier;
     }
 
+    @Override
     public void init() {
         if (registration == null) {
             registration = context.registerService(UserAdminListener.class, this, null);
@@ -16,6 +16,7 @@
 package com.osgifx.console.agent.di.module;
 
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
@@ -30,9 +31,12 @@ import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceReference;
 import org.osgi.util.tracker.ServiceTracker;
 
+import com.osgifx.console.agent.admin.AbstractSnapshotAdmin;
 import com.osgifx.console.agent.admin.RemoteServiceAdminManager;
+import com.osgifx.console.agent.admin.SnapshotDemand;
 import com.osgifx.console.agent.admin.XBundleAdmin;
 import com.osgifx.console.agent.admin.XCdiAdmin;
+import com.osgifx.console.agent.admin.XClassHistogramAdmin;
 import com.osgifx.console.agent.admin.XComponentAdmin;
 import com.osgifx.console.agent.admin.XConditionAdmin;
 import com.osgifx.console.agent.admin.XConfigurationAdmin;
@@ -47,13 +51,18 @@ import com.osgifx.console.agent.admin.XJmxAdmin;
 import com.osgifx.console.agent.admin.XLogReaderAdmin;
 import com.osgifx.console.agent.admin.XLoggerAdmin;
 import com.osgifx.console.agent.admin.XMetaTypeAdmin;
+import com.osgifx.console.agent.admin.XMetricsAdmin;
+import com.osgifx.console.agent.admin.XProfilerAdmin;
 import com.osgifx.console.agent.admin.XPropertyAdmin;
 import com.osgifx.console.agent.admin.XServiceAdmin;
 import com.osgifx.console.agent.admin.XSnapshotAdmin;
 import com.osgifx.console.agent.admin.XThreadAdmin;
 import com.osgifx.console.agent.admin.XThreadDumpAdmin;
+import com.osgifx.console.agent.admin.XTransferAdmin;
 import com.osgifx.console.agent.admin.XUserAdmin;
 import com.osgifx.console.agent.di.DI;
+import com.osgifx.console.agent.handler.LogCapture;
+import com.osgifx.console.agent.provider.BundleClassResolver;
 import com.osgifx.console.agent.provider.BundleStartTimeCalculator;
 import com.osgifx.console.agent.provider.PackageWirings;
 import com.osgifx.console.agent.rpc.codec.BinaryCodec;
@@ -103,7 +112,12 @@ public final class DIModule {
     private XLogReaderAdmin           xLogReaderAdmin;
     private XJmxAdmin                 xJmxAdmin;
     private XThreadAdmin              xThreadAdmin;
+    private XMetricsAdmin             xMetricsAdmin;
+    private XProfilerAdmin            xProfilerAdmin;
+    private XTransferAdmin            xTransferAdmin;
     private RemoteServiceAdminManager remoteServiceAdminManager;
+    private SnapshotDemand            snapshotDemand;
+    private LogCapture                logCapture;
 
     public DIModule(final BundleContext context) {
         di           = new DI();
@@ -124,6 +138,10 @@ public final class DIModule {
         bundleStartTimeCalculator = new BundleStartTimeCalculator(context);
         di.bindInstance(BundleStartTimeCalculator.class, bundleStartTimeCalculator);
 
+        // shared by the profiler and the class histogram to keep a single cache of private package owners
+        final BundleClassResolver classResolver = new BundleClassResolver(context);
+        di.bindInstance(BundleClassResolver.class, classResolver);
+
         // --- Eagerly instantiated admins (guarded by PackageWirings) ---
 
         final BinaryCodec     codec   = di.getInstance(BinaryCodec.class);
@@ -207,59 +225,49 @@ public final class DIModule {
             di.bindInstance(XJmxAdmin.class, xJmxAdmin);
 
             di.bindInstance(XHeapDumpAdmin.class, new XHeapDumpAdmin(context));
+            di.bindInstance(XClassHistogramAdmin.class, new XClassHistogramAdmin(codec, classResolver));
         }
 
-        xThreadAdmin = new XThreadAdmin(wirings, codec, decoder, executor);
+        xThreadAdmin = new XThreadAdmin(context, wirings, codec, decoder, executor);
         di.bindInstance(XThreadAdmin.class, xThreadAdmin);
 
         di.bindInstance(XThreadDumpAdmin.class, new XThreadDumpAdmin(context));
 
+        xMetricsAdmin = new XMetricsAdmin(context, executor);
+        di.bindInstance(XMetricsAdmin.class, xMetricsAdmin);
+
+        xProfilerAdmin = new XProfilerAdmin(codec, classResolver);
+        di.bindInstance(XProfilerAdmin.class, xProfilerAdmin);
+
+        xTransferAdmin = new XTransferAdmin(context, executor);
+        di.bindInstance(XTransferAdmin.class, xTransferAdmin);
+
+        // a single log buffer for all sessions, a mapped one is backed by a single data file
+        logCapture = new LogCapture(di);
+        di.bindInstance(LogCapture.class, logCapture);
+
         di.bindProvider(XSnapshotAdmin.class, () -> new XSnapshotAdmin(context, di.getInstance(XDtoAdmin.class)));
 
-        // initialize the trackers
-        xBundleAdmin.init();
-        xServiceAdmin.init();
-        if (xComponentAdmin != null) {
-            xComponentAdmin.init();
-        }
-        if (xConditionAdmin != null) {
-            xConditionAdmin.init();
-        }
+        // the cached snapshots are only kept up to date while a supervisor demands them
+        snapshotDemand = new SnapshotDemand(context, executor);
+        di.bindInstance(SnapshotDemand.class, snapshotDemand);
+        Stream.<AbstractSnapshotAdmin<?>> of(xComponentAdmin, xBundleAdmin, xServiceAdmin, xConditionAdmin,
+                xConfigurationAdmin, xHcAdmin, remoteServiceAdminManager, xJaxRsAdmin, xHttpAdmin, xCdiAdmin,
+                xUserAdmin, xLoggerAdmin, xThreadAdmin, xPropertyAdmin).filter(Objects::nonNull)
+                .forEach(snapshotDemand::register);
+        snapshotDemand.init();
+
+        // initialize the trackers, the snapshot admins only open theirs once they are first demanded
         if (xMetaTypeAdmin != null) {
             xMetaTypeAdmin.init();
         }
-        if (xConfigurationAdmin != null) {
-            xConfigurationAdmin.init();
-        }
-        if (xHcAdmin != null) {
-            xHcAdmin.init();
-        }
-        if (xJaxRsAdmin != null) {
-            xJaxRsAdmin.init();
-        }
-        if (xHttpAdmin != null) {
-            xHttpAdmin.init();
-        }
-        if (xCdiAdmin != null) {
-            xCdiAdmin.init();
-        }
-        if (xUserAdmin != null) {
-            xUserAdmin.init();
-        }
-        if (xLoggerAdmin != null) {
-            xLoggerAdmin.init();
-        }
         if (xLogReaderAdmin != null) {
             // XLogReaderAdmin currently has no init()
         }
         if (xJmxAdmin != null) {
             xJmxAdmin.init();
         }
-        if (remoteServiceAdminManager != null) {
-            remoteServiceAdminManager.init();
-        }
-        xThreadAdmin.init();
-        xPropertyAdmin.init();
+        xMetricsAdmin.init();
 
         // --- Lazily bound admins (guarded by PackageWirings) ---
 
@@ -281,6 +289,9 @@ public final class DIModule {
     }
 
     public void stop() {
+        if (snapshotDemand != null) {
+            snapshotDemand.stop();
+        }
         if (xComponentAdmin != null) {
             xComponentAdmin.stop();
         }
@@ -326,6 +337,18 @@ public final class DIModule {
         if (xThreadAdmin != null) {
             xThreadAdmin.stop();
         }
+        if (xTransferAdmin != null) {
+            xTransferAdmin.stop();
+        }
+        if (xMetricsAdmin != null) {
+            xMetricsAdmin.stop();
+        }
+        if (xProfilerAdmin != null) {
+            xProfilerAdmin.stop();
+        }
+        if (logCapture != null) {
+            logCapture.close();
+        }
         dmtAdminTracker.close();
         userAdminTracker.close();
         loggerAdminTracker.close();
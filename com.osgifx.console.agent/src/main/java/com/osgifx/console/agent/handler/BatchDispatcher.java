@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.handler;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.j256.simplelogging.FluentLogger;
+import com.j256.simplelogging.LoggerFactory;
+
+/**
+ * Coalesces the offered elements into batches which are delivered on a dedicated thread
+ * once a batch is full or the oldest element of the batch has waited for the linger time.
+ * <p>
+ * The delivery of a batch blocks as long as the remote side does not keep up. Elements
+ * offered in the meantime pile up in the queue, hence the batch size doubles whenever the
+ * queue still holds a full batch after a delivery, and halves again once the queue drains.
+ * A slow link therefore receives fewer and larger messages, an idle one small batches with
+ * a short latency. Elements offered while the queue is full are dropped instead of blocking
+ * the offering thread.
+ *
+ * @param <T> the element type
+ */
+public final class BatchDispatcher<T> implements Closeable {
+
+    public static final int  DEFAULT_MIN_BATCH_SIZE = 16;
+    public static final int  DEFAULT_MAX_BATCH_SIZE = 1024;
+    public static final long DEFAULT_LINGER_MILLIS  = 50;
+    public static final int  DEFAULT_CAPACITY       = 10_000;
+
+    private final Consumer<List<T>> consumer;
+    private final int               minBatchSize;
+    private final int               maxBatchSize;
+    private final long              lingerMillis;
+    private final BlockingQueue<T>  queue;
+    private final Thread            thread;
+    private final AtomicLong        dropped = new AtomicLong();
+    private final FluentLogger      logger  = LoggerFactory.getFluentLogger(getClass());
+
+    private volatile int     batchSize;
+    private volatile boolean closed;
+
+    public BatchDispatcher(final String name, final Consumer<List<T>> consumer) {
+        this(name, consumer, DEFAULT_MIN_BATCH_SIZE, DEFAULT_MAX_BATCH_SIZE, DEFAULT_LINGER_MILLIS,
+             DEFAULT_CAPACITY);
+    }
+
+    public BatchDispatcher(final String name,
+                           final Consumer<List<T>> consumer,
+                           final int minBatchSize,
+                           final int maxBatchSize,
+                           final long lingerMillis,
+                           final int capacity) {
+        if (minBatchSize < 1 || maxBatchSize < minBatchSize || lingerMillis < 0 || capacity < maxBatchSize) {
+            throw new IllegalArgumentException("Invalid batch configuration");
+        }
+        this.consumer     = consumer;
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerMillis = lingerMillis;
+        this.batchSize    = minBatchSize;
+        this.queue        = new LinkedBlockingQueue<>(capacity);
+        this.thread       = new Thread(this::dispatch, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues the specified element for the delivery without blocking.
+     *
+     * @param element the element to deliver
+     * @return {@code true} if the element has been queued, {@code false} if it has been
+     *         dropped as the dispatcher is closed or its queue is full
+     */
+    public boolean offer(final T element) {
+        if (closed) {
+            return false;
+        }
+        if (queue.offer(element)) {
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Returns the current batch size.
+     *
+     * @return the maximum number of elements of the next batch
+     */
+    public int batchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Returns the number of elements dropped so far.
+     *
+     * @return the number of dropped elements
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        thread.interrupt();
+    }
+
+    private void dispatch() {
+        final List<T> batch = new ArrayList<>(maxBatchSize);
+        long          lost  = 0;
+        while (!closed) {
+            try {
+                collect(batch);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            final long drops = dropped.get();
+            if (drops != lost) {
+                logger.atWarn().msg("Dropped {} elements as the delivery does not keep up").arg(drops - lost).log();
+                lost = drops;
+            }
+            try {
+                consumer.accept(new ArrayList<>(batch));
+            } catch (final Exception e) {
+                logger.atWarn().msg("Batch of {} elements cannot be delivered").arg(batch.size()).throwable(e).log();
+            }
+            batch.clear();
+            adapt();
+        }
+        queue.clear();
+    }
+
+    private void collect(final List<T> batch) throws InterruptedException {
+        batch.add(queue.take());
+        final int  size     = batchSize;
+        final long deadline = System.nanoTime() + MILLISECONDS.toNanos(lingerMillis);
+        while (batch.size() < size) {
+            queue.drainTo(batch, size - batch.size());
+            final long remaining = deadline - System.nanoTime();
+            if (batch.size() >= size || remaining <= 0) {
+                return;
+            }
+            final T next = queue.poll(remaining, NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void adapt() {
+        final int size    = batchSize;
+        final int pending = queue.size();
+        if (pending >= size) {
+            batchSize = Math.min(maxBatchSize, size << 1);
+        } else if (pending < size >> 2) {
+            batchSize = Math.max(minBatchSize, size >> 1);
+        }
+    }
+
+}
@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.handler;
+
+import static com.osgifx.console.agent.Agent.AGENT_LOG_BUFFER_MAPPED_KEY;
+import static com.osgifx.console.agent.Agent.AGENT_LOG_BUFFER_SIZE_KEY;
+
+import java.io.Closeable;
+import java.io.File;
+
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+import org.osgi.util.tracker.ServiceTracker;
+
+import com.j256.simplelogging.FluentLogger;
+import com.j256.simplelogging.LoggerFactory;
+import com.osgifx.console.agent.admin.XLogReaderAdmin;
+import com.osgifx.console.agent.di.DI;
+import com.osgifx.console.agent.provider.BinaryLogBuffer;
+import com.osgifx.console.agent.provider.PackageWirings;
+
+/**
+ * Captures the logs of the runtime into the single {@link BinaryLogBuffer} shared by all
+ * agent sessions.
+ * <p>
+ * Only the listener of the capture writes into the buffer, hence every log entry is
+ * stored once regardless of the number of connected supervisors, whereas the listener
+ * of every session only forwards the logs to its own supervisor. A mapped buffer is
+ * backed by a single data file and is therefore only mapped and unmapped along with the
+ * agent bundle.
+ */
+public final class LogCapture implements Closeable {
+
+    private static final String LOG_FILE        = "osgifx_logs.bin";
+    private static final String LOG_MAPPED_FILE = "osgifx_logs.ring";
+
+    private final DI              di;
+    private final BundleContext   context;
+    private final BinaryLogBuffer buffer;
+    private final FluentLogger    logger = LoggerFactory.getFluentLogger(getClass());
+
+    private OSGiLogListener                listener;
+    private ServiceTracker<Object, Object> logReaderTracker;
+
+    public LogCapture(final DI di) {
+        this.di      = di;
+        this.context = di.getInstance(BundleContext.class);
+        this.buffer  = createLogBuffer();
+    }
+
+    public BinaryLogBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Starts writing the logs into the buffer unless it is already capturing them. A heap
+     * buffer restores the entries persisted by the previous run first.
+     *
+     * @return {@code true} if the logs are captured, {@code false} if the log package is
+     *         not wired
+     */
+    public synchronized boolean start() {
+        if (listener != null) {
+            return true;
+        }
+        if (!di.getInstance(PackageWirings.class).isLogWired()) {
+            return false;
+        }
+        try {
+            final File file = context.getDataFile(LOG_FILE);
+            if (file != null) {
+                buffer.fromDisk(file);
+            }
+        } catch (final Exception e) {
+            // Ignore if file doesn't exist or corrupted
+        }
+        listener = di.getInstance(OSGiLogListener.class);
+        listener.setLogBuffer(buffer);
+
+        final OSGiLogListener capturing = listener;
+        logReaderTracker = new ServiceTracker<Object, Object>(context, "org.osgi.service.log.LogReaderService", null) {
+
+            @Override
+            public Object addingService(final ServiceReference<Object> reference) {
+                final Object service = super.addingService(reference);
+                di.getInstance(XLogReaderAdmin.class).register(service, capturing);
+                return service;
+            }
+
+            @Override
+            public void removedService(final ServiceReference<Object> reference, final Object service) {
+                di.getInstance(XLogReaderAdmin.class).unregister(service, capturing);
+            }
+        };
+        logReaderTracker.open();
+        return true;
+    }
+
+    /**
+     * Persists the entries of a heap buffer, such that the next run restores them. A
+     * mapped buffer only forces its pending writes to the data file.
+     */
+    public void persist() {
+        final File file = context.getDataFile(LOG_FILE);
+        if (file == null && !buffer.isMapped()) {
+            return;
+        }
+        try {
+            buffer.toDisk(file);
+        } catch (final Exception e) {
+            logger.atWarn().msg("Log buffer cannot be persisted to '{}'").arg(file).throwable(e).log();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (logReaderTracker != null) {
+            logReaderTracker.close();
+            logReaderTracker = null;
+            listener         = null;
+        }
+        persist();
+        // releases the mapping only after the listener has stopped writing
+        buffer.close();
+    }
+
+    private BinaryLogBuffer createLogBuffer() {
+        final int bufferSize = getLogBufferSize(context);
+        // one indexed entry per 256 bytes, so that the index covers the entries of a typical size
+        final int indexSize = Math.max(BinaryLogBuffer.DEFAULT_INDEX_SIZE, bufferSize / 256);
+        if (Boolean.parseBoolean(context.getProperty(AGENT_LOG_BUFFER_MAPPED_KEY))) {
+            final File file = context.getDataFile(LOG_MAPPED_FILE);
+            if (file != null) {
+                try {
+                    return new BinaryLogBuffer(file, bufferSize, indexSize);
+                } catch (final Exception e) {
+                    logger.atWarn().msg("Log buffer cannot be mapped from '{}', falling back to heap").arg(file)
+                            .throwable(e).log();
+                }
+            }
+        }
+        return new BinaryLogBuffer(bufferSize, indexSize);
+    }
+
+    private static int getLogBufferSize(final BundleContext context) {
+        final String value = context.getProperty(AGENT_LOG_BUFFER_SIZE_KEY);
+        if (value != null) {
+            try {
+                final int size = Integer.parseInt(value.trim());
+                // a buffer must at least hold a few entries
+                if (size >= 1024) {
+                    return size;
+                }
+            } catch (final NumberFormatException e) {
+                // fall back to default
+            }
+        }
+        return BinaryLogBuffer.DEFAULT_BUFFER_SIZE;
+    }
+
+}
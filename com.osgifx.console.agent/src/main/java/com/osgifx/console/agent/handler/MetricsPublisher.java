@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.handler;
+
+import java.util.List;
+import java.util.function.LongConsumer;
+
+import com.osgifx.console.agent.admin.XMetricsAdmin;
+import com.osgifx.console.agent.dto.XMetricsDTO;
+import com.osgifx.console.supervisor.Supervisor;
+
+/**
+ * Pushes the runtime metrics sampled by the {@link XMetricsAdmin} to the subscribed
+ * supervisor.
+ * <p>
+ * Every taken sample only triggers a delivery on the dispatcher thread, which sends all
+ * samples of the subscribed resolution taken since the previous delivery. Hence a slow
+ * link receives several samples at once instead of delaying the sampling.
+ */
+public final class MetricsPublisher {
+
+    private final XMetricsAdmin metricsAdmin;
+    private final LongConsumer  sampleListener = this::sampled;
+
+    private volatile Supervisor            supervisor;
+    private volatile long                  resolution;
+    private volatile long                  since;
+    private volatile BatchDispatcher<Long> dispatcher;
+
+    public MetricsPublisher(final XMetricsAdmin metricsAdmin) {
+        this.metricsAdmin = metricsAdmin;
+    }
+
+    public synchronized void setSupervisor(final Supervisor supervisor) {
+        if (this.supervisor != supervisor) {
+            // a new supervisor has to subscribe again before it receives metrics
+            close();
+        }
+        this.supervisor = supervisor;
+    }
+
+    /**
+     * Sends the samples of the specified resolution taken from now on.
+     *
+     * @param resolution the requested interval between two samples in milliseconds, or
+     *            {@code 0} to unsubscribe
+     */
+    public synchronized void subscribe(final long resolution) {
+        if (resolution <= 0) {
+            close();
+            return;
+        }
+        this.resolution = resolution;
+        this.since      = System.currentTimeMillis();
+        if (dispatcher == null) {
+            dispatcher = new BatchDispatcher<>("osgifx-metrics-dispatcher", this::deliver);
+            metricsAdmin.addListener(sampleListener);
+        }
+    }
+
+    public synchronized void close() {
+        metricsAdmin.removeListener(sampleListener);
+        if (dispatcher != null) {
+            dispatcher.close();
+            dispatcher = null;
+        }
+    }
+
+    private void sampled(final long timestamp) {
+        final BatchDispatcher<Long> metricsDispatcher = dispatcher;
+        if (metricsDispatcher != null) {
+            metricsDispatcher.offer(timestamp);
+        }
+    }
+
+    private void deliver(final List<Long> timestamps) {
+        final Supervisor remote = supervisor;
+        if (remote == null) {
+            return;
+        }
+        final XMetricsDTO metrics = metricsAdmin.getMetrics(resolution, since);
+        final int         size    = metrics.timestamps.length;
+        // a coarser resolution only gets a new sample after several sampling intervals
+        if (size != 0) {
+            since = metrics.timestamps[size - 1];
+            remote.onMetrics(metrics);
+        }
+    }
+
+}
@@ -19,12 +19,17 @@ import static com.osgifx.console.agent.provider.AgentServer.PROPERTY_ENABLE_EVEN
 import static org.osgi.service.event.EventConstants.EVENT_TOPIC;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.Filter;
+import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.event.Event;
 import org.osgi.service.event.EventHandler;
@@ -38,10 +43,16 @@ import jakarta.inject.Inject;
 
 public final class OSGiEventHandler implements EventHandler {
 
+    private static final String ALL_TOPICS = "*";
+
     private final Supervisor    supervisor;
     private final BundleContext context;
     private final FluentLogger  logger = LoggerFactory.getFluentLogger(getClass());
 
+    private ServiceRegistration<?>              registration;
+    private volatile Filter                     filter;
+    private volatile BatchDispatcher<XEventDTO> dispatcher;
+
     @Inject
     public OSGiEventHandler(final BundleContext context, final Supervisor supervisor) {
         this.context    = context;
@@ -50,8 +61,48 @@ public final class OSGiEventHandler implements EventHandler {
 
     public ServiceRegistration<?> register() {
         final Dictionary<String, Object> properties = new Hashtable<>();
-        properties.put(EVENT_TOPIC, "*");
-        return context.registerService(EventHandler.class, this, properties);
+        properties.put(EVENT_TOPIC, ALL_TOPICS);
+        registration = context.registerService(EventHandler.class, this, properties);
+        return registration;
+    }
+
+    /**
+     * Narrows the events sent to the supervisor down to the specified topics and filter.
+     * The handler gets re-registered for the topics only, such that Event Admin does not
+     * even deliver the other events, and the matching events are sent in batches.
+     *
+     * @param topics the topics, where {@code *} at the end matches all sub-topics (an
+     *            empty collection matches all topics)
+     * @param filter the LDAP filter matched against the event properties (can be
+     *            {@code null})
+     */
+    public synchronized void subscribe(final Collection<String> topics, final String filter) {
+        Filter eventFilter = null;
+        if (filter != null && !filter.trim().isEmpty()) {
+            try {
+                eventFilter = context.createFilter(filter);
+            } catch (final InvalidSyntaxException e) {
+                logger.atWarn().msg("Invalid event filter '{}', events will not be filtered").arg(filter).log();
+            }
+        }
+        this.filter = eventFilter;
+        if (dispatcher == null) {
+            dispatcher = new BatchDispatcher<>("osgifx-event-dispatcher", supervisor::onOSGiEvents);
+        }
+        setTopics(toEventTopics(topics));
+    }
+
+    /**
+     * Stops the batched delivery and drops the subscription, such that a reconnected
+     * supervisor receives all events until it subscribes again.
+     */
+    public synchronized void close() {
+        if (dispatcher != null) {
+            dispatcher.close();
+            dispatcher = null;
+        }
+        filter = null;
+        setTopics(new String[] { ALL_TOPICS });
     }
 
     @Override
@@ -66,7 +117,55 @@ public final class OSGiEventHandler implements EventHandler {
         dto.properties = initProperties(event);
         dto.topic      = event.getTopic();
 
-        supervisor.onOSGiEvent(dto);
+        final Filter eventFilter = filter;
+        if (eventFilter != null && !eventFilter.match(new Hashtable<>(dto.properties))) {
+            return;
+        }
+        final BatchDispatcher<XEventDTO> eventDispatcher = dispatcher;
+        if (eventDispatcher != null) {
+            eventDispatcher.offer(dto);
+        } else {
+            supervisor.onOSGiEvent(dto);
+        }
+    }
+
+    private void setTopics(final String[] topics) {
+        if (registration == null) {
+            return;
+        }
+        final Dictionary<String, Object> properties = new Hashtable<>();
+        properties.put(EVENT_TOPIC, topics);
+        try {
+            registration.setProperties(properties);
+        } catch (final IllegalStateException e) {
+            // the handler has already been unregistered
+        }
+    }
+
+    private static String[] toEventTopics(final Collection<String> topics) {
+        final Set<String> eventTopics = new LinkedHashSet<>();
+        if (topics != null) {
+            for (final String topic : topics) {
+                if (topic == null || topic.trim().isEmpty()) {
+                    continue;
+                }
+                final int wildcard = topic.indexOf('*');
+                if (wildcard < 0) {
+                    eventTopics.add(topic);
+                    continue;
+                }
+                // the console matches everything below the last segment before the wildcard
+                final int segment = topic.lastIndexOf('/', wildcard);
+                if (segment < 0) {
+                    return new String[] { ALL_TOPICS };
+                }
+                eventTopics.add(topic.substring(0, segment + 1) + ALL_TOPICS);
+            }
+        }
+        if (eventTopics.isEmpty()) {
+            return new String[] { ALL_TOPICS };
+        }
+        return eventTopics.toArray(new String[0]);
     }
 
     private Map<String, String> initProperties(final Event event) {
@@ -20,6 +20,7 @@ import static com.osgifx.console.agent.provider.AgentServer.PROPERTY_ENABLE_LOGG
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
+import java.util.List;
 import java.util.Optional;
 
 import org.osgi.service.log.LogEntry;
@@ -53,17 +54,48 @@ public final class OSGiLogListener implements LogListener {
         GET_LOGGER_NAME = getLoggerName;
     }
 
-    private BinaryLogBuffer logBuffer;
-    private Supervisor      supervisor;
+    private BinaryLogBuffer                        logBuffer;
+    private volatile Supervisor                    supervisor;
+    private volatile long                          bundleId = -1;
+    private volatile int                           level;
+    private volatile BatchDispatcher<XLogEntryDTO> dispatcher;
 
     @Inject
     public OSGiLogListener() {
     }
 
-    public void setSupervisor(final Supervisor supervisor) {
+    public synchronized void setSupervisor(final Supervisor supervisor) {
+        if (this.supervisor != supervisor) {
+            // a new supervisor has to subscribe again before it receives batches
+            close();
+        }
         this.supervisor = supervisor;
     }
 
+    /**
+     * Narrows the logs sent to the supervisor down to the specified bundle and level,
+     * and sends the matching logs in batches.
+     *
+     * @param bundleId the bundle identifier, or {@code -1} for the logs of all bundles
+     * @param level the least severe log level, or {@code 0} for all levels
+     */
+    public synchronized void subscribe(final long bundleId, final int level) {
+        this.bundleId = bundleId;
+        this.level    = level;
+        if (dispatcher == null) {
+            dispatcher = new BatchDispatcher<>("osgifx-log-dispatcher", this::deliver);
+        }
+    }
+
+    public synchronized void close() {
+        bundleId = -1;
+        level    = 0;
+        if (dispatcher != null) {
+            dispatcher.close();
+            dispatcher = null;
+        }
+    }
+
     public void setLogBuffer(final BinaryLogBuffer logBuffer) {
         this.logBuffer = logBuffer;
     }
@@ -76,14 +108,37 @@ public final class OSGiLogListener implements LogListener {
             logBuffer.write(entry.getTime(), entry.getBundle().getBundleId(), entry.getLevel(), entry.getMessage(),
                     exception);
         }
-        if (supervisor != null) {
+        final Supervisor remote = supervisor;
+        if (remote != null) {
             final boolean isLoggingEnabled = Boolean.getBoolean(PROPERTY_ENABLE_LOGGING);
-            if (isLoggingEnabled) {
-                supervisor.logged(toDTO(entry));
+            if (isLoggingEnabled && matches(entry)) {
+                final BatchDispatcher<XLogEntryDTO> logDispatcher = dispatcher;
+                if (logDispatcher != null) {
+                    logDispatcher.offer(toDTO(entry));
+                } else {
+                    remote.logged(toDTO(entry));
+                }
             }
         }
     }
 
+    @SuppressWarnings("deprecation")
+    private boolean matches(final LogEntry entry) {
+        final long bundle = bundleId;
+        if (bundle >= 0 && entry.getBundle().getBundleId() != bundle) {
+            return false;
+        }
+        final int minLevel = level;
+        return minLevel <= 0 || entry.getLevel() <= minLevel;
+    }
+
+    private void deliver(final List<XLogEntryDTO> entries) {
+        final Supervisor remote = supervisor;
+        if (remote != null) {
+            remote.onLogEntries(entries);
+        }
+    }
+
     @SuppressWarnings("deprecation")
     private XLogEntryDTO toDTO(final LogEntry entry) {
         final XLogEntryDTO dto = new XLogEntryDTO();
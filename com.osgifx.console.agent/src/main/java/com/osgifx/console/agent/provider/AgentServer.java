@@ -33,6 +33,8 @@ import static com.osgifx.console.agent.provider.PackageWirings.Type.LOG;
 import static com.osgifx.console.agent.provider.PackageWirings.Type.R7_LOGGER;
 import static com.osgifx.console.agent.provider.PackageWirings.Type.SCR;
 import static com.osgifx.console.agent.provider.PackageWirings.Type.USER_ADMIN;
+import static com.osgifx.console.agent.rpc.codec.BinaryCodec.WIRE_V1;
+import static com.osgifx.console.agent.rpc.codec.BinaryCodec.WIRE_V2;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toCollection;
 import static org.osgi.framework.Constants.BUNDLE_SYMBOLICNAME;
@@ -42,6 +44,7 @@ import static org.osgi.framework.Constants.SYSTEM_BUNDLE_ID;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
@@ -59,6 +62,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.Attributes;
 import java.util.jar.JarInputStream;
@@ -95,9 +99,12 @@ import org.osgi.util.tracker.ServiceTracker;
 import com.j256.simplelogging.FluentLogger;
 import com.j256.simplelogging.LoggerFactory;
 import com.osgifx.console.agent.Agent;
+import com.osgifx.console.agent.admin.AbstractSnapshotAdmin;
 import com.osgifx.console.agent.admin.RemoteServiceAdminManager;
+import com.osgifx.console.agent.admin.SnapshotDemand;
 import com.osgifx.console.agent.admin.XBundleAdmin;
 import com.osgifx.console.agent.admin.XCdiAdmin;
+import com.osgifx.console.agent.admin.XClassHistogramAdmin;
 import com.osgifx.console.agent.admin.XComponentAdmin;
 import com.osgifx.console.agent.admin.XConditionAdmin;
 import com.osgifx.console.agent.admin.XConfigurationAdmin;
@@ -111,11 +118,14 @@ import com.osgifx.console.agent.admin.XJaxRsAdmin;
 import com.osgifx.console.agent.admin.XJmxAdmin;
 import com.osgifx.console.agent.admin.XLogReaderAdmin;
 import com.osgifx.console.agent.admin.XLoggerAdmin;
+import com.osgifx.console.agent.admin.XMetricsAdmin;
+import com.osgifx.console.agent.admin.XProfilerAdmin;
 import com.osgifx.console.agent.admin.XPropertyAdmin;
 import com.osgifx.console.agent.admin.XServiceAdmin;
 import com.osgifx.console.agent.admin.XSnapshotAdmin;
 import com.osgifx.console.agent.admin.XThreadAdmin;
 import com.osgifx.console.agent.admin.XThreadDumpAdmin;
+import com.osgifx.console.agent.admin.XTransferAdmin;
 import com.osgifx.console.agent.admin.XUserAdmin;
 import com.osgifx.console.agent.di.DI;
 import com.osgifx.console.agent.dto.ConfigValue;
@@ -134,6 +144,7 @@ import com.osgifx.console.agent.dto.XHeapUsageDTO;
 import com.osgifx.console.agent.dto.XHttpComponentDTO;
 import com.osgifx.console.agent.dto.XJaxRsComponentDTO;
 import com.osgifx.console.agent.dto.XMemoryInfoDTO;
+import com.osgifx.console.agent.dto.XMetricsDTO;
 import com.osgifx.console.agent.dto.XPropertyDTO;
 import com.osgifx.console.agent.dto.XResultDTO;
 import com.osgifx.console.agent.dto.XRoleDTO;
@@ -141,6 +152,9 @@ import com.osgifx.console.agent.dto.XRoleDTO.Type;
 import com.osgifx.console.agent.dto.XRuntimeCapabilityDTO;
 import com.osgifx.console.agent.dto.XServiceDTO;
 import com.osgifx.console.agent.dto.XThreadDTO;
+import com.osgifx.console.agent.dto.XTransferDTO;
+import com.osgifx.console.agent.handler.LogCapture;
+import com.osgifx.console.agent.handler.MetricsPublisher;
 import com.osgifx.console.agent.handler.OSGiEventHandler;
 import com.osgifx.console.agent.handler.OSGiLogListener;
 import com.osgifx.console.agent.helper.AgentHelper;
@@ -154,6 +168,7 @@ import com.osgifx.console.agent.redirector.SocketRedirector;
 import com.osgifx.console.agent.rpc.RemoteRPC;
 import com.osgifx.console.agent.rpc.codec.BinaryCodec;
 import com.osgifx.console.agent.rpc.codec.Lz4Codec;
+import com.osgifx.console.agent.rpc.codec.SnapshotDelta;
 import com.osgifx.console.agent.spi.extension.AgentExtension;
 import com.osgifx.console.supervisor.Supervisor;
 
@@ -163,8 +178,6 @@ import aQute.lib.converter.TypeReference;
 
 public final class AgentServer implements Agent, Closeable {
 
-    private static final String LOG_FILE = "osgifx_logs.bin";
-
     public enum RpcType {
         MQTT_RPC,
         SOCKET_RPC
@@ -185,35 +198,35 @@ public final class AgentServer implements Agent, Closeable {
     private RemoteRPC<Agent, Supervisor> remoteRPC;
     private final Map<String, String>    installed  = new HashMap<>();
     private Redirector                   redirector = new NullRedirector();
-    private final BinaryLogBuffer        logBuffer  = new BinaryLogBuffer();
+    private final LogCapture             logCapture;
 
     private ServiceTracker<Object, Object> logReaderTracker;
 
     private Closeable              osgiLogListenerCloser;
     private OSGiLogListener        logListener;
+    private OSGiEventHandler       eventHandler;
+    private MetricsPublisher       metricsPublisher;
     private ServiceRegistration<?> osgiEventListenerServiceReg;
+    private final AtomicBoolean    attached = new AtomicBoolean();
 
     // Cached allowlist split — allowlist is a static OSGi property that rarely changes
     private volatile String   cachedAllowlistRaw    = null;
     private volatile String[] cachedAllowedCommands = null;
 
+    // Wire format version of the snapshots served to the attached supervisor
+    private volatile int snapshotWireVersion = WIRE_V1;
+
     private final DI           di;
     private final FluentLogger logger = LoggerFactory.getFluentLogger(getClass());
 
     public AgentServer(final DI di, final RpcType rpcType) {
-        this.di      = di;
-        this.rpcType = rpcType;
+        this.di         = di;
+        this.rpcType    = rpcType;
+        this.logCapture = di.getInstance(LogCapture.class);
 
         // Check for Auto-Start of Log Capture
         if (Boolean.getBoolean(AGENT_AUTO_START_LOG_CAPTURE_KEY)) {
-            // Restore persistence
-            try {
-                if (getContext() != null) {
-                    logBuffer.fromDisk(getContext().getDataFile(LOG_FILE));
-                }
-            } catch (Exception e) {
-                // Ignore
-            }
+            logCapture.start();
             // Register listener immediately
             osgiLogListenerCloser = initOSGiLogging();
         }
@@ -475,6 +488,33 @@ public final class AgentServer implements Agent, Closeable {
         System.setProperty(PROPERTY_ENABLE_EVENTING, String.valueOf(false));
     }
 
+    @Override
+    public void subscribeLogs(final long bundleId, final int level) {
+        if (logListener == null) {
+            logger.atWarn().msg(packageNotWired(LOG)).log();
+            return;
+        }
+        logListener.subscribe(bundleId, level);
+    }
+
+    @Override
+    public void subscribeEvents(final List<String> topics, final String filter) {
+        if (eventHandler == null) {
+            logger.atWarn().msg(packageNotWired(EVENT_ADMIN)).log();
+            return;
+        }
+        eventHandler.subscribe(topics, filter);
+    }
+
+    @Override
+    public void subscribeMetrics(final long resolution) {
+        if (metricsPublisher == null) {
+            logger.atWarn().msg("Metrics cannot be subscribed before the RPC link is established").log();
+            return;
+        }
+        metricsPublisher.subscribe(resolution);
+    }
+
     @Override
     public String execCliCommand(final String command) {
         requireNonNull(command, "CLI command cannot be null");
@@ -640,12 +680,17 @@ public final class AgentServer implements Agent, Closeable {
 
     @Override
     public void close() throws IOException {
+        di.getInstance(SnapshotDemand.class).release(this);
+        if (attached.compareAndSet(true, false)) {
+            if (rpcType == SOCKET_RPC) {
+                di.getInstance(SnapshotDemand.class).detach();
+            }
+            di.getInstance(XMetricsAdmin.class).detach();
+        }
         try {
             cleanup();
             // Snapshot logs to disk on close
-            if (getContext() != null) {
-                logBuffer.toDisk(getContext().getDataFile(LOG_FILE));
-            }
+            logCapture.persist();
 
             if (logReaderTracker != null) {
                 logReaderTracker.close();
@@ -653,9 +698,18 @@ public final class AgentServer implements Agent, Closeable {
             if (osgiEventListenerServiceReg != null) {
                 osgiEventListenerServiceReg.unregister();
             }
+            if (eventHandler != null) {
+                eventHandler.close();
+            }
             if (osgiLogListenerCloser != null) {
                 osgiLogListenerCloser.close();
             }
+            if (logListener != null) {
+                logListener.close();
+            }
+            if (metricsPublisher != null) {
+                metricsPublisher.close();
+            }
         } catch (final Exception e) {
             throw new IOException(e);
         }
@@ -663,9 +717,20 @@ public final class AgentServer implements Agent, Closeable {
 
     @Override
     public void disconnect() throws Exception {
+        // the MQTT link outlives the session, but the supervisor does not demand any snapshot anymore
+        di.getInstance(SnapshotDemand.class).release(this);
         cleanup();
     }
 
+    /**
+     * Keeps the supervisor of a broker-based session attached to the snapshots for another
+     * TTL. Such a supervisor may vanish without disconnecting, hence it is only attached as
+     * long as it sends requests.
+     */
+    public void renewLease() {
+        di.getInstance(SnapshotDemand.class).renew(this);
+    }
+
     public void setRemote(final Supervisor supervisor) {
         remote = supervisor;
     }
@@ -678,17 +743,16 @@ public final class AgentServer implements Agent, Closeable {
         setRemote(remoteRPC.getRemote());
         this.remoteRPC = remoteRPC;
 
+        // the new supervisor has not agreed on a wire format version yet
+        setSnapshotWireVersion(WIRE_V1);
+
         // the following can only be initialized if and only if the RPC link is
         // established
 
+        // the logs are captured once for all sessions, the listener of a session only forwards them
+        logCapture.start();
         // If not already started by auto-start
         if (osgiLogListenerCloser == null) {
-            // Try to restore logs from previous run (if not done in constructor)
-            try {
-                logBuffer.fromDisk(getContext().getDataFile(LOG_FILE));
-            } catch (Exception e) {
-                // Ignore if file doesn't exist or corrupted
-            }
             osgiLogListenerCloser = initOSGiLogging();
         }
         // Update supervisor reference
@@ -696,7 +760,26 @@ public final class AgentServer implements Agent, Closeable {
             logListener.setSupervisor(remoteRPC.getRemote());
         }
 
+        // a reconnected supervisor must not receive the events of the previous handler twice
+        if (osgiEventListenerServiceReg != null) {
+            osgiEventListenerServiceReg.unregister();
+            eventHandler.close();
+        }
         osgiEventListenerServiceReg = initOSGiEventing();
+
+        if (metricsPublisher == null) {
+            metricsPublisher = new MetricsPublisher(di.getInstance(XMetricsAdmin.class));
+        }
+        metricsPublisher.setSupervisor(remoteRPC.getRemote());
+
+        // keeps the requested snapshots up to date and samples the metrics at full rate from now on, the supervisor of
+        // a broker-based session is only attached to the snapshots by its requests instead, see renewLease()
+        if (attached.compareAndSet(false, true)) {
+            if (rpcType == SOCKET_RPC) {
+                di.getInstance(SnapshotDemand.class).attach();
+            }
+            di.getInstance(XMetricsAdmin.class).attach();
+        }
     }
 
     @Override
@@ -710,20 +793,7 @@ public final class AgentServer implements Agent, Closeable {
     }
 
     public void refresh(final boolean async) throws InterruptedException {
-        // Clear all snapshots to force a re-fetch on next access
-        di.getInstance(XBundleAdmin.class).invalidate();
-        di.getInstance(XComponentAdmin.class).invalidate();
-        di.getInstance(XServiceAdmin.class).invalidate();
-        di.getInstance(XConfigurationAdmin.class).invalidate();
-        di.getInstance(XPropertyAdmin.class).invalidate();
-        di.getInstance(XThreadAdmin.class).invalidate();
-        di.getInstance(XUserAdmin.class).invalidate();
-        di.getInstance(XHcAdmin.class).invalidate();
-        di.getInstance(XConditionAdmin.class).invalidate();
-        di.getInstance(XHttpAdmin.class).invalidate();
-        di.getInstance(XJaxRsAdmin.class).invalidate();
-        di.getInstance(XCdiAdmin.class).invalidate();
-        di.getInstance(XLoggerAdmin.class).invalidate();
+        invalidateSnapshots();
 
         final FrameworkWiring wiring = di.getInstance(BundleContext.class).getBundle(SYSTEM_BUNDLE_ID)
                 .adapt(FrameworkWiring.class);
@@ -737,6 +807,46 @@ public final class AgentServer implements Agent, Closeable {
         }
     }
 
+    @Override
+    public int negotiateWireVersion(final int maxVersion) {
+        final int version = Math.max(WIRE_V1, Math.min(maxVersion, getMaxWireVersion()));
+        remoteRPC.setWireVersion(version);
+        setSnapshotWireVersion(version);
+        return version;
+    }
+
+    private int getMaxWireVersion() {
+        final String configured = di.getInstance(BundleContext.class).getProperty(AGENT_RPC_WIRE_VERSION_KEY);
+        if (configured != null) {
+            try {
+                return Math.min(Integer.parseInt(configured.trim()), WIRE_V2);
+            } catch (final NumberFormatException e) {
+                // Ignore and use default
+            }
+        }
+        return WIRE_V2;
+    }
+
+    // snapshots are cached in their encoded form, the shared codec itself is never switched
+    private void setSnapshotWireVersion(final int version) {
+        snapshotWireVersion = version;
+        for (final AbstractSnapshotAdmin<?> admin : snapshotAdmins()) {
+            admin.setWireVersion(version);
+        }
+    }
+
+    private void invalidateSnapshots() {
+        // Clear all snapshots to force a re-fetch on next access
+        for (final AbstractSnapshotAdmin<?> admin : snapshotAdmins()) {
+            admin.invalidate();
+        }
+    }
+
+    // only the admins of the wired packages exist, looking up any other one would fail
+    private List<AbstractSnapshotAdmin<?>> snapshotAdmins() {
+        return di.getInstance(SnapshotDemand.class).admins();
+    }
+
     private Entry<String, Version> getIdentity(final byte[] data) throws IOException {
         try (JarInputStream jin = new JarInputStream(new ByteArrayInputStream(data))) {
             final Manifest manifest = jin.getManifest();
@@ -1067,6 +1177,74 @@ public final class AgentServer implements Agent, Closeable {
         return di.getInstance(XThreadDumpAdmin.class).createThreadDump(outputPath);
     }
 
+    @Override
+    public boolean startProfiling(final long interval, final long duration) {
+        return di.getInstance(XProfilerAdmin.class).start(interval, duration);
+    }
+
+    @Override
+    public void stopProfiling() {
+        di.getInstance(XProfilerAdmin.class).stop();
+    }
+
+    @Override
+    public byte[] profile() {
+        return di.getInstance(XProfilerAdmin.class).profile();
+    }
+
+    @Override
+    public byte[] classHistogram(final boolean isLiveOnly) {
+        final boolean isJMXWired = di.getInstance(PackageWirings.class).isJmxWired();
+        if (isJMXWired) {
+            return di.getInstance(XClassHistogramAdmin.class).classHistogram(isLiveOnly);
+        }
+        logger.atWarn().msg(packageNotWired(JMX)).log();
+        return new byte[0];
+    }
+
+    @Override
+    public XTransferDTO openHeapdumpTransfer() throws Exception {
+        final boolean isJMXWired = di.getInstance(PackageWirings.class).isJmxWired();
+        if (!isJMXWired) {
+            logger.atWarn().msg(packageNotWired(JMX)).log();
+            return null;
+        }
+        final XTransferAdmin transferAdmin = di.getInstance(XTransferAdmin.class);
+        final File           file          = transferAdmin.createTempFile(".hprof.gz");
+        try {
+            di.getInstance(XHeapDumpAdmin.class).createHeapdump(file.getAbsolutePath());
+            return transferAdmin.open("heapdump-" + System.currentTimeMillis() + ".hprof.gz", file);
+        } catch (final Exception e) {
+            file.delete();
+            throw e;
+        }
+    }
+
+    @Override
+    public XTransferDTO openThreadDumpTransfer() throws Exception {
+        final XTransferAdmin transferAdmin = di.getInstance(XTransferAdmin.class);
+        final File           file          = transferAdmin.createTempFile(".tdump.gz");
+        try {
+            di.getInstance(XThreadDumpAdmin.class).createThreadDump(file.getAbsolutePath());
+            return transferAdmin.open("threaddump-" + System.currentTimeMillis() + ".tdump.gz", file);
+        } catch (final Exception e) {
+            file.delete();
+            throw e;
+        }
+    }
+
+    @Override
+    public byte[] readTransferChunk(final String transferId, final long offset) throws Exception {
+        requireNonNull(transferId, "Transfer ID cannot be null");
+        return di.getInstance(XTransferAdmin.class).read(transferId, offset);
+    }
+
+    @Override
+    public void closeTransfer(final String transferId) {
+        requireNonNull(transferId, "Transfer ID cannot be null");
+        di.getInstance(XTransferAdmin.class).close(transferId);
+    }
+
     @Override
     public XResultDTO createOrUpdateConfiguration(final String pid, final List<ConfigValue> newProperties) {
         requireNonNull(newProperties, "Configuration properties cannot be null");
@@ -1171,6 +1349,11 @@ public final class AgentServer implements Agent, Closeable {
         return dto;
     }
 
+    @Override
+    public XMetricsDTO getMetrics(final long resolution, final long since) {
+        return di.getInstance(XMetricsAdmin.class).getMetrics(resolution, since);
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public Set<String> getGogoCommands() {
@@ -1367,12 +1550,17 @@ public final class AgentServer implements Agent, Closeable {
 
     @Override
     public byte[] getLogSnapshot(int count) {
-        return logBuffer.getLogSnapshot(count);
+        return logCapture.buffer().getLogSnapshot(count);
     }
 
     @Override
     public byte[] getLogSnapshot(long fromTime, long toTime) {
-        return logBuffer.getLogSnapshot(fromTime, toTime);
+        return logCapture.buffer().getLogSnapshot(fromTime, toTime);
+    }
+
+    @Override
+    public byte[] getLogSnapshot(long fromTime, long toTime, long bundleId, int level) {
+        return logCapture.buffer().getLogSnapshot(fromTime, toTime, bundleId, level);
     }
 
     private long getSystemUptime() {
@@ -1441,7 +1629,8 @@ public final class AgentServer implements Agent, Closeable {
     private ServiceRegistration<?> initOSGiEventing() {
         final boolean isEventAdminAvailable = di.getInstance(PackageWirings.class).isEventAdminWired();
         if (isEventAdminAvailable) {
-            return di.getInstance(OSGiEventHandler.class).register();
+            eventHandler = di.getInstance(OSGiEventHandler.class);
+            return eventHandler.register();
         }
         logger.atWarn().msg(packageNotWired(EVENT_ADMIN)).log();
         return null;
@@ -1452,7 +1641,6 @@ public final class AgentServer implements Agent, Closeable {
         if (isLogAvailable) {
             if (logListener == null) {
                 logListener = di.getInstance(OSGiLogListener.class);
-                logListener.setLogBuffer(logBuffer);
             }
             // If remote is already known (e.g. late start), set it
             if (remote != null) {
@@ -1509,6 +1697,11 @@ public final class AgentServer implements Agent, Closeable {
         return di.getInstance(XBundleAdmin.class).snapshot();
     }
 
+    @Override
+    public byte[] bundles(final long sinceVersion) {
+        return di.getInstance(XBundleAdmin.class).delta(sinceVersion);
+    }
+
     @Override
     public byte[] components() {
         final boolean isScrWired = di.getInstance(PackageWirings.class).isScrWired();
@@ -1518,11 +1711,25 @@ public final class AgentServer implements Agent, Closeable {
         return encode(Collections.emptyList());
     }
 
+    @Override
+    public byte[] components(final long sinceVersion) {
+        final boolean isScrWired = di.getInstance(PackageWirings.class).isScrWired();
+        if (isScrWired) {
+            return di.getInstance(XComponentAdmin.class).delta(sinceVersion);
+        }
+        return emptyDelta();
+    }
+
     @Override
     public byte[] services() {
         return di.getInstance(XServiceAdmin.class).snapshot();
     }
 
+    @Override
+    public byte[] services(final long sinceVersion) {
+        return di.getInstance(XServiceAdmin.class).delta(sinceVersion);
+    }
+
     @Override
     public byte[] configurations() {
         final boolean isConfigAdminWired = di.getInstance(PackageWirings.class).isConfigAdminWired();
@@ -1645,11 +1852,21 @@ public final class AgentServer implements Agent, Closeable {
         }
         try {
             final BinaryCodec codec   = di.getInstance(BinaryCodec.class);
-            final byte[]      encoded = codec.encode(data);
+            final byte[]      encoded = codec.encode(data, snapshotWireVersion);
             return Lz4Codec.compressWithLength(encoded);
         } catch (final Exception e) {
             return new byte[0];
         }
     }
 
+    private byte[] emptyDelta() {
+        try {
+            final BinaryCodec codec = di.getInstance(BinaryCodec.class);
+            return SnapshotDelta.full(-1, Collections.emptyList(), Collections.emptyList()).encode(codec,
+                    snapshotWireVersion);
+        } catch (final Exception e) {
+            return new byte[0];
+        }
+    }
+
 }
@@ -15,344 +15,1074 @@
  ******************************************************************************/
 package com.osgifx.console.agent.provider;
 
+import java.io.Closeable;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
 import java.util.Arrays;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * A fixed-size circular buffer for storing logs in a packed binary format.
  * <p>
  * Designed for constrained devices to avoid the memory overhead of {@code List<LogEntry>}.
  * It maintains a "Flight Recorder" history of the last N MBs of logs.
+ * <p>
+ * The buffer is lock-free for both writers and readers. A writer claims the
+ * sequence number of its entry and the bytes of the entry with atomic additions,
+ * encodes the entry directly into its claimed region and finally publishes the
+ * entry in the index together with its checksum. Readers copy entries optimistically
+ * and discard every entry whose index slot or bytes have been reclaimed by newer
+ * entries in the meantime. The checksum also discards entries overwritten by a
+ * writer which has been outpaced by a whole lap of newer entries while encoding.
+ * <p>
+ * The buffer either lives on the heap and is persisted explicitly by {@link #toDisk(File)},
+ * or it is mapped from a file. A mapped buffer persists every entry as soon as it is
+ * written, survives restarts and crashes of the JVM and does not occupy the heap. Besides
+ * the entries, the file contains a journal of the index which is used to recover the
+ * entries when the file is mapped again. The mapping is released by {@link #close()},
+ * after which entries are dropped.
  */
-public class BinaryLogBuffer {
+public class BinaryLogBuffer implements Closeable {
 
     // 1 MB default
     public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
     // 1024 entries index
     public static final int DEFAULT_INDEX_SIZE = 1024;
 
-    private final byte[] data;
-    private final int[]  index;
-    private final int    capacity;
-    private final int    indexCapacity;
+    // Header: Time(8) + Bundle(8) + Lvl(4) + MsgLen(4) + ExcLen(4) = 28 bytes
+    private static final int HEADER_SIZE = 28;
+    // "OFLB" - distinguishes the persisted entries from the former raw buffer dump
+    private static final int FILE_MAGIC = 0x4F464C42;
+    // "OFLM" - identifies a mapped buffer file
+    private static final int MAPPED_MAGIC = 0x4F464C4D;
+    // Magic(4) + Capacity(4) + IndexCapacity(4) + Reserved(4) = 16 bytes
+    private static final int MAPPED_HEADER_SIZE = 16;
+    // Stamp(8) + Position(8) + Length(4) + Checksum(4) = 24 bytes per index slot
+    private static final int JOURNAL_RECORD_SIZE = 24;
+    // Fletcher checksum over the strings followed by the header, both 16 bit sums packed
+    private static final int CHECKSUM_SEED = 0;
+    // index slot states are stored as (sequence << 1) | busy
+    private static final long EMPTY_SLOT = -2;
+    // number of sequences summarized by a block of the sparse time index
+    private static final int BLOCK_SIZE = 64;
+
+    private final Ring               data;
+    private final MappedByteBuffer   mapped;
+    private final ByteBuffer         journal;
+    private final AtomicLongArray    journalStamps;
+    private final int                capacity;
+    private final int                indexCapacity;
+    private final AtomicLongArray    stamps;
+    private final AtomicLongArray    positions;
+    private final AtomicIntegerArray lengths;
+    private final AtomicIntegerArray checksums;
+    private final int                blockCount;
+    private final AtomicLongArray    blockStamps;
+    private final AtomicLongArray    blockMin;
+    private final AtomicLongArray    blockMax;
 
-    private int  head       = 0;
-    private long writeCount = 0;
+    // the number of claimed entries and the absolute number of claimed bytes
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong tail     = new AtomicLong();
 
-    private final ReentrantLock lock = new ReentrantLock();
+    // the number of threads accessing a mapped buffer, which must not be unmapped in the meantime
+    private final AtomicInteger accessors = new AtomicInteger();
+    private volatile boolean    closed;
+
+    @SuppressWarnings("unused")
+    private volatile int fence;
 
     public BinaryLogBuffer() {
         this(DEFAULT_BUFFER_SIZE, DEFAULT_INDEX_SIZE);
     }
 
     public BinaryLogBuffer(int bufferSize, int indexSize) {
+        checkSize(bufferSize);
         this.capacity      = bufferSize;
         this.indexCapacity = indexSize;
-        this.data          = new byte[capacity];
-        this.index         = new int[indexCapacity];
-        Arrays.fill(index, -1);
+        this.data          = new HeapRing(new byte[capacity]);
+        this.mapped        = null;
+        this.journal       = null;
+        this.journalStamps = null;
+        this.positions     = new AtomicLongArray(indexCapacity);
+        this.lengths       = new AtomicIntegerArray(indexCapacity);
+        this.checksums     = new AtomicIntegerArray(indexCapacity);
+        this.stamps        = new AtomicLongArray(emptyStamps(indexCapacity));
+        this.blockCount    = (indexCapacity + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        this.blockStamps   = new AtomicLongArray(emptyStamps(blockCount));
+        this.blockMin      = new AtomicLongArray(blockCount);
+        this.blockMax      = new AtomicLongArray(blockCount);
+    }
+
+    /**
+     * Creates a buffer mapped from the specified file. The entries already stored in
+     * the file are recovered, unless the file has been created with different sizes
+     * in which case it is reinitialized.
+     *
+     * @param file the file to map
+     * @param bufferSize the size of the ring segment in bytes
+     * @param indexSize the number of indexed entries
+     * @throws IOException if the file cannot be mapped
+     */
+    public BinaryLogBuffer(File file, int bufferSize, int indexSize) throws IOException {
+        checkSize(bufferSize);
+        this.capacity      = bufferSize;
+        this.indexCapacity = indexSize;
+        this.mapped        = map(file, bufferSize, indexSize);
+        this.journal       = slice(mapped, MAPPED_HEADER_SIZE, indexSize * JOURNAL_RECORD_SIZE);
+        this.journalStamps = new AtomicLongArray(emptyStamps(indexCapacity));
+        this.data          = new MappedRing(
+                slice(mapped, MAPPED_HEADER_SIZE + indexSize * JOURNAL_RECORD_SIZE, bufferSize));
+        this.positions     = new AtomicLongArray(indexCapacity);
+        this.lengths       = new AtomicIntegerArray(indexCapacity);
+        this.checksums     = new AtomicIntegerArray(indexCapacity);
+        this.stamps        = new AtomicLongArray(emptyStamps(indexCapacity));
+        this.blockCount    = (indexCapacity + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        this.blockStamps   = new AtomicLongArray(emptyStamps(blockCount));
+        this.blockMin      = new AtomicLongArray(blockCount);
+        this.blockMax      = new AtomicLongArray(blockCount);
+        recover();
+    }
+
+    /**
+     * Returns whether the buffer is mapped from a file.
+     */
+    public boolean isMapped() {
+        return mapped != null;
     }
 
     /**
      * Writes a log entry into the circular buffer.
+     * <p>
+     * The strings are encoded as UTF-8 directly into the buffer. An entry that would
+     * exceed the whole buffer is truncated, the exception first.
      */
     public void write(long timestamp, long bundleId, int level, String message, String exception) {
-        lock.lock();
+        if (!acquire()) {
+            return;
+        }
         try {
-            byte[] msgBytes = message != null ? message.getBytes(StandardCharsets.UTF_8) : new byte[0];
-            byte[] excBytes = exception != null ? exception.getBytes(StandardCharsets.UTF_8) : new byte[0];
-
-            // Header: Time(8) + Bundle(8) + Lvl(4) + MsgLen(4) + ExcLen(4) = 28 bytes
+            doWrite(timestamp, bundleId, level, message, exception);
+        } finally {
+            release();
+        }
+    }
 
-            // 1. Record index
-            index[(int) (writeCount % indexCapacity)] = head;
+    private void doWrite(long timestamp, long bundleId, int level, String message, String exception) {
+        final long msg      = measureUtf8(message, capacity - HEADER_SIZE, CHECKSUM_SEED);
+        final int  msgLen   = (int) msg;
+        final long exc      = measureUtf8(exception, capacity - HEADER_SIZE - msgLen, (int) (msg >>> 32));
+        final int  excLen   = (int) exc;
+        final int  length   = HEADER_SIZE + msgLen + excLen;
+        final int  checksum = checksum((int) (exc >>> 32), timestamp, bundleId, level, msgLen, excLen);
 
-            // 2. Write Data (Handle wrapping)
-            writeLong(timestamp);
-            writeLong(bundleId);
-            writeInt(level);
-            writeInt(msgBytes.length);
-            writeInt(excBytes.length);
-            writeBytes(msgBytes);
-            writeBytes(excBytes);
+        final long seq = sequence.getAndIncrement();
+        final long pos = tail.getAndAdd(length);
+        if (journal != null) {
+            // the claim must be known on recovery, as the entry overwrites older ones
+            journal(seq, pos, length, checksum, true);
+        }
 
-            writeCount++;
-        } finally {
-            lock.unlock();
+        int at = (int) (pos % capacity);
+        if (at + length <= capacity) {
+            // the entry does not wrap which is the common case
+            data.putLong(at, timestamp);
+            data.putLong(at + 8, bundleId);
+            data.putInt(at + 16, level);
+            data.putInt(at + 20, msgLen);
+            data.putInt(at + 24, excLen);
+            at = putUtf8(data, at + HEADER_SIZE, message, msgLen);
+            putUtf8(data, at, exception, excLen);
+        } else {
+            at = writeLong(at, timestamp);
+            at = writeLong(at, bundleId);
+            at = writeInt(at, level);
+            at = writeInt(at, msgLen);
+            at = writeInt(at, excLen);
+            at = writeUtf8(at, message, msgLen);
+            writeUtf8(at, exception, excLen);
         }
+        publish(seq, pos, length, checksum);
     }
 
     /**
      * Retrieves the last N logs as a raw byte array.
      */
     public byte[] getLogSnapshot(int count) {
-        lock.lock();
+        if (!acquire()) {
+            return new byte[0];
+        }
+        try {
+            return doGetLogSnapshot(count);
+        } finally {
+            release();
+        }
+    }
+
+    private byte[] doGetLogSnapshot(int count) {
+        if (count <= 0 || count > indexCapacity) {
+            count = indexCapacity;
+        }
+        final long end = sequence.get();
+        if (end == 0) {
+            return new byte[0];
+        }
+        final Snapshot snapshot = new Snapshot();
+        for (long seq = Math.max(0, end - count); seq < end; seq++) {
+            copyEntry(seq, snapshot);
+        }
+        return snapshot.toByteArray();
+    }
+
+    /**
+     * Time Range Filter
+     * <p>
+     * Retrieves all logs within the time range (inclusive).
+     */
+    public byte[] getLogSnapshot(long fromTime, long toTime) {
+        return getLogSnapshot(fromTime, toTime, -1, 0);
+    }
+
+    /**
+     * Time Range Filter with bundle and level filters
+     * <p>
+     * The sparse time index is binary searched for the first block of entries reaching
+     * the start of the range, as log timestamps are expected to increase. From there,
+     * the entries are copied in sequence, whereby blocks lying entirely outside the range
+     * are skipped.
+     *
+     * @param fromTime start timestamp (inclusive)
+     * @param toTime end timestamp (inclusive)
+     * @param bundleId the bundle whose logs are retrieved, or {@code -1} for all bundles
+     * @param level the least severe level to retrieve (1 = error, 2 = warning, 3 = info,
+     *            4 = debug), or {@code 0} for all levels
+     */
+    public byte[] getLogSnapshot(long fromTime, long toTime, long bundleId, int level) {
+        if (!acquire()) {
+            return new byte[0];
+        }
         try {
-            if (count <= 0 || count > indexCapacity) {
-                count = indexCapacity;
+            return doGetLogSnapshot(fromTime, toTime, bundleId, level);
+        } finally {
+            release();
+        }
+    }
+
+    private byte[] doGetLogSnapshot(long fromTime, long toTime, long bundleId, int level) {
+        final long end = sequence.get();
+        if (end == 0 || fromTime > toTime) {
+            return new byte[0];
+        }
+        final long   start   = Math.max(0, end - indexCapacity);
+        final long[] minMax  = new long[2];
+        final long   first   = (start + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        long         low     = first;
+        // the last block is not complete yet
+        long         high    = end / BLOCK_SIZE;
+        while (low < high) {
+            final long mid = (low + high) >>> 1;
+            if (summarize(mid, minMax) && minMax[1] >= fromTime) {
+                high = mid;
+            } else {
+                low = mid + 1;
             }
-            if (writeCount == 0) {
-                return new byte[0];
+        }
+
+        final Snapshot snapshot = new Snapshot();
+        for (long seq = low == first ? start : low * BLOCK_SIZE; seq < end; seq++) {
+            if (seq % BLOCK_SIZE == 0 && seq + BLOCK_SIZE <= end && summarize(seq / BLOCK_SIZE, minMax)
+                    && (minMax[0] > toTime || minMax[1] < fromTime)) {
+                seq += BLOCK_SIZE - 1;
+                continue; // No entry of the block is within the range
+            }
+            final int mark = snapshot.size;
+            if (copyEntry(seq, snapshot) && !matches(snapshot.buf, mark, fromTime, toTime, bundleId, level)) {
+                snapshot.size = mark;
             }
+        }
+        return snapshot.toByteArray();
+    }
 
-            long actualCount = Math.min(count, writeCount);
-            int  startIndex  = (int) ((writeCount - actualCount) % indexCapacity);
-            int  startOffset = index[startIndex];
+    // --- Sparse Time Index ---
 
-            if (startOffset == -1) {
-                // Safeguard
-                return new byte[0];
+    /**
+     * Loads the min and max timestamps of the available entries of the block. The
+     * summary of a block is kept once all of its entries have been published, as
+     * published entries never change.
+     *
+     * @return {@code false} if none of the entries of the block is available
+     */
+    private boolean summarize(long block, long[] minMax) {
+        final int slot = (int) (block % blockCount);
+        if (blockStamps.get(slot) == block) {
+            minMax[0] = blockMin.get(slot);
+            minMax[1] = blockMax.get(slot);
+            if (blockStamps.get(slot) == block) {
+                return true;
+            }
+        }
+        long min       = Long.MAX_VALUE;
+        long max       = Long.MIN_VALUE;
+        int  available = 0;
+        for (long seq = block * BLOCK_SIZE; seq < (block + 1) * BLOCK_SIZE; seq++) {
+            final int  entrySlot = (int) (seq % indexCapacity);
+            final long stamp     = stamps.get(entrySlot);
+            if (stamp != seq << 1) {
+                continue; // Not yet published or already replaced
             }
+            final long pos       = positions.get(entrySlot);
+            final long timestamp = readLong((int) (pos % capacity));
+            if (!isValid(entrySlot, stamp, pos)) {
+                continue; // Overwritten while reading
+            }
+            min = Math.min(min, timestamp);
+            max = Math.max(max, timestamp);
+            available++;
+        }
+        if (available == 0) {
+            return false;
+        }
+        final long current = blockStamps.get(slot);
+        // the busy stamp (-1) excludes concurrent summaries and is detected by concurrent readers
+        if (available == BLOCK_SIZE && current != -1 && current < block
+                && blockStamps.compareAndSet(slot, current, -1)) {
+            blockMin.set(slot, min);
+            blockMax.set(slot, max);
+            blockStamps.set(slot, block);
+        }
+        minMax[0] = min;
+        minMax[1] = max;
+        return true;
+    }
 
-            return readFrom(startOffset);
-        } finally {
-            lock.unlock();
+    private static boolean matches(byte[] entry,
+                                   int offset,
+                                   long fromTime,
+                                   long toTime,
+                                   long bundleId,
+                                   int level) {
+        final long timestamp = getLong(entry, offset);
+        if (timestamp < fromTime || timestamp > toTime) {
+            return false;
+        }
+        if (bundleId >= 0 && getLong(entry, offset + 8) != bundleId) {
+            return false;
+        }
+        return level <= 0 || getInt(entry, offset + 16) <= level;
+    }
+
+    // --- Index ---
+
+    private void publish(long seq, long pos, int length, int checksum) {
+        final int  slot = (int) (seq % indexCapacity);
+        final long busy = seq << 1 | 1;
+        while (true) {
+            final long current = stamps.get(slot);
+            if (current >> 1 >= seq) {
+                // a newer entry already owns the slot
+                return;
+            }
+            if ((current & 1) != 0) {
+                // an older writer is storing its position, which only takes a few stores
+                Thread.yield();
+                continue;
+            }
+            if (stamps.compareAndSet(slot, current, busy)) {
+                break;
+            }
+        }
+        // ordered stores suffice as readers always validate the stamp afterwards
+        positions.lazySet(slot, pos);
+        lengths.lazySet(slot, length);
+        checksums.lazySet(slot, checksum);
+        // publishes the entry together with all bytes written before
+        stamps.lazySet(slot, seq << 1);
+        if (journal != null) {
+            journal(seq, pos, length, checksum, false);
         }
     }
 
     /**
-     * Reads all bytes from startOffset to head (handling wrap-around)
+     * Stores the index slot of the entry in the journal. The record is claimed like the
+     * index slot, such that a writer which has been outpaced by a whole lap of newer
+     * entries neither interleaves its fields with the record of a newer entry nor
+     * replaces it.
      */
-    private byte[] readFrom(int startOffset) {
-        int length;
-        if (head >= startOffset) {
-            length = head - startOffset;
-            byte[] result = new byte[length];
-            System.arraycopy(data, startOffset, result, 0, length);
-            return result;
-        } else {
-            // Wrapped
-            int part1Len = capacity - startOffset;
-            int part2Len = head;
-            length = part1Len + part2Len;
-            byte[] result = new byte[length];
-            System.arraycopy(data, startOffset, result, 0, part1Len);
-            System.arraycopy(data, 0, result, part1Len, part2Len);
-            return result;
+    private void journal(long seq, long pos, int length, int checksum, boolean busy) {
+        final int  slot    = (int) (seq % indexCapacity);
+        final long writing = seq << 1 | 1;
+        while (true) {
+            final long current = journalStamps.get(slot);
+            if (current >> 1 > seq) {
+                // a newer entry already owns the record
+                return;
+            }
+            if ((current & 1) != 0) {
+                // another writer is storing its record, which only takes a few stores
+                Thread.yield();
+                continue;
+            }
+            if (journalStamps.compareAndSet(slot, current, writing)) {
+                break;
+            }
+        }
+        final int offset = slot * JOURNAL_RECORD_SIZE;
+        journal.putLong(offset + 8, pos);
+        journal.putInt(offset + 16, length);
+        journal.putInt(offset + 20, checksum);
+        journal.putLong(offset, busy ? seq << 1 | 1 : seq << 1);
+        journalStamps.set(slot, seq << 1);
+    }
+
+    /**
+     * Copies the entry of the specified sequence to the snapshot if it is still
+     * available and has not been overwritten while copying.
+     */
+    private boolean copyEntry(long seq, Snapshot snapshot) {
+        final int  slot  = (int) (seq % indexCapacity);
+        final long stamp = stamps.get(slot);
+        if (stamp != seq << 1) {
+            return false;
+        }
+        final long pos      = positions.get(slot);
+        final int  length   = lengths.get(slot);
+        final int  checksum = checksums.get(slot);
+        if (tail.get() - pos > capacity) {
+            return false;
         }
+        final int mark = snapshot.size;
+        snapshot.ensureCapacity(length);
+        copyRange((int) (pos % capacity), length, snapshot.buf, mark);
+        if (!isValid(slot, stamp, pos) || checksum(snapshot.buf, mark, length) != checksum) {
+            return false;
+        }
+        snapshot.size = mark + length;
+        return true;
     }
 
-    // --- Primitive Write Helpers (Request Zero Allocation) ---
+    private boolean isValid(int slot, long stamp, long pos) {
+        // the volatile write keeps the preceding plain reads of the data before the
+        // following volatile reads, so that overwritten bytes are always detected
+        fence = 0;
+        return stamps.get(slot) == stamp && tail.get() - pos <= capacity;
+    }
 
-    private void writeBytes(byte[] b) {
-        if (b.length == 0) {
-            return;
+    private static int checksum(int sums, long timestamp, long bundleId, int level, int msgLen, int excLen) {
+        sums = checksum(sums, (int) (timestamp >>> 32));
+        sums = checksum(sums, (int) timestamp);
+        sums = checksum(sums, (int) (bundleId >>> 32));
+        sums = checksum(sums, (int) bundleId);
+        sums = checksum(sums, level);
+        sums = checksum(sums, msgLen);
+        return checksum(sums, excLen);
+    }
+
+    private static int checksum(int sums, int v) {
+        int sumA = sums & 0xFFFF;
+        int sumB = sums >>> 16;
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            sumA += v >>> shift & 0xFF;
+            sumB += sumA;
         }
-        int availableAtEnd = capacity - head;
-        if (availableAtEnd >= b.length) {
-            System.arraycopy(b, 0, data, head, b.length);
-            head += b.length;
-        } else {
-            // Wrap
-            System.arraycopy(b, 0, data, head, availableAtEnd);
-            int remaining = b.length - availableAtEnd;
-            System.arraycopy(b, availableAtEnd, data, 0, remaining);
-            head = remaining;
+        return (sumB & 0xFFFF) << 16 | sumA & 0xFFFF;
+    }
+
+    private static int checksum(byte[] entry, int offset, int length) {
+        int sumA = CHECKSUM_SEED & 0xFFFF;
+        int sumB = CHECKSUM_SEED >>> 16;
+        for (int i = offset + HEADER_SIZE; i < offset + length; i++) {
+            sumA += entry[i] & 0xFF;
+            sumB += sumA;
+        }
+        for (int i = offset; i < offset + HEADER_SIZE; i++) {
+            sumA += entry[i] & 0xFF;
+            sumB += sumA;
         }
-        if (head == capacity) {
-            head = 0;
+        return (sumB & 0xFFFF) << 16 | sumA & 0xFFFF;
+    }
+
+    private static int entryLength(byte[] entry, int offset) {
+        final int msgLen = getInt(entry, offset + 20);
+        final int excLen = getInt(entry, offset + 24);
+        if (msgLen < 0 || excLen < 0) {
+            return -1;
         }
+        return HEADER_SIZE + msgLen + excLen;
     }
 
-    private void writeInt(int v) {
+    // --- Primitive Write Helpers (Zero Allocation) ---
+    // Writers own their claimed region, hence they only carry their own offset
+
+    private int writeInt(int at, int v) {
         // 4 bytes
-        writeByte((byte) (v >>> 24));
-        writeByte((byte) (v >>> 16));
-        writeByte((byte) (v >>> 8));
-        writeByte((byte) (v >>> 0));
+        at = writeByte(at, v >>> 24);
+        at = writeByte(at, v >>> 16);
+        at = writeByte(at, v >>> 8);
+        return writeByte(at, v);
     }
 
-    private void writeLong(long v) {
+    private int writeLong(int at, long v) {
         // 8 bytes
-        writeByte((byte) (v >>> 56));
-        writeByte((byte) (v >>> 48));
-        writeByte((byte) (v >>> 40));
-        writeByte((byte) (v >>> 32));
-        writeByte((byte) (v >>> 24));
-        writeByte((byte) (v >>> 16));
-        writeByte((byte) (v >>> 8));
-        writeByte((byte) (v >>> 0));
+        at = writeInt(at, (int) (v >>> 32));
+        return writeInt(at, (int) v);
+    }
+
+    private int writeByte(int at, int b) {
+        data.put(at, (byte) b);
+        return ++at == capacity ? 0 : at;
+    }
+
+    private void writeBytes(int at, byte[] b, int offset, int length) {
+        int availableAtEnd = capacity - at;
+        if (availableAtEnd >= length) {
+            data.write(at, b, offset, length);
+        } else {
+            // Wrap
+            data.write(at, b, offset, availableAtEnd);
+            data.write(0, b, offset + availableAtEnd, length - availableAtEnd);
+        }
+    }
+
+    /**
+     * Encodes the prefix of the string fitting into the specified number of bytes.
+     * Malformed surrogates are replaced by {@code '?'} like {@link String#getBytes}
+     * does.
+     */
+    private int writeUtf8(int at, String s, int length) {
+        int written = 0;
+        for (int i = 0; written < length; i++) {
+            final char c = s.charAt(i);
+            if (c < 0x80) {
+                at = writeByte(at, c);
+                written++;
+            } else if (c < 0x800) {
+                at = writeByte(at, 0xC0 | c >> 6);
+                at = writeByte(at, 0x80 | c & 0x3F);
+                written += 2;
+            } else if (Character.isSurrogate(c)) {
+                final int cp = codePointAt(s, i);
+                if (cp < 0) {
+                    at = writeByte(at, '?');
+                    written++;
+                } else {
+                    at = writeByte(at, 0xF0 | cp >> 18);
+                    at = writeByte(at, 0x80 | cp >> 12 & 0x3F);
+                    at = writeByte(at, 0x80 | cp >> 6 & 0x3F);
+                    at = writeByte(at, 0x80 | cp & 0x3F);
+                    written += 4;
+                    i++;
+                }
+            } else {
+                at = writeByte(at, 0xE0 | c >> 12);
+                at = writeByte(at, 0x80 | c >> 6 & 0x3F);
+                at = writeByte(at, 0x80 | c & 0x3F);
+                written += 3;
+            }
+        }
+        return at;
+    }
+
+    /**
+     * Same as {@link #writeUtf8(int, String, int)} for a region that does not wrap.
+     */
+    private static int putUtf8(Ring b, int at, String s, int length) {
+        final int end = at + length;
+        int       i   = 0;
+        // ASCII only strings are the common case
+        while (at < end) {
+            final char c = s.charAt(i);
+            if (c >= 0x80) {
+                break;
+            }
+            b.put(at++, (byte) c);
+            i++;
+        }
+        for (; at < end; i++) {
+            final char c = s.charAt(i);
+            if (c < 0x80) {
+                b.put(at++, (byte) c);
+            } else if (c < 0x800) {
+                b.put(at++, (byte) (0xC0 | c >> 6));
+                b.put(at++, (byte) (0x80 | c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                final int cp = codePointAt(s, i);
+                if (cp < 0) {
+                    b.put(at++, (byte) '?');
+                } else {
+                    b.put(at++, (byte) (0xF0 | cp >> 18));
+                    b.put(at++, (byte) (0x80 | cp >> 12 & 0x3F));
+                    b.put(at++, (byte) (0x80 | cp >> 6 & 0x3F));
+                    b.put(at++, (byte) (0x80 | cp & 0x3F));
+                    i++;
+                }
+            } else {
+                b.put(at++, (byte) (0xE0 | c >> 12));
+                b.put(at++, (byte) (0x80 | c >> 6 & 0x3F));
+                b.put(at++, (byte) (0x80 | c & 0x3F));
+            }
+        }
+        return at;
+    }
+
+    /**
+     * Returns the UTF-8 length of the longest prefix of the string that fits into
+     * the specified number of bytes without splitting a character in the lower 32 bits,
+     * and the specified checksum continued with the UTF-8 bytes of the prefix in the
+     * upper 32 bits.
+     */
+    private static long measureUtf8(String s, int limit, int sums) {
+        if (s == null) {
+            return (long) sums << 32;
+        }
+        final int count = s.length();
+        int       sumA  = sums & 0xFFFF;
+        int       sumB  = sums >>> 16;
+        int       i     = 0;
+        // ASCII only strings are the common case
+        while (i < count && i < limit) {
+            final char c = s.charAt(i);
+            if (c >= 0x80) {
+                break;
+            }
+            sumA += c;
+            sumB += sumA;
+            i++;
+        }
+        int length = i;
+        for (; i < count; i++) {
+            final char c = s.charAt(i);
+            // the encoded bytes, most significant first
+            int encoded;
+            int n;
+            if (c < 0x80) {
+                encoded = c;
+                n       = 1;
+            } else if (c < 0x800) {
+                encoded = (0xC0 | c >> 6) << 8 | 0x80 | c & 0x3F;
+                n       = 2;
+            } else if (Character.isSurrogate(c)) {
+                final int cp = codePointAt(s, i);
+                if (cp < 0) {
+                    encoded = '?';
+                    n       = 1;
+                } else {
+                    encoded = (0xF0 | cp >> 18) << 24 | (0x80 | cp >> 12 & 0x3F) << 16 | (0x80 | cp >> 6 & 0x3F) << 8
+                            | 0x80 | cp & 0x3F;
+                    n       = 4;
+                }
+            } else {
+                encoded = (0xE0 | c >> 12) << 16 | (0x80 | c >> 6 & 0x3F) << 8 | 0x80 | c & 0x3F;
+                n       = 3;
+            }
+            if (length + n > limit) {
+                break;
+            }
+            for (int shift = (n - 1) * 8; shift >= 0; shift -= 8) {
+                sumA += encoded >>> shift & 0xFF;
+                sumB += sumA;
+            }
+            length += n;
+            if (n == 4) {
+                i++;
+            }
+        }
+        final int checksum = (sumB & 0xFFFF) << 16 | sumA & 0xFFFF;
+        return (long) checksum << 32 | length;
     }
 
-    private void writeByte(byte b) {
-        data[head] = b;
-        head++;
-        if (head == capacity) {
-            head = 0;
+    private static int codePointAt(String s, int i) {
+        final char high = s.charAt(i);
+        if (Character.isHighSurrogate(high) && i + 1 < s.length()) {
+            final char low = s.charAt(i + 1);
+            if (Character.isLowSurrogate(low)) {
+                return Character.toCodePoint(high, low);
+            }
         }
+        return -1;
     }
 
     // --- Persistence ---
 
+    /**
+     * Stores the currently available entries. A mapped buffer has already persisted
+     * its entries, hence they are only forced to the storage device.
+     */
     public void toDisk(File file) throws IOException {
-        lock.lock();
-        try {
-            try (DataOutputStream dos = new DataOutputStream(new FileOutputStream(file))) {
-                dos.writeInt(head);
-                dos.writeLong(writeCount);
-                dos.writeInt(data.length);
-                dos.write(data);
-                // Index size (constant)
-                dos.writeInt(index.length);
-                for (int i : index) {
-                    dos.writeInt(i);
+        if (mapped != null) {
+            if (acquire()) {
+                try {
+                    mapped.force();
+                } finally {
+                    release();
                 }
             }
-        } finally {
-            lock.unlock();
+            return;
+        }
+        final byte[] entries = getLogSnapshot(indexCapacity);
+        try (DataOutputStream dos = new DataOutputStream(new FileOutputStream(file))) {
+            dos.writeInt(FILE_MAGIC);
+            dos.writeInt(entries.length);
+            dos.write(entries);
         }
     }
 
+    /**
+     * Restores the entries stored by {@link #toDisk(File)}. The entries are only
+     * restored into an empty buffer, as the buffer already contains newer entries
+     * otherwise. A mapped buffer has already recovered its own entries.
+     */
     public void fromDisk(File file) throws IOException {
-        lock.lock();
-        try {
-            if (!file.exists()) {
+        if (mapped != null || !file.exists() || sequence.get() != 0) {
+            return;
+        }
+        try (DataInputStream dis = new DataInputStream(new FileInputStream(file))) {
+            if (dis.readInt() != FILE_MAGIC) {
+                // Persisted by a former version, invalidate cache
                 return;
             }
-            try (DataInputStream dis = new DataInputStream(new FileInputStream(file))) {
-                head       = dis.readInt();
-                writeCount = dis.readLong();
-                int savedDataLen = dis.readInt();
-                if (savedDataLen != capacity) {
-                    // Buffer size changed, invalidate cache
-                    return;
-                }
-                dis.readFully(data);
+            final byte[] entries = new byte[dis.readInt()];
+            dis.readFully(entries);
 
-                int savedIndexLen = dis.readInt();
-                if (savedIndexLen != indexCapacity) {
+            int offset = 0;
+            while (offset + HEADER_SIZE <= entries.length) {
+                final int length = entryLength(entries, offset);
+                if (length < 0 || length > capacity || offset + length > entries.length) {
+                    // Buffer size changed or corrupted file
                     return;
                 }
-                for (int i = 0; i < indexCapacity; i++) {
-                    index[i] = dis.readInt();
-                }
+                final long seq = sequence.getAndIncrement();
+                final long pos = tail.getAndAdd(length);
+                writeBytes((int) (pos % capacity), entries, offset, length);
+                publish(seq, pos, length, checksum(entries, offset, length));
+                offset += length;
             }
-        } finally {
-            lock.unlock();
         }
     }
 
+    // --- Reader Helpers for Circular Buffer ---
+
+    private long readLong(int offset) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v <<= 8;
+            v  |= (data.get((offset + i) % capacity) & 0xFF);
+        }
+        return v;
+    }
+
+    private static long getLong(byte[] b, int offset) {
+        return (long) getInt(b, offset) << 32 | getInt(b, offset + 4) & 0xFFFFFFFFL;
+    }
+
+    private static int getInt(byte[] b, int offset) {
+        return (b[offset] & 0xFF) << 24 | (b[offset + 1] & 0xFF) << 16 | (b[offset + 2] & 0xFF) << 8
+                | b[offset + 3] & 0xFF;
+    }
+
+    private void copyRange(int srcOffset, int length, byte[] dest, int destOffset) {
+        int availableToEnd = capacity - srcOffset;
+        if (availableToEnd >= length) {
+            data.read(srcOffset, dest, destOffset, length);
+        } else {
+            // Wrapped
+            data.read(srcOffset, dest, destOffset, availableToEnd);
+            data.read(0, dest, destOffset + availableToEnd, length - availableToEnd);
+        }
+    }
+
+    // --- Mapped File ---
+
     /**
-     * Time Range Filter
-     * <p>
-     * Binary search on ring buffer is complex because 'index' is not sorted (it's a ring)
-     * A simplified approach for time range is iterating the index ring from (writeCount - 1) backwards
-     * checking timestamps until we find the range. Since index size is small (1024), iteration is cheap.
+     * Forces the entries of a mapped buffer to the storage device and releases the
+     * mapping right away instead of leaving it to the garbage collector, such that the
+     * file can be mapped again or deleted. Entries written afterwards are dropped. A
+     * buffer on the heap is not affected.
      */
-    public byte[] getLogSnapshot(long fromTime, long toTime) {
-        lock.lock();
+    @Override
+    public synchronized void close() {
+        if (mapped == null || closed) {
+            return;
+        }
+        closed = true;
+        // concurrent writers and readers are done after a few stores and copies
+        while (accessors.get() != 0) {
+            Thread.yield();
+        }
+        mapped.force();
+        unmap(mapped);
+    }
+
+    private boolean acquire() {
+        if (mapped == null) {
+            return true;
+        }
+        accessors.incrementAndGet();
+        if (closed) {
+            accessors.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private void release() {
+        if (mapped != null) {
+            accessors.decrementAndGet();
+        }
+    }
+
+    /**
+     * Releases the mapping with {@code Unsafe.invokeCleaner} on Java 9 and later or with
+     * the cleaner of the buffer on Java 8. If neither is accessible, the mapping is
+     * released once the buffer has been garbage collected.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
         try {
-            if (writeCount == 0) {
-                return new byte[0];
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field    field       = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(field.get(null), buffer);
+            return;
+        } catch (final NoSuchMethodException e) {
+            // Java 8
+        } catch (final Exception e) {
+            return;
+        }
+        try {
+            final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            final Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
             }
+        } catch (final Exception e) {
+            // left to the garbage collector
+        }
+    }
 
-            // Two-pass algorithm to minimize allocations
-            // Pass 1: Calculate total size and identify valid entries
-            int totalSize = 0;
-            // Iterate backward from most recent entry
-            long entriesToCheck = Math.min(writeCount, indexCapacity);
-            // Re-scan to find matching entries instead of allocating a list.
-            // CPU cost of scanning 1024 items is cheaper than memory allocation.
-            // Find start and end logical indices for matching range.
+    private static MappedByteBuffer map(File file, int bufferSize, int indexSize) throws IOException {
+        final long size = MAPPED_HEADER_SIZE + (long) indexSize * JOURNAL_RECORD_SIZE + bufferSize;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Mapped log buffer exceeds 2 GB");
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            final boolean resized = raf.length() != size;
+            if (resized) {
+                raf.setLength(0);
+                raf.setLength(size);
+            }
+            // the mapping stays valid after the file has been closed
+            final MappedByteBuffer buffer = raf.getChannel().map(MapMode.READ_WRITE, 0, size);
+            if (resized || buffer.getInt(0) != MAPPED_MAGIC || buffer.getInt(4) != bufferSize
+                    || buffer.getInt(8) != indexSize) {
+                // new file or created with different sizes
+                buffer.putInt(0, MAPPED_MAGIC);
+                buffer.putInt(4, bufferSize);
+                buffer.putInt(8, indexSize);
+                for (int i = 0; i < indexSize; i++) {
+                    buffer.putLong(MAPPED_HEADER_SIZE + i * JOURNAL_RECORD_SIZE, EMPTY_SLOT);
+                }
+            }
+            return buffer;
+        }
+    }
 
-            // Logical index of the most recent entry
-            long newestLogicalIndex = writeCount - 1;
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        final ByteBuffer slice = buffer.duplicate();
+        // the covariant overrides of Java 9+ do not exist on a Java 8 runtime
+        ((Buffer) slice).position(offset);
+        ((Buffer) slice).limit(offset + length);
+        return slice.slice();
+    }
 
-            long startMatchIndex = -1;
-            long endMatchIndex   = -1;
+    /**
+     * Rebuilds the index from the journal. Entries which have been claimed but not
+     * published before the JVM terminated are dropped, and so are all older entries
+     * they have overwritten.
+     */
+    private void recover() {
+        long lastSeq  = -1;
+        long maxClaim = 0;
+        for (int slot = 0; slot < indexCapacity; slot++) {
+            final int  offset = slot * JOURNAL_RECORD_SIZE;
+            final long stamp  = journal.getLong(offset);
+            final long pos    = journal.getLong(offset + 8);
+            final int  length = journal.getInt(offset + 16);
+            if (stamp < 0 || pos < 0 || length < HEADER_SIZE || length > capacity) {
+                continue;
+            }
+            lastSeq  = Math.max(lastSeq, stamp >> 1);
+            maxClaim = Math.max(maxClaim, pos + length);
+        }
+        for (int slot = 0; slot < indexCapacity; slot++) {
+            final int  offset   = slot * JOURNAL_RECORD_SIZE;
+            final long stamp    = journal.getLong(offset);
+            final long pos      = journal.getLong(offset + 8);
+            final int  length   = journal.getInt(offset + 16);
+            final int  checksum = journal.getInt(offset + 20);
+            if (stamp < 0 || (stamp & 1) != 0 || (stamp >> 1) % indexCapacity != slot || pos < 0
+                    || length < HEADER_SIZE || length > capacity || maxClaim - pos > capacity) {
+                continue;
+            }
+            // drops entries torn by the termination of the JVM
+            final byte[] entry = new byte[length];
+            copyRange((int) (pos % capacity), length, entry, 0);
+            if (checksum(entry, 0, length) != checksum) {
+                continue;
+            }
+            positions.set(slot, pos);
+            lengths.set(slot, length);
+            checksums.set(slot, checksum);
+            stamps.set(slot, stamp);
+        }
+        sequence.set(lastSeq + 1);
+        tail.set(maxClaim);
+    }
+
+    private static void checkSize(int bufferSize) {
+        if (bufferSize < HEADER_SIZE) {
+            throw new IllegalArgumentException("Buffer size must be at least " + HEADER_SIZE + " bytes");
+        }
+    }
 
-            // backward scan to find range
-            for (long i = 0; i < entriesToCheck; i++) {
-                long logicalIndex = newestLogicalIndex - i;
-                int  offset       = index[(int) (logicalIndex % indexCapacity)];
+    private static long[] emptyStamps(int indexSize) {
+        final long[] stamps = new long[indexSize];
+        Arrays.fill(stamps, EMPTY_SLOT);
+        return stamps;
+    }
 
-                if (offset == -1) {
-                    continue; // Safeguard
-                }
+    /**
+     * Growable result of a snapshot, an entry is only accounted to its size once
+     * it has been validated.
+     */
+    private static final class Snapshot {
+        byte[] buf = new byte[256];
+        int    size;
 
-                long timestamp = readLong(offset);
+        void ensureCapacity(int length) {
+            if (size + length > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length << 1, size + length));
+            }
+        }
 
-                if (timestamp > toTime) {
-                    continue; // Too new
-                }
-                if (timestamp < fromTime) {
-                    break; // Too old (backward iteration)
-                }
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, size);
+        }
+    }
 
-                // Match!
-                if (endMatchIndex == -1) {
-                    endMatchIndex = logicalIndex; // First match (newest in range)
-                }
-                startMatchIndex = logicalIndex; // Update last match (oldest in range)
+    /**
+     * The storage of the ring. Only the accesses of the entries with known bounds are
+     * contiguous, everything else handles the wrap-around.
+     */
+    private abstract static class Ring {
+        abstract void put(int at, byte b);
 
-                // Calculate size
-                // Entry size = 28 (header) + msgLen + excLen
-                int msgLen = readInt(offset + 20);
-                int excLen = readInt(offset + 24);
-                totalSize += (28 + msgLen + excLen);
-            }
+        abstract byte get(int at);
 
-            if (startMatchIndex == -1) {
-                return new byte[0];
-            }
+        abstract void putInt(int at, int v);
 
-            // Pass 2: Allocate and copy
-            byte[] result  = new byte[totalSize];
-            int    destPos = 0;
+        abstract void putLong(int at, long v);
 
-            // Iterate from oldest to newest match
-            for (long i = startMatchIndex; i <= endMatchIndex; i++) {
-                int offset = index[(int) (i % indexCapacity)];
-                int msgLen = readInt(offset + 20);
-                int excLen = readInt(offset + 24);
-                int length = 28 + msgLen + excLen;
+        abstract void read(int at, byte[] dest, int offset, int length);
 
-                copyRange(offset, length, result, destPos);
-                destPos += length;
-            }
+        abstract void write(int at, byte[] src, int offset, int length);
+    }
 
-            return result;
+    private static final class HeapRing extends Ring {
+        private final byte[] data;
 
-        } finally {
-            lock.unlock();
+        HeapRing(byte[] data) {
+            this.data = data;
         }
-    }
 
-    // --- Reader Helpers for Circular Buffer ---
+        @Override
+        void put(int at, byte b) {
+            data[at] = b;
+        }
 
-    private long readLong(int offset) {
-        long v = 0;
-        for (int i = 0; i < 8; i++) {
-            v <<= 8;
-            v  |= (data[(offset + i) % capacity] & 0xFF);
+        @Override
+        byte get(int at) {
+            return data[at];
         }
-        return v;
-    }
 
-    private int readInt(int offset) {
-        int v = 0;
-        for (int i = 0; i < 4; i++) {
-            v <<= 8;
-            v  |= (data[(offset + i) % capacity] & 0xFF);
+        @Override
+        void putInt(int at, int v) {
+            data[at]     = (byte) (v >>> 24);
+            data[at + 1] = (byte) (v >>> 16);
+            data[at + 2] = (byte) (v >>> 8);
+            data[at + 3] = (byte) v;
+        }
+
+        @Override
+        void putLong(int at, long v) {
+            putInt(at, (int) (v >>> 32));
+            putInt(at + 4, (int) v);
+        }
+
+        @Override
+        void read(int at, byte[] dest, int offset, int length) {
+            System.arraycopy(data, at, dest, offset, length);
+        }
+
+        @Override
+        void write(int at, byte[] src, int offset, int length) {
+            System.arraycopy(src, offset, data, at, length);
         }
-        return v;
     }
 
-    private void copyRange(int srcOffset, int length, byte[] dest, int destOffset) {
-        int availableToEnd = capacity - srcOffset;
-        if (availableToEnd >= length) {
-            System.arraycopy(data, srcOffset, dest, destOffset, length);
-        } else {
-            // Wrapped
-            System.arraycopy(data, srcOffset, dest, destOffset, availableToEnd);
-            System.arraycopy(data, 0, dest, destOffset + availableToEnd, length - availableToEnd);
+    private static final class MappedRing extends Ring {
+        private final ByteBuffer data;
+
+        MappedRing(ByteBuffer data) {
+            this.data = data;
+        }
+
+        @Override
+        void put(int at, byte b) {
+            data.put(at, b);
+        }
+
+        @Override
+        byte get(int at) {
+            return data.get(at);
+        }
+
+        @Override
+        void putInt(int at, int v) {
+            data.putInt(at, v);
+        }
+
+        @Override
+        void putLong(int at, long v) {
+            data.putLong(at, v);
+        }
+
+        @Override
+        void read(int at, byte[] dest, int offset, int length) {
+            // bulk transfers are relative, hence every thread needs its own position
+            final ByteBuffer source = data.duplicate();
+            ((Buffer) source).position(at);
+            source.get(dest, offset, length);
+        }
+
+        @Override
+        void write(int at, byte[] src, int offset, int length) {
+            final ByteBuffer target = data.duplicate();
+            ((Buffer) target).position(at);
+            target.put(src, offset, length);
         }
     }
 
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.provider;
+
+import static org.osgi.framework.namespace.PackageNamespace.PACKAGE_NAMESPACE;
+import static org.osgi.framework.wiring.BundleWiring.LISTRESOURCES_LOCAL;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.wiring.BundleCapability;
+import org.osgi.framework.wiring.BundleWiring;
+
+/**
+ * Attributes classes known only by their names, e.g. from stack frames or a class
+ * histogram, to the bundles whose class loaders define them: the exporter of the package
+ * if it is exported, otherwise the bundle whose own class path contains the class.
+ * <p>
+ * The owners of the private packages are looked up in the bundle class paths once and
+ * cached as long as no bundle is installed, updated or uninstalled, whereas the exporters
+ * are collected afresh for every resolution.
+ */
+public final class BundleClassResolver {
+
+    private final BundleContext     context;
+    private final Map<String, Long> privateOwners = new HashMap<>();
+
+    private long bundlesStamp;
+
+    public BundleClassResolver(final BundleContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Returns the IDs of the bundles defining the specified classes.
+     *
+     * @param classNames the binary names of the classes, array classes are attributed to
+     *            the bundle defining their component type
+     * @return the ID of the bundle defining every class, or {@code -1} if the class is
+     *         defined by the JVM or its bundle is not known
+     */
+    public synchronized long[] resolve(final String[] classNames) {
+        final Bundle[]          bundles   = context.getBundles();
+        final Map<String, Long> exporters = new HashMap<>();
+        long                    stamp     = bundles.length;
+        for (final Bundle bundle : bundles) {
+            // installing, updating or uninstalling a bundle changes its last modification
+            stamp = stamp * 31 + bundle.getLastModified();
+            final BundleWiring wiring = bundle.adapt(BundleWiring.class);
+            if (wiring == null) {
+                continue;
+            }
+            for (final BundleCapability capability : wiring.getCapabilities(PACKAGE_NAMESPACE)) {
+                final Object packageName = capability.getAttributes().get(PACKAGE_NAMESPACE);
+                if (packageName instanceof String) {
+                    exporters.putIfAbsent((String) packageName, bundle.getBundleId());
+                }
+            }
+        }
+        if (stamp != bundlesStamp) {
+            privateOwners.clear();
+            bundlesStamp = stamp;
+        }
+        final long[] owners = new long[classNames.length];
+        for (int i = 0; i < classNames.length; i++) {
+            final String className = componentClassName(classNames[i]);
+            final int    index     = className == null ? -1 : className.lastIndexOf('.');
+            // java.* is always loaded by the boot class loader
+            if (index == -1 || className.startsWith("java.")) {
+                owners[i] = -1;
+                continue;
+            }
+            final String packageName = className.substring(0, index);
+            Long         owner       = exporters.get(packageName);
+            if (owner == null) {
+                owner = privateOwners.get(packageName);
+            }
+            if (owner == null) {
+                owner = findPrivateOwner(bundles, className, index);
+                privateOwners.put(packageName, owner);
+            }
+            owners[i] = owner;
+        }
+        return owners;
+    }
+
+    // the name of the component class of an array class, or null for primitive arrays
+    private static String componentClassName(final String className) {
+        if (!className.startsWith("[")) {
+            return className;
+        }
+        final int dimensions = className.lastIndexOf('[') + 1;
+        if (className.charAt(dimensions) != 'L' || !className.endsWith(";")) {
+            return null;
+        }
+        return className.substring(dimensions + 1, className.length() - 1);
+    }
+
+    private static long findPrivateOwner(final Bundle[] bundles, final String className, final int index) {
+        final String path       = className.substring(0, index).replace('.', '/');
+        final String simpleName = className.substring(index + 1);
+        final int    nested     = simpleName.indexOf('$');
+        // nested, synthetic and lambda classes are defined along with their top-level class
+        final String name = (nested > 0 ? simpleName.substring(0, nested) : simpleName) + ".class";
+        for (final Bundle bundle : bundles) {
+            final BundleWiring wiring = bundle.adapt(BundleWiring.class);
+            if (wiring != null && !wiring.listResources(path, name, LISTRESOURCES_LOCAL).isEmpty()) {
+                return bundle.getBundleId();
+            }
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.provider;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.osgifx.console.agent.dto.XClassHistogramDTO;
+
+/**
+ * Converts the output of the {@code GC.class_histogram} diagnostic command into an
+ * {@link XClassHistogramDTO} and aggregates it per bundle.
+ */
+public final class ClassHistogram {
+
+    private ClassHistogram() {
+        throw new IllegalAccessError("Cannot be instantiated");
+    }
+
+    /**
+     * Parses the specified class histogram. The classes of the same name defined by
+     * different class loaders are merged.
+     *
+     * @param histogram the output of the {@code GC.class_histogram} diagnostic command
+     * @return the histogram per class without bundles
+     */
+    public static XClassHistogramDTO parse(final String histogram) {
+        // the instances and the bytes of every class
+        final Map<String, long[]> classes = new LinkedHashMap<>();
+        for (final String line : histogram.split("\n")) {
+            // "   1:   5541   1183384  [B (java.base@11.0.2)", the module is only present since Java 9
+            final String[] tokens = line.trim().split("\\s+");
+            if (tokens.length < 4 || !tokens[0].endsWith(":")) {
+                continue;
+            }
+            try {
+                final long   instances = Long.parseLong(tokens[1]);
+                final long   bytes     = Long.parseLong(tokens[2]);
+                final long[] values    = classes.get(tokens[3]);
+                if (values == null) {
+                    classes.put(tokens[3], new long[] { instances, bytes });
+                } else {
+                    values[0] += instances;
+                    values[1] += bytes;
+                }
+            } catch (final NumberFormatException e) {
+                // not a class line
+            }
+        }
+        final List<Entry<String, long[]>> entries = new ArrayList<>(classes.entrySet());
+        entries.sort((e1, e2) -> Long.compare(e2.getValue()[1], e1.getValue()[1]));
+
+        final XClassHistogramDTO dto = new XClassHistogramDTO();
+
+        dto.classNames     = new String[entries.size()];
+        dto.classInstances = new long[entries.size()];
+        dto.classBytes     = new long[entries.size()];
+        dto.classBundles   = new long[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            final Entry<String, long[]> entry = entries.get(i);
+            dto.classNames[i]     = entry.getKey();
+            dto.classInstances[i] = entry.getValue()[0];
+            dto.classBytes[i]     = entry.getValue()[1];
+            dto.totalInstances   += entry.getValue()[0];
+            dto.totalBytes       += entry.getValue()[1];
+        }
+        Arrays.fill(dto.classBundles, -1);
+        attribute(dto, dto.classBundles);
+        return dto;
+    }
+
+    /**
+     * Attributes the classes of the specified histogram to the specified bundles and
+     * aggregates the histogram per bundle.
+     *
+     * @param dto the histogram per class
+     * @param classBundles the ID of the bundle defining every class, or {@code -1}
+     */
+    public static void attribute(final XClassHistogramDTO dto, final long[] classBundles) {
+        // the instances and the bytes of every bundle
+        final Map<Long, long[]> bundles = new HashMap<>();
+        for (int i = 0; i < classBundles.length; i++) {
+            final long[] values = bundles.computeIfAbsent(classBundles[i], k -> new long[2]);
+            values[0] += dto.classInstances[i];
+            values[1] += dto.classBytes[i];
+        }
+        final List<Entry<Long, long[]>> entries = new ArrayList<>(bundles.entrySet());
+        entries.sort((e1, e2) -> Long.compare(e2.getValue()[1], e1.getValue()[1]));
+
+        dto.classBundles    = classBundles;
+        dto.bundleIds       = new long[entries.size()];
+        dto.bundleInstances = new long[entries.size()];
+        dto.bundleBytes     = new long[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            final Entry<Long, long[]> entry = entries.get(i);
+            dto.bundleIds[i]       = entry.getKey();
+            dto.bundleInstances[i] = entry.getValue()[0];
+            dto.bundleBytes[i]     = entry.getValue()[1];
+        }
+    }
+
+}
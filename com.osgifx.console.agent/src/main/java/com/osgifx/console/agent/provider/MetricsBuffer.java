@@ -0,0 +1,308 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.provider;
+
+import com.osgifx.console.agent.dto.XMetricsDTO;
+
+/**
+ * A fixed-size time series store of the runtime metrics at several resolutions.
+ * <p>
+ * Every resolution keeps its samples in rings of primitive arrays, one array per metric,
+ * hence the memory footprint is fixed once the buffer has been created and adding a
+ * sample does not allocate. Every {@code factor} samples of a resolution are aggregated
+ * into a single sample of the next coarser resolution: gauges are averaged, whereas
+ * counters and maxima retain their most recent value. A CPU load which is not available
+ * is excluded from the average.
+ * <p>
+ * The samples are added by a single sampling thread at a low rate, hence the buffer is
+ * simply guarded by its monitor.
+ */
+public final class MetricsBuffer {
+
+    // the indices of the integral metrics of a sample
+    public static final int HEAP_USED            = 0;
+    public static final int HEAP_COMMITTED       = 1;
+    public static final int HEAP_MAX             = 2;
+    public static final int NON_HEAP_USED        = 3;
+    public static final int NON_HEAP_COMMITTED   = 4;
+    public static final int GC_COUNT             = 5;
+    public static final int GC_TIME              = 6;
+    public static final int THREAD_COUNT         = 7;
+    public static final int DAEMON_THREAD_COUNT  = 8;
+    public static final int LOADED_CLASS_COUNT   = 9;
+    public static final int UNLOADED_CLASS_COUNT = 10;
+    public static final int INTERACTIVE_DEPTH    = 11;
+    public static final int INTERACTIVE_LATENCY  = 12;
+    public static final int BULK_DEPTH           = 13;
+    public static final int BULK_LATENCY         = 14;
+    public static final int METRICS              = 15;
+
+    // the indices of the loads of a sample
+    public static final int PROCESS_CPU_LOAD = 0;
+    public static final int SYSTEM_CPU_LOAD  = 1;
+    public static final int LOADS            = 2;
+
+    // 1 s for 10 minutes, 10 s for 2 hours and 1 min for 24 hours at the default interval
+    public static final long  DEFAULT_INTERVAL   = 1000;
+    public static final int[] DEFAULT_FACTORS    = { 1, 10, 6 };
+    public static final int[] DEFAULT_CAPACITIES = { 600, 720, 1440 };
+
+    // the metrics retaining their most recent value instead of being averaged
+    private static final boolean[] CUMULATIVE = new boolean[METRICS];
+
+    static {
+        CUMULATIVE[HEAP_MAX]             = true;
+        CUMULATIVE[GC_COUNT]             = true;
+        CUMULATIVE[GC_TIME]              = true;
+        CUMULATIVE[UNLOADED_CLASS_COUNT] = true;
+    }
+
+    private final Resolution[] resolutions;
+
+    public MetricsBuffer(final long interval) {
+        this(interval, DEFAULT_FACTORS, DEFAULT_CAPACITIES);
+    }
+
+    /**
+     * Creates a buffer with the specified resolutions.
+     *
+     * @param interval the sampling interval in milliseconds
+     * @param factors the number of samples of the next finer resolution aggregated into a
+     *            single sample of every resolution, the first one is ignored
+     * @param capacities the number of samples retained by every resolution
+     */
+    public MetricsBuffer(final long interval, final int[] factors, final int[] capacities) {
+        if (interval <= 0 || factors.length == 0 || factors.length != capacities.length) {
+            throw new IllegalArgumentException("Invalid metrics buffer configuration");
+        }
+        resolutions = new Resolution[factors.length];
+        long resolutionInterval = interval;
+        for (int i = 0; i < resolutions.length; i++) {
+            final int factor = i == 0 ? 1 : factors[i];
+            if (factor < 1 || capacities[i] < 1) {
+                throw new IllegalArgumentException("Invalid metrics buffer configuration");
+            }
+            resolutionInterval *= factor;
+            resolutions[i]      = new Resolution(resolutionInterval, factor, capacities[i]);
+        }
+    }
+
+    /**
+     * Adds a sample to the finest resolution and aggregates it into the coarser ones.
+     *
+     * @param timestamp the time the sample has been taken at
+     * @param values the integral metrics of the sample indexed by the metric constants
+     * @param loads the loads of the sample indexed by the load constants, negative if not
+     *            available
+     */
+    public void add(final long timestamp, final long[] values, final double[] loads) {
+        add(0, timestamp, values, loads);
+    }
+
+    /**
+     * Adds a sample directly to the resolution at the specified index and aggregates it into
+     * the coarser ones. This allows sampling at the interval of a coarser resolution while
+     * the finer ones are not demanded, which then simply lack the samples of that period.
+     *
+     * @param index the index of the resolution, {@code 0} being the finest one
+     * @param timestamp the time the sample has been taken at
+     * @param values the integral metrics of the sample indexed by the metric constants
+     * @param loads the loads of the sample indexed by the load constants, negative if not
+     *            available
+     */
+    public synchronized void add(final int index, final long timestamp, final long[] values, final double[] loads) {
+        resolutions[index].put(timestamp, values, loads);
+        long[]   sample      = values;
+        double[] sampleLoads = loads;
+        for (int i = index + 1; i < resolutions.length; i++) {
+            final Resolution coarser = resolutions[i];
+            if (!coarser.aggregate(sample, sampleLoads)) {
+                return;
+            }
+            coarser.put(timestamp, coarser.average, coarser.averageLoads);
+            // the aggregated sample is aggregated into the next coarser resolution in turn
+            sample      = coarser.average;
+            sampleLoads = coarser.averageLoads;
+        }
+    }
+
+    /**
+     * Returns the interval between two samples of the resolution at the specified index, or
+     * of the coarsest resolution if there are fewer resolutions.
+     *
+     * @param index the index of the resolution, {@code 0} being the finest one
+     * @return the interval between two retained samples in milliseconds
+     */
+    public long intervalAt(final int index) {
+        return resolutions[Math.min(index, resolutions.length - 1)].interval;
+    }
+
+    /**
+     * Returns the interval of the resolution the samples of the specified resolution are
+     * read from.
+     *
+     * @param resolution the requested interval between two samples in milliseconds
+     * @return the interval between two retained samples in milliseconds
+     */
+    public long interval(final long resolution) {
+        return resolve(resolution).interval;
+    }
+
+    /**
+     * Reads the samples of the finest resolution which is not finer than the requested one,
+     * or the coarsest resolution if every resolution is finer.
+     *
+     * @param resolution the requested interval between two samples in milliseconds
+     * @param since the time after which the samples must have been taken
+     * @return the samples ordered from the oldest to the most recent one
+     */
+    public synchronized XMetricsDTO read(final long resolution, final long since) {
+        return resolve(resolution).read(since);
+    }
+
+    private Resolution resolve(final long resolution) {
+        for (final Resolution candidate : resolutions) {
+            if (candidate.interval >= resolution) {
+                return candidate;
+            }
+        }
+        return resolutions[resolutions.length - 1];
+    }
+
+    private static final class Resolution {
+
+        private final long       interval;
+        private final int        factor;
+        private final int        capacity;
+        private final long[]     timestamps;
+        private final long[][]   values;
+        private final double[][] loads;
+        private long             count;
+
+        // the aggregation of the samples of the next finer resolution
+        private final long[]   sums         = new long[METRICS];
+        private final double[] loadSums     = new double[LOADS];
+        private final int[]    loadCounts   = new int[LOADS];
+        private final long[]   average      = new long[METRICS];
+        private final double[] averageLoads = new double[LOADS];
+        private int            pending;
+
+        private Resolution(final long interval, final int factor, final int capacity) {
+            this.interval = interval;
+            this.factor   = factor;
+            this.capacity = capacity;
+            timestamps    = new long[capacity];
+            values        = new long[METRICS][capacity];
+            loads         = new double[LOADS][capacity];
+        }
+
+        private void put(final long timestamp, final long[] sample, final double[] sampleLoads) {
+            final int slot = (int) (count % capacity);
+            timestamps[slot] = timestamp;
+            for (int i = 0; i < METRICS; i++) {
+                values[i][slot] = sample[i];
+            }
+            for (int i = 0; i < LOADS; i++) {
+                loads[i][slot] = sampleLoads[i];
+            }
+            count++;
+        }
+
+        /**
+         * Aggregates the specified sample of the next finer resolution and computes the
+         * aggregated sample once {@code factor} samples have been aggregated.
+         *
+         * @return {@code true} if the aggregated sample has been computed
+         */
+        private boolean aggregate(final long[] sample, final double[] sampleLoads) {
+            for (int i = 0; i < METRICS; i++) {
+                sums[i] = CUMULATIVE[i] ? sample[i] : sums[i] + sample[i];
+            }
+            for (int i = 0; i < LOADS; i++) {
+                if (sampleLoads[i] >= 0) {
+                    loadSums[i] += sampleLoads[i];
+                    loadCounts[i]++;
+                }
+            }
+            if (++pending < factor) {
+                return false;
+            }
+            for (int i = 0; i < METRICS; i++) {
+                average[i] = CUMULATIVE[i] ? sums[i] : Math.round((double) sums[i] / factor);
+                sums[i]    = 0;
+            }
+            for (int i = 0; i < LOADS; i++) {
+                averageLoads[i] = loadCounts[i] == 0 ? -1 : loadSums[i] / loadCounts[i];
+                loadSums[i]     = 0;
+                loadCounts[i]   = 0;
+            }
+            pending = 0;
+            return true;
+        }
+
+        private XMetricsDTO read(final long since) {
+            // the samples are added in chronological order, hence the window is the newest part of the ring
+            final long oldest = Math.max(0, count - capacity);
+            long       first  = count;
+            while (first > oldest && timestamps[(int) ((first - 1) % capacity)] > since) {
+                first--;
+            }
+            final int         size = (int) (count - first);
+            final XMetricsDTO dto  = new XMetricsDTO();
+
+            dto.interval           = interval;
+            dto.timestamps         = copy(timestamps, first, size);
+            dto.heapUsed           = copy(values[HEAP_USED], first, size);
+            dto.heapCommitted      = copy(values[HEAP_COMMITTED], first, size);
+            dto.heapMax            = copy(values[HEAP_MAX], first, size);
+            dto.nonHeapUsed        = copy(values[NON_HEAP_USED], first, size);
+            dto.nonHeapCommitted   = copy(values[NON_HEAP_COMMITTED], first, size);
+            dto.gcCount            = copy(values[GC_COUNT], first, size);
+            dto.gcTime             = copy(values[GC_TIME], first, size);
+            dto.threadCount        = copy(values[THREAD_COUNT], first, size);
+            dto.daemonThreadCount  = copy(values[DAEMON_THREAD_COUNT], first, size);
+            dto.loadedClassCount   = copy(values[LOADED_CLASS_COUNT], first, size);
+            dto.unloadedClassCount = copy(values[UNLOADED_CLASS_COUNT], first, size);
+            dto.interactiveDepth   = copy(values[INTERACTIVE_DEPTH], first, size);
+            dto.interactiveLatency = copy(values[INTERACTIVE_LATENCY], first, size);
+            dto.bulkDepth          = copy(values[BULK_DEPTH], first, size);
+            dto.bulkLatency        = copy(values[BULK_LATENCY], first, size);
+            dto.processCpuLoad     = copy(loads[PROCESS_CPU_LOAD], first, size);
+            dto.systemCpuLoad      = copy(loads[SYSTEM_CPU_LOAD], first, size);
+
+            return dto;
+        }
+
+        private long[] copy(final long[] ring, final long first, final int size) {
+            final long[] result = new long[size];
+            final int    start  = (int) (first % capacity);
+            final int    head   = Math.min(size, capacity - start);
+            System.arraycopy(ring, start, result, 0, head);
+            System.arraycopy(ring, 0, result, head, size - head);
+            return result;
+        }
+
+        private double[] copy(final double[] ring, final long first, final int size) {
+            final double[] result = new double[size];
+            final int      start  = (int) (first % capacity);
+            final int      head   = Math.min(size, capacity - start);
+            System.arraycopy(ring, start, result, 0, head);
+            System.arraycopy(ring, 0, result, head, size - head);
+            return result;
+        }
+    }
+
+}
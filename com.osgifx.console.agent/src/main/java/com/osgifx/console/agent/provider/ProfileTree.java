@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.provider;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.osgifx.console.agent.dto.XProfileDTO;
+
+/**
+ * A call tree aggregating sampled stacks.
+ * <p>
+ * Every distinct method is interned once and the nodes are kept in primitive arrays,
+ * hence adding a stack whose call path has been seen before neither allocates nor
+ * creates strings. The tree is bounded: once it reaches its maximum number of nodes, the
+ * frames of new call paths are folded into their deepest known caller.
+ * <p>
+ * The stacks are added by a single sampling task at a time, hence the tree is simply
+ * guarded by its monitor.
+ */
+public final class ProfileTree {
+
+    public static final int DEFAULT_MAX_NODES = 65_536;
+
+    private static final int  ROOT       = 0;
+    private static final long EMPTY_SLOT = -1;
+
+    private final int maxNodes;
+
+    // the interned frames: class name -> method name -> frame
+    private final Map<String, Map<String, Integer>> frameIndex = new HashMap<>();
+    private final List<String>                      frames     = new ArrayList<>();
+
+    // the nodes, the root has no frame and no parent
+    private int[] nodeFrames  = new int[1024];
+    private int[] nodeParents = new int[1024];
+    private int[] nodeSamples = new int[1024];
+    private int   nodes       = 1;
+
+    // open addressing from (parent, frame) to the child node
+    private long[] childKeys   = new long[2048];
+    private int[]  childValues = new int[2048];
+
+    private int     samples;
+    private boolean isTruncated;
+
+    public ProfileTree() {
+        this(DEFAULT_MAX_NODES);
+    }
+
+    public ProfileTree(final int maxNodes) {
+        if (maxNodes < 1) {
+            throw new IllegalArgumentException("Invalid maximum number of nodes: " + maxNodes);
+        }
+        this.maxNodes  = maxNodes;
+        nodeFrames[0]  = -1;
+        nodeParents[0] = -1;
+        Arrays.fill(childKeys, EMPTY_SLOT);
+    }
+
+    /**
+     * Adds the specified stack to the call tree.
+     *
+     * @param stack the stack with the most recent call first
+     */
+    public synchronized void add(final StackTraceElement[] stack) {
+        samples++;
+        nodeSamples[ROOT]++;
+        int node = ROOT;
+        for (int i = stack.length - 1; i >= 0; i--) {
+            final StackTraceElement element = stack[i];
+            final int               frame   = intern(element.getClassName(), element.getMethodName());
+            final int               child   = child(node, frame);
+            if (child == -1) {
+                // the remaining frames are attributed to their deepest known caller
+                isTruncated = true;
+                return;
+            }
+            nodeSamples[child]++;
+            node = child;
+        }
+    }
+
+    public synchronized int samples() {
+        return samples;
+    }
+
+    /**
+     * Returns the call tree. The bundles of the frames are not resolved.
+     *
+     * @return the call tree with {@link XProfileDTO#frameBundles} filled with {@code -1}
+     */
+    public synchronized XProfileDTO toDTO() {
+        final XProfileDTO dto = new XProfileDTO();
+
+        dto.samples      = samples;
+        dto.isTruncated  = isTruncated;
+        dto.frames       = frames.toArray(new String[0]);
+        dto.frameBundles = new long[frames.size()];
+        dto.nodeFrames   = Arrays.copyOf(nodeFrames, nodes);
+        dto.nodeParents  = Arrays.copyOf(nodeParents, nodes);
+        dto.nodeSamples  = Arrays.copyOf(nodeSamples, nodes);
+
+        Arrays.fill(dto.frameBundles, -1);
+        return dto;
+    }
+
+    private int intern(final String className, final String methodName) {
+        Map<String, Integer> methods = frameIndex.get(className);
+        if (methods == null) {
+            methods = new HashMap<>();
+            frameIndex.put(className, methods);
+        }
+        final Integer frame = methods.get(methodName);
+        if (frame != null) {
+            return frame;
+        }
+        final int newFrame = frames.size();
+        frames.add(className + "." + methodName);
+        methods.put(methodName, newFrame);
+        return newFrame;
+    }
+
+    private int child(final int parent, final int frame) {
+        final long key  = (long) parent << 32 | frame;
+        final int  mask = childKeys.length - 1;
+        int        slot = hash(key) & mask;
+        while (childKeys[slot] != EMPTY_SLOT) {
+            if (childKeys[slot] == key) {
+                return childValues[slot];
+            }
+            slot = slot + 1 & mask;
+        }
+        if (nodes == maxNodes) {
+            return -1;
+        }
+        final int node = nodes++;
+        if (node == nodeFrames.length) {
+            final int capacity = Math.min(maxNodes, nodeFrames.length * 2);
+            nodeFrames  = Arrays.copyOf(nodeFrames, capacity);
+            nodeParents = Arrays.copyOf(nodeParents, capacity);
+            nodeSamples = Arrays.copyOf(nodeSamples, capacity);
+        }
+        nodeFrames[node]  = frame;
+        nodeParents[node] = parent;
+        childKeys[slot]   = key;
+        childValues[slot] = node;
+        // keep the load factor of the child index below 1/2
+        if (nodes * 2 > childKeys.length) {
+            rehash();
+        }
+        return node;
+    }
+
+    private void rehash() {
+        final long[] oldKeys   = childKeys;
+        final int[]  oldValues = childValues;
+        childKeys   = new long[oldKeys.length * 2];
+        childValues = new int[oldKeys.length * 2];
+        Arrays.fill(childKeys, EMPTY_SLOT);
+        final int mask = childKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_SLOT) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (childKeys[slot] != EMPTY_SLOT) {
+                    slot = slot + 1 & mask;
+                }
+                childKeys[slot]   = oldKeys[i];
+                childValues[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int hash(final long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32);
+    }
+
+}
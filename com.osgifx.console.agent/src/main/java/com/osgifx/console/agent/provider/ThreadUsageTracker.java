@@ -0,0 +1,243 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.provider;
+
+import java.util.Arrays;
+
+import com.osgifx.console.agent.dto.XThreadDTO;
+
+/**
+ * Tracks the CPU time and the allocated bytes of every live thread and derives their
+ * rates over the most recent sampling interval.
+ * <p>
+ * The entries of the threads are kept densely in primitive arrays and are found through
+ * an open addressing index keyed by the thread ID, hence a sample neither allocates nor
+ * boxes as long as the number of threads does not grow beyond all previous samples. The
+ * entries of the threads which are absent from a sample are removed along with it.
+ * <p>
+ * The samples are added by a single sampling thread at a low rate, hence the tracker is
+ * simply guarded by its monitor.
+ */
+public final class ThreadUsageTracker {
+
+    private static final long EMPTY_SLOT = -1;
+
+    // the index of the entry of every thread
+    private long[] slotIds     = new long[256];
+    private int[]  slotEntries = new int[256];
+
+    // the entries of the threads
+    private long[]   ids             = new long[128];
+    private long[]   cpuTimes        = new long[128];
+    private long[]   allocatedBytes  = new long[128];
+    private double[] cpuUsages       = new double[128];
+    private double[] allocationRates = new double[128];
+    private long[]   generations     = new long[128];
+    private int      entries;
+
+    private long generation;
+    private long lastTime;
+
+    public ThreadUsageTracker() {
+        Arrays.fill(slotIds, EMPTY_SLOT);
+    }
+
+    /**
+     * Adds a sample of the specified threads.
+     *
+     * @param time the time the sample has been taken at in nanoseconds, e.g.
+     *            {@link System#nanoTime()}
+     * @param threadIds the IDs of the sampled threads
+     * @param threadCpuTimes the CPU time of every sampled thread in nanoseconds, or
+     *            {@code -1} if not available
+     * @param threadAllocatedBytes the allocated bytes of every sampled thread, or
+     *            {@code -1} if not available, or {@code null} if not available at all
+     * @param count the number of sampled threads
+     */
+    public synchronized void add(final long time,
+                                 final long[] threadIds,
+                                 final long[] threadCpuTimes,
+                                 final long[] threadAllocatedBytes,
+                                 final int count) {
+        generation++;
+        final long elapsed = generation == 1 ? 0 : time - lastTime;
+        for (int i = 0; i < count; i++) {
+            final long id        = threadIds[i];
+            final long cpu       = threadCpuTimes[i];
+            final long allocated = threadAllocatedBytes != null ? threadAllocatedBytes[i] : -1;
+            int        entry     = indexOf(id);
+            if (entry == -1) {
+                entry                  = insert(id);
+                cpuUsages[entry]       = -1;
+                allocationRates[entry] = -1;
+            } else if (elapsed > 0) {
+                // nanoseconds per nanosecond in percent, bytes per nanosecond in bytes per second
+                cpuUsages[entry]       = rate(cpuTimes[entry], cpu, elapsed, 100);
+                allocationRates[entry] = rate(allocatedBytes[entry], allocated, elapsed, 1_000_000_000);
+            }
+            cpuTimes[entry]       = cpu;
+            allocatedBytes[entry] = allocated;
+            generations[entry]    = generation;
+        }
+        // iterate backwards as the removal moves the last entry into the freed one
+        for (int entry = entries - 1; entry >= 0; entry--) {
+            if (generations[entry] != generation) {
+                remove(entry);
+            }
+        }
+        lastTime = time;
+    }
+
+    /**
+     * Copies the usage of the thread of the specified DTO into it.
+     *
+     * @param dto the DTO of the thread, its {@link XThreadDTO#id} must be set
+     */
+    public synchronized void copyTo(final XThreadDTO dto) {
+        final int entry = indexOf(dto.id);
+        if (entry == -1) {
+            dto.cpuTime        = -1;
+            dto.cpuUsage       = -1;
+            dto.allocatedBytes = -1;
+            dto.allocationRate = -1;
+        } else {
+            dto.cpuTime        = cpuTimes[entry];
+            dto.cpuUsage       = cpuUsages[entry];
+            dto.allocatedBytes = allocatedBytes[entry];
+            dto.allocationRate = allocationRates[entry];
+        }
+    }
+
+    /**
+     * Removes all threads, such that the rates are derived afresh from the next two samples.
+     */
+    public synchronized void clear() {
+        Arrays.fill(slotIds, EMPTY_SLOT);
+        entries    = 0;
+        generation = 0;
+    }
+
+    public synchronized int size() {
+        return entries;
+    }
+
+    // the scaled change per nanosecond, or -1 if any of the values is not available
+    private static double rate(final long previous, final long current, final long elapsed, final double scale) {
+        if (previous < 0 || current < previous) {
+            return -1;
+        }
+        return (current - previous) * scale / elapsed;
+    }
+
+    private int indexOf(final long id) {
+        final int mask = slotIds.length - 1;
+        int       slot = hash(id) & mask;
+        while (slotIds[slot] != EMPTY_SLOT) {
+            if (slotIds[slot] == id) {
+                return slotEntries[slot];
+            }
+            slot = slot + 1 & mask;
+        }
+        return -1;
+    }
+
+    private int insert(final long id) {
+        if (entries == ids.length) {
+            final int capacity = ids.length * 2;
+            ids             = Arrays.copyOf(ids, capacity);
+            cpuTimes        = Arrays.copyOf(cpuTimes, capacity);
+            allocatedBytes  = Arrays.copyOf(allocatedBytes, capacity);
+            cpuUsages       = Arrays.copyOf(cpuUsages, capacity);
+            allocationRates = Arrays.copyOf(allocationRates, capacity);
+            generations     = Arrays.copyOf(generations, capacity);
+        }
+        final int entry = entries++;
+        ids[entry] = id;
+        // keep the load factor of the index below 1/2
+        if (entries * 2 > slotIds.length) {
+            rehash(slotIds.length * 2);
+        } else {
+            put(id, entry);
+        }
+        return entry;
+    }
+
+    private void remove(final int entry) {
+        removeSlot(slotOf(ids[entry]));
+        final int last = --entries;
+        if (entry != last) {
+            ids[entry]             = ids[last];
+            cpuTimes[entry]        = cpuTimes[last];
+            allocatedBytes[entry]  = allocatedBytes[last];
+            cpuUsages[entry]       = cpuUsages[last];
+            allocationRates[entry] = allocationRates[last];
+            generations[entry]     = generations[last];
+            slotEntries[slotOf(ids[entry])] = entry;
+        }
+    }
+
+    private int slotOf(final long id) {
+        final int mask = slotIds.length - 1;
+        int       slot = hash(id) & mask;
+        while (slotIds[slot] != id) {
+            slot = slot + 1 & mask;
+        }
+        return slot;
+    }
+
+    private void put(final long id, final int entry) {
+        final int mask = slotIds.length - 1;
+        int       slot = hash(id) & mask;
+        while (slotIds[slot] != EMPTY_SLOT) {
+            slot = slot + 1 & mask;
+        }
+        slotIds[slot]     = id;
+        slotEntries[slot] = entry;
+    }
+
+    // shifts the subsequent slots of the probe sequence back, such that no tombstones are needed
+    private void removeSlot(final int slot) {
+        final int mask = slotIds.length - 1;
+        int       hole = slot;
+        int       next = hole + 1 & mask;
+        while (slotIds[next] != EMPTY_SLOT) {
+            final int home = hash(slotIds[next]) & mask;
+            // the slot may only be moved if its home does not lie cyclically in (hole, next]
+            if ((next - home & mask) >= (next - hole & mask)) {
+                slotIds[hole]     = slotIds[next];
+                slotEntries[hole] = slotEntries[next];
+                hole              = next;
+            }
+            next = next + 1 & mask;
+        }
+        slotIds[hole] = EMPTY_SLOT;
+    }
+
+    private void rehash(final int capacity) {
+        slotIds     = new long[capacity];
+        slotEntries = new int[capacity];
+        Arrays.fill(slotIds, EMPTY_SLOT);
+        for (int entry = 0; entry < entries; entry++) {
+            put(ids[entry], entry);
+        }
+    }
+
+    private static int hash(final long id) {
+        final long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32);
+    }
+
+}
@@ -41,6 +41,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
 
 import org.osgi.annotation.bundle.Header;
 import org.osgi.framework.BundleActivator;
@@ -49,6 +50,7 @@ import org.osgi.framework.BundleContext;
 import com.j256.simplelogging.FluentLogger;
 import com.j256.simplelogging.LoggerFactory;
 import com.osgifx.console.agent.Agent;
+import com.osgifx.console.agent.admin.XMetricsAdmin;
 import com.osgifx.console.agent.di.module.DIModule;
 import com.osgifx.console.agent.helper.AgentHelper;
 import com.osgifx.console.agent.helper.ThreadFactoryBuilder;
@@ -58,6 +60,7 @@ import com.osgifx.console.agent.provider.PackageWirings;
 import com.osgifx.console.agent.rpc.RemoteRPC;
 import com.osgifx.console.agent.rpc.mqtt.MqttRPC;
 import com.osgifx.console.agent.rpc.socket.SocketRPC;
+import com.osgifx.console.agent.rpc.socket.SocketRPC.LaneStatistics;
 import com.osgifx.console.supervisor.Supervisor;
 
 import aQute.lib.io.IO;
@@ -94,14 +97,14 @@ public final class Activator implements BundleActivator {
     private ExecutorService socketAcceptExecutor;
 
     private ExecutorService              mqttExecutor;
-    private RemoteRPC<Agent, Supervisor> mqttRpc;
+    private MqttRPC<Agent, Supervisor>   mqttRpc;
     private AgentServer                  mqttAgentServer;
 
     @Override
     public void start(final BundleContext bundleContext) throws Exception {
         module = new DIModule(bundleContext);
         module.di().getInstance(ClassloaderLeakDetector.class).start();
-        module.start(); // Start DIModule and ServiceTrackers unconditionally for fast connection times
+        module.start(); // Start DIModule unconditionally, the admins only start tracking once they are demanded
 
         registerAgentCommand(bundleContext);
 
@@ -232,6 +235,8 @@ public final class Activator implements BundleActivator {
         module.bindInstance(RemoteRPC.class, mqttRpc);
         module.bindInstance(Supervisor.class, mqttRpc.getRemote());
 
+        // a supervisor behind the broker may vanish without notice, hence only its requests keep it attached
+        mqttRpc.setRequestListener(mqttAgentServer::renewLease);
         mqttRpc.open();
         mqttAgentServer.setEndpoint(mqttRpc);
 
@@ -335,10 +340,16 @@ public final class Activator implements BundleActivator {
                     module.bindInstance(RemoteRPC.class, socketRPC);
                     module.bindInstance(Supervisor.class, socketRPC.getRemote());
 
-                    agentServer.setEndpoint(socketRPC);
+                    // the lanes of the connection are sampled along with the runtime metrics
+                    final XMetricsAdmin                  metrics = module.di().getInstance(XMetricsAdmin.class);
+                    final Supplier<List<LaneStatistics>> lanes   = socketRPC::getLaneStatistics;
+                    metrics.addLanes(lanes);
                     try {
+                        // a failing link up closes the agent along with its socket
+                        agentServer.setEndpoint(socketRPC);
                         socketRPC.run();
                     } finally {
+                        metrics.removeLanes(lanes);
                         if (agents.remove(agentServer)) {
                             IO.close(agentServer);
                         }
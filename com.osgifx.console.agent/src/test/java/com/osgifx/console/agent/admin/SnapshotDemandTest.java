@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.admin;
+
+import static com.osgifx.console.agent.Agent.AGENT_SNAPSHOT_TTL_KEY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+
+import com.osgifx.console.agent.rpc.codec.BinaryCodec;
+import com.osgifx.console.agent.rpc.codec.SnapshotDecoder;
+
+public class SnapshotDemandTest {
+
+    private static final long TTL = 1_000;
+
+    private ScheduledExecutorService executor;
+    private SnapshotDemand           demand;
+    private TestAdmin                admin;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        demand   = new SnapshotDemand(context(String.valueOf(TTL)), executor);
+        admin    = new TestAdmin(executor);
+        demand.register(admin);
+    }
+
+    @After
+    public void tearDown() {
+        demand.stop();
+        admin.stop();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testDemandRequiresAttachedSupervisor() {
+        final long now = System.currentTimeMillis();
+        assertFalse(demand.isDemanded(now));
+
+        demand.attach();
+        assertTrue(demand.isDemanded(now));
+
+        demand.detach();
+        assertFalse(demand.isDemanded(now));
+    }
+
+    @Test
+    public void testDemandExpiresAfterTtl() {
+        demand.attach();
+        final long now = System.currentTimeMillis();
+
+        assertTrue(demand.isDemanded(now - TTL / 2));
+        assertFalse(demand.isDemanded(now - TTL));
+    }
+
+    @Test
+    public void testInvalidTtlFallsBackToDefault() {
+        final SnapshotDemand invalid = new SnapshotDemand(context("-1"), executor);
+        invalid.attach();
+
+        assertTrue(invalid.isDemanded(System.currentTimeMillis() - TTL));
+    }
+
+    @Test
+    public void testLeaseExpiresWithoutRequests() throws Exception {
+        final Object supervisor = new Object();
+        demand.init();
+
+        demand.renew(supervisor);
+        demand.renew(supervisor);
+        assertTrue(demand.isDemanded(System.currentTimeMillis()));
+
+        // the periodic eviction runs every TTL, hence the lease is gone after at most two of them
+        Thread.sleep(TTL * 2 + TTL / 2);
+        assertFalse(demand.isDemanded(System.currentTimeMillis()));
+
+        // a request after the expiry attaches the supervisor again
+        demand.renew(supervisor);
+        assertTrue(demand.isDemanded(System.currentTimeMillis()));
+    }
+
+    @Test
+    public void testReleasedLeaseDetaches() {
+        final Object supervisor = new Object();
+
+        demand.renew(supervisor);
+        demand.release(supervisor);
+        assertFalse(demand.isDemanded(System.currentTimeMillis()));
+
+        // releasing twice must not detach another supervisor
+        demand.attach();
+        demand.release(supervisor);
+        assertTrue(demand.isDemanded(System.currentTimeMillis()));
+    }
+
+    @Test
+    public void testAdminIsInitializedWhenFirstDemanded() {
+        final TestAdmin other = new TestAdmin(executor);
+        demand.register(other);
+        assertEquals(0, admin.inits.get());
+
+        admin.get();
+        assertEquals(1, admin.inits.get());
+        assertEquals(0, other.inits.get());
+
+        // an attached supervisor demands all snapshots
+        demand.attach();
+        admin.get();
+        assertEquals(1, admin.inits.get());
+        assertEquals(1, other.inits.get());
+    }
+
+    @Test
+    public void testStoppedAdminIsNeverInitialized() {
+        admin.stop();
+        demand.attach();
+        admin.get();
+
+        assertEquals(0, admin.inits.get());
+    }
+
+    @Test
+    public void testUpdatesAreOnlyScheduledWhenDemanded() throws Exception {
+        admin.get();
+        assertEquals(1, admin.mappings.get());
+
+        // nobody attached, hence the change only marks the snapshot dirty
+        admin.change();
+        Thread.sleep(AbstractSnapshotAdmin.DEBOUNCE_DELAY_MS * 3);
+        assertEquals(1, admin.mappings.get());
+
+        // the next request regenerates it synchronously
+        admin.get();
+        assertEquals(2, admin.mappings.get());
+
+        demand.attach();
+        admin.change();
+        Thread.sleep(AbstractSnapshotAdmin.DEBOUNCE_DELAY_MS * 3);
+        assertEquals(3, admin.mappings.get());
+    }
+
+    @Test
+    public void testIdleSnapshotIsEvicted() {
+        assertEquals(TestAdmin.DTOS, admin.get());
+        assertEquals(1, admin.mappings.get());
+
+        admin.evictIfIdle(System.currentTimeMillis() + 1);
+        assertEquals(null, admin.snapshot.get());
+
+        // an evicted snapshot is regenerated, never served empty
+        assertEquals(TestAdmin.DTOS, admin.get());
+        assertEquals(2, admin.mappings.get());
+    }
+
+    @Test
+    public void testRecentlyAccessedSnapshotIsKept() {
+        admin.get();
+
+        admin.evictIfIdle(System.currentTimeMillis() - TTL);
+
+        assertEquals(TestAdmin.DTOS, admin.get());
+        assertEquals(1, admin.mappings.get());
+    }
+
+    @Test
+    public void testConcurrentEvictionNeverServesEmptySnapshot() throws Exception {
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicInteger empty   = new AtomicInteger();
+        final Thread        evictor = new Thread(() -> {
+                                        while (running.get()) {
+                                            admin.evictIfIdle(Long.MAX_VALUE);
+                                            Thread.yield();
+                                        }
+                                    }, "evictor");
+        final Thread[]      readers = new Thread[4];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                for (int j = 0; j < 50_000; j++) {
+                    if (!TestAdmin.DTOS.equals(admin.get()) || admin.snapshot().length == 0) {
+                        empty.incrementAndGet();
+                    }
+                }
+            }, "reader-" + i);
+        }
+        evictor.start();
+        for (final Thread reader : readers) {
+            reader.start();
+        }
+        for (final Thread reader : readers) {
+            reader.join(TimeUnit.SECONDS.toMillis(60));
+        }
+        running.set(false);
+        evictor.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertEquals(0, empty.get());
+    }
+
+    private static BundleContext context(final String ttl) {
+        return (BundleContext) Proxy.newProxyInstance(SnapshotDemandTest.class.getClassLoader(),
+                new Class<?>[] { BundleContext.class },
+                (proxy, method, args) -> "getProperty".equals(method.getName())
+                        && AGENT_SNAPSHOT_TTL_KEY.equals(args[0]) ? ttl : null);
+    }
+
+    private static final class TestAdmin extends AbstractSnapshotAdmin<String> {
+
+        static final List<String> DTOS = Arrays.asList("a", "b", "c");
+
+        final AtomicInteger mappings = new AtomicInteger();
+        final AtomicInteger changes  = new AtomicInteger();
+        final AtomicInteger inits    = new AtomicInteger();
+
+        TestAdmin(final ScheduledExecutorService executor) {
+            super(new BinaryCodec(), new SnapshotDecoder(new BinaryCodec()), executor);
+        }
+
+        @Override
+        public void init() {
+            inits.incrementAndGet();
+        }
+
+        void change() {
+            scheduleUpdate(changes.incrementAndGet());
+        }
+
+        @Override
+        protected List<String> map() {
+            mappings.incrementAndGet();
+            return DTOS;
+        }
+    }
+
+}
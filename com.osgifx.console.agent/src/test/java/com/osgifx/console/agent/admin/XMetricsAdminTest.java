@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.admin;
+
+import static com.osgifx.console.agent.Agent.AGENT_METRICS_INTERVAL_KEY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+
+import com.osgifx.console.agent.dto.XMetricsDTO;
+import com.osgifx.console.agent.rpc.socket.SocketRPC;
+import com.osgifx.console.agent.rpc.socket.SocketRPC.LaneStatistics;
+
+public class XMetricsAdminTest {
+
+    private static final long INTERVAL = 20;
+
+    private ScheduledExecutorService executor;
+    private XMetricsAdmin            metrics;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newScheduledThreadPool(2);
+        metrics  = new XMetricsAdmin(context(String.valueOf(INTERVAL)), executor);
+        metrics.init();
+        metrics.attach();
+    }
+
+    @After
+    public void tearDown() {
+        metrics.stop();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testLanesOfConnectionsAreSampled() throws Exception {
+        final CountDownLatch                 link  = new CountDownLatch(1);
+        final SocketRPC<Object, Runnable>    rpc   = new SocketRPC<>(Runnable.class, null,
+                                                                     new ByteArrayInputStream(new byte[0]),
+                                                                     new BlockingOutputStream(link), executor);
+        final Supplier<List<LaneStatistics>> lanes = rpc::getLaneStatistics;
+        metrics.addLanes(lanes);
+        try {
+            // the message cannot be written until the link is released
+            executor.execute(() -> rpc.callAsync(remote -> {
+                remote.run();
+                return null;
+            }));
+            final XMetricsDTO queued = awaitSample(dto -> last(dto.interactiveDepth) == 1);
+            assertEquals(0, last(queued.bulkDepth));
+
+            Thread.sleep(INTERVAL * 3);
+            link.countDown();
+
+            final XMetricsDTO written = awaitSample(dto -> last(dto.interactiveLatency) > 0);
+            assertEquals(0, last(written.interactiveDepth));
+            assertTrue(last(written.interactiveLatency) >= INTERVAL * 3 * 1000);
+
+            // the written message is only accounted in the sample of its interval
+            final long writtenAt = last(written.timestamps);
+            assertEquals(0, last(awaitSample(dto -> last(dto.timestamps) > writtenAt).interactiveLatency));
+        } finally {
+            metrics.removeLanes(lanes);
+            rpc.close();
+        }
+    }
+
+    private XMetricsDTO awaitSample(final Predicate<XMetricsDTO> condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            final XMetricsDTO dto = metrics.getMetrics(INTERVAL, 0);
+            if (dto.timestamps.length > 0 && condition.test(dto)) {
+                return dto;
+            }
+            Thread.sleep(INTERVAL / 2);
+        }
+        throw new AssertionError("No matching sample has been taken");
+    }
+
+    private static long last(final long[] values) {
+        return values[values.length - 1];
+    }
+
+    private static BundleContext context(final String interval) {
+        return (BundleContext) Proxy.newProxyInstance(XMetricsAdminTest.class.getClassLoader(),
+                new Class<?>[] { BundleContext.class },
+                (proxy, method, args) -> "getProperty".equals(method.getName())
+                        && AGENT_METRICS_INTERVAL_KEY.equals(args[0]) ? interval : null);
+    }
+
+    // a link which does not take any data until it is released
+    private static final class BlockingOutputStream extends OutputStream {
+
+        private final CountDownLatch link;
+
+        BlockingOutputStream(final CountDownLatch link) {
+            this.link = link;
+        }
+
+        @Override
+        public void write(final int b) {
+            // discarded
+        }
+
+        @Override
+        public void flush() {
+            try {
+                link.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.handler;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.Test;
+
+public class BatchDispatcherTest {
+
+    @Test
+    public void testDeliversAllElementsInOrder() throws Exception {
+        final BlockingQueue<List<Integer>> batches    = new LinkedBlockingQueue<>();
+        final BatchDispatcher<Integer>     dispatcher = new BatchDispatcher<>("test", batches::add, 4, 16, 10, 100);
+        try {
+            for (int i = 0; i < 50; i++) {
+                assertTrue(dispatcher.offer(i));
+            }
+            final List<Integer> received = new ArrayList<>();
+            while (received.size() < 50) {
+                final List<Integer> batch = batches.poll(5, SECONDS);
+                assertTrue("Batch not delivered in time", batch != null);
+                assertTrue(batch.size() <= 16);
+                received.addAll(batch);
+            }
+            for (int i = 0; i < 50; i++) {
+                assertEquals(i, received.get(i).intValue());
+            }
+            assertEquals(0, dispatcher.dropped());
+        } finally {
+            dispatcher.close();
+        }
+    }
+
+    @Test
+    public void testDeliversPartialBatchAfterLinger() throws Exception {
+        final BlockingQueue<List<Integer>> batches    = new LinkedBlockingQueue<>();
+        final BatchDispatcher<Integer>     dispatcher = new BatchDispatcher<>("test", batches::add, 8, 8, 20, 100);
+        try {
+            dispatcher.offer(1);
+            dispatcher.offer(2);
+
+            // the batch is not full, but the oldest element must not wait longer than the linger time
+            final List<Integer> batch = batches.poll(5, SECONDS);
+            assertEquals(2, batch.size());
+            assertEquals(1, batch.get(0).intValue());
+            assertEquals(2, batch.get(1).intValue());
+        } finally {
+            dispatcher.close();
+        }
+    }
+
+    @Test
+    public void testDropsElementsWhileQueueIsFull() throws Exception {
+        final CountDownLatch               delivering = new CountDownLatch(1);
+        final CountDownLatch               release    = new CountDownLatch(1);
+        final BlockingQueue<List<Integer>> batches    = new LinkedBlockingQueue<>();
+        final BatchDispatcher<Integer>     dispatcher = new BatchDispatcher<>("test", batch -> {
+                                                          delivering.countDown();
+                                                          try {
+                                                              release.await();
+                                                          } catch (final InterruptedException e) {
+                                                              Thread.currentThread().interrupt();
+                                                          }
+                                                          batches.add(batch);
+                                                      }, 1, 2, 0, 4);
+        try {
+            dispatcher.offer(0);
+            assertTrue(delivering.await(5, SECONDS));
+
+            // the delivery of the first element blocks, hence only the capacity is queued
+            for (int i = 1; i <= 4; i++) {
+                assertTrue(dispatcher.offer(i));
+            }
+            assertFalse(dispatcher.offer(5));
+            assertFalse(dispatcher.offer(6));
+            assertEquals(2, dispatcher.dropped());
+
+            release.countDown();
+            final List<Integer> received = new ArrayList<>();
+            while (received.size() < 5) {
+                final List<Integer> batch = batches.poll(5, SECONDS);
+                assertTrue("Batch not delivered in time", batch != null);
+                received.addAll(batch);
+            }
+            assertEquals(5, received.size());
+            assertEquals(4, received.get(4).intValue());
+        } finally {
+            dispatcher.close();
+        }
+    }
+
+    @Test
+    public void testAdaptsBatchSizeToBacklog() throws Exception {
+        final CountDownLatch               delivering = new CountDownLatch(1);
+        final CountDownLatch               release    = new CountDownLatch(1);
+        final BlockingQueue<List<Integer>> batches    = new LinkedBlockingQueue<>();
+        final BatchDispatcher<Integer>     dispatcher = new BatchDispatcher<>("test", batch -> {
+                                                          delivering.countDown();
+                                                          try {
+                                                              release.await();
+                                                          } catch (final InterruptedException e) {
+                                                              Thread.currentThread().interrupt();
+                                                          }
+                                                          batches.add(batch);
+                                                      }, 2, 64, 0, 1000);
+        try {
+            assertEquals(2, dispatcher.batchSize());
+            dispatcher.offer(0);
+            assertTrue(delivering.await(5, SECONDS));
+            for (int i = 1; i <= 200; i++) {
+                dispatcher.offer(i);
+            }
+            release.countDown();
+
+            // the backlog doubles the batch size after every delivery up to the maximum
+            int maxBatch = 0;
+            int received = 0;
+            while (received < 201) {
+                final List<Integer> batch = batches.poll(5, SECONDS);
+                assertTrue("Batch not delivered in time", batch != null);
+                maxBatch  = Math.max(maxBatch, batch.size());
+                received += batch.size();
+            }
+            assertTrue(maxBatch > 2);
+            assertTrue(maxBatch <= 64);
+        } finally {
+            dispatcher.close();
+        }
+    }
+
+    @Test
+    public void testRejectsElementsAfterClose() {
+        final BatchDispatcher<Integer> dispatcher = new BatchDispatcher<>("test", batch -> {
+        });
+        dispatcher.close();
+
+        assertFalse(dispatcher.offer(1));
+        assertEquals(0, dispatcher.dropped());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsInvalidConfiguration() {
+        new BatchDispatcher<Integer>("test", batch -> {
+        }, 8, 4, 10, 100);
+    }
+
+}
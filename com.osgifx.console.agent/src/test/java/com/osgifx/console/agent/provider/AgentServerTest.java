@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.provider;
+
+import static com.osgifx.console.agent.Agent.AGENT_LOG_BUFFER_MAPPED_KEY;
+import static com.osgifx.console.agent.provider.AgentServer.RpcType.MQTT_RPC;
+import static com.osgifx.console.agent.provider.AgentServer.RpcType.SOCKET_RPC;
+import static com.osgifx.console.agent.rpc.codec.BinaryCodec.WIRE_V2;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.wiring.BundleWiring;
+
+import com.osgifx.console.agent.Agent;
+import com.osgifx.console.agent.admin.AbstractSnapshotAdmin;
+import com.osgifx.console.agent.admin.SnapshotDemand;
+import com.osgifx.console.agent.admin.XBundleAdmin;
+import com.osgifx.console.agent.admin.XCdiAdmin;
+import com.osgifx.console.agent.admin.XHttpAdmin;
+import com.osgifx.console.agent.di.module.DIModule;
+import com.osgifx.console.agent.handler.LogCapture;
+import com.osgifx.console.agent.rpc.RemoteRPC;
+import com.osgifx.console.supervisor.Supervisor;
+
+public class AgentServerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DIModule      module;
+    private AgentServer   agent;
+    private AtomicInteger wireVersion;
+
+    @Before
+    public void setUp() throws Exception {
+        // a runtime without any optional package, hence neither CDI nor HTTP is wired, which maps
+        // the log buffer
+        module = new DIModule(proxy(BundleContext.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getBundle":
+                    return proxy(Bundle.class, (b, m, a) -> "adapt".equals(m.getName()) && a[0] == BundleWiring.class
+                            ? proxy(BundleWiring.class, null)
+                            : defaultValue(m.getReturnType()));
+                case "createFilter":
+                    return FrameworkUtil.createFilter((String) args[0]);
+                case "getDataFile":
+                    return new File(folder.getRoot(), (String) args[0]);
+                case "getProperty":
+                    return AGENT_LOG_BUFFER_MAPPED_KEY.equals(args[0]) ? "true" : null;
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }));
+        module.start();
+        wireVersion = new AtomicInteger();
+        agent       = new AgentServer(module.di(), SOCKET_RPC);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        agent.close();
+        module.stop();
+    }
+
+    @Test
+    public void testConnectWithoutOptionalPackages() throws Exception {
+        final List<AbstractSnapshotAdmin<?>> admins = module.di().getInstance(SnapshotDemand.class).admins();
+        assertTrue(admins.stream().anyMatch(XBundleAdmin.class::isInstance));
+        assertFalse(admins.stream().anyMatch(a -> a instanceof XCdiAdmin || a instanceof XHttpAdmin));
+
+        agent.setEndpoint(remoteRPC());
+
+        assertEquals(WIRE_V2, agent.negotiateWireVersion(WIRE_V2));
+        assertEquals(WIRE_V2, wireVersion.get());
+        agent.refresh(true);
+    }
+
+    @Test
+    public void testSessionsShareMappedLogBuffer() throws Exception {
+        final BinaryLogBuffer buffer = module.di().getInstance(LogCapture.class).buffer();
+        assertTrue(buffer.isMapped());
+
+        final AgentServer other = new AgentServer(module.di(), SOCKET_RPC);
+        agent.setEndpoint(remoteRPC());
+        other.setEndpoint(remoteRPC());
+        buffer.write(System.currentTimeMillis(), 1, 3, "written while both sessions are connected", null);
+        final int length = agent.getLogSnapshot(10).length;
+        assertEquals(length, other.getLogSnapshot(10).length);
+
+        // closing a session neither unmaps nor closes the buffer of the remaining one
+        other.close();
+        buffer.write(System.currentTimeMillis(), 1, 3, "written after a session has been closed", null);
+        assertSame(buffer, module.di().getInstance(LogCapture.class).buffer());
+        assertTrue(agent.getLogSnapshot(10).length > length);
+    }
+
+    @Test
+    public void testMqttSupervisorIsOnlyAttachedByItsRequests() throws Exception {
+        final SnapshotDemand demand = module.di().getInstance(SnapshotDemand.class);
+        final AgentServer    mqtt   = new AgentServer(module.di(), MQTT_RPC);
+        try {
+            // the link to the broker is up, but no supervisor has shown up yet
+            mqtt.setEndpoint(remoteRPC());
+            assertFalse(demand.isAttached());
+
+            mqtt.renewLease();
+            mqtt.renewLease();
+            assertTrue(demand.isAttached());
+
+            // the session has ended while the link to the broker stays up
+            mqtt.disconnect();
+            assertFalse(demand.isAttached());
+
+            // a socket supervisor is attached for the lifetime of its connection instead
+            mqtt.renewLease();
+            agent.setEndpoint(remoteRPC());
+            mqtt.close();
+            assertTrue(demand.isAttached());
+        } finally {
+            mqtt.close();
+        }
+        agent.close();
+        assertFalse(demand.isAttached());
+    }
+
+    @SuppressWarnings("unchecked")
+    private RemoteRPC<Agent, Supervisor> remoteRPC() {
+        final Supervisor supervisor = proxy(Supervisor.class, null);
+        return proxy(RemoteRPC.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getRemote":
+                    return supervisor;
+                case "setWireVersion":
+                    wireVersion.set((Integer) args[0]);
+                    return null;
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(final Class<T> type, final InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(AgentServerTest.class.getClassLoader(), new Class<?>[] { type },
+                handler != null ? handler : (proxy, method, args) -> defaultValue(method.getReturnType()));
+    }
+
+    // lets the framework calls of the admins find nothing rather than fail
+    private static Object defaultValue(final Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class || type == long.class) {
+            return type == int.class ? (Object) 0 : (Object) 0L;
+        }
+        if (type.isArray()) {
+            return Array.newInstance(type.getComponentType(), 0);
+        }
+        if (type == List.class) {
+            return Collections.emptyList();
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.provider;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.Test;
+
+/**
+ * Throughput harness for {@link BinaryLogBuffer} with 1, 4 and 16 concurrent loggers
+ * while a reader keeps taking snapshots.
+ * <p>
+ * The build has no JMH setup, hence this is a plain JUnit test which is skipped unless
+ * the {@code osgifx.benchmark} system property is set, for example, by running the agent
+ * tests with {@code -Dosgifx.benchmark=true}. The duration per run defaults to 2 seconds
+ * and can be changed with {@code -Dosgifx.benchmark.duration=<millis>}.
+ */
+public class BinaryLogBufferBenchmarkTest {
+
+    private static final int[]  LOGGERS = { 1, 4, 16 };
+    private static final String MESSAGE = "Service registered: com.example.service.impl.DefaultService (bundle 42)";
+
+    @Test
+    public void testThroughput() throws Exception {
+        assumeTrue(Boolean.getBoolean("osgifx.benchmark"));
+        final long duration = Long.getLong("osgifx.benchmark.duration", 2_000);
+
+        // warm up the write and snapshot paths before measuring
+        run(4, Math.min(duration, 500));
+
+        for (final int loggers : LOGGERS) {
+            final long writes     = run(loggers, duration);
+            final long throughput = writes * 1000 / duration;
+            System.out.printf("BinaryLogBuffer: %2d logger(s) -> %,d writes/s%n", loggers, throughput);
+            assertTrue(writes > 0);
+        }
+    }
+
+    private static long run(final int loggers, final long duration) throws Exception {
+        final BinaryLogBuffer buffer  = new BinaryLogBuffer(BinaryLogBuffer.DEFAULT_BUFFER_SIZE,
+                                                            BinaryLogBuffer.DEFAULT_INDEX_SIZE);
+        final AtomicBoolean   running = new AtomicBoolean(true);
+        final LongAdder       writes  = new LongAdder();
+        final CountDownLatch  start   = new CountDownLatch(1);
+        final CountDownLatch  done    = new CountDownLatch(loggers + 1);
+
+        for (int i = 0; i < loggers; i++) {
+            final long bundleId = i;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    long count = 0;
+                    while (running.get()) {
+                        buffer.write(System.currentTimeMillis(), bundleId, 3, MESSAGE, null);
+                        count++;
+                    }
+                    writes.add(count);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "logger-" + i).start();
+        }
+        // the console polls the buffer while the application logs
+        new Thread(() -> {
+            try {
+                start.await();
+                while (running.get()) {
+                    buffer.getLogSnapshot(100);
+                    Thread.sleep(10);
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                done.countDown();
+            }
+        }, "reader").start();
+
+        start.countDown();
+        Thread.sleep(duration);
+        running.set(false);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        return writes.sum();
+    }
+
+}
@@ -15,10 +15,17 @@
  ******************************************************************************/
 package com.osgifx.console.agent.provider;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -77,6 +84,87 @@ public class BinaryLogBufferTest {
         assertEquals(1234L, bb.getLong());
     }
 
+    @Test
+    public void testMappedRecovery() throws Exception {
+        File            file    = folder.newFile("logs.ring");
+        BinaryLogBuffer buffer1 = new BinaryLogBuffer(file, 100, 10);
+        // Msg1 and Msg2 are overwritten by the later entries
+        for (int i = 1; i <= 5; i++) {
+            buffer1.write(i * 1000L, 1L, 1, "Msg" + i, null);
+        }
+
+        // no explicit persistence, the file is mapped again as after a crash
+        BinaryLogBuffer buffer2 = new BinaryLogBuffer(file, 100, 10);
+        assertArrayEquals(buffer1.getLogSnapshot(10), buffer2.getLogSnapshot(10));
+        assertEquals(3, countEntries(buffer2.getLogSnapshot(10)));
+
+        // the recovered buffer continues after the recovered entries
+        buffer2.write(6000L, 1L, 1, "Msg6", null);
+        byte[] snap = buffer2.getLogSnapshot(1);
+        assertEquals(6000L, getFirstTimestamp(snap));
+        assertEquals(4000L, getFirstTimestamp(buffer2.getLogSnapshot(3)));
+    }
+
+    @Test
+    public void testMappedSizeChange() throws Exception {
+        File            file    = folder.newFile("logs.ring");
+        BinaryLogBuffer buffer1 = new BinaryLogBuffer(file, 100, 10);
+        buffer1.write(1234L, 5L, 2, "PersistMe", null);
+
+        // Buffer size changed, the file is reinitialized
+        BinaryLogBuffer buffer2 = new BinaryLogBuffer(file, 200, 10);
+        assertEquals(0, buffer2.getLogSnapshot(10).length);
+    }
+
+    @Test
+    public void testMappedClose() throws Exception {
+        File            file    = folder.newFile("logs.ring");
+        BinaryLogBuffer buffer1 = new BinaryLogBuffer(file, 100, 10);
+        buffer1.write(1234L, 5L, 2, "PersistMe", null);
+
+        buffer1.close();
+        buffer1.close();
+
+        // the closed buffer drops entries instead of touching the released mapping
+        buffer1.write(5678L, 5L, 2, "DropMe", null);
+        assertEquals(0, buffer1.getLogSnapshot(10).length);
+
+        BinaryLogBuffer buffer2 = new BinaryLogBuffer(file, 100, 10);
+        assertEquals(1, countEntries(buffer2.getLogSnapshot(10)));
+        assertEquals(1234L, getFirstTimestamp(buffer2.getLogSnapshot(10)));
+        buffer2.close();
+    }
+
+    @Test
+    public void testConcurrentWritersRecovery() throws Exception {
+        File            file    = folder.newFile("logs.ring");
+        // the index wraps many times while the entries of the last lap stay in the buffer
+        BinaryLogBuffer buffer1 = new BinaryLogBuffer(file, 64 * 1024, 16);
+        List<Thread>    threads = new ArrayList<>();
+        for (int w = 0; w < 16; w++) {
+            long bundleId = w;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    buffer1.write(i, bundleId, 1, message(bundleId, i), null);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        byte[] expected = buffer1.getLogSnapshot(16);
+        buffer1.close();
+
+        // every journal record is whole, hence all indexed entries are recovered
+        BinaryLogBuffer buffer2 = new BinaryLogBuffer(file, 64 * 1024, 16);
+        assertEquals(16, countEntries(expected));
+        assertArrayEquals(expected, buffer2.getLogSnapshot(16));
+        buffer2.close();
+    }
+
     @Test
     public void testTimeRangeQuery() {
         // Buffer large enough to hold 5 entries
@@ -134,6 +222,157 @@ public class BinaryLogBufferTest {
         assertEquals(8000L, getFirstTimestamp(range));
     }
 
+    @Test
+    public void testTimeRangeFilters() {
+        BinaryLogBuffer buffer = new BinaryLogBuffer(1024, 10);
+
+        // levels: 1 = error, 2 = warning, 3 = info, 4 = debug
+        buffer.write(1000L, 1L, 1, "Error1", null);
+        buffer.write(2000L, 2L, 3, "Info2", null);
+        buffer.write(3000L, 1L, 4, "Debug1", null);
+        buffer.write(4000L, 2L, 2, "Warning2", null);
+        buffer.write(5000L, 1L, 3, "Info1", null);
+
+        // Case 1: Bundle filter -> Error1, Debug1, Info1
+        assertEquals(3, countEntries(buffer.getLogSnapshot(0L, 9000L, 1L, 0)));
+
+        // Case 2: Level filter (warning) -> Error1, Warning2
+        byte[] warnings = buffer.getLogSnapshot(0L, 9000L, -1L, 2);
+        assertEquals(2, countEntries(warnings));
+        assertEquals(1000L, getFirstTimestamp(warnings));
+
+        // Case 3: All filters (2000-5000, bundle 1, info) -> Info1
+        byte[] combined = buffer.getLogSnapshot(2000L, 5000L, 1L, 3);
+        assertEquals(1, countEntries(combined));
+        assertEquals(5000L, getFirstTimestamp(combined));
+    }
+
+    @Test
+    public void testTimeRangeIndex() {
+        // Many index blocks, the oldest entries are overwritten
+        BinaryLogBuffer buffer = new BinaryLogBuffer(64 * 1024, 2048);
+        for (int i = 0; i < 5000; i++) {
+            buffer.write(i * 10L, i % 3, 1 + i % 4, "Msg" + i, null);
+        }
+        byte[] all    = buffer.getLogSnapshot(0);
+        long   oldest = getFirstTimestamp(all);
+        assertEquals(countEntries(all), countEntries(buffer.getLogSnapshot(Long.MIN_VALUE, Long.MAX_VALUE)));
+
+        // compares against the entries counted from the full snapshot
+        long[][] ranges = { { 0L, 100L }, { oldest, oldest }, { oldest + 5L, oldest + 2000L }, { 45000L, 45635L },
+                { 49990L, 60000L }, { 60000L, 70000L } };
+        for (long[] range : ranges) {
+            assertEquals(countEntries(all, range[0], range[1]), countEntries(buffer.getLogSnapshot(range[0], range[1])));
+        }
+        // queries use the summaries of the index blocks computed by earlier queries
+        assertArrayEquals(buffer.getLogSnapshot(45000L, 45635L), buffer.getLogSnapshot(45000L, 45635L));
+        assertEquals(64, countEntries(buffer.getLogSnapshot(45000L, 45635L)));
+    }
+
+    @Test
+    public void testUtf8Encoding() {
+        BinaryLogBuffer buffer = new BinaryLogBuffer(1024, 10);
+
+        // 1, 2, 3 and 4 byte characters as well as an unpaired surrogate
+        String message   = "a\u00e9\u20ac\ud83d\ude00\ud83d";
+        String exception = "Exception \u00fc";
+        buffer.write(1000L, 1L, 1, message, exception);
+
+        ByteBuffer bb = ByteBuffer.wrap(buffer.getLogSnapshot(1));
+        bb.position(20);
+        byte[] msg = new byte[bb.getInt()];
+        byte[] exc = new byte[bb.getInt()];
+        bb.get(msg).get(exc);
+
+        assertArrayEquals(message.getBytes(StandardCharsets.UTF_8), msg);
+        assertArrayEquals(exception.getBytes(StandardCharsets.UTF_8), exc);
+    }
+
+    @Test
+    public void testOversizedEntryIsTruncated() {
+        // 28 header + 22 bytes available
+        BinaryLogBuffer buffer = new BinaryLogBuffer(50, 10);
+
+        // the euro sign (3 bytes) at the limit must not be split, the exception gets the rest
+        buffer.write(1000L, 1L, 1, "MMMMMMMMMMMMMMMMMMMM\u20ac", "EEEE");
+
+        byte[] snapshot = buffer.getLogSnapshot(1);
+        assertTrue(snapshot.length <= 50);
+
+        ByteBuffer bb = ByteBuffer.wrap(snapshot);
+        bb.position(20);
+        assertEquals(20, bb.getInt());
+        assertEquals(2, bb.getInt());
+    }
+
+    @Test
+    public void testConcurrentWriters() throws Exception {
+        for (int writers : new int[] { 1, 4, 16 }) {
+            // small enough to wrap many times
+            assertConcurrentWriters(new BinaryLogBuffer(4096, 64), writers);
+            assertConcurrentWriters(new BinaryLogBuffer(folder.newFile("logs" + writers + ".ring"), 4096, 64), writers);
+        }
+    }
+
+    private void assertConcurrentWriters(BinaryLogBuffer buffer, int writers) throws Exception {
+        int entries = 20_000;
+
+        CountDownLatch start   = new CountDownLatch(1);
+        AtomicBoolean  writing = new AtomicBoolean(true);
+        List<Thread>   threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            long bundleId = w;
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < entries; i++) {
+                    buffer.write(i, bundleId, 1, message(bundleId, i), i % 7 == 0 ? "\u00e9x" : null);
+                }
+            }));
+        }
+        List<byte[]> snapshots = new ArrayList<>();
+        Thread reader = new Thread(() -> {
+            while (writing.get() && snapshots.size() < 10_000) {
+                snapshots.add(buffer.getLogSnapshot(64));
+                snapshots.add(buffer.getLogSnapshot(0L, entries));
+            }
+        });
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        reader.start();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        writing.set(false);
+        reader.join();
+        snapshots.add(buffer.getLogSnapshot(64));
+
+        // every snapshot only contains complete and intact entries
+        for (byte[] snapshot : snapshots) {
+            ByteBuffer bb = ByteBuffer.wrap(snapshot);
+            while (bb.hasRemaining()) {
+                long   timestamp = bb.getLong();
+                long   bundleId  = bb.getLong();
+                byte[] msg       = new byte[bb.getInt(bb.position() + 4)];
+                byte[] exc       = new byte[bb.getInt(bb.position() + 8)];
+                bb.position(bb.position() + 12);
+                bb.get(msg).get(exc);
+                assertEquals(message(bundleId, (int) timestamp), new String(msg, StandardCharsets.UTF_8));
+                assertEquals(timestamp % 7 == 0 ? "\u00e9x" : "", new String(exc, StandardCharsets.UTF_8));
+            }
+        }
+        assertTrue(countEntries(buffer.getLogSnapshot(64)) > 0);
+    }
+
+    private String message(long bundleId, int i) {
+        return "Bundle " + bundleId + " logged entry #" + i;
+    }
+
     private int countEntries(byte[] data) {
         if (data.length == 0)
             return 0;
@@ -155,6 +394,23 @@ public class BinaryLogBufferTest {
         return count;
     }
 
+    private int countEntries(byte[] data, long fromTime, long toTime) {
+        ByteBuffer bb    = ByteBuffer.wrap(data);
+        int        count = 0;
+        while (bb.hasRemaining()) {
+            long timestamp = bb.getLong();
+            bb.getLong(); // bundleId
+            bb.getInt(); // level
+            int msgLen = bb.getInt();
+            int excLen = bb.getInt();
+            bb.position(bb.position() + msgLen + excLen);
+            if (timestamp >= fromTime && timestamp <= toTime) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     private long getFirstTimestamp(byte[] data) {
         if (data.length < 8)
             return -1;
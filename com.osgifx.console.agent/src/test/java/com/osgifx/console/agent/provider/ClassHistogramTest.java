@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.provider;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.osgifx.console.agent.dto.XClassHistogramDTO;
+
+public class ClassHistogramTest {
+
+    private static final String JAVA_8_HISTOGRAM = String.join("\n",
+            "",
+            " num     #instances         #bytes  class name",
+            "----------------------------------------------",
+            "   1:          5541        1183384  [C",
+            "   2:           100          48000  com.acme.Cache$Entry",
+            "   3:          4000          96000  java.lang.String",
+            "Total          9641        1327384");
+
+    private static final String JAVA_17_HISTOGRAM = String.join("\n",
+            " num     #instances         #bytes  class name (module)",
+            "-------------------------------------------------------",
+            "   1:          2000         640000  [B (java.base@17.0.2)",
+            "   2:            10           1000  com.acme.Cache (com.acme.cache)",
+            "   3:            30           3000  com.acme.Cache (com.acme.cache)",
+            "   4:            20            480  java.lang.String (java.base@17.0.2)",
+            "Total          2060         644480");
+
+    @Test
+    public void testJava8Histogram() {
+        final XClassHistogramDTO dto = ClassHistogram.parse(JAVA_8_HISTOGRAM);
+
+        assertArrayEquals(new String[] { "[C", "java.lang.String", "com.acme.Cache$Entry" }, dto.classNames);
+        assertArrayEquals(new long[] { 5541, 4000, 100 }, dto.classInstances);
+        assertArrayEquals(new long[] { 1183384, 96000, 48000 }, dto.classBytes);
+        assertEquals(9641, dto.totalInstances);
+        assertEquals(1327384, dto.totalBytes);
+        // nothing is attributed yet
+        assertArrayEquals(new long[] { -1 }, dto.bundleIds);
+        assertArrayEquals(new long[] { 1327384 }, dto.bundleBytes);
+    }
+
+    @Test
+    public void testClassesOfDifferentLoadersAreMerged() {
+        final XClassHistogramDTO dto = ClassHistogram.parse(JAVA_17_HISTOGRAM);
+
+        assertArrayEquals(new String[] { "[B", "com.acme.Cache", "java.lang.String" }, dto.classNames);
+        assertArrayEquals(new long[] { 2000, 40, 20 }, dto.classInstances);
+        assertArrayEquals(new long[] { 640000, 4000, 480 }, dto.classBytes);
+        assertEquals(644480, dto.totalBytes);
+    }
+
+    @Test
+    public void testAttribution() {
+        final XClassHistogramDTO dto = ClassHistogram.parse(JAVA_8_HISTOGRAM);
+        ClassHistogram.attribute(dto, new long[] { -1, -1, 42 });
+
+        assertArrayEquals(new long[] { -1, -1, 42 }, dto.classBundles);
+        assertArrayEquals(new long[] { -1, 42 }, dto.bundleIds);
+        assertArrayEquals(new long[] { 9541, 100 }, dto.bundleInstances);
+        assertArrayEquals(new long[] { 1279384, 48000 }, dto.bundleBytes);
+    }
+
+}
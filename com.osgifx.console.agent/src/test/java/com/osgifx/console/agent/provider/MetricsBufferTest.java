@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.provider;
+
+import static com.osgifx.console.agent.provider.MetricsBuffer.GC_COUNT;
+import static com.osgifx.console.agent.provider.MetricsBuffer.HEAP_USED;
+import static com.osgifx.console.agent.provider.MetricsBuffer.LOADS;
+import static com.osgifx.console.agent.provider.MetricsBuffer.METRICS;
+import static com.osgifx.console.agent.provider.MetricsBuffer.PROCESS_CPU_LOAD;
+import static com.osgifx.console.agent.provider.MetricsBuffer.SYSTEM_CPU_LOAD;
+import static com.osgifx.console.agent.provider.MetricsBuffer.THREAD_COUNT;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.osgifx.console.agent.dto.XMetricsDTO;
+
+public class MetricsBufferTest {
+
+    @Test
+    public void testReadSince() {
+        MetricsBuffer buffer = new MetricsBuffer(1000, new int[] { 1 }, new int[] { 10 });
+        for (int i = 1; i <= 5; i++) {
+            add(buffer, i * 1000L, i, 0.5);
+        }
+
+        XMetricsDTO all = buffer.read(1000, 0);
+        assertEquals(1000, all.interval);
+        assertArrayEquals(new long[] { 1000, 2000, 3000, 4000, 5000 }, all.timestamps);
+        assertArrayEquals(new long[] { 1, 2, 3, 4, 5 }, all.heapUsed);
+
+        XMetricsDTO delta = buffer.read(1000, 3000);
+        assertArrayEquals(new long[] { 4000, 5000 }, delta.timestamps);
+        assertArrayEquals(new long[] { 4, 5 }, delta.gcCount);
+
+        XMetricsDTO none = buffer.read(1000, 5000);
+        assertEquals(0, none.timestamps.length);
+        assertEquals(0, none.systemCpuLoad.length);
+    }
+
+    @Test
+    public void testWrapAround() {
+        MetricsBuffer buffer = new MetricsBuffer(1000, new int[] { 1 }, new int[] { 4 });
+        for (int i = 1; i <= 7; i++) {
+            add(buffer, i * 1000L, i, 0.5);
+        }
+
+        // only the 4 most recent samples are retained
+        XMetricsDTO all = buffer.read(1000, 0);
+        assertArrayEquals(new long[] { 4000, 5000, 6000, 7000 }, all.timestamps);
+        assertArrayEquals(new long[] { 4, 5, 6, 7 }, all.threadCount);
+
+        XMetricsDTO delta = buffer.read(1000, 5500);
+        assertArrayEquals(new long[] { 6000, 7000 }, delta.timestamps);
+        assertArrayEquals(new long[] { 6, 7 }, delta.heapUsed);
+    }
+
+    @Test
+    public void testDownsampling() {
+        MetricsBuffer buffer = new MetricsBuffer(1000, new int[] { 1, 2, 3 }, new int[] { 10, 10, 10 });
+        for (int i = 1; i <= 6; i++) {
+            add(buffer, i * 1000L, i, 0.1 * i);
+        }
+
+        XMetricsDTO coarse = buffer.read(2000, 0);
+        assertEquals(2000, coarse.interval);
+        assertArrayEquals(new long[] { 2000, 4000, 6000 }, coarse.timestamps);
+        // gauges are averaged (and rounded), counters retain their most recent value
+        assertArrayEquals(new long[] { 2, 4, 6 }, coarse.heapUsed);
+        assertArrayEquals(new long[] { 2, 4, 6 }, coarse.gcCount);
+        assertArrayEquals(new double[] { 0.15, 0.35, 0.55 }, coarse.processCpuLoad, 1e-9);
+
+        XMetricsDTO coarsest = buffer.read(6000, 0);
+        assertEquals(6000, coarsest.interval);
+        assertArrayEquals(new long[] { 6000 }, coarsest.timestamps);
+        assertArrayEquals(new long[] { 4 }, coarsest.heapUsed);
+        assertArrayEquals(new long[] { 6 }, coarsest.gcCount);
+        assertArrayEquals(new double[] { 0.35 }, coarsest.processCpuLoad, 1e-9);
+    }
+
+    @Test
+    public void testResolutionSelection() {
+        MetricsBuffer buffer = new MetricsBuffer(1000);
+
+        assertEquals(1000, buffer.interval(0));
+        assertEquals(1000, buffer.interval(1000));
+        assertEquals(10_000, buffer.interval(5000));
+        assertEquals(60_000, buffer.interval(60_000));
+        // coarser than every retained resolution
+        assertEquals(60_000, buffer.interval(3_600_000));
+    }
+
+    @Test
+    public void testAddToCoarserResolution() {
+        MetricsBuffer buffer = new MetricsBuffer(1000, new int[] { 1, 2, 2 }, new int[] { 10, 10, 10 });
+        add(buffer, 1000, 1, 0.1);
+        add(buffer, 2000, 2, 0.1);
+        // sampled at the interval of the second resolution while the first one is not demanded
+        add(buffer, 1, 4000, 4, 0.3);
+        add(buffer, 1, 6000, 6, 0.5);
+
+        assertEquals(2000, buffer.intervalAt(1));
+        assertArrayEquals(new long[] { 1000, 2000 }, buffer.read(1000, 0).timestamps);
+        assertArrayEquals(new long[] { 2000, 4000, 6000 }, buffer.read(2000, 0).timestamps);
+        assertArrayEquals(new long[] { 2, 4, 6 }, buffer.read(2000, 0).heapUsed);
+        // the directly added samples are still aggregated into the coarser resolutions
+        assertArrayEquals(new long[] { 4000 }, buffer.read(4000, 0).timestamps);
+        assertArrayEquals(new long[] { 3 }, buffer.read(4000, 0).heapUsed);
+    }
+
+    @Test
+    public void testUnavailableLoadIsNotAveraged() {
+        MetricsBuffer buffer = new MetricsBuffer(1000, new int[] { 1, 2 }, new int[] { 10, 10 });
+        add(buffer, 1000, 1, 0.4);
+        add(buffer, 2000, 2, -1);
+        add(buffer, 3000, 3, -1);
+        add(buffer, 4000, 4, -1);
+
+        XMetricsDTO coarse = buffer.read(2000, 0);
+        assertArrayEquals(new double[] { 0.4, -1 }, coarse.processCpuLoad, 1e-9);
+        assertArrayEquals(new double[] { 0.4, -1 }, coarse.systemCpuLoad, 1e-9);
+    }
+
+    private static void add(MetricsBuffer buffer, long timestamp, long value, double load) {
+        add(buffer, 0, timestamp, value, load);
+    }
+
+    private static void add(MetricsBuffer buffer, int index, long timestamp, long value, double load) {
+        long[]   values = new long[METRICS];
+        double[] loads  = new double[LOADS];
+        values[HEAP_USED]       = value;
+        values[GC_COUNT]        = value;
+        values[THREAD_COUNT]    = value;
+        loads[PROCESS_CPU_LOAD] = load;
+        loads[SYSTEM_CPU_LOAD]  = load;
+        buffer.add(index, timestamp, values, loads);
+    }
+
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.provider;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.osgifx.console.agent.dto.XProfileDTO;
+
+public class ProfileTreeTest {
+
+    @Test
+    public void testCallPathsAreMerged() {
+        final ProfileTree tree = new ProfileTree();
+        tree.add(stack("A.run", "B.work", "C.parse"));
+        tree.add(stack("A.run", "B.work", "C.parse"));
+        tree.add(stack("A.run", "B.work", "D.write"));
+        tree.add(stack("A.run", "C.parse"));
+
+        final XProfileDTO dto = tree.toDTO();
+        assertEquals(4, dto.samples);
+        assertFalse(dto.isTruncated);
+        // every method is interned only once
+        assertArrayEquals(new String[] { "A.run", "B.work", "C.parse", "D.write" }, dto.frames);
+        assertArrayEquals(new int[] { -1, 0, 1, 2, 3, 2 }, dto.nodeFrames);
+        assertArrayEquals(new int[] { -1, 0, 1, 2, 2, 1 }, dto.nodeParents);
+        assertArrayEquals(new int[] { 4, 4, 3, 2, 1, 1 }, dto.nodeSamples);
+        assertArrayEquals(new long[] { -1, -1, -1, -1 }, dto.frameBundles);
+    }
+
+    @Test
+    public void testSameMethodOnDifferentPaths() {
+        final ProfileTree tree = new ProfileTree();
+        tree.add(stack("A.run", "C.parse"));
+        tree.add(stack("B.run", "C.parse"));
+
+        final XProfileDTO dto = tree.toDTO();
+        assertEquals(3, dto.frames.length);
+        assertArrayEquals(new int[] { -1, 0, 1, 2, 1 }, dto.nodeFrames);
+        assertArrayEquals(new int[] { -1, 0, 1, 0, 3 }, dto.nodeParents);
+    }
+
+    @Test
+    public void testTruncation() {
+        final ProfileTree tree = new ProfileTree(3);
+        tree.add(stack("A.run", "B.work", "C.parse"));
+        tree.add(stack("A.run", "B.work"));
+
+        final XProfileDTO dto = tree.toDTO();
+        assertTrue(dto.isTruncated);
+        assertEquals(2, dto.samples);
+        // the frames of the first stack beyond the maximum are attributed to their caller
+        assertArrayEquals(new int[] { -1, 0, 1 }, dto.nodeFrames);
+        assertArrayEquals(new int[] { 2, 2, 2 }, dto.nodeSamples);
+    }
+
+    @Test
+    public void testGrowth() {
+        final ProfileTree tree = new ProfileTree();
+        for (int i = 0; i < 5000; i++) {
+            tree.add(stack("A.run", "B.m" + i));
+            tree.add(stack("A.run", "B.m" + i));
+        }
+
+        final XProfileDTO dto = tree.toDTO();
+        assertEquals(5002, dto.nodeFrames.length);
+        assertEquals(10_000, dto.nodeSamples[1]);
+        for (int i = 2; i < dto.nodeSamples.length; i++) {
+            assertEquals(2, dto.nodeSamples[i]);
+            assertEquals(1, dto.nodeParents[i]);
+        }
+    }
+
+    // the frames are specified from the outermost call to the most recent one
+    private static StackTraceElement[] stack(final String... frames) {
+        final StackTraceElement[] stack = new StackTraceElement[frames.length];
+        for (int i = 0; i < frames.length; i++) {
+            final String frame = frames[i];
+            final int    index = frame.lastIndexOf('.');
+            stack[frames.length - 1 - i] = new StackTraceElement(frame.substring(0, index),
+                                                                 frame.substring(index + 1), null, -1);
+        }
+        return stack;
+    }
+
+}
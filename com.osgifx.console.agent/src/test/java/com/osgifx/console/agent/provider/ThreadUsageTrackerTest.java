@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.agent.provider;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.osgifx.console.agent.dto.XThreadDTO;
+
+public class ThreadUsageTrackerTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void testRatesOfSampledThreads() {
+        final ThreadUsageTracker tracker = new ThreadUsageTracker();
+        tracker.add(0, new long[] { 1, 2 }, new long[] { 0, 100 }, new long[] { 0, 1000 }, 2);
+
+        // the rates are only known from the second sample on
+        XThreadDTO dto = usage(tracker, 1);
+        assertEquals(0, dto.cpuTime);
+        assertEquals(-1, dto.cpuUsage, 0);
+        assertEquals(-1, dto.allocationRate, 0);
+
+        tracker.add(2 * SECOND, new long[] { 1, 2 }, new long[] { SECOND, 100 }, new long[] { 4096, 1000 }, 2);
+
+        dto = usage(tracker, 1);
+        assertEquals(SECOND, dto.cpuTime);
+        assertEquals(50, dto.cpuUsage, 0.001);
+        assertEquals(4096, dto.allocatedBytes);
+        assertEquals(2048, dto.allocationRate, 0.001);
+
+        dto = usage(tracker, 2);
+        assertEquals(0, dto.cpuUsage, 0);
+        assertEquals(0, dto.allocationRate, 0);
+    }
+
+    @Test
+    public void testUnavailableValues() {
+        final ThreadUsageTracker tracker = new ThreadUsageTracker();
+        tracker.add(0, new long[] { 1 }, new long[] { 10 }, null, 1);
+        tracker.add(SECOND, new long[] { 1 }, new long[] { -1 }, null, 1);
+
+        final XThreadDTO dto = usage(tracker, 1);
+        assertEquals(-1, dto.cpuUsage, 0);
+        assertEquals(-1, dto.allocatedBytes);
+        assertEquals(-1, dto.allocationRate, 0);
+        assertEquals(-1, usage(tracker, 42).cpuTime);
+    }
+
+    @Test
+    public void testTerminatedThreadsAreRemoved() {
+        final ThreadUsageTracker tracker = new ThreadUsageTracker();
+        final int                threads = 1000;
+        final long[]             ids     = new long[threads];
+        final long[]             times   = new long[threads];
+        for (int i = 0; i < threads; i++) {
+            ids[i]   = i + 1;
+            times[i] = i;
+        }
+        tracker.add(0, ids, times, null, threads);
+        assertEquals(threads, tracker.size());
+
+        // only every third thread is still alive
+        int alive = 0;
+        for (int i = 0; i < threads; i += 3) {
+            ids[alive]   = i + 1;
+            times[alive] = i + SECOND / 10;
+            alive++;
+        }
+        tracker.add(SECOND, ids, times, null, alive);
+        assertEquals(alive, tracker.size());
+
+        for (int i = 0; i < threads; i++) {
+            final XThreadDTO dto = usage(tracker, i + 1);
+            if (i % 3 == 0) {
+                assertEquals(i + SECOND / 10, dto.cpuTime);
+                assertEquals(10, dto.cpuUsage, 0.001);
+            } else {
+                assertEquals(-1, dto.cpuTime);
+            }
+        }
+    }
+
+    @Test
+    public void testClear() {
+        final ThreadUsageTracker tracker = new ThreadUsageTracker();
+        tracker.add(0, new long[] { 1 }, new long[] { 0 }, null, 1);
+        tracker.clear();
+        assertEquals(0, tracker.size());
+
+        tracker.add(SECOND, new long[] { 1 }, new long[] { SECOND }, null, 1);
+        assertEquals(-1, usage(tracker, 1).cpuUsage, 0);
+    }
+
+    private static XThreadDTO usage(final ThreadUsageTracker tracker, final long id) {
+        final XThreadDTO dto = new XThreadDTO();
+        dto.id = id;
+        tracker.copyTo(dto);
+        return dto;
+    }
+
+}
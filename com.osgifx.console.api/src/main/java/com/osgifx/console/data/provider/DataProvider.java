@@ -34,6 +34,7 @@ import com.osgifx.console.agent.dto.XHttpComponentDTO;
 import com.osgifx.console.agent.dto.XJaxRsComponentDTO;
 import com.osgifx.console.agent.dto.XLogEntryDTO;
 import com.osgifx.console.agent.dto.XMemoryInfoDTO;
+import com.osgifx.console.agent.dto.XMetricsDTO;
 import com.osgifx.console.agent.dto.XPropertyDTO;
 import com.osgifx.console.agent.dto.XRemoteServiceDTO;
 import com.osgifx.console.agent.dto.XRoleDTO;
@@ -206,6 +207,17 @@ public interface DataProvider {
      */
     CompletableFuture<XHeapUsageDTO> heapUsage();
 
+    /**
+     * Returns the runtime metrics sampled by the remote agent.
+     *
+     * @param resolution the requested interval between two samples in milliseconds
+     * @param since the time in milliseconds since the epoch after which the samples must
+     *            have been taken
+     * @return a CompletableFuture containing the sampled metrics
+     * @since 12.0
+     */
+    CompletableFuture<XMetricsDTO> metrics(long resolution, long since);
+
     /**
      * Returns the availability snapshot of all optional OSGi compendium features
      * tracked by the agent (SCR, ConfigAdmin, JAX-RS, HTTP, CDI, HealthCheck, etc.).
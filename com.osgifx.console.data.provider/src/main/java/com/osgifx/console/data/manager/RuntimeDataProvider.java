@@ -41,10 +41,12 @@ import static org.osgi.service.component.annotations.ReferenceCardinality.OPTION
 import static org.osgi.service.component.annotations.ReferencePolicy.DYNAMIC;
 import static org.osgi.service.component.annotations.ReferencePolicyOption.GREEDY;
 
+import java.util.ArrayList;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import org.eclipse.fx.core.log.FluentLogger;
 import org.eclipse.fx.core.log.LoggerFactory;
@@ -54,8 +56,7 @@ import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.event.EventAdmin;
 
-import com.google.mu.util.stream.BiCollectors;
-import com.google.mu.util.stream.BiStream;
+import com.osgifx.console.agent.Agent;
 import com.osgifx.console.agent.dto.RuntimeDTO;
 import com.osgifx.console.agent.dto.XBundleDTO;
 import com.osgifx.console.agent.dto.XBundleLoggerContextDTO;
@@ -71,12 +72,14 @@ import com.osgifx.console.agent.dto.XHttpComponentDTO;
 import com.osgifx.console.agent.dto.XJaxRsComponentDTO;
 import com.osgifx.console.agent.dto.XLogEntryDTO;
 import com.osgifx.console.agent.dto.XMemoryInfoDTO;
+import com.osgifx.console.agent.dto.XMetricsDTO;
 import com.osgifx.console.agent.dto.XPropertyDTO;
 import com.osgifx.console.agent.dto.XRemoteServiceDTO;
 import com.osgifx.console.agent.dto.XRoleDTO;
 import com.osgifx.console.agent.dto.XRuntimeCapabilityDTO;
 import com.osgifx.console.agent.dto.XServiceDTO;
 import com.osgifx.console.agent.dto.XThreadDTO;
+import com.osgifx.console.data.manager.RuntimeInfoSupplier.SnapshotRequest;
 import com.osgifx.console.data.provider.DataProvider;
 import com.osgifx.console.data.provider.PackageDTO;
 import com.osgifx.console.executor.Executor;
@@ -121,16 +124,10 @@ public final class RuntimeDataProvider implements DataProvider {
         // @formatter:off
         if (id == null) {
             if (isAsync) {
-                final var futures =
-                        BiStream.from(infoSuppliers)
-                                .mapValues((_, v) -> executor.runAsync(v::retrieve))
-                                .collect(BiCollectors.toMap());
-
-                CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
-                                 .thenRunAsync(() -> RuntimeInfoSupplier.sendEvent(eventAdmin, DATA_RETRIEVED_ALL_TOPIC))
-                                 .thenRunAsync(() -> logger.atInfo().log("All runtime informations have been retrieved successfully (async)"));
+                retrieveAll().thenRunAsync(() -> RuntimeInfoSupplier.sendEvent(eventAdmin, DATA_RETRIEVED_ALL_TOPIC))
+                             .thenRunAsync(() -> logger.atInfo().log("All runtime informations have been retrieved successfully (async)"));
             } else {
-                infoSuppliers.forEach((_, v) -> v.retrieve());
+                retrieveAll().join();
                 RuntimeInfoSupplier.sendEvent(eventAdmin, DATA_RETRIEVED_ALL_TOPIC);
                 logger.atInfo().log("All runtime informations have been retrieved successfully (sync)");
             }
@@ -269,6 +266,21 @@ public final class RuntimeDataProvider implements DataProvider {
         return executor.supplyAsync(agent::getHeapUsage);
     }
 
+    @Override
+    public CompletableFuture<XMetricsDTO> metrics(final long resolution, final long since) {
+        final var agent = supervisor.getAgent();
+        if (agent == null) {
+            logger.atWarning().log("Agent not connected");
+            return null;
+        }
+        if (supervisor.isLegacyAgent()) {
+            // an agent without the metrics time series would never answer
+            logger.atWarning().log("Agent does not retain runtime metrics");
+            return null;
+        }
+        return executor.supplyAsync(() -> agent.getMetrics(resolution, since));
+    }
+
     @Override
     public ObservableList<XRuntimeCapabilityDTO> runtimeCapabilities() {
         return (ObservableList<XRuntimeCapabilityDTO>) supply(CAPABILITIES_ID);
@@ -291,6 +303,39 @@ public final class RuntimeDataProvider implements DataProvider {
         return FXCollections.observableArrayList();
     }
 
+    private CompletableFuture<Void> retrieveAll() {
+        final var supervisor = this.supervisor;
+        // legacy agents never answer batches, hence every supplier retrieves on its own
+        final var batching   = supervisor != null && supervisor.getAgent() != null && !supervisor.isLegacyAgent();
+        final var futures    = new ArrayList<CompletableFuture<?>>();
+        final var batched    = new ArrayList<Entry<String, SnapshotRequest>>();
+        infoSuppliers.forEach((id, supplier) -> {
+            final var request = batching ? supplier.prepareRetrieval() : null;
+            if (request == null) {
+                futures.add(supplier.retrieveAsync(executor));
+            } else {
+                batched.add(Map.entry(id, request));
+            }
+        });
+        if (!batched.isEmpty()) {
+            // all snapshots are retrieved in a single round trip, but each of them completes on its own
+            final var results = supervisor.callBatch(batched.stream()
+                                                            .<Function<Agent, ?>> map(e -> e.getValue().invocation())
+                                                            .toList());
+            for (var i = 0; i < results.size(); i++) {
+                final var id      = batched.get(i).getKey();
+                final var request = batched.get(i).getValue();
+                futures.add(results.get(i)
+                                   .thenCompose(snapshot -> executor.runAsync(() -> request.completion().accept((byte[]) snapshot)))
+                                   .exceptionally(e -> {
+                                       logger.atError().withException(e).log("Runtime information of '%s' cannot be retrieved", id);
+                                       return null;
+                                   }));
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
     private void retrieve(final String id) {
         for (final Entry<String, RuntimeInfoSupplier> entry : infoSuppliers.entrySet()) {
             final var supplierId  = entry.getKey();
@@ -16,21 +16,57 @@
 package com.osgifx.console.data.manager;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.osgi.service.event.Event;
 import org.osgi.service.event.EventAdmin;
 
+import com.osgifx.console.agent.Agent;
+import com.osgifx.console.executor.Executor;
+
 import javafx.collections.ObservableList;
 
 public interface RuntimeInfoSupplier {
 
     String PROPERTY_ID = "supplier.id";
 
+    /**
+     * A retrieval prepared as a single agent invocation returning a snapshot
+     *
+     * @param invocation the invocation retrieving the snapshot
+     * @param completion the consumer applying the retrieved snapshot
+     */
+    record SnapshotRequest(Function<Agent, byte[]> invocation, Consumer<byte[]> completion) {
+    }
+
     /**
      * Retrieves from the remote runtime
      */
     void retrieve();
 
+    /**
+     * Retrieves from the remote runtime without blocking the calling thread. The
+     * default implementation runs {@link #retrieve()} on the specified executor.
+     *
+     * @param executor the executor to run blocking retrievals on
+     * @return the future which completes once the information has been retrieved
+     */
+    default CompletableFuture<Void> retrieveAsync(final Executor executor) {
+        return executor.runAsync(this::retrieve);
+    }
+
+    /**
+     * Prepares the retrieval as a single agent invocation, so that the retrievals of
+     * several suppliers can be sent to the remote runtime in one batch.
+     *
+     * @return the prepared retrieval, or {@code null} if it cannot be batched
+     */
+    default SnapshotRequest prepareRetrieval() {
+        return null;
+    }
+
     /**
      * Returns the observable list
      */
@@ -19,12 +19,13 @@ import static com.osgifx.console.data.supplier.BundlesInfoSupplier.BUNDLES_ID;
 import static com.osgifx.console.event.topics.BundleActionEventTopics.BUNDLE_ACTION_EVENT_TOPICS;
 import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_BUNDLES_TOPIC;
 import static com.osgifx.console.supervisor.Supervisor.AGENT_DISCONNECTED_EVENT_TOPIC;
-import static javafx.collections.FXCollections.observableArrayList;
 import static org.osgi.service.component.annotations.ReferenceCardinality.OPTIONAL;
 import static org.osgi.service.component.annotations.ReferencePolicyOption.GREEDY;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 import org.eclipse.fx.core.ThreadSynchronize;
 import org.eclipse.fx.core.log.FluentLogger;
@@ -69,8 +70,10 @@ public final class BundlesInfoSupplier implements RuntimeInfoSupplier, EventHand
     private FluentLogger        logger;
     private SnapshotDecoder     decoder;
 
-    private final ObservableList<XBundleDTO> bundles      = observableArrayList();
-    private final ReentrantLock              retrieveLock = new ReentrantLock();
+    private final ReconciledObservableList<XBundleDTO> bundles      = new ReconciledObservableList<>();
+    private final ReentrantLock                        retrieveLock = new ReentrantLock();
+    private final KeyedSnapshotView<XBundleDTO>        view         = new KeyedSnapshotView<>(
+            b -> String.valueOf(b.id));
 
     @Activate
     void activate(final BundleContext context) {
@@ -88,18 +91,90 @@ public final class BundlesInfoSupplier implements RuntimeInfoSupplier, EventHand
                 return;
             }
             logger.atInfo().log("Retrieving bundles info from remote runtime");
-            final byte[]           snapshot = agent.bundles();
-            final List<XBundleDTO> data     = decoder.decodeList(snapshot, XBundleDTO.class);
-            threadSync.asyncExec(() -> {
-                bundles.setAll(data);
-                RuntimeInfoSupplier.sendEvent(eventAdmin, DATA_RETRIEVED_BUNDLES_TOPIC);
-                logger.atInfo().log("Bundles info retrieved successfully");
-            });
+            if (supervisor.isLegacyAgent()) {
+                apply(agent.bundles());
+                return;
+            }
+            final var version = view.version();
+            apply(version, agent.bundles(version));
         } finally {
             retrieveLock.unlock();
         }
     }
 
+    @Override
+    public CompletableFuture<Void> retrieveAsync(final Executor executor) {
+        final var supervisor = this.supervisor;
+        if (supervisor == null || supervisor.getAgent() == null) {
+            logger.atWarning().log("Agent not connected");
+            return CompletableFuture.completedFuture(null);
+        }
+        logger.atInfo().log("Retrieving bundles info from remote runtime (async)");
+        if (supervisor.isLegacyAgent()) {
+            return supervisor.callAsync(agent -> agent.bundles())
+                             .thenCompose(snapshot -> executor.runAsync(() -> apply(snapshot)));
+        }
+        final long version;
+        retrieveLock.lock();
+        try {
+            version = view.version();
+        } finally {
+            retrieveLock.unlock();
+        }
+        // the snapshot is decoded and reconciled on the executor instead of the RPC thread
+        return supervisor.callAsync(agent -> agent.bundles(version))
+                         .thenCompose(snapshot -> executor.runAsync(() -> apply(version, snapshot)));
+    }
+
+    @Override
+    public SnapshotRequest prepareRetrieval() {
+        final var supervisor = this.supervisor;
+        if (supervisor == null || supervisor.isLegacyAgent()) {
+            return new SnapshotRequest(agent -> agent.bundles(), this::apply);
+        }
+        retrieveLock.lock();
+        try {
+            final var version = view.version();
+            return new SnapshotRequest(agent -> agent.bundles(version), snapshot -> apply(version, snapshot));
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    private void apply(final long version, final byte[] snapshot) {
+        retrieveLock.lock();
+        try {
+            if (view.version() != version) {
+                // another retrieval has already advanced the view which the delta does not apply to
+                return;
+            }
+            final var delta = decoder.decodeDelta(snapshot, XBundleDTO.class);
+            publish(view.apply(delta));
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    private void apply(final byte[] snapshot) {
+        retrieveLock.lock();
+        try {
+            final List<XBundleDTO> data = decoder.decodeList(snapshot, XBundleDTO.class);
+            publish(view.apply(data));
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    private void publish(final Consumer<ReconciledObservableList<XBundleDTO>> change) {
+        threadSync.asyncExec(() -> {
+            if (change != null) {
+                change.accept(bundles);
+            }
+            RuntimeInfoSupplier.sendEvent(eventAdmin, DATA_RETRIEVED_BUNDLES_TOPIC);
+            logger.atInfo().log("Bundles info retrieved successfully");
+        });
+    }
+
     @Override
     public ObservableList<?> supply() {
         return bundles;
@@ -108,6 +183,12 @@ public final class BundlesInfoSupplier implements RuntimeInfoSupplier, EventHand
     @Override
     public void handleEvent(final Event event) {
         if (AGENT_DISCONNECTED_EVENT_TOPIC.equals(event.getTopic())) {
+            retrieveLock.lock();
+            try {
+                view.reset();
+            } finally {
+                retrieveLock.unlock();
+            }
             threadSync.asyncExec(bundles::clear);
             return;
         }
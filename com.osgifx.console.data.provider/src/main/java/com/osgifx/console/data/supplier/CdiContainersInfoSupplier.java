@@ -21,7 +21,6 @@ import static com.osgifx.console.event.topics.ComponentActionEventTopics.COMPONE
 import static com.osgifx.console.event.topics.ConfigurationActionEventTopics.CONFIGURATION_ACTION_EVENT_TOPICS;
 import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_CDI_TOPIC;
 import static com.osgifx.console.supervisor.Supervisor.AGENT_DISCONNECTED_EVENT_TOPIC;
-import static javafx.collections.FXCollections.observableArrayList;
 import static org.osgi.service.component.annotations.ReferenceCardinality.OPTIONAL;
 import static org.osgi.service.component.annotations.ReferencePolicyOption.GREEDY;
 
@@ -77,8 +76,9 @@ public final class CdiContainersInfoSupplier implements RuntimeInfoSupplier, Eve
     private FluentLogger        logger;
     private SnapshotDecoder     decoder;
 
-    private final ObservableList<XCdiContainerDTO> cdiContainers = observableArrayList();
-    private final ReentrantLock                    retrieveLock  = new ReentrantLock();
+    private final ReconciledObservableList<XCdiContainerDTO> cdiContainers = new ReconciledObservableList<>();
+    private final ReentrantLock                              retrieveLock  = new ReentrantLock();
+    private final KeyedListReconciler<XCdiContainerDTO>      reconciler    = new KeyedListReconciler<>(c -> c.id);
 
     @Activate
     void activate(final BundleContext context) {
@@ -96,10 +96,26 @@ public final class CdiContainersInfoSupplier implements RuntimeInfoSupplier, Eve
                 return;
             }
             logger.atInfo().log("Retrieving CDI containers info from remote runtime");
-            final byte[]                 snapshot = agent.cdiContainers();
-            final List<XCdiContainerDTO> data     = decoder.decodeList(snapshot, XCdiContainerDTO.class);
+            apply(agent.cdiContainers());
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    @Override
+    public SnapshotRequest prepareRetrieval() {
+        return new SnapshotRequest(agent -> agent.cdiContainers(), this::apply);
+    }
+
+    private void apply(final byte[] snapshot) {
+        retrieveLock.lock();
+        try {
+            final List<XCdiContainerDTO> data   = decoder.decodeList(snapshot, XCdiContainerDTO.class);
+            final var                    change = reconciler.reconcile(data);
             threadSync.asyncExec(() -> {
-                cdiContainers.setAll(data);
+                if (change != null) {
+                    change.accept(cdiContainers);
+                }
                 RuntimeInfoSupplier.sendEvent(eventAdmin, DATA_RETRIEVED_CDI_TOPIC);
                 logger.atInfo().log("CDI containers info retrieved successfully");
             });
@@ -116,6 +132,12 @@ public final class CdiContainersInfoSupplier implements RuntimeInfoSupplier, Eve
     @Override
     public void handleEvent(final Event event) {
         if (AGENT_DISCONNECTED_EVENT_TOPIC.equals(event.getTopic())) {
+            retrieveLock.lock();
+            try {
+                reconciler.reset();
+            } finally {
+                retrieveLock.unlock();
+            }
             threadSync.asyncExec(cdiContainers::clear);
             return;
         }
@@ -21,12 +21,13 @@ import static com.osgifx.console.event.topics.ComponentActionEventTopics.COMPONE
 import static com.osgifx.console.event.topics.ConfigurationActionEventTopics.CONFIGURATION_ACTION_EVENT_TOPICS;
 import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_COMPONENTS_TOPIC;
 import static com.osgifx.console.supervisor.Supervisor.AGENT_DISCONNECTED_EVENT_TOPIC;
-import static javafx.collections.FXCollections.observableArrayList;
 import static org.osgi.service.component.annotations.ReferenceCardinality.OPTIONAL;
 import static org.osgi.service.component.annotations.ReferencePolicyOption.GREEDY;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 import org.eclipse.fx.core.ThreadSynchronize;
 import org.eclipse.fx.core.log.FluentLogger;
@@ -77,8 +78,10 @@ public final class ComponentsInfoSupplier implements RuntimeInfoSupplier, EventH
     private FluentLogger        logger;
     private SnapshotDecoder     decoder;
 
-    private final ObservableList<XComponentDTO> components   = observableArrayList();
-    private final ReentrantLock                 retrieveLock = new ReentrantLock();
+    private final ReconciledObservableList<XComponentDTO> components   = new ReconciledObservableList<>();
+    private final ReentrantLock                           retrieveLock = new ReentrantLock();
+    private final KeyedSnapshotView<XComponentDTO>        view         = new KeyedSnapshotView<>(
+            c -> c.registeringBundleId + "/" + c.name + "/" + c.id);
 
     @Activate
     void activate(final BundleContext context) {
@@ -96,18 +99,90 @@ public final class ComponentsInfoSupplier implements RuntimeInfoSupplier, EventH
                 return;
             }
             logger.atInfo().log("Retrieving components info from remote runtime");
-            final byte[]              snapshot = agent.components();
-            final List<XComponentDTO> data     = decoder.decodeList(snapshot, XComponentDTO.class);
-            threadSync.asyncExec(() -> {
-                components.setAll(data);
-                RuntimeInfoSupplier.sendEvent(eventAdmin, DATA_RETRIEVED_COMPONENTS_TOPIC);
-                logger.atInfo().log("Components info retrieved successfully");
-            });
+            if (supervisor.isLegacyAgent()) {
+                apply(agent.components());
+                return;
+            }
+            final var version = view.version();
+            apply(version, agent.components(version));
         } finally {
             retrieveLock.unlock();
         }
     }
 
+    @Override
+    public CompletableFuture<Void> retrieveAsync(final Executor executor) {
+        final var supervisor = this.supervisor;
+        if (supervisor == null || supervisor.getAgent() == null) {
+            logger.atWarning().log("Agent not connected");
+            return CompletableFuture.completedFuture(null);
+        }
+        logger.atInfo().log("Retrieving components info from remote runtime (async)");
+        if (supervisor.isLegacyAgent()) {
+            return supervisor.callAsync(agent -> agent.components())
+                             .thenCompose(snapshot -> executor.runAsync(() -> apply(snapshot)));
+        }
+        final long version;
+        retrieveLock.lock();
+        try {
+            version = view.version();
+        } finally {
+            retrieveLock.unlock();
+        }
+        // the snapshot is decoded and reconciled on the executor instead of the RPC thread
+        return supervisor.callAsync(agent -> agent.components(version))
+                         .thenCompose(snapshot -> executor.runAsync(() -> apply(version, snapshot)));
+    }
+
+    @Override
+    public SnapshotRequest prepareRetrieval() {
+        final var supervisor = this.supervisor;
+        if (supervisor == null || supervisor.isLegacyAgent()) {
+            return new SnapshotRequest(agent -> agent.components(), this::apply);
+        }
+        retrieveLock.lock();
+        try {
+            final var version = view.version();
+            return new SnapshotRequest(agent -> agent.components(version), snapshot -> apply(version, snapshot));
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    private void apply(final long version, final byte[] snapshot) {
+        retrieveLock.lock();
+        try {
+            if (view.version() != version) {
+                // another retrieval has already advanced the view which the delta does not apply to
+                return;
+            }
+            final var delta = decoder.decodeDelta(snapshot, XComponentDTO.class);
+            publish(view.apply(delta));
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    private void apply(final byte[] snapshot) {
+        retrieveLock.lock();
+        try {
+            final List<XComponentDTO> data = decoder.decodeList(snapshot, XComponentDTO.class);
+            publish(view.apply(data));
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    private void publish(final Consumer<ReconciledObservableList<XComponentDTO>> change) {
+        threadSync.asyncExec(() -> {
+            if (change != null) {
+                change.accept(components);
+            }
+            RuntimeInfoSupplier.sendEvent(eventAdmin, DATA_RETRIEVED_COMPONENTS_TOPIC);
+            logger.atInfo().log("Components info retrieved successfully");
+        });
+    }
+
     @Override
     public ObservableList<?> supply() {
         return components;
@@ -116,6 +191,12 @@ public final class ComponentsInfoSupplier implements RuntimeInfoSupplier, EventH
     @Override
     public void handleEvent(final Event event) {
         if (AGENT_DISCONNECTED_EVENT_TOPIC.equals(event.getTopic())) {
+            retrieveLock.lock();
+            try {
+                view.reset();
+            } finally {
+                retrieveLock.unlock();
+            }
             threadSync.asyncExec(components::clear);
             return;
         }
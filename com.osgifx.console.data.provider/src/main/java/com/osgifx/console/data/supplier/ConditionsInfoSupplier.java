@@ -19,7 +19,6 @@ import static com.osgifx.console.data.supplier.ConditionsInfoSupplier.CONDITIONS
 import static com.osgifx.console.event.topics.ComponentActionEventTopics.COMPONENT_ACTION_EVENT_TOPICS;
 import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_CONDITIONS_TOPIC;
 import static com.osgifx.console.supervisor.Supervisor.AGENT_DISCONNECTED_EVENT_TOPIC;
-import static javafx.collections.FXCollections.observableArrayList;
 import static org.osgi.service.component.annotations.ReferenceCardinality.OPTIONAL;
 import static org.osgi.service.component.annotations.ReferencePolicyOption.GREEDY;
 
@@ -73,8 +72,9 @@ public final class ConditionsInfoSupplier implements RuntimeInfoSupplier, EventH
     private FluentLogger        logger;
     private SnapshotDecoder     decoder;
 
-    private final ObservableList<XConditionDTO> conditions   = observableArrayList();
-    private final ReentrantLock                 retrieveLock = new ReentrantLock();
+    private final ReconciledObservableList<XConditionDTO> conditions   = new ReconciledObservableList<>();
+    private final ReentrantLock                           retrieveLock = new ReentrantLock();
+    private final KeyedListReconciler<XConditionDTO>      reconciler   = new KeyedListReconciler<>(c -> c.identifier);
 
     @Activate
     void activate(final BundleContext context) {
@@ -92,10 +92,26 @@ public final class ConditionsInfoSupplier implements RuntimeInfoSupplier, EventH
                 return;
             }
             logger.atInfo().log("Retrieving conditions info from remote runtime");
-            final byte[]              snapshot = agent.conditions();
-            final List<XConditionDTO> data     = decoder.decodeList(snapshot, XConditionDTO.class);
+            apply(agent.conditions());
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    @Override
+    public SnapshotRequest prepareRetrieval() {
+        return new SnapshotRequest(agent -> agent.conditions(), this::apply);
+    }
+
+    private void apply(final byte[] snapshot) {
+        retrieveLock.lock();
+        try {
+            final List<XConditionDTO> data   = decoder.decodeList(snapshot, XConditionDTO.class);
+            final var                 change = reconciler.reconcile(data);
             threadSync.asyncExec(() -> {
-                conditions.setAll(data);
+                if (change != null) {
+                    change.accept(conditions);
+                }
                 RuntimeInfoSupplier.sendEvent(eventAdmin, DATA_RETRIEVED_CONDITIONS_TOPIC);
                 logger.atInfo().log("Conditions info retrieved successfully");
             });
@@ -112,6 +128,12 @@ public final class ConditionsInfoSupplier implements RuntimeInfoSupplier, EventH
     @Override
     public void handleEvent(final Event event) {
         if (AGENT_DISCONNECTED_EVENT_TOPIC.equals(event.getTopic())) {
+            retrieveLock.lock();
+            try {
+                reconciler.reset();
+            } finally {
+                retrieveLock.unlock();
+            }
             threadSync.asyncExec(conditions::clear);
             return;
         }
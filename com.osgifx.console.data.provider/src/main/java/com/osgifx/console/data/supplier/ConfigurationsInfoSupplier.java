@@ -20,7 +20,6 @@ import static com.osgifx.console.event.topics.ComponentActionEventTopics.COMPONE
 import static com.osgifx.console.event.topics.ConfigurationActionEventTopics.CONFIGURATION_ACTION_EVENT_TOPICS;
 import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_CONFIGURATIONS_TOPIC;
 import static com.osgifx.console.supervisor.Supervisor.AGENT_DISCONNECTED_EVENT_TOPIC;
-import static javafx.collections.FXCollections.observableArrayList;
 import static org.osgi.service.component.annotations.ReferenceCardinality.OPTIONAL;
 import static org.osgi.service.component.annotations.ReferencePolicyOption.GREEDY;
 
@@ -70,8 +69,9 @@ public final class ConfigurationsInfoSupplier implements RuntimeInfoSupplier, Ev
     private FluentLogger        logger;
     private SnapshotDecoder     decoder;
 
-    private final ObservableList<XConfigurationDTO> configurations = observableArrayList();
-    private final ReentrantLock                     retrieveLock   = new ReentrantLock();
+    private final ReconciledObservableList<XConfigurationDTO> configurations = new ReconciledObservableList<>();
+    private final ReentrantLock                               retrieveLock   = new ReentrantLock();
+    private final KeyedListReconciler<XConfigurationDTO>      reconciler     = new KeyedListReconciler<>(c -> c.pid);
 
     @Activate
     void activate(final BundleContext context) {
@@ -89,10 +89,26 @@ public final class ConfigurationsInfoSupplier implements RuntimeInfoSupplier, Ev
                 return;
             }
             logger.atInfo().log("Retrieving configurations info from remote runtime");
-            final byte[]                  snapshot = agent.configurations();
-            final List<XConfigurationDTO> data     = decoder.decodeList(snapshot, XConfigurationDTO.class);
+            apply(agent.configurations());
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    @Override
+    public SnapshotRequest prepareRetrieval() {
+        return new SnapshotRequest(agent -> agent.configurations(), this::apply);
+    }
+
+    private void apply(final byte[] snapshot) {
+        retrieveLock.lock();
+        try {
+            final List<XConfigurationDTO> data   = decoder.decodeList(snapshot, XConfigurationDTO.class);
+            final var                     change = reconciler.reconcile(data);
             threadSync.asyncExec(() -> {
-                configurations.setAll(data);
+                if (change != null) {
+                    change.accept(configurations);
+                }
                 RuntimeInfoSupplier.sendEvent(eventAdmin, DATA_RETRIEVED_CONFIGURATIONS_TOPIC);
                 logger.atInfo().log("Configurations info retrieved successfully");
             });
@@ -109,6 +125,12 @@ public final class ConfigurationsInfoSupplier implements RuntimeInfoSupplier, Ev
     @Override
     public void handleEvent(final Event event) {
         if (AGENT_DISCONNECTED_EVENT_TOPIC.equals(event.getTopic())) {
+            retrieveLock.lock();
+            try {
+                reconciler.reset();
+            } finally {
+                retrieveLock.unlock();
+            }
             threadSync.asyncExec(configurations::clear);
             return;
         }
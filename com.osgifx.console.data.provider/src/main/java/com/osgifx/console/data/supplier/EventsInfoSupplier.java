@@ -26,6 +26,7 @@ import static org.osgi.service.component.annotations.ReferencePolicyOption.GREED
 
 import java.time.Duration;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
 
@@ -92,6 +93,11 @@ public final class EventsInfoSupplier implements RuntimeInfoSupplier, EventListe
     void init(final Configuration configuration) {
         this.configuration = configuration;
         logger             = FluentLogger.of(factory.createLogger(getClass().getName()));
+        // the agent only sends the events of the topics and filter subscribed before
+        final var supervisor = this.supervisor;
+        if (supervisor != null) {
+            supervisor.updateOSGiEventListener(this);
+        }
     }
 
     @Deactivate
@@ -111,6 +117,17 @@ public final class EventsInfoSupplier implements RuntimeInfoSupplier, EventListe
 
     @Override
     public void onEvent(final XEventDTO event) {
+        scheduleCacheInvalidationJob();
+        threadSync.asyncExec(() -> events.add(event));
+    }
+
+    @Override
+    public void onEvents(final List<XEventDTO> batch) {
+        scheduleCacheInvalidationJob();
+        threadSync.asyncExec(() -> events.addAll(batch));
+    }
+
+    private void scheduleCacheInvalidationJob() {
         synchronized (this) {
             if (future == null) {
                 future = executor.scheduleWithFixedDelay(() -> threadSync.asyncExec(() -> {
@@ -121,7 +138,6 @@ public final class EventsInfoSupplier implements RuntimeInfoSupplier, EventListe
                 }), Duration.ofSeconds(CACHE_INVALIDATE_INITIAL_DELAY), Duration.ofSeconds(CACHE_INVALIDATE_DELAY));
             }
         }
-        threadSync.asyncExec(() -> events.add(event));
     }
 
     @Override
@@ -21,7 +21,6 @@ import static com.osgifx.console.event.topics.ComponentActionEventTopics.COMPONE
 import static com.osgifx.console.event.topics.ConfigurationActionEventTopics.CONFIGURATION_ACTION_EVENT_TOPICS;
 import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_HEALTHCHECKS_TOPIC;
 import static com.osgifx.console.supervisor.Supervisor.AGENT_DISCONNECTED_EVENT_TOPIC;
-import static javafx.collections.FXCollections.observableArrayList;
 import static org.osgi.service.component.annotations.ReferenceCardinality.OPTIONAL;
 import static org.osgi.service.component.annotations.ReferencePolicyOption.GREEDY;
 
@@ -77,8 +76,10 @@ public final class HealthChecksInfoSupplier implements RuntimeInfoSupplier, Even
     private FluentLogger        logger;
     private SnapshotDecoder     decoder;
 
-    private final ObservableList<XHealthCheckDTO> healthchecks = observableArrayList();
-    private final ReentrantLock                   retrieveLock = new ReentrantLock();
+    private final ReconciledObservableList<XHealthCheckDTO> healthchecks = new ReconciledObservableList<>();
+    private final ReentrantLock                             retrieveLock = new ReentrantLock();
+    private final KeyedListReconciler<XHealthCheckDTO>      reconciler   = new KeyedListReconciler<>(
+            h -> String.valueOf(h.serviceID));
 
     @Activate
     void activate(final BundleContext context) {
@@ -96,10 +97,26 @@ public final class HealthChecksInfoSupplier implements RuntimeInfoSupplier, Even
                 return;
             }
             logger.atInfo().log("Retrieving health checks info from remote runtime");
-            final byte[]                snapshot = agent.healthChecks();
-            final List<XHealthCheckDTO> data     = decoder.decodeList(snapshot, XHealthCheckDTO.class);
+            apply(agent.healthChecks());
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    @Override
+    public SnapshotRequest prepareRetrieval() {
+        return new SnapshotRequest(agent -> agent.healthChecks(), this::apply);
+    }
+
+    private void apply(final byte[] snapshot) {
+        retrieveLock.lock();
+        try {
+            final List<XHealthCheckDTO> data   = decoder.decodeList(snapshot, XHealthCheckDTO.class);
+            final var                   change = reconciler.reconcile(data);
             threadSync.asyncExec(() -> {
-                healthchecks.setAll(data);
+                if (change != null) {
+                    change.accept(healthchecks);
+                }
                 RuntimeInfoSupplier.sendEvent(eventAdmin, DATA_RETRIEVED_HEALTHCHECKS_TOPIC);
                 logger.atInfo().log("Healthchecks info retrieved successfully");
             });
@@ -116,6 +133,12 @@ public final class HealthChecksInfoSupplier implements RuntimeInfoSupplier, Even
     @Override
     public void handleEvent(final Event event) {
         if (AGENT_DISCONNECTED_EVENT_TOPIC.equals(event.getTopic())) {
+            retrieveLock.lock();
+            try {
+                reconciler.reset();
+            } finally {
+                retrieveLock.unlock();
+            }
             threadSync.asyncExec(healthchecks::clear);
             return;
         }
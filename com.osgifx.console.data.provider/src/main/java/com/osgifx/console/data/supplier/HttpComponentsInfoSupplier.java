@@ -21,7 +21,6 @@ import static com.osgifx.console.event.topics.ComponentActionEventTopics.COMPONE
 import static com.osgifx.console.event.topics.ConfigurationActionEventTopics.CONFIGURATION_ACTION_EVENT_TOPICS;
 import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_HTTP_TOPIC;
 import static com.osgifx.console.supervisor.Supervisor.AGENT_DISCONNECTED_EVENT_TOPIC;
-import static javafx.collections.FXCollections.observableArrayList;
 import static org.osgi.service.component.annotations.ReferenceCardinality.OPTIONAL;
 import static org.osgi.service.component.annotations.ReferencePolicyOption.GREEDY;
 
@@ -77,8 +76,10 @@ public final class HttpComponentsInfoSupplier implements RuntimeInfoSupplier, Ev
     private FluentLogger        logger;
     private SnapshotDecoder     decoder;
 
-    private final ObservableList<XHttpComponentDTO> httpComponents = observableArrayList();
-    private final ReentrantLock                     retrieveLock   = new ReentrantLock();
+    private final ReconciledObservableList<XHttpComponentDTO> httpComponents = new ReconciledObservableList<>();
+    private final ReentrantLock                               retrieveLock   = new ReentrantLock();
+    private final KeyedListReconciler<XHttpComponentDTO>      reconciler     = new KeyedListReconciler<>(
+            c -> c.type + ":" + c.serviceId + ":" + c.name);
 
     @Activate
     void activate(final BundleContext context) {
@@ -96,10 +97,26 @@ public final class HttpComponentsInfoSupplier implements RuntimeInfoSupplier, Ev
                 return;
             }
             logger.atInfo().log("Retrieving HTTP components info from remote runtime");
-            final byte[]                  snapshot = agent.httpComponents();
-            final List<XHttpComponentDTO> data     = decoder.decodeList(snapshot, XHttpComponentDTO.class);
+            apply(agent.httpComponents());
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    @Override
+    public SnapshotRequest prepareRetrieval() {
+        return new SnapshotRequest(agent -> agent.httpComponents(), this::apply);
+    }
+
+    private void apply(final byte[] snapshot) {
+        retrieveLock.lock();
+        try {
+            final List<XHttpComponentDTO> data   = decoder.decodeList(snapshot, XHttpComponentDTO.class);
+            final var                     change = reconciler.reconcile(data);
             threadSync.asyncExec(() -> {
-                httpComponents.setAll(data);
+                if (change != null) {
+                    change.accept(httpComponents);
+                }
                 RuntimeInfoSupplier.sendEvent(eventAdmin, DATA_RETRIEVED_HTTP_TOPIC);
                 logger.atInfo().log("HTTP components info retrieved successfully");
             });
@@ -116,6 +133,12 @@ public final class HttpComponentsInfoSupplier implements RuntimeInfoSupplier, Ev
     @Override
     public void handleEvent(final Event event) {
         if (AGENT_DISCONNECTED_EVENT_TOPIC.equals(event.getTopic())) {
+            retrieveLock.lock();
+            try {
+                reconciler.reset();
+            } finally {
+                retrieveLock.unlock();
+            }
             threadSync.asyncExec(httpComponents::clear);
             return;
         }
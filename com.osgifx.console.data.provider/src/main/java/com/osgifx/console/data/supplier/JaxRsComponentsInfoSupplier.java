@@ -21,7 +21,6 @@ import static com.osgifx.console.event.topics.ComponentActionEventTopics.COMPONE
 import static com.osgifx.console.event.topics.ConfigurationActionEventTopics.CONFIGURATION_ACTION_EVENT_TOPICS;
 import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_JAXRS_TOPIC;
 import static com.osgifx.console.supervisor.Supervisor.AGENT_DISCONNECTED_EVENT_TOPIC;
-import static javafx.collections.FXCollections.observableArrayList;
 import static org.osgi.service.component.annotations.ReferenceCardinality.OPTIONAL;
 import static org.osgi.service.component.annotations.ReferencePolicyOption.GREEDY;
 
@@ -77,8 +76,10 @@ public final class JaxRsComponentsInfoSupplier implements RuntimeInfoSupplier, E
     private FluentLogger        logger;
     private SnapshotDecoder     decoder;
 
-    private final ObservableList<XJaxRsComponentDTO> jaxRsComponents = observableArrayList();
-    private final ReentrantLock                      retrieveLock    = new ReentrantLock();
+    private final ReconciledObservableList<XJaxRsComponentDTO> jaxRsComponents = new ReconciledObservableList<>();
+    private final ReentrantLock                                retrieveLock    = new ReentrantLock();
+    private final KeyedListReconciler<XJaxRsComponentDTO>      reconciler      = new KeyedListReconciler<>(
+            c -> c.type + ":" + c.serviceId + ":" + c.name);
 
     @Activate
     void activate(final BundleContext context) {
@@ -96,10 +97,26 @@ public final class JaxRsComponentsInfoSupplier implements RuntimeInfoSupplier, E
                 return;
             }
             logger.atInfo().log("Retrieving JAX-RS components info from remote runtime");
-            final byte[]                   snapshot = agent.jaxRsComponents();
-            final List<XJaxRsComponentDTO> data     = decoder.decodeList(snapshot, XJaxRsComponentDTO.class);
+            apply(agent.jaxRsComponents());
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    @Override
+    public SnapshotRequest prepareRetrieval() {
+        return new SnapshotRequest(agent -> agent.jaxRsComponents(), this::apply);
+    }
+
+    private void apply(final byte[] snapshot) {
+        retrieveLock.lock();
+        try {
+            final List<XJaxRsComponentDTO> data   = decoder.decodeList(snapshot, XJaxRsComponentDTO.class);
+            final var                      change = reconciler.reconcile(data);
             threadSync.asyncExec(() -> {
-                jaxRsComponents.setAll(data);
+                if (change != null) {
+                    change.accept(jaxRsComponents);
+                }
                 RuntimeInfoSupplier.sendEvent(eventAdmin, DATA_RETRIEVED_JAXRS_TOPIC);
                 logger.atInfo().log("JAX-RS components info retrieved successfully");
             });
@@ -116,6 +133,12 @@ public final class JaxRsComponentsInfoSupplier implements RuntimeInfoSupplier, E
     @Override
     public void handleEvent(final Event event) {
         if (AGENT_DISCONNECTED_EVENT_TOPIC.equals(event.getTopic())) {
+            retrieveLock.lock();
+            try {
+                reconciler.reset();
+            } finally {
+                retrieveLock.unlock();
+            }
             threadSync.asyncExec(jaxRsComponents::clear);
             return;
         }
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.data.supplier;
+
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.osgifx.console.agent.rpc.codec.BinaryCodec;
+import com.osgifx.console.agent.rpc.codec.BinaryCodec.FastByteArrayOutputStream;
+
+/**
+ * Reconciles the DTO lists retrieved from the agent with the last applied one by the key
+ * of every DTO. The diff is computed on the calling thread, the returned change of the
+ * {@link ReconciledObservableList} only performs the minimal removals, replacements and
+ * additions which must be executed on the UI thread.
+ * <p>
+ * DTOs do not implement {@code equals}, hence a DTO is only considered to be changed if its
+ * binary encoding differs from the one of the DTO with the same key. Unchanged DTOs retain
+ * their identity in the list.
+ * <p>
+ * Not thread-safe, callers must guard it with their retrieve lock.
+ *
+ * @param <T> the DTO type
+ */
+final class KeyedListReconciler<T> {
+
+    private final Function<T, String>       keyFunction;
+    private final BinaryCodec               codec  = new BinaryCodec();
+    private final FastByteArrayOutputStream buffer = new FastByteArrayOutputStream(1024);
+    private Map<String, Row<T>>             rows   = new HashMap<>();
+
+    KeyedListReconciler() {
+        this(null);
+    }
+
+    /**
+     * @param keyFunction the function to derive the key of a DTO, only required for
+     *            {@link #reconcile(List)}
+     */
+    KeyedListReconciler(final Function<T, String> keyFunction) {
+        this.keyFunction = keyFunction;
+    }
+
+    void reset() {
+        rows.clear();
+    }
+
+    /**
+     * Reconciles the complete list of DTOs using the key function.
+     *
+     * @param items all DTOs
+     * @return the list change, or {@code null} if nothing has changed
+     */
+    Consumer<ReconciledObservableList<T>> reconcile(final List<T> items) {
+        final List<String> keys = new ArrayList<>(items.size());
+        for (final T item : items) {
+            keys.add(keyFunction.apply(item));
+        }
+        return reconcile(keys, items);
+    }
+
+    /**
+     * Reconciles the complete list of DTOs, all DTOs with other keys are removed.
+     *
+     * @param keys the keys of the DTOs, index by index
+     * @param items all DTOs
+     * @return the list change, or {@code null} if nothing has changed
+     */
+    Consumer<ReconciledObservableList<T>> reconcile(final List<String> keys, final List<T> items) {
+        final Map<String, Row<T>> next     = new HashMap<>(Math.max(16, items.size() * 2));
+        final Map<T, T>           replaced = new IdentityHashMap<>();
+        final List<T>             added    = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            final String key = uniqueKey(next, keys.get(i));
+            next.put(key, merge(rows.get(key), items.get(i), replaced, added));
+        }
+        final Set<T> removed = newIdentitySet();
+        for (final Map.Entry<String, Row<T>> entry : rows.entrySet()) {
+            if (!next.containsKey(entry.getKey())) {
+                removed.add(entry.getValue().item());
+            }
+        }
+        rows = next;
+        return change(removed, replaced, added);
+    }
+
+    /**
+     * Reconciles the added or changed DTOs and the keys of the removed ones, all other DTOs
+     * are retained.
+     *
+     * @param keys the keys of the DTOs, index by index
+     * @param items the added or changed DTOs
+     * @param removedKeys the keys of the removed DTOs
+     * @return the list change, or {@code null} if nothing has changed
+     */
+    Consumer<ReconciledObservableList<T>> update(final List<String> keys,
+                                                 final List<T> items,
+                                                 final List<String> removedKeys) {
+        final Set<T> removed = newIdentitySet();
+        for (final String key : removedKeys) {
+            final Row<T> row = rows.remove(key);
+            if (row != null) {
+                removed.add(row.item());
+            }
+        }
+        final Map<T, T> replaced = new IdentityHashMap<>();
+        final List<T>   added    = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            final String key = keys.get(i);
+            rows.put(key, merge(rows.get(key), items.get(i), replaced, added));
+        }
+        return change(removed, replaced, added);
+    }
+
+    private Row<T> merge(final Row<T> row, final T item, final Map<T, T> replaced, final List<T> added) {
+        final long fingerprint = fingerprint(item);
+        if (row == null) {
+            added.add(item);
+        } else if (row.fingerprint() != fingerprint) {
+            replaced.put(row.item(), item);
+        } else {
+            return row;
+        }
+        return new Row<>(item, fingerprint);
+    }
+
+    private Consumer<ReconciledObservableList<T>> change(final Set<T> removed,
+                                                         final Map<T, T> replaced,
+                                                         final List<T> added) {
+        if (removed.isEmpty() && replaced.isEmpty() && added.isEmpty()) {
+            return null;
+        }
+        return list -> list.reconcile(removed, replaced, added);
+    }
+
+    // DTOs sharing a key (which the agent never sends) are told apart by their occurrence
+    private static String uniqueKey(final Map<String, ?> keys, final String key) {
+        var unique = key;
+        for (var i = 1; keys.containsKey(unique); i++) {
+            unique = key + "#" + i;
+        }
+        return unique;
+    }
+
+    // 64-bit FNV-1a of the binary encoding
+    private long fingerprint(final T item) {
+        buffer.reset();
+        try (var out = new DataOutputStream(buffer)) {
+            codec.encode(item, out, BinaryCodec.WIRE_V1);
+        } catch (final Exception e) {
+            // an unencodable DTO is always considered to be changed
+            return System.identityHashCode(item);
+        }
+        final var data = buffer.getBuffer();
+        var       hash = 0xcbf29ce484222325L;
+        for (var i = 0; i < buffer.size(); i++) {
+            hash ^= data[i] & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static <T> Set<T> newIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    private record Row<T>(T item, long fingerprint) {
+    }
+
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.data.supplier;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.osgifx.console.agent.rpc.codec.SnapshotDelta;
+
+/**
+ * Keeps track of the last applied snapshot version and the keyed view of the DTOs
+ * of a supplier, so that versioned snapshot deltas can be applied to the supplier's
+ * {@link ReconciledObservableList} instead of replacing its whole content.
+ * <p>
+ * Not thread-safe, callers must guard it with their retrieve lock.
+ *
+ * @param <T> the DTO type
+ */
+final class KeyedSnapshotView<T> {
+
+    private final KeyedListReconciler<T> reconciler;
+    private long                         version = -1;
+
+    /**
+     * @param keyFunction the function to derive the same key of a DTO as the agent, only
+     *            required for {@link #apply(List)}
+     */
+    KeyedSnapshotView(final Function<T, String> keyFunction) {
+        reconciler = new KeyedListReconciler<>(keyFunction);
+    }
+
+    long version() {
+        return version;
+    }
+
+    void reset() {
+        reconciler.reset();
+        version = -1;
+    }
+
+    /**
+     * Applies the delta to this view and returns the corresponding change of the
+     * observable list which must be executed on the UI thread. A full snapshot is
+     * reconciled with the current view as well, so that only the changed DTOs are
+     * replaced.
+     *
+     * @param delta the delta received from the agent (can be {@code null})
+     * @return the list change, or {@code null} if nothing has changed
+     */
+    Consumer<ReconciledObservableList<T>> apply(final SnapshotDelta<T> delta) {
+        if (delta == null) {
+            reset();
+            return ReconciledObservableList::clear;
+        }
+        final Consumer<ReconciledObservableList<T>> change;
+        switch (delta.kind()) {
+            case NOT_MODIFIED:
+                return null;
+            case FULL:
+                change = reconciler.reconcile(delta.keys(), delta.items());
+                break;
+            default:
+                change = reconciler.update(delta.keys(), delta.items(), delta.removed());
+                break;
+        }
+        version = delta.version();
+        return change;
+    }
+
+    /**
+     * Applies the complete list retrieved from an agent which does not support versioned
+     * snapshots. The view remains unversioned, so that the next retrieval once again
+     * requests the full list.
+     *
+     * @param items all DTOs
+     * @return the list change, or {@code null} if nothing has changed
+     */
+    Consumer<ReconciledObservableList<T>> apply(final List<T> items) {
+        version = -1;
+        return reconciler.reconcile(items);
+    }
+
+}
@@ -19,7 +19,6 @@ import static com.osgifx.console.data.supplier.LeaksInfoSupplier.LEAKS_ID;
 import static com.osgifx.console.event.topics.BundleActionEventTopics.BUNDLE_ACTION_EVENT_TOPICS;
 import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_LEAKS_TOPIC;
 import static com.osgifx.console.supervisor.Supervisor.AGENT_DISCONNECTED_EVENT_TOPIC;
-import static javafx.collections.FXCollections.observableArrayList;
 import static org.osgi.service.component.annotations.ReferenceCardinality.OPTIONAL;
 import static org.osgi.service.component.annotations.ReferencePolicyOption.GREEDY;
 
@@ -69,8 +68,10 @@ public final class LeaksInfoSupplier implements RuntimeInfoSupplier, EventHandle
     private FluentLogger        logger;
     private SnapshotDecoder     decoder;
 
-    private final ObservableList<XBundleDTO> leaks        = observableArrayList();
-    private final ReentrantLock              retrieveLock = new ReentrantLock();
+    private final ReconciledObservableList<XBundleDTO> leaks        = new ReconciledObservableList<>();
+    private final ReentrantLock                        retrieveLock = new ReentrantLock();
+    private final KeyedListReconciler<XBundleDTO>      reconciler   = new KeyedListReconciler<>(
+            b -> String.valueOf(b.id));
 
     @Activate
     void activate(final BundleContext context) {
@@ -88,10 +89,26 @@ public final class LeaksInfoSupplier implements RuntimeInfoSupplier, EventHandle
                 return;
             }
             logger.atInfo().log("Retrieving classloader leaks info from remote runtime");
-            final byte[]           snapshot = agent.leaks();
-            final List<XBundleDTO> data     = decoder.decodeList(snapshot, XBundleDTO.class);
+            apply(agent.leaks());
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    @Override
+    public SnapshotRequest prepareRetrieval() {
+        return new SnapshotRequest(agent -> agent.leaks(), this::apply);
+    }
+
+    private void apply(final byte[] snapshot) {
+        retrieveLock.lock();
+        try {
+            final List<XBundleDTO> data   = decoder.decodeList(snapshot, XBundleDTO.class);
+            final var              change = reconciler.reconcile(data);
             threadSync.asyncExec(() -> {
-                leaks.setAll(data);
+                if (change != null) {
+                    change.accept(leaks);
+                }
                 RuntimeInfoSupplier.sendEvent(eventAdmin, DATA_RETRIEVED_LEAKS_TOPIC);
                 logger.atInfo().log("Classloader leaks info retrieved successfully");
             });
@@ -108,6 +125,12 @@ public final class LeaksInfoSupplier implements RuntimeInfoSupplier, EventHandle
     @Override
     public void handleEvent(final Event event) {
         if (AGENT_DISCONNECTED_EVENT_TOPIC.equals(event.getTopic())) {
+            retrieveLock.lock();
+            try {
+                reconciler.reset();
+            } finally {
+                retrieveLock.unlock();
+            }
             threadSync.asyncExec(leaks::clear);
             return;
         }
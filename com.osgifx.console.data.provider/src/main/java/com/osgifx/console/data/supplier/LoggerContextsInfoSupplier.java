@@ -22,7 +22,6 @@ import static com.osgifx.console.event.topics.ConfigurationActionEventTopics.CON
 import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_LOGGER_CONTEXTS_TOPIC;
 import static com.osgifx.console.event.topics.LoggerContextActionEventTopics.LOGGER_CONTEXT_ACTION_EVENT_TOPICS;
 import static com.osgifx.console.supervisor.Supervisor.AGENT_DISCONNECTED_EVENT_TOPIC;
-import static javafx.collections.FXCollections.observableArrayList;
 import static org.osgi.service.component.annotations.ReferenceCardinality.OPTIONAL;
 import static org.osgi.service.component.annotations.ReferencePolicyOption.GREEDY;
 
@@ -79,8 +78,10 @@ public final class LoggerContextsInfoSupplier implements RuntimeInfoSupplier, Ev
     private FluentLogger        logger;
     private SnapshotDecoder     decoder;
 
-    private final ObservableList<XBundleLoggerContextDTO> loggerContexts = observableArrayList();
-    private final ReentrantLock                           retrieveLock   = new ReentrantLock();
+    private final ReconciledObservableList<XBundleLoggerContextDTO> loggerContexts = new ReconciledObservableList<>();
+    private final ReentrantLock                                     retrieveLock   = new ReentrantLock();
+    private final KeyedListReconciler<XBundleLoggerContextDTO>      reconciler     = new KeyedListReconciler<>(
+            c -> c.name);
 
     @Activate
     void activate(final BundleContext context) {
@@ -98,10 +99,26 @@ public final class LoggerContextsInfoSupplier implements RuntimeInfoSupplier, Ev
                 return;
             }
             logger.atInfo().log("Retrieving logger contexts info from remote runtime");
-            final byte[]                        snapshot = agent.bundleLoggerContexts();
-            final List<XBundleLoggerContextDTO> data     = decoder.decodeList(snapshot, XBundleLoggerContextDTO.class);
+            apply(agent.bundleLoggerContexts());
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    @Override
+    public SnapshotRequest prepareRetrieval() {
+        return new SnapshotRequest(agent -> agent.bundleLoggerContexts(), this::apply);
+    }
+
+    private void apply(final byte[] snapshot) {
+        retrieveLock.lock();
+        try {
+            final List<XBundleLoggerContextDTO> data   = decoder.decodeList(snapshot, XBundleLoggerContextDTO.class);
+            final var                           change = reconciler.reconcile(data);
             threadSync.asyncExec(() -> {
-                loggerContexts.setAll(data);
+                if (change != null) {
+                    change.accept(loggerContexts);
+                }
                 RuntimeInfoSupplier.sendEvent(eventAdmin, DATA_RETRIEVED_LOGGER_CONTEXTS_TOPIC);
                 logger.atInfo().log("Logger contexts info retrieved successfully");
             });
@@ -118,6 +135,12 @@ public final class LoggerContextsInfoSupplier implements RuntimeInfoSupplier, Ev
     @Override
     public void handleEvent(final Event event) {
         if (AGENT_DISCONNECTED_EVENT_TOPIC.equals(event.getTopic())) {
+            retrieveLock.lock();
+            try {
+                reconciler.reset();
+            } finally {
+                retrieveLock.unlock();
+            }
             threadSync.asyncExec(loggerContexts::clear);
             return;
         }
@@ -24,6 +24,7 @@ import static org.osgi.service.component.annotations.ReferenceCardinality.OPTION
 import static org.osgi.service.component.annotations.ReferencePolicyOption.GREEDY;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.ScheduledFuture;
 
 import org.eclipse.fx.core.ThreadSynchronize;
@@ -95,17 +96,29 @@ public final class LogsInfoSupplier implements RuntimeInfoSupplier, LogEntryList
 
     @Override
     public void logged(final XLogEntryDTO logEntry) {
-        if (future == null) {
-            executor.scheduleWithFixedDelay(() -> threadSync.asyncExec(() -> {
-                final var size = logs.size();
-                if (size > CACHE_INVALIDATE_THRESHOLD) {
-                    logs.remove(CACHE_INVALIDATE_RANGE_START, CACHE_INVALIDATE_RANGE_END);
-                }
-            }), Duration.ofSeconds(CACHE_INVALIDATE_INITIAL_DELAY), Duration.ofSeconds(CACHE_INVALIDATE_DELAY));
-        }
+        scheduleCacheInvalidationJob();
         threadSync.asyncExec(() -> logs.add(logEntry));
     }
 
+    @Override
+    public void logged(final List<XLogEntryDTO> logEntries) {
+        scheduleCacheInvalidationJob();
+        threadSync.asyncExec(() -> logs.addAll(logEntries));
+    }
+
+    private void scheduleCacheInvalidationJob() {
+        synchronized (this) {
+            if (future == null) {
+                future = executor.scheduleWithFixedDelay(() -> threadSync.asyncExec(() -> {
+                    final var size = logs.size();
+                    if (size > CACHE_INVALIDATE_THRESHOLD) {
+                        logs.remove(CACHE_INVALIDATE_RANGE_START, CACHE_INVALIDATE_RANGE_END);
+                    }
+                }), Duration.ofSeconds(CACHE_INVALIDATE_INITIAL_DELAY), Duration.ofSeconds(CACHE_INVALIDATE_DELAY));
+            }
+        }
+    }
+
     @Override
     public void handleEvent(final Event event) {
         switch (event.getTopic()) {
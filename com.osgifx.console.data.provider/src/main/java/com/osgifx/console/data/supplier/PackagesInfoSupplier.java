@@ -94,9 +94,22 @@ public final class PackagesInfoSupplier implements RuntimeInfoSupplier, EventHan
                 return;
             }
             logger.atInfo().log("Retrieving packages info from remote runtime");
-            final var snapshot = agent.bundles();
-            final var bundles  = decoder.decodeList(snapshot, XBundleDTO.class);
-            final var data     = preparePackages(bundles);
+            apply(agent.bundles());
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    @Override
+    public SnapshotRequest prepareRetrieval() {
+        return new SnapshotRequest(agent -> agent.bundles(), this::apply);
+    }
+
+    private void apply(final byte[] snapshot) {
+        retrieveLock.lock();
+        try {
+            final var bundles = decoder.decodeList(snapshot, XBundleDTO.class);
+            final var data    = preparePackages(bundles);
             threadSync.asyncExec(() -> {
                 packages.setAll(data);
                 RuntimeInfoSupplier.sendEvent(eventAdmin, DATA_RETRIEVED_PACKAGES_TOPIC);
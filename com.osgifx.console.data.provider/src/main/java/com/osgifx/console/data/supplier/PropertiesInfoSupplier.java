@@ -18,7 +18,6 @@ package com.osgifx.console.data.supplier;
 import static com.osgifx.console.data.supplier.PropertiesInfoSupplier.PROPERTIES_ID;
 import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_PROPERTIES_TOPIC;
 import static com.osgifx.console.supervisor.Supervisor.AGENT_DISCONNECTED_EVENT_TOPIC;
-import static javafx.collections.FXCollections.observableArrayList;
 import static org.osgi.service.component.annotations.ReferenceCardinality.OPTIONAL;
 import static org.osgi.service.component.annotations.ReferencePolicyOption.GREEDY;
 
@@ -65,8 +64,9 @@ public final class PropertiesInfoSupplier implements RuntimeInfoSupplier, EventH
     private FluentLogger        logger;
     private SnapshotDecoder     decoder;
 
-    private final ObservableList<XPropertyDTO> properties   = observableArrayList();
-    private final ReentrantLock                retrieveLock = new ReentrantLock();
+    private final ReconciledObservableList<XPropertyDTO> properties   = new ReconciledObservableList<>();
+    private final ReentrantLock                          retrieveLock = new ReentrantLock();
+    private final KeyedListReconciler<XPropertyDTO>      reconciler   = new KeyedListReconciler<>(p -> p.name);
 
     @Activate
     void activate(final BundleContext context) {
@@ -84,10 +84,26 @@ public final class PropertiesInfoSupplier implements RuntimeInfoSupplier, EventH
                 return;
             }
             logger.atInfo().log("Retrieving properties info from remote runtime");
-            final byte[]             snapshot = agent.properties();
-            final List<XPropertyDTO> data     = decoder.decodeList(snapshot, XPropertyDTO.class);
+            apply(agent.properties());
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    @Override
+    public SnapshotRequest prepareRetrieval() {
+        return new SnapshotRequest(agent -> agent.properties(), this::apply);
+    }
+
+    private void apply(final byte[] snapshot) {
+        retrieveLock.lock();
+        try {
+            final List<XPropertyDTO> data   = decoder.decodeList(snapshot, XPropertyDTO.class);
+            final var                change = reconciler.reconcile(data);
             threadSync.asyncExec(() -> {
-                properties.setAll(data);
+                if (change != null) {
+                    change.accept(properties);
+                }
                 RuntimeInfoSupplier.sendEvent(eventAdmin, DATA_RETRIEVED_PROPERTIES_TOPIC);
                 logger.atInfo().log("Properties info retrieved successfully");
             });
@@ -103,6 +119,12 @@ public final class PropertiesInfoSupplier implements RuntimeInfoSupplier, EventH
 
     @Override
     public void handleEvent(final Event event) {
+        retrieveLock.lock();
+        try {
+            reconciler.reset();
+        } finally {
+            retrieveLock.unlock();
+        }
         threadSync.asyncExec(properties::clear);
     }
 
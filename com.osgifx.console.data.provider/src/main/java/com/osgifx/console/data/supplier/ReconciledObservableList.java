@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.data.supplier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javafx.collections.ModifiableObservableListBase;
+
+/**
+ * An observable list which applies the removals, replacements and additions computed by
+ * a {@link KeyedListReconciler} in a single pass and reports them as one change, so that
+ * sorted and filtered views as well as the table selection are only updated for the rows
+ * which have actually changed.
+ * <p>
+ * Sorted views process every scattered removal or replacement separately in linear time,
+ * whereas they sort a replaced content only once. Hence a reconciliation with more of them
+ * than twice the binary logarithm of the list size is reported as a replacement of the whole
+ * content instead, which does not retain the table selection but takes no longer than
+ * {@code setAll}.
+ * <p>
+ * Like any other observable list backing a control, it must only be modified on the UI
+ * thread.
+ *
+ * @param <T> the element type
+ */
+final class ReconciledObservableList<T> extends ModifiableObservableListBase<T> {
+
+    private List<T> delegate = new ArrayList<>();
+
+    /**
+     * Applies a reconciliation. The elements are looked up by identity, elements which are
+     * not (or no longer) contained are ignored. The remaining elements retain their order,
+     * the added ones are appended.
+     *
+     * @param removed the elements to remove
+     * @param replaced the elements to replace, mapped to their replacements
+     * @param added the elements to append
+     */
+    void reconcile(final Set<T> removed, final Map<T, T> replaced, final List<T> added) {
+        if (removed.size() + replaced.size() > maxScatteredChanges(delegate.size())) {
+            replaceAll(removed, replaced, added);
+            return;
+        }
+        final List<T> elements = new ArrayList<>(delegate.size() + added.size());
+        beginChange();
+        try {
+            for (final T element : delegate) {
+                final int index = elements.size();
+                if (removed.contains(element)) {
+                    nextRemove(index, element);
+                    continue;
+                }
+                final T replacement = replaced.get(element);
+                if (replacement != null) {
+                    elements.add(replacement);
+                    nextSet(index, element);
+                } else {
+                    elements.add(element);
+                }
+            }
+            final int from = elements.size();
+            elements.addAll(added);
+            if (!added.isEmpty()) {
+                nextAdd(from, elements.size());
+            }
+            delegate = elements;
+            modCount++;
+        } finally {
+            endChange();
+        }
+    }
+
+    private void replaceAll(final Set<T> removed, final Map<T, T> replaced, final List<T> added) {
+        final List<T> elements = new ArrayList<>(delegate.size() + added.size());
+        for (final T element : delegate) {
+            if (!removed.contains(element)) {
+                elements.add(replaced.getOrDefault(element, element));
+            }
+        }
+        elements.addAll(added);
+        final List<T> previous = delegate;
+        beginChange();
+        try {
+            delegate = elements;
+            modCount++;
+            nextReplace(0, elements.size(), previous);
+        } finally {
+            endChange();
+        }
+    }
+
+    // twice the binary logarithm, measured as the break-even with sorting 5000 rows once
+    private static int maxScatteredChanges(final int size) {
+        return 2 * (31 - Integer.numberOfLeadingZeros(Math.max(2, size)));
+    }
+
+    @Override
+    public T get(final int index) {
+        return delegate.get(index);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    protected void doAdd(final int index, final T element) {
+        delegate.add(index, element);
+    }
+
+    @Override
+    protected T doSet(final int index, final T element) {
+        return delegate.set(index, element);
+    }
+
+    @Override
+    protected T doRemove(final int index) {
+        return delegate.remove(index);
+    }
+
+}
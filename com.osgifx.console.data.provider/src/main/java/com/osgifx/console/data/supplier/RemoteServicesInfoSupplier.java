@@ -18,7 +18,6 @@ package com.osgifx.console.data.supplier;
 import static com.osgifx.console.data.supplier.RemoteServicesInfoSupplier.REMOTE_SERVICES_ID;
 import static com.osgifx.console.event.topics.BundleActionEventTopics.BUNDLE_ACTION_EVENT_TOPICS;
 import static com.osgifx.console.supervisor.Supervisor.AGENT_DISCONNECTED_EVENT_TOPIC;
-import static javafx.collections.FXCollections.observableArrayList;
 import static org.osgi.service.component.annotations.ReferenceCardinality.OPTIONAL;
 import static org.osgi.service.component.annotations.ReferencePolicyOption.GREEDY;
 
@@ -72,8 +71,9 @@ public final class RemoteServicesInfoSupplier implements RuntimeInfoSupplier, Ev
     private FluentLogger        logger;
     private SnapshotDecoder     decoder;
 
-    private final ObservableList<XRemoteServiceDTO> remoteServices = observableArrayList();
-    private final ReentrantLock                     retrieveLock   = new ReentrantLock();
+    private final ReconciledObservableList<XRemoteServiceDTO> remoteServices = new ReconciledObservableList<>();
+    private final ReentrantLock                               retrieveLock   = new ReentrantLock();
+    private final KeyedListReconciler<XRemoteServiceDTO>      reconciler     = new KeyedListReconciler<>(s -> s.id);
 
     @Activate
     void activate(final BundleContext context) {
@@ -91,10 +91,26 @@ public final class RemoteServicesInfoSupplier implements RuntimeInfoSupplier, Ev
                 return;
             }
             logger.atInfo().log("Retrieving remote services info from remote runtime");
-            final byte[]                  snapshot = agent.remoteServices();
-            final List<XRemoteServiceDTO> data     = decoder.decodeList(snapshot, XRemoteServiceDTO.class);
+            apply(agent.remoteServices());
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    @Override
+    public SnapshotRequest prepareRetrieval() {
+        return new SnapshotRequest(agent -> agent.remoteServices(), this::apply);
+    }
+
+    private void apply(final byte[] snapshot) {
+        retrieveLock.lock();
+        try {
+            final List<XRemoteServiceDTO> data   = decoder.decodeList(snapshot, XRemoteServiceDTO.class);
+            final var                     change = reconciler.reconcile(data);
             threadSync.asyncExec(() -> {
-                remoteServices.setAll(data);
+                if (change != null) {
+                    change.accept(remoteServices);
+                }
                 RuntimeInfoSupplier.sendEvent(eventAdmin, "osgi/fx/remoteServices/retrieved");
                 logger.atInfo().log("Remote services info retrieved successfully");
             });
@@ -111,6 +127,12 @@ public final class RemoteServicesInfoSupplier implements RuntimeInfoSupplier, Ev
     @Override
     public void handleEvent(final Event event) {
         if (AGENT_DISCONNECTED_EVENT_TOPIC.equals(event.getTopic())) {
+            retrieveLock.lock();
+            try {
+                reconciler.reset();
+            } finally {
+                retrieveLock.unlock();
+            }
             threadSync.asyncExec(remoteServices::clear);
             return;
         }
@@ -22,7 +22,6 @@ import static com.osgifx.console.event.topics.ConfigurationActionEventTopics.CON
 import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_ROLES_TOPIC;
 import static com.osgifx.console.event.topics.RoleActionEventTopics.ROLE_ACTION_EVENT_TOPICS;
 import static com.osgifx.console.supervisor.Supervisor.AGENT_DISCONNECTED_EVENT_TOPIC;
-import static javafx.collections.FXCollections.observableArrayList;
 import static org.osgi.service.component.annotations.ReferenceCardinality.OPTIONAL;
 import static org.osgi.service.component.annotations.ReferencePolicyOption.GREEDY;
 
@@ -79,8 +78,10 @@ public final class RolesInfoSupplier implements RuntimeInfoSupplier, EventHandle
     private FluentLogger        logger;
     private SnapshotDecoder     decoder;
 
-    private final ObservableList<XRoleDTO> roles        = observableArrayList();
-    private final ReentrantLock            retrieveLock = new ReentrantLock();
+    private final ReconciledObservableList<XRoleDTO> roles        = new ReconciledObservableList<>();
+    private final ReentrantLock                      retrieveLock = new ReentrantLock();
+    private final KeyedListReconciler<XRoleDTO>      reconciler   = new KeyedListReconciler<>(
+            r -> r.type + ":" + r.name);
 
     @Activate
     void activate(final BundleContext context) {
@@ -98,10 +99,26 @@ public final class RolesInfoSupplier implements RuntimeInfoSupplier, EventHandle
                 return;
             }
             logger.atInfo().log("Retrieving roles info from remote runtime");
-            final byte[]         snapshot = agent.roles();
-            final List<XRoleDTO> data     = decoder.decodeList(snapshot, XRoleDTO.class);
+            apply(agent.roles());
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    @Override
+    public SnapshotRequest prepareRetrieval() {
+        return new SnapshotRequest(agent -> agent.roles(), this::apply);
+    }
+
+    private void apply(final byte[] snapshot) {
+        retrieveLock.lock();
+        try {
+            final List<XRoleDTO> data   = decoder.decodeList(snapshot, XRoleDTO.class);
+            final var            change = reconciler.reconcile(data);
             threadSync.asyncExec(() -> {
-                roles.setAll(data);
+                if (change != null) {
+                    change.accept(roles);
+                }
                 RuntimeInfoSupplier.sendEvent(eventAdmin, DATA_RETRIEVED_ROLES_TOPIC);
                 logger.atInfo().log("Roles info retrieved successfully");
             });
@@ -118,6 +135,12 @@ public final class RolesInfoSupplier implements RuntimeInfoSupplier, EventHandle
     @Override
     public void handleEvent(final Event event) {
         if (AGENT_DISCONNECTED_EVENT_TOPIC.equals(event.getTopic())) {
+            retrieveLock.lock();
+            try {
+                reconciler.reset();
+            } finally {
+                retrieveLock.unlock();
+            }
             threadSync.asyncExec(roles::clear);
             return;
         }
@@ -19,7 +19,6 @@ import static com.osgifx.console.data.supplier.RuntimeCapabilitiesInfoSupplier.C
 import static com.osgifx.console.event.topics.BundleActionEventTopics.BUNDLE_ACTION_EVENT_TOPICS;
 import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_CAPABILITIES_TOPIC;
 import static com.osgifx.console.supervisor.Supervisor.AGENT_DISCONNECTED_EVENT_TOPIC;
-import static javafx.collections.FXCollections.observableArrayList;
 import static org.osgi.service.component.annotations.ReferenceCardinality.OPTIONAL;
 import static org.osgi.service.component.annotations.ReferencePolicyOption.GREEDY;
 
@@ -73,8 +72,9 @@ public final class RuntimeCapabilitiesInfoSupplier implements RuntimeInfoSupplie
     private FluentLogger        logger;
     private SnapshotDecoder     decoder;
 
-    private final ObservableList<XRuntimeCapabilityDTO> capabilities = observableArrayList();
-    private final ReentrantLock                         retrieveLock = new ReentrantLock();
+    private final ReconciledObservableList<XRuntimeCapabilityDTO> capabilities = new ReconciledObservableList<>();
+    private final ReentrantLock                                   retrieveLock = new ReentrantLock();
+    private final KeyedListReconciler<XRuntimeCapabilityDTO>      reconciler   = new KeyedListReconciler<>(c -> c.id);
 
     @Activate
     void activate(final BundleContext context) {
@@ -92,10 +92,26 @@ public final class RuntimeCapabilitiesInfoSupplier implements RuntimeInfoSupplie
                 return;
             }
             logger.atInfo().log("Retrieving runtime capabilities info from remote runtime");
-            final byte[]                      snapshot = agent.runtimeCapabilities();
-            final List<XRuntimeCapabilityDTO> data     = decoder.decodeList(snapshot, XRuntimeCapabilityDTO.class);
+            apply(agent.runtimeCapabilities());
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    @Override
+    public SnapshotRequest prepareRetrieval() {
+        return new SnapshotRequest(agent -> agent.runtimeCapabilities(), this::apply);
+    }
+
+    private void apply(final byte[] snapshot) {
+        retrieveLock.lock();
+        try {
+            final List<XRuntimeCapabilityDTO> data   = decoder.decodeList(snapshot, XRuntimeCapabilityDTO.class);
+            final var                         change = reconciler.reconcile(data);
             threadSync.asyncExec(() -> {
-                capabilities.setAll(data);
+                if (change != null) {
+                    change.accept(capabilities);
+                }
                 RuntimeInfoSupplier.sendEvent(eventAdmin, DATA_RETRIEVED_CAPABILITIES_TOPIC);
                 logger.atInfo().log("Runtime capabilities info retrieved successfully");
             });
@@ -112,6 +128,12 @@ public final class RuntimeCapabilitiesInfoSupplier implements RuntimeInfoSupplie
     @Override
     public void handleEvent(final Event event) {
         if (AGENT_DISCONNECTED_EVENT_TOPIC.equals(event.getTopic())) {
+            retrieveLock.lock();
+            try {
+                reconciler.reset();
+            } finally {
+                retrieveLock.unlock();
+            }
             threadSync.asyncExec(capabilities::clear);
             return;
         }
@@ -21,12 +21,13 @@ import static com.osgifx.console.event.topics.ComponentActionEventTopics.COMPONE
 import static com.osgifx.console.event.topics.ConfigurationActionEventTopics.CONFIGURATION_ACTION_EVENT_TOPICS;
 import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_SERVICES_TOPIC;
 import static com.osgifx.console.supervisor.Supervisor.AGENT_DISCONNECTED_EVENT_TOPIC;
-import static javafx.collections.FXCollections.observableArrayList;
 import static org.osgi.service.component.annotations.ReferenceCardinality.OPTIONAL;
 import static org.osgi.service.component.annotations.ReferencePolicyOption.GREEDY;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 import org.eclipse.fx.core.ThreadSynchronize;
 import org.eclipse.fx.core.log.FluentLogger;
@@ -77,8 +78,10 @@ public final class ServicesInfoSupplier implements RuntimeInfoSupplier, EventHan
     private FluentLogger        logger;
     private SnapshotDecoder     decoder;
 
-    private final ObservableList<XServiceDTO> services     = observableArrayList();
-    private final ReentrantLock               retrieveLock = new ReentrantLock();
+    private final ReconciledObservableList<XServiceDTO> services     = new ReconciledObservableList<>();
+    private final ReentrantLock                         retrieveLock = new ReentrantLock();
+    private final KeyedSnapshotView<XServiceDTO>        view         = new KeyedSnapshotView<>(
+            s -> String.valueOf(s.id));
 
     @Activate
     void activate(final BundleContext context) {
@@ -96,18 +99,90 @@ public final class ServicesInfoSupplier implements RuntimeInfoSupplier, EventHan
                 return;
             }
             logger.atInfo().log("Retrieving services info from remote runtime");
-            final byte[]            snapshot = agent.services();
-            final List<XServiceDTO> data     = decoder.decodeList(snapshot, XServiceDTO.class);
-            threadSync.asyncExec(() -> {
-                services.setAll(data);
-                RuntimeInfoSupplier.sendEvent(eventAdmin, DATA_RETRIEVED_SERVICES_TOPIC);
-                logger.atInfo().log("Services info retrieved successfully");
-            });
+            if (supervisor.isLegacyAgent()) {
+                apply(agent.services());
+                return;
+            }
+            final var version = view.version();
+            apply(version, agent.services(version));
         } finally {
             retrieveLock.unlock();
         }
     }
 
+    @Override
+    public CompletableFuture<Void> retrieveAsync(final Executor executor) {
+        final var supervisor = this.supervisor;
+        if (supervisor == null || supervisor.getAgent() == null) {
+            logger.atWarning().log("Agent is not connected");
+            return CompletableFuture.completedFuture(null);
+        }
+        logger.atInfo().log("Retrieving services info from remote runtime (async)");
+        if (supervisor.isLegacyAgent()) {
+            return supervisor.callAsync(agent -> agent.services())
+                             .thenCompose(snapshot -> executor.runAsync(() -> apply(snapshot)));
+        }
+        final long version;
+        retrieveLock.lock();
+        try {
+            version = view.version();
+        } finally {
+            retrieveLock.unlock();
+        }
+        // the snapshot is decoded and reconciled on the executor instead of the RPC thread
+        return supervisor.callAsync(agent -> agent.services(version))
+                         .thenCompose(snapshot -> executor.runAsync(() -> apply(version, snapshot)));
+    }
+
+    @Override
+    public SnapshotRequest prepareRetrieval() {
+        final var supervisor = this.supervisor;
+        if (supervisor == null || supervisor.isLegacyAgent()) {
+            return new SnapshotRequest(agent -> agent.services(), this::apply);
+        }
+        retrieveLock.lock();
+        try {
+            final var version = view.version();
+            return new SnapshotRequest(agent -> agent.services(version), snapshot -> apply(version, snapshot));
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    private void apply(final long version, final byte[] snapshot) {
+        retrieveLock.lock();
+        try {
+            if (view.version() != version) {
+                // another retrieval has already advanced the view which the delta does not apply to
+                return;
+            }
+            final var delta = decoder.decodeDelta(snapshot, XServiceDTO.class);
+            publish(view.apply(delta));
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    private void apply(final byte[] snapshot) {
+        retrieveLock.lock();
+        try {
+            final List<XServiceDTO> data = decoder.decodeList(snapshot, XServiceDTO.class);
+            publish(view.apply(data));
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    private void publish(final Consumer<ReconciledObservableList<XServiceDTO>> change) {
+        threadSync.asyncExec(() -> {
+            if (change != null) {
+                change.accept(services);
+            }
+            RuntimeInfoSupplier.sendEvent(eventAdmin, DATA_RETRIEVED_SERVICES_TOPIC);
+            logger.atInfo().log("Services info retrieved successfully");
+        });
+    }
+
     @Override
     public ObservableList<?> supply() {
         return services;
@@ -116,6 +191,12 @@ public final class ServicesInfoSupplier implements RuntimeInfoSupplier, EventHan
     @Override
     public void handleEvent(final Event event) {
         if (AGENT_DISCONNECTED_EVENT_TOPIC.equals(event.getTopic())) {
+            retrieveLock.lock();
+            try {
+                view.reset();
+            } finally {
+                retrieveLock.unlock();
+            }
             threadSync.asyncExec(services::clear);
             return;
         }
@@ -18,7 +18,6 @@ package com.osgifx.console.data.supplier;
 import static com.osgifx.console.data.supplier.ThreadsInfoSupplier.THREADS_ID;
 import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_THREADS_TOPIC;
 import static com.osgifx.console.supervisor.Supervisor.AGENT_DISCONNECTED_EVENT_TOPIC;
-import static javafx.collections.FXCollections.observableArrayList;
 import static org.osgi.service.component.annotations.ReferenceCardinality.OPTIONAL;
 import static org.osgi.service.component.annotations.ReferencePolicyOption.GREEDY;
 
@@ -65,8 +64,10 @@ public final class ThreadsInfoSupplier implements RuntimeInfoSupplier, EventHand
     private FluentLogger        logger;
     private SnapshotDecoder     decoder;
 
-    private final ObservableList<XThreadDTO> threads      = observableArrayList();
-    private final ReentrantLock              retrieveLock = new ReentrantLock();
+    private final ReconciledObservableList<XThreadDTO> threads      = new ReconciledObservableList<>();
+    private final ReentrantLock                        retrieveLock = new ReentrantLock();
+    private final KeyedListReconciler<XThreadDTO>      reconciler   = new KeyedListReconciler<>(
+            t -> String.valueOf(t.id));
 
     @Activate
     void activate(final BundleContext context) {
@@ -84,10 +85,26 @@ public final class ThreadsInfoSupplier implements RuntimeInfoSupplier, EventHand
                 return;
             }
             logger.atInfo().log("Retrieving threads info from remote runtime");
-            final byte[]           snapshot = agent.threads();
-            final List<XThreadDTO> data     = decoder.decodeList(snapshot, XThreadDTO.class);
+            apply(agent.threads());
+        } finally {
+            retrieveLock.unlock();
+        }
+    }
+
+    @Override
+    public SnapshotRequest prepareRetrieval() {
+        return new SnapshotRequest(agent -> agent.threads(), this::apply);
+    }
+
+    private void apply(final byte[] snapshot) {
+        retrieveLock.lock();
+        try {
+            final List<XThreadDTO> data   = decoder.decodeList(snapshot, XThreadDTO.class);
+            final var              change = reconciler.reconcile(data);
             threadSync.asyncExec(() -> {
-                threads.setAll(data);
+                if (change != null) {
+                    change.accept(threads);
+                }
                 RuntimeInfoSupplier.sendEvent(eventAdmin, DATA_RETRIEVED_THREADS_TOPIC);
                 logger.atInfo().log("Threads info retrieved successfully");
             });
@@ -103,6 +120,12 @@ public final class ThreadsInfoSupplier implements RuntimeInfoSupplier, EventHand
 
     @Override
     public void handleEvent(final Event event) {
+        retrieveLock.lock();
+        try {
+            reconciler.reset();
+        } finally {
+            retrieveLock.unlock();
+        }
         threadSync.asyncExec(threads::clear);
     }
 }
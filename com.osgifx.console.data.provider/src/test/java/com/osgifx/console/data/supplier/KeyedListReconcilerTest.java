@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.data.supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+
+import com.osgifx.console.agent.dto.XServiceDTO;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
+
+public class KeyedListReconcilerTest {
+
+    private static final Comparator<XServiceDTO> BY_TYPE = Comparator.comparing(s -> s.types.get(0));
+
+    @Test
+    public void testUnchangedRefreshIsNoChange() {
+        final var reconciler = new KeyedListReconciler<XServiceDTO>(s -> String.valueOf(s.id));
+
+        assertEquals(3, apply(reconciler.reconcile(services(3, 0, 0)), new ReconciledObservableList<>()).size());
+        // the same content decoded afresh
+        assertNull(reconciler.reconcile(services(3, 0, 0)));
+    }
+
+    @Test
+    public void testOnlyChangedRowsAreReplaced() {
+        final var reconciler = new KeyedListReconciler<XServiceDTO>(s -> String.valueOf(s.id));
+        final var list       = apply(reconciler.reconcile(services(3, 0, 0)), new ReconciledObservableList<>());
+        final var unchanged  = list.get(0);
+
+        final List<ListChangeListener.Change<? extends XServiceDTO>> changes = new ArrayList<>();
+        list.addListener((ListChangeListener<XServiceDTO>) changes::add);
+
+        // service 1 changes, service 2 is unregistered and service 3 is registered
+        final var next = services(2, 0, 0);
+        next.get(1).properties = Map.of("service.ranking", "10");
+        next.add(service(3, 0));
+        apply(reconciler.reconcile(next), list);
+
+        assertEquals(1, changes.size());
+        assertEquals(List.of(0L, 1L, 3L), list.stream().map(s -> s.id).toList());
+        assertSame(unchanged, list.get(0));
+        assertSame(next.get(1), list.get(1));
+    }
+
+    @Test
+    public void testManyScatteredChangesReplaceWholeContent() {
+        final var reconciler = new KeyedListReconciler<XServiceDTO>(s -> String.valueOf(s.id));
+        final var list       = apply(reconciler.reconcile(services(1000, 0, 0)), new ReconciledObservableList<>());
+        final var sorted     = view(list);
+
+        final List<ListChangeListener.Change<? extends XServiceDTO>> changes = new ArrayList<>();
+        list.addListener((ListChangeListener<XServiceDTO>) changes::add);
+
+        // every 10th service changes, which is more than a sorted view handles faster one by one
+        final var next = services(1000, 1, 10);
+        apply(reconciler.reconcile(next), list);
+
+        assertEquals(1, changes.size());
+        assertEquals(describe(next), describe(list));
+        assertEquals(describe(next.stream().filter(s -> s.bundleId % 10 != 0).sorted(BY_TYPE).toList()),
+                describe(sorted));
+    }
+
+    /**
+     * Measures the time a refresh of 5000 services spends on the UI thread, i.e. replacing the
+     * content of a plain observable list with {@code setAll} in comparison with applying the
+     * change computed by the reconciler off the UI thread. Both lists back a filtered and
+     * sorted view like the services table does. The refreshes change no service, a single
+     * one, 10 of them and 1% of them.
+     * <p>
+     * The build has no JMH setup, hence this is skipped unless the {@code osgifx.benchmark}
+     * system property is set. The number of services can be changed with
+     * {@code -Dosgifx.benchmark.services=<count>}.
+     */
+    @Test
+    public void testUiThreadTime() {
+        assumeTrue(Boolean.getBoolean("osgifx.benchmark"));
+        final var count = Integer.getInteger("osgifx.benchmark.services", 5_000);
+
+        for (final int changes : new int[] { 0, 1, 10, count / 100 }) {
+            // the first round only warms up
+            for (var round = 0; round < 2; round++) {
+                final var times = measure(count, changes, 50);
+                if (round == 1) {
+                    System.out.printf("%,d services, %d changed: setAll %.2f ms, reconciled %.2f ms on the UI thread "
+                            + "(%.2f ms diff off it)%n", count, changes, times[0], times[1], times[2]);
+                }
+            }
+        }
+    }
+
+    // the median times of setAll, applying the reconciled change and diffing in milliseconds
+    private static double[] measure(final int count, final int changes, final int refreshes) {
+        final ObservableList<XServiceDTO> replaced   = FXCollections.observableArrayList();
+        final var                         reconciled = new ReconciledObservableList<XServiceDTO>();
+        final var                         reconciler = new KeyedListReconciler<XServiceDTO>(
+                s -> String.valueOf(s.id));
+        // the views only listen weakly, hence they must be retained
+        final var                         views      = List.of(view(replaced), view(reconciled));
+        final var                         period     = changes == 0 ? 0 : count / changes;
+        final long[][]                    times      = new long[3][refreshes];
+
+        apply(reconciler.reconcile(services(count, 0, 0)), reconciled);
+        for (var revision = 1; revision <= refreshes; revision++) {
+            // the same content decoded afresh with the changed services
+            final var services = services(count, revision, period);
+
+            var start = System.nanoTime();
+            replaced.setAll(services);
+            times[0][revision - 1] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            final var change = reconciler.reconcile(services);
+            times[2][revision - 1] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            apply(change, reconciled);
+            times[1][revision - 1] = System.nanoTime() - start;
+        }
+        assertEquals(describe(replaced), describe(reconciled));
+        assertEquals(views.get(0).size(), views.get(1).size());
+
+        final var medians = new double[3];
+        for (var i = 0; i < 3; i++) {
+            Arrays.sort(times[i]);
+            medians[i] = times[i][refreshes / 2] / 1e6;
+        }
+        return medians;
+    }
+
+    private static <T> ReconciledObservableList<T> apply(final Consumer<ReconciledObservableList<T>> change,
+                                                         final ReconciledObservableList<T> list) {
+        if (change != null) {
+            change.accept(list);
+        }
+        return list;
+    }
+
+    private static List<String> describe(final List<XServiceDTO> services) {
+        return services.stream().map(s -> s.id + ":" + s.properties.get("revision")).toList();
+    }
+
+    private static SortedList<XServiceDTO> view(final ObservableList<XServiceDTO> list) {
+        return new SortedList<>(new FilteredList<>(list, s -> s.bundleId % 10 != 0), BY_TYPE);
+    }
+
+    // every service whose ID is congruent to the revision modulo the period is changed
+    private static List<XServiceDTO> services(final int count, final int revision, final int period) {
+        final List<XServiceDTO> services = new ArrayList<>(count);
+        for (var id = 0; id < count; id++) {
+            services.add(service(id, period > 0 && id % period == revision % period ? revision : 0));
+        }
+        return services;
+    }
+
+    private static XServiceDTO service(final long id, final int revision) {
+        final var service = new XServiceDTO();
+        service.id                = id;
+        service.bundleId          = id % 200;
+        service.types             = List.of("com.example.api.Service" + id % 97);
+        service.registeringBundle = "com.example.bundle" + service.bundleId;
+        service.properties        = Map.of("service.id", String.valueOf(id), "revision", String.valueOf(revision));
+        service.usingBundles      = List.of();
+        return service;
+    }
+
+}
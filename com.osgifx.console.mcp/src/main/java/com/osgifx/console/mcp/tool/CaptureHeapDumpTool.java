@@ -18,6 +18,7 @@ package com.osgifx.console.mcp.tool;
 import static org.osgi.service.component.annotations.ReferenceCardinality.OPTIONAL;
 import static org.osgi.service.component.annotations.ReferencePolicyOption.GREEDY;
 
+import java.io.File;
 import java.util.Map;
 
 import org.eclipse.fx.core.log.FluentLogger;
@@ -32,7 +33,7 @@ import com.osgifx.console.propertytypes.McpToolDef;
 import com.osgifx.console.supervisor.Supervisor;
 
 @Component
-@McpToolDef(name = "capture_heap_dump", description = "Captures a HPROF heap dump from the remote JVM. Returns the binary dump as a Base64 encoded string. WARNING: This can be very large.")
+@McpToolDef(name = "capture_heap_dump", description = "Captures a GZIP compressed HPROF heap dump from the remote JVM and downloads it in chunks to a directory on the console's machine. Returns the path of the downloaded file.")
 public class CaptureHeapDumpTool implements McpTool {
 
     @Reference(cardinality = OPTIONAL, policyOption = GREEDY)
@@ -48,7 +49,10 @@ public class CaptureHeapDumpTool implements McpTool {
 
     @Override
     public Map<String, Object> inputSchema() {
-        return McpToolSchema.builder().build();
+        return McpToolSchema.builder()
+                .optionalArg("directory", "string",
+                        "The local directory to download the heap dump to (defaults to the temp directory)")
+                .build();
     }
 
     @Override
@@ -57,9 +61,21 @@ public class CaptureHeapDumpTool implements McpTool {
         final var agent = supervisor.getAgent();
         if (agent == null) {
             logger.atWarning().log("Agent is not connected");
-            return new byte[0];
+            return Map.of("error", "Agent is not connected");
         }
-        return agent.heapdump();
+        if (supervisor.isLegacyAgent()) {
+            // legacy agents only support the in-memory heap dump which is too large for an MCP response
+            logger.atWarning().log("Chunked transfers are not supported by the remote agent");
+            return Map.of("error", "Heap dump transfers are not supported by the remote agent");
+        }
+        final var transfer = agent.openHeapdumpTransfer();
+        if (transfer == null) {
+            return Map.of("error", "Heap dump is not supported by the remote runtime");
+        }
+        final var dirArg    = (String) args.get("directory");
+        final var directory = dirArg == null || dirArg.isBlank() ? System.getProperty("java.io.tmpdir") : dirArg;
+        final var target    = supervisor.download(transfer, new File(directory, transfer.name), null, null);
+        return Map.of("path", target.getAbsolutePath(), "size", transfer.size);
     }
 
 }
@@ -32,7 +32,7 @@ import com.osgifx.console.propertytypes.McpToolDef;
 import com.osgifx.console.supervisor.Supervisor;
 
 @Component
-@McpToolDef(name = "fetch_log_snapshot", description = "Retrieves system logs as a Base64 encoded string. Provide 'fromTime' and 'toTime' (timestamps) for a specific range, OR 'count' for the last N logs. Time range takes precedence.")
+@McpToolDef(name = "fetch_log_snapshot", description = "Retrieves system logs as a Base64 encoded string. Provide 'fromTime' and 'toTime' (timestamps) for a specific range, OR 'count' for the last N logs. Time range takes precedence. Optionally narrow the logs down by 'bundleId' and minimum severity 'level'.")
 public class GetLogSnapshotTool implements McpTool {
 
     @Reference(cardinality = OPTIONAL, policyOption = GREEDY)
@@ -50,6 +50,8 @@ public class GetLogSnapshotTool implements McpTool {
     public Map<String, Object> inputSchema() {
         return McpToolSchema.builder().arg("count", "integer", "number of logs (0 for all stored logs)")
                 .arg("fromTime", "integer", "start timestamp (long)").arg("toTime", "integer", "end timestamp (long)")
+                .arg("bundleId", "integer", "only logs of this bundle (optional)")
+                .arg("level", "integer", "only logs at least as severe as this level: 1 error, 2 warning, 3 info, 4 debug (optional)")
                 .build();
     }
 
@@ -64,6 +66,24 @@ public class GetLogSnapshotTool implements McpTool {
 
         final var fromTimeObj = args.get("fromTime");
         final var toTimeObj   = args.get("toTime");
+        final var bundleIdObj = args.get("bundleId");
+        final var levelObj    = args.get("level");
+        final var filtered    = bundleIdObj instanceof Number || levelObj instanceof Number;
+
+        if (filtered && supervisor.isLegacyAgent()) {
+            // legacy agents never answer the filtered snapshot, hence the logs are not narrowed down
+            logger.atWarning().log("Agent does not support filtering the log snapshot by bundle or level");
+        } else if (filtered) {
+            final var hasRange = fromTimeObj instanceof Number && toTimeObj instanceof Number;
+            final var fromTime = hasRange ? ((Number) fromTimeObj).longValue() : Long.MIN_VALUE;
+            final var toTime   = hasRange ? ((Number) toTimeObj).longValue() : Long.MAX_VALUE;
+            final var bundleId = bundleIdObj instanceof Number number ? number.longValue() : -1L;
+            final var level    = levelObj instanceof Number number ? number.intValue() : 0;
+
+            final var snapshot = agent.getLogSnapshot(fromTime, toTime, bundleId, level);
+            logger.atInfo().log("Retrieved log snapshot (filtered): %s bytes", snapshot.length);
+            return snapshot;
+        }
 
         if (fromTimeObj instanceof Number fromNumber && toTimeObj instanceof Number toNumber) {
             final var fromTime = fromNumber.longValue();
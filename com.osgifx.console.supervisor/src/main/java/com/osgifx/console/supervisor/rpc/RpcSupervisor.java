@@ -25,21 +25,24 @@ import static org.osgi.service.component.annotations.ReferenceCardinality.OPTION
 import static org.osgi.service.component.annotations.ReferencePolicyOption.GREEDY;
 import static org.osgi.service.condition.Condition.CONDITION_ID;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Hashtable;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 import org.apache.aries.component.dsl.OSGiResult;
 import org.eclipse.fx.core.log.FluentLogger;
 import org.eclipse.fx.core.log.LoggerFactory;
 import org.osgi.framework.BundleContext;
-import org.osgi.framework.FrameworkUtil;
 import org.osgi.service.cm.ConfigurationAdmin;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -61,14 +64,18 @@ import com.hivemq.client.mqtt.lifecycle.MqttClientDisconnectedListener;
 import com.osgifx.console.agent.Agent;
 import com.osgifx.console.agent.dto.XEventDTO;
 import com.osgifx.console.agent.dto.XLogEntryDTO;
+import com.osgifx.console.agent.dto.XMetricsDTO;
+import com.osgifx.console.agent.rpc.codec.BinaryCodec;
 import com.osgifx.console.agent.rpc.mqtt.MqttRPC;
 import com.osgifx.console.agent.spi.payload.LargePayloadHandler;
 import com.osgifx.console.api.RpcProgressTracker;
 import com.osgifx.console.supervisor.EventListener;
 import com.osgifx.console.supervisor.LogEntryListener;
+import com.osgifx.console.supervisor.MetricsListener;
 import com.osgifx.console.supervisor.MqttConnection;
 import com.osgifx.console.supervisor.SocketConnection;
 import com.osgifx.console.supervisor.Supervisor;
+import com.osgifx.console.util.filter.FilterCompiler;
 
 @Component(property = MQTT_CONNECTION_LISTENER_FILTER_PROP)
 @SatisfyingConditionTarget("(" + CONDITION_ID + "=" + CONDITION_ID_VALUE + ")")
@@ -87,9 +94,12 @@ public final class RpcSupervisor extends AbstractRpcSupervisor<Supervisor, Agent
     private Appendable                 stderr;
     private int                        shell = -100;
     private CompletableFuture<Boolean> mqttConnectionPromise;
+    private volatile int               wireVersion = BinaryCodec.WIRE_V1;
+    private volatile boolean           legacyAgent = true;
 
     private final List<EventListener>    eventListeners    = Lists.newCopyOnWriteArrayList();
     private final List<LogEntryListener> logEntryListeners = Lists.newCopyOnWriteArrayList();
+    private final List<MetricsListener>  metricsListeners  = Lists.newCopyOnWriteArrayList();
     private final ReentrantLock          mqttLock          = new ReentrantLock();
 
     @Reference
@@ -137,10 +147,41 @@ public final class RpcSupervisor extends AbstractRpcSupervisor<Supervisor, Agent
         return remoteRPC instanceof MqttRPC<Supervisor, Agent> ? MQTT_RPC : SOCKET_RPC;
     }
 
+    @Override
+    public int getWireVersion() {
+        return wireVersion;
+    }
+
+    @Override
+    public boolean isLegacyAgent() {
+        return legacyAgent;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> callAsync(final Function<Agent, T> invocation) {
+        final var rpc = remoteRPC;
+        if (rpc == null || !rpc.isOpen()) {
+            return CompletableFuture.failedFuture(new IOException("Agent not connected"));
+        }
+        return rpc.callAsync(invocation);
+    }
+
+    @Override
+    public List<CompletableFuture<Object>> callBatch(final List<Function<Agent, ?>> invocations) {
+        final var rpc = remoteRPC;
+        if (rpc == null || !rpc.isOpen()) {
+            return invocations.stream()
+                              .map(_ -> CompletableFuture.<Object> failedFuture(new IOException("Agent not connected")))
+                              .toList();
+        }
+        return rpc.callBatch(invocations);
+    }
+
     @Override
     public void connect(final SocketConnection socketConnection) throws Exception {
         checkNotNull(socketConnection, "'socketConnection' cannot be null");
         connectToSocket(Agent.class, this, socketConnection);
+        negotiateWireVersion();
     }
 
     @Override
@@ -159,6 +200,7 @@ public final class RpcSupervisor extends AbstractRpcSupervisor<Supervisor, Agent
                                               MQTT_CONDITION_ID);
             // @formatter:on
             mqttConnectionPromise.get(mqttConnection.timeout(), MILLISECONDS);
+            negotiateWireVersion();
 
             final var lwtTopic = mqttConnection.lwtTopic();
             if (subscriber != null && !Strings.isNullOrEmpty(lwtTopic)) {
@@ -197,16 +239,60 @@ public final class RpcSupervisor extends AbstractRpcSupervisor<Supervisor, Agent
     public void onOSGiEvent(final XEventDTO event) {
         checkNotNull(event, "'event' cannot be null");
         for (final EventListener listener : eventListeners) {
-            if (matchTopic(event.topic, listener.topics()) && matchFilter(event, listener.filter())) {
+            if (matchTopic(event.topic, listener.topics()) && matchFilter(event, compileFilter(listener.filter()))) {
                 listener.onEvent(event);
             }
         }
     }
 
+    @Override
+    public void onOSGiEvents(final List<XEventDTO> events) {
+        checkNotNull(events, "'events' cannot be null");
+        for (final EventListener listener : eventListeners) {
+            final var topics  = listener.topics();
+            final var filter  = compileFilter(listener.filter());
+            final var matched = new ArrayList<XEventDTO>(events.size());
+            for (final XEventDTO event : events) {
+                if (matchTopic(event.topic, topics) && matchFilter(event, filter)) {
+                    matched.add(event);
+                }
+            }
+            if (!matched.isEmpty()) {
+                listener.onEvents(matched);
+            }
+        }
+    }
+
     @Override
     public void logged(final XLogEntryDTO logEvent) {
         checkNotNull(logEvent, "'logEvent' cannot be null");
-        logEntryListeners.forEach(listener -> listener.logged(logEvent));
+        for (final LogEntryListener listener : logEntryListeners) {
+            if (matchLog(logEvent, listener.bundleId(), listener.level())) {
+                listener.logged(logEvent);
+            }
+        }
+    }
+
+    @Override
+    public void onLogEntries(final List<XLogEntryDTO> logEvents) {
+        checkNotNull(logEvents, "'logEvents' cannot be null");
+        for (final LogEntryListener listener : logEntryListeners) {
+            final var bundleId = listener.bundleId();
+            final var level    = listener.level();
+            final var matched  = bundleId < 0 && level <= 0 ? logEvents
+                    : logEvents.stream().filter(e -> matchLog(e, bundleId, level)).toList();
+            if (!matched.isEmpty()) {
+                listener.logged(matched);
+            }
+        }
+    }
+
+    @Override
+    public void onMetrics(final XMetricsDTO metrics) {
+        checkNotNull(metrics, "'metrics' cannot be null");
+        for (final MetricsListener listener : metricsListeners) {
+            listener.onMetrics(metrics);
+        }
     }
 
     @Override
@@ -216,6 +302,7 @@ public final class RpcSupervisor extends AbstractRpcSupervisor<Supervisor, Agent
             return;
         }
         eventListeners.add(eventListener);
+        updateEventSubscription();
         sendEvent(EVENT_LISTENER_ADDED_EVENT_TOPIC);
     }
 
@@ -223,9 +310,18 @@ public final class RpcSupervisor extends AbstractRpcSupervisor<Supervisor, Agent
     public void removeOSGiEventListener(final EventListener eventListener) {
         checkNotNull(eventListener, "'eventListener' cannot be null");
         eventListeners.remove(eventListener);
+        updateEventSubscription();
         sendEvent(EVENT_LISTENER_REMOVED_EVENT_TOPIC);
     }
 
+    @Override
+    public void updateOSGiEventListener(final EventListener eventListener) {
+        checkNotNull(eventListener, "'eventListener' cannot be null");
+        if (eventListeners.contains(eventListener)) {
+            updateEventSubscription();
+        }
+    }
+
     @Override
     public void addOSGiLogListener(final LogEntryListener logEntryListener) {
         checkNotNull(logEntryListener, "'logEntryListener' cannot be null");
@@ -233,6 +329,7 @@ public final class RpcSupervisor extends AbstractRpcSupervisor<Supervisor, Agent
             return;
         }
         logEntryListeners.add(logEntryListener);
+        updateLogSubscription();
         sendEvent(LOG_LISTENER_ADDED_EVENT_TOPIC);
     }
 
@@ -240,9 +337,31 @@ public final class RpcSupervisor extends AbstractRpcSupervisor<Supervisor, Agent
     public void removeOSGiLogListener(final LogEntryListener logEntryListener) {
         checkNotNull(logEntryListener, "'logEntryListener' cannot be null");
         logEntryListeners.remove(logEntryListener);
+        updateLogSubscription();
         sendEvent(LOG_LISTENER_REMOVED_EVENT_TOPIC);
     }
 
+    @Override
+    public void addMetricsListener(final MetricsListener metricsListener) {
+        checkNotNull(metricsListener, "'metricsListener' cannot be null");
+        if (metricsListeners.contains(metricsListener)) {
+            return;
+        }
+        metricsListeners.add(metricsListener);
+        updateMetricsSubscription();
+        sendEvent(METRICS_LISTENER_ADDED_EVENT_TOPIC);
+    }
+
+    @Override
+    public void removeMetricsListener(final MetricsListener metricsListener) {
+        checkNotNull(metricsListener, "'metricsListener' cannot be null");
+        if (!metricsListeners.remove(metricsListener)) {
+            return;
+        }
+        updateMetricsSubscription();
+        sendEvent(METRICS_LISTENER_REMOVED_EVENT_TOPIC);
+    }
+
     @Override
     public void onConnected(final MqttClientConnectedContext context) {
         mqttLock.lock();
@@ -332,6 +451,8 @@ public final class RpcSupervisor extends AbstractRpcSupervisor<Supervisor, Agent
             getAgent().disconnect();
             remoteRPC.close();
         }
+        wireVersion           = BinaryCodec.WIRE_V1;
+        legacyAgent           = true;
         mqttConnectionPromise = null;
         // this will be called when the agent is disconnected to deregister the service
         Optional.ofNullable(mqttMessagingCondition).ifPresent(OSGiResult::close);
@@ -345,6 +466,162 @@ public final class RpcSupervisor extends AbstractRpcSupervisor<Supervisor, Agent
         }
     }
 
+    private void negotiateWireVersion() {
+        final var rpc = remoteRPC;
+        wireVersion = BinaryCodec.WIRE_V1;
+        legacyAgent = true;
+        // agents that do not know the command never reply, hence the connection must not wait for it
+        Thread.ofVirtual().name("fx-supervisor-wire-negotiation").start(() -> {
+            try {
+                final var version = getRawAgent().negotiateWireVersion(BinaryCodec.WIRE_V2);
+                if (rpc != remoteRPC) {
+                    // the agent has been disconnected in the meantime
+                    return;
+                }
+                rpc.setWireVersion(version);
+                wireVersion = version;
+                legacyAgent = false;
+                logger.atInfo().log("Agreed on binary wire format version %s", version);
+            } catch (final Exception e) {
+                logger.atWarning().withException(e).log("Binary wire format negotiation failed, using version %s",
+                        BinaryCodec.WIRE_V1);
+                return;
+            }
+            // the subscriptions are only understood by agents answering the negotiation
+            updateEventSubscription();
+            updateLogSubscription();
+            if (!metricsListeners.isEmpty()) {
+                updateMetricsSubscription();
+            }
+        });
+    }
+
+    /**
+     * Pushes the union of the topics and filters of all event listeners down to the agent,
+     * such that only the events required by at least one listener cross the wire. The
+     * listeners still match every received event against their own topics and filter.
+     * Once the last listener has been removed, the subscription gets cleared.
+     */
+    private void updateEventSubscription() {
+        final var rpc = remoteRPC;
+        if (legacyAgent || rpc == null || !rpc.isOpen()) {
+            return;
+        }
+        if (eventListeners.isEmpty()) {
+            try {
+                getRawAgent().subscribeEvents(List.of(), null);
+                logger.atInfo().log("Cleared the event subscription");
+            } catch (final Exception e) {
+                logger.atWarning().withException(e).log("Event subscription cannot be cleared");
+            }
+            return;
+        }
+        final var topics    = new LinkedHashSet<String>();
+        final var filters   = new LinkedHashSet<String>();
+        var       filterAll = true;
+        for (final EventListener listener : eventListeners) {
+            topics.addAll(listener.topics());
+            final var filter = listener.filter();
+            if (Strings.isNullOrEmpty(filter)) {
+                filterAll = false;
+            } else {
+                filters.add(filter);
+            }
+        }
+        final String filter;
+        if (!filterAll) {
+            filter = null;
+        } else if (filters.size() == 1) {
+            filter = filters.getFirst();
+        } else {
+            filter = "(|" + String.join("", filters) + ")";
+        }
+        try {
+            getRawAgent().subscribeEvents(List.copyOf(topics), filter);
+            logger.atInfo().log("Subscribed to the events of topics %s with filter '%s'", topics, filter);
+        } catch (final Exception e) {
+            logger.atWarning().withException(e).log("Event subscription cannot be updated");
+        }
+    }
+
+    /**
+     * Pushes the widest bundle and level of all log listeners down to the agent, such that
+     * only the logs required by at least one listener cross the wire.
+     */
+    private void updateLogSubscription() {
+        final var rpc = remoteRPC;
+        if (logEntryListeners.isEmpty() || legacyAgent || rpc == null || !rpc.isOpen()) {
+            return;
+        }
+        var bundleId  = logEntryListeners.getFirst().bundleId();
+        var level     = 0;
+        var allLevels = false;
+        for (final LogEntryListener listener : logEntryListeners) {
+            if (listener.bundleId() != bundleId) {
+                bundleId = -1;
+            }
+            if (listener.level() <= 0) {
+                allLevels = true;
+            }
+            level = Math.max(level, listener.level());
+        }
+        if (allLevels) {
+            level = 0;
+        }
+        try {
+            getRawAgent().subscribeLogs(bundleId, level);
+            logger.atInfo().log("Subscribed to the logs of bundle %s with level %s", bundleId, level);
+        } catch (final Exception e) {
+            logger.atWarning().withException(e).log("Log subscription cannot be updated");
+        }
+    }
+
+    /**
+     * Pushes the finest resolution of all metrics listeners down to the agent, or cancels
+     * the subscription once the last listener has been removed, such that the agent only
+     * pushes metrics as long as they are required.
+     */
+    private void updateMetricsSubscription() {
+        final var rpc = remoteRPC;
+        if (legacyAgent || rpc == null || !rpc.isOpen()) {
+            return;
+        }
+        var resolution = 0L;
+        for (final MetricsListener listener : metricsListeners) {
+            // the sampling interval of the agent is the finest resolution anyway
+            final var listenerResolution = Math.max(1, listener.resolution());
+            resolution = resolution == 0 ? listenerResolution : Math.min(resolution, listenerResolution);
+        }
+        try {
+            getRawAgent().subscribeMetrics(resolution);
+            if (resolution == 0) {
+                logger.atInfo().log("Unsubscribed from the metrics");
+            } else {
+                logger.atInfo().log("Subscribed to the metrics with resolution %s ms", resolution);
+            }
+        } catch (final Exception e) {
+            logger.atWarning().withException(e).log("Metrics subscription cannot be updated");
+        }
+    }
+
+    private static boolean matchLog(final XLogEntryDTO logEvent, final long bundleId, final int level) {
+        if (bundleId >= 0 && (logEvent.bundle == null || logEvent.bundle.id != bundleId)) {
+            return false;
+        }
+        return level <= 0 || severity(logEvent.level) <= level;
+    }
+
+    private static int severity(final String level) {
+        return switch (Strings.nullToEmpty(level)) {
+            case "AUDIT" -> 0;
+            case "ERROR" -> 1;
+            case "WARN" -> 2;
+            case "DEBUG" -> 4;
+            case "TRACE" -> 5;
+            default -> 3;
+        };
+    }
+
     private static boolean matchTopic(final String receivedEventTopic, final Collection<String> listenerTopics) {
         if (listenerTopics.contains("*")) {
             return true;
@@ -370,17 +647,23 @@ public final class RpcSupervisor extends AbstractRpcSupervisor<Supervisor, Agent
         return false;
     }
 
-    private boolean matchFilter(final XEventDTO event, final String filter) {
+    private Predicate<Map<String, ?>> compileFilter(final String filter) {
         if (Strings.isNullOrEmpty(filter)) {
-            return true;
+            return null;
         }
         try {
-            final var osgiFilter = FrameworkUtil.createFilter(filter);
-            return osgiFilter.match(new Hashtable<>(event.properties));
+            return FilterCompiler.compile(filter);
         } catch (final Exception e) {
             logger.atError().withException(e).log("Invalid LDAP filter: %s", filter);
-            return false;
+            return properties -> false;
+        }
+    }
+
+    private boolean matchFilter(final XEventDTO event, final Predicate<Map<String, ?>> filter) {
+        if (filter == null) {
+            return true;
         }
+        return filter.test(event.properties == null ? Map.of() : event.properties);
     }
 
     private void sendEvent(final String topic) {
@@ -18,6 +18,7 @@ package com.osgifx.console.supervisor.snapshot;
 import static com.osgifx.console.supervisor.snapshot.SnapshotAgent.PID;
 
 import java.io.FileReader;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -50,6 +51,7 @@ import com.osgifx.console.agent.dto.XHeapUsageDTO;
 import com.osgifx.console.agent.dto.XHttpComponentDTO;
 import com.osgifx.console.agent.dto.XJaxRsComponentDTO;
 import com.osgifx.console.agent.dto.XMemoryInfoDTO;
+import com.osgifx.console.agent.dto.XMetricsDTO;
 import com.osgifx.console.agent.dto.XPropertyDTO;
 import com.osgifx.console.agent.dto.XResultDTO;
 import com.osgifx.console.agent.dto.XRoleDTO;
@@ -57,8 +59,10 @@ import com.osgifx.console.agent.dto.XRoleDTO.Type;
 import com.osgifx.console.agent.dto.XRuntimeCapabilityDTO;
 import com.osgifx.console.agent.dto.XServiceDTO;
 import com.osgifx.console.agent.dto.XThreadDTO;
+import com.osgifx.console.agent.dto.XTransferDTO;
 import com.osgifx.console.agent.rpc.codec.BinaryCodec;
 import com.osgifx.console.agent.rpc.codec.Lz4Codec;
+import com.osgifx.console.agent.rpc.codec.SnapshotDelta;
 import com.osgifx.console.dto.SnapshotDTO;
 
 @Component(service = { SnapshotAgent.class, Agent.class }, configurationPid = PID)
@@ -159,6 +163,11 @@ public final class SnapshotAgent implements Agent {
         return true;
     }
 
+    @Override
+    public int negotiateWireVersion(final int maxVersion) {
+        return BinaryCodec.WIRE_V1;
+    }
+
     @Override
     public void refresh() throws InterruptedException {
         // nothing to do
@@ -290,6 +299,11 @@ public final class SnapshotAgent implements Agent {
         return snapshotDTO.memoryInfo;
     }
 
+    @Override
+    public XMetricsDTO getMetrics(final long resolution, final long since) {
+        return null;
+    }
+
     @Override
     public Set<String> getGogoCommands() {
         return Collections.emptySet();
@@ -375,6 +389,26 @@ public final class SnapshotAgent implements Agent {
         return null;
     }
 
+    @Override
+    public XTransferDTO openHeapdumpTransfer() throws Exception {
+        return null;
+    }
+
+    @Override
+    public XTransferDTO openThreadDumpTransfer() throws Exception {
+        return null;
+    }
+
+    @Override
+    public byte[] readTransferChunk(final String transferId, final long offset) throws Exception {
+        return new byte[0];
+    }
+
+    @Override
+    public void closeTransfer(final String transferId) {
+        // nothing to do
+    }
+
     @Override
     public void gc() {
         // nothing to do
@@ -390,6 +424,11 @@ public final class SnapshotAgent implements Agent {
         return new byte[0];
     }
 
+    @Override
+    public byte[] getLogSnapshot(long fromTime, long toTime, long bundleId, int level) {
+        return new byte[0];
+    }
+
     @Override
     public boolean isReceivingLogEnabled() {
         return false;
@@ -405,6 +444,11 @@ public final class SnapshotAgent implements Agent {
         // nothing to do
     }
 
+    @Override
+    public void subscribeLogs(final long bundleId, final int level) {
+        // nothing to do
+    }
+
     @Override
     public boolean isReceivingEventEnabled() {
         return false;
@@ -420,6 +464,16 @@ public final class SnapshotAgent implements Agent {
         // nothing to do
     }
 
+    @Override
+    public void subscribeEvents(final List<String> topics, final String filter) {
+        // nothing to do
+    }
+
+    @Override
+    public void subscribeMetrics(final long resolution) {
+        // nothing to do
+    }
+
     @Override
     public long estimateHeapdumpSize() {
         return 0L;
@@ -430,6 +484,26 @@ public final class SnapshotAgent implements Agent {
         return 0L;
     }
 
+    @Override
+    public boolean startProfiling(final long interval, final long duration) {
+        return false;
+    }
+
+    @Override
+    public void stopProfiling() {
+        // nothing to do
+    }
+
+    @Override
+    public byte[] profile() {
+        return new byte[0];
+    }
+
+    @Override
+    public byte[] classHistogram(final boolean isLiveOnly) {
+        return new byte[0];
+    }
+
     @Override
     public String createHeapdumpLocally(final String outputPath) throws Exception {
         return null;
@@ -480,16 +554,31 @@ public final class SnapshotAgent implements Agent {
         return encode(snapshotDTO.bundles);
     }
 
+    @Override
+    public byte[] bundles(final long sinceVersion) {
+        return encodeFull(snapshotDTO.bundles);
+    }
+
     @Override
     public byte[] components() {
         return encode(snapshotDTO.components);
     }
 
+    @Override
+    public byte[] components(final long sinceVersion) {
+        return encodeFull(snapshotDTO.components);
+    }
+
     @Override
     public byte[] services() {
         return encode(snapshotDTO.services);
     }
 
+    @Override
+    public byte[] services(final long sinceVersion) {
+        return encodeFull(snapshotDTO.services);
+    }
+
     @Override
     public byte[] configurations() {
         return encode(snapshotDTO.configurations);
@@ -580,4 +669,18 @@ public final class SnapshotAgent implements Agent {
         }
     }
 
+    // snapshots are static, hence always the full list without a version to be resumed from
+    private <T> byte[] encodeFull(final List<T> data) {
+        final List<T>      items = data == null ? Collections.emptyList() : data;
+        final List<String> keys  = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            keys.add(String.valueOf(i));
+        }
+        try {
+            return SnapshotDelta.full(-1, keys, items).encode(codec);
+        } catch (final Exception e) {
+            return new byte[0];
+        }
+    }
+
 }
@@ -19,6 +19,7 @@ import static com.osgifx.console.supervisor.snapshot.SnapshotSupervisor.CONDITIO
 import static org.osgi.service.condition.Condition.CONDITION_ID;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.eclipse.fx.core.log.FluentLogger;
 import org.eclipse.fx.core.log.LoggerFactory;
@@ -36,6 +37,7 @@ import com.osgifx.console.agent.dto.XLogEntryDTO;
 import com.osgifx.console.agent.spi.payload.LargePayloadHandler;
 import com.osgifx.console.supervisor.EventListener;
 import com.osgifx.console.supervisor.LogEntryListener;
+import com.osgifx.console.supervisor.MetricsListener;
 import com.osgifx.console.supervisor.MqttConnection;
 import com.osgifx.console.supervisor.SocketConnection;
 import com.osgifx.console.supervisor.Supervisor;
@@ -102,11 +104,21 @@ public final class SnapshotSupervisor implements Supervisor {
         logger.atInfo().log(NOT_IMPLEMENTED_LOG);
     }
 
+    @Override
+    public void onOSGiEvents(final List<XEventDTO> events) {
+        logger.atInfo().log(NOT_IMPLEMENTED_LOG);
+    }
+
     @Override
     public void logged(final XLogEntryDTO event) {
         logger.atInfo().log(NOT_IMPLEMENTED_LOG);
     }
 
+    @Override
+    public void onLogEntries(final List<XLogEntryDTO> events) {
+        logger.atInfo().log(NOT_IMPLEMENTED_LOG);
+    }
+
     @Override
     public void addOSGiEventListener(final EventListener eventListener) {
         logger.atInfo().log(NOT_IMPLEMENTED_LOG);
@@ -127,6 +139,16 @@ public final class SnapshotSupervisor implements Supervisor {
         logger.atInfo().log(NOT_IMPLEMENTED_LOG);
     }
 
+    @Override
+    public void addMetricsListener(final MetricsListener metricsListener) {
+        logger.atInfo().log(NOT_IMPLEMENTED_LOG);
+    }
+
+    @Override
+    public void removeMetricsListener(final MetricsListener metricsListener) {
+        logger.atInfo().log(NOT_IMPLEMENTED_LOG);
+    }
+
     @Override
     public Agent getAgent() {
         return agent;
@@ -23,9 +23,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
-import org.jgrapht.Graph;
 import org.jgrapht.graph.DefaultEdge;
-import org.jgrapht.graph.SimpleDirectedGraph;
 import org.jgrapht.traverse.BreadthFirstIterator;
 
 import com.osgifx.console.agent.dto.XBundleDTO;
@@ -33,10 +31,23 @@ import com.osgifx.console.agent.dto.XComponentDTO;
 
 public final class ImpactAnalyzer {
 
+    // the index of the last analyzed snapshot, reused until the bundles or components change
+    private static volatile ImpactIndex lastIndex;
+
     private ImpactAnalyzer() {
         throw new IllegalAccessError("Cannot be instantiated");
     }
 
+    private static ImpactIndex index(final Collection<XBundleDTO> allBundles,
+                                     final Collection<XComponentDTO> allComponents) {
+        var index = lastIndex;
+        if (index == null || !index.isSnapshotOf(allBundles, allComponents)) {
+            index     = new ImpactIndex(allBundles, allComponents);
+            lastIndex = index;
+        }
+        return index;
+    }
+
     private static boolean isMatch(final String interface1, final String interface2) {
         if (interface1 == null || interface2 == null) {
             return false;
@@ -63,17 +74,17 @@ public final class ImpactAnalyzer {
     public static List<XImpactDTO> calculateStartImpact(final Collection<XBundleDTO> bundlesToStart,
                                                         final Collection<XBundleDTO> allBundles,
                                                         final Collection<XComponentDTO> allComponents) {
-        final List<XImpactDTO>               impacts      = new ArrayList<>();
-        final Graph<XBundleDTO, DefaultEdge> graph        = buildBundleDependencyGraph(allBundles);
-        final Set<Long>                      toStartIds   = bundlesToStart.stream().map(b -> b.id).collect(toSet());
-        final Set<String>                    alreadyAdded = bundlesToStart.stream().map(b -> b.symbolicName)
-                .collect(toSet());
+        final List<XImpactDTO> impacts      = new ArrayList<>();
+        final ImpactIndex      index        = index(allBundles, allComponents);
+        final Set<Long>        toStartIds   = bundlesToStart.stream().map(b -> b.id).collect(toSet());
+        final Set<String>      alreadyAdded = bundlesToStart.stream().map(b -> b.symbolicName).collect(toSet());
 
         final Set<String> alreadyAddedComponents = new HashSet<>();
 
         for (final XBundleDTO bundle : bundlesToStart) {
             // 1. Trace Package Dependencies (WIRING)
-            final BreadthFirstIterator<XBundleDTO, DefaultEdge> bfs = new BreadthFirstIterator<>(graph, bundle);
+            final BreadthFirstIterator<XBundleDTO, DefaultEdge> bfs = new BreadthFirstIterator<>(index.wiringGraph(),
+                                                                                                 bundle);
             while (bfs.hasNext()) {
                 final XBundleDTO affected = bfs.next();
                 if (!toStartIds.contains(affected.id) && !alreadyAdded.contains(affected.symbolicName)) {
@@ -96,17 +107,19 @@ public final class ImpactAnalyzer {
             final Set<String> servicesToBeRegistered = new HashSet<>();
 
             // 1. Services from starting components
-            final Set<String> componentServices = allComponents.stream()
-                    .filter(c -> toStartIds.contains(c.registeringBundleId)).filter(c -> c.serviceInterfaces != null)
-                    .flatMap(c -> c.serviceInterfaces.stream()).collect(toSet());
-            servicesToBeRegistered.addAll(componentServices);
+            for (final XComponentDTO component : index.componentsOf(toStartIds)) {
+                if (component.serviceInterfaces != null) {
+                    servicesToBeRegistered.addAll(component.serviceInterfaces);
+                }
+            }
 
             // 2. Services from starting bundles themselves
             final Set<String> bundleServices = bundlesToStart.stream().filter(b -> b.registeredServices != null)
                     .flatMap(b -> b.registeredServices.stream()).map(s -> s.objectClass).collect(toSet());
             servicesToBeRegistered.addAll(bundleServices);
 
-            for (final XComponentDTO component : allComponents) {
+            // only the starting components and the ones referring to the new services can be affected
+            for (final XComponentDTO component : index.componentsAffectedBy(toStartIds, servicesToBeRegistered)) {
                 // Skip components already in the starting bundles or already added
                 if (toStartIds.contains(component.registeringBundleId)
                         || alreadyAddedComponents.contains(component.name)) {
@@ -153,15 +166,17 @@ public final class ImpactAnalyzer {
                                                        final Collection<XBundleDTO> bundlesToStop,
                                                        final Collection<XBundleDTO> allBundles,
                                                        final Collection<XComponentDTO> allComponents) {
-        final List<XImpactDTO>               impacts = new ArrayList<>();
-        final Graph<XBundleDTO, DefaultEdge> graph   = buildBundleDependencyGraph(allBundles);
+        final List<XImpactDTO> impacts = new ArrayList<>();
+        final ImpactIndex      index   = index(allBundles, allComponents);
 
         final Set<Long>   bundlesToStopIds       = bundlesToStop.stream().map(b -> b.id).collect(toSet());
+        final Set<String> bundlesToStopSn        = bundlesToStop.stream().map(b -> b.symbolicName).collect(toSet());
         final Set<String> alreadyAddedComponents = new HashSet<>();
 
         for (final XBundleDTO bundle : bundlesToStop) {
             // 1. Trace Package Dependencies (WIRING)
-            final BreadthFirstIterator<XBundleDTO, DefaultEdge> bfs = new BreadthFirstIterator<>(graph, bundle);
+            final BreadthFirstIterator<XBundleDTO, DefaultEdge> bfs = new BreadthFirstIterator<>(index.wiringGraph(),
+                                                                                                 bundle);
             while (bfs.hasNext()) {
                 final XBundleDTO affected = bfs.next();
                 if (!bundlesToStopIds.contains(affected.id)) {
@@ -183,13 +198,8 @@ public final class ImpactAnalyzer {
                 final Set<String> registeredServiceInterfaces = bundle.registeredServices.stream()
                         .map(s -> s.objectClass).collect(toSet());
 
-                for (final XBundleDTO consumer : allBundles) {
-                    if (bundlesToStopIds.contains(consumer.id) || consumer.usedServices == null) {
-                        continue;
-                    }
-                    final boolean usesService = consumer.usedServices.stream()
-                            .anyMatch(s -> registeredServiceIds.contains(s.id));
-                    if (usesService) {
+                for (final XBundleDTO consumer : index.consumersOf(registeredServiceIds)) {
+                    if (!bundlesToStopIds.contains(consumer.id)) {
                         impacts.add(
                                 new XImpactDTO(consumer.symbolicName, "SERVICE_UNBIND",
                                                "Service consumers will be unbound immediately upon stopping the target."));
@@ -197,68 +207,43 @@ public final class ImpactAnalyzer {
                 }
                 // 3. Trace SCR Component Dependencies
                 if (allComponents != null) {
-                    final Set<String> bundlesToStopSn = bundlesToStop.stream().map(b -> b.symbolicName)
-                            .collect(toSet());
-                    for (final XComponentDTO component : allComponents) {
+                    for (final XComponentDTO component : index.componentsBoundTo(registeredServiceInterfaces)) {
                         // Skip components in the stopping bundles or already added
                         if (bundlesToStopIds.contains(component.registeringBundleId)
                                 || alreadyAddedComponents.contains(component.name)) {
                             continue;
                         }
 
-                        if (component.satisfiedReferences != null) {
-                            for (final var ref : component.satisfiedReferences) {
-                                if (matchesAny(ref.objectClass, registeredServiceInterfaces)) {
-                                    final var refDef = component.references.stream()
-                                            .filter(r -> r.name.equals(ref.name)).findFirst();
-
-                                    if (refDef.isPresent()) {
-                                        final String  cardinality = refDef.get().cardinality;
-                                        final boolean isMandatory = cardinality.startsWith("1");
+                        for (final var ref : component.satisfiedReferences) {
+                            if (matchesAny(ref.objectClass, registeredServiceInterfaces)) {
+                                final var refDef = component.references.stream().filter(r -> r.name.equals(ref.name))
+                                        .findFirst();
 
-                                        if (isMandatory) {
-                                            // Check if there are other providers for this mandatory service
-                                            final long otherProvidersCount = allComponents.stream()
-                                                    .filter(c -> !alreadyAddedComponents.contains(c.name))
-                                                    .filter(c -> !bundlesToStopSn.contains(c.registeringBundle)) // current
-                                                                                                                 // component's
-                                                                                                                 // bundle
-                                                                                                                 // might
-                                                                                                                 // be
-                                                                                                                 // stopping
-                                                    .filter(c -> c.state.equals("SATISFIED")
-                                                            || c.state.equals("ACTIVE"))
-                                                    .filter(c -> c.serviceInterfaces != null
-                                                            && matchesAny(ref.objectClass, c.serviceInterfaces))
-                                                    .count();
+                                if (refDef.isPresent()) {
+                                    final String  cardinality = refDef.get().cardinality;
+                                    final boolean isMandatory = cardinality.startsWith("1");
 
-                                            // Also check bundles that are not stopping and registered this service
-                                            final long otherBundleProvidersCount = allBundles.stream()
-                                                    .filter(b -> !bundlesToStopSn.contains(b.symbolicName))
-                                                    .filter(b -> b.registeredServices != null)
-                                                    .filter(b -> b.registeredServices.stream()
-                                                            .anyMatch(s -> isMatch(ref.objectClass, s.objectClass)))
-                                                    .count();
-
-                                            if (otherProvidersCount + otherBundleProvidersCount == 0) {
-                                                impacts.add(
-                                                        new XImpactDTO(component.name, "DEACTIVATION",
-                                                                       "Mandatory service reference '" + ref.name
-                                                                               + "' will be unsatisfied, leading to component deactivation."));
-                                                alreadyAddedComponents.add(component.name);
-                                            } else {
-                                                impacts.add(
-                                                        new XImpactDTO(component.name, "SERVICE_UNBIND",
-                                                                       "One of the providers for mandatory service reference '"
-                                                                               + ref.name + "' will be gone."));
-                                                alreadyAddedComponents.add(component.name);
-                                            }
+                                    if (isMandatory) {
+                                        // Check if there are other providers for this mandatory service
+                                        if (!hasOtherProvider(index, ref.objectClass, bundlesToStopSn,
+                                                alreadyAddedComponents)) {
+                                            impacts.add(
+                                                    new XImpactDTO(component.name, "DEACTIVATION",
+                                                                   "Mandatory service reference '" + ref.name
+                                                                           + "' will be unsatisfied, leading to component deactivation."));
+                                            alreadyAddedComponents.add(component.name);
                                         } else {
-                                            impacts.add(new XImpactDTO(component.name, "SERVICE_UNBIND",
-                                                                       "Optional service reference '" + ref.name
-                                                                               + "' will be unbound."));
+                                            impacts.add(
+                                                    new XImpactDTO(component.name, "SERVICE_UNBIND",
+                                                                   "One of the providers for mandatory service reference '"
+                                                                           + ref.name + "' will be gone."));
                                             alreadyAddedComponents.add(component.name);
                                         }
+                                    } else {
+                                        impacts.add(new XImpactDTO(component.name, "SERVICE_UNBIND",
+                                                                   "Optional service reference '" + ref.name
+                                                                           + "' will be unbound."));
+                                        alreadyAddedComponents.add(component.name);
                                     }
                                 }
                             }
@@ -270,26 +255,23 @@ public final class ImpactAnalyzer {
         return impacts;
     }
 
-    private static Graph<XBundleDTO, DefaultEdge> buildBundleDependencyGraph(final Collection<XBundleDTO> allBundles) {
-        final Graph<XBundleDTO, DefaultEdge> graph = new SimpleDirectedGraph<>(DefaultEdge.class);
-        allBundles.forEach(graph::addVertex);
-
-        for (final XBundleDTO bundle : allBundles) {
-            if (bundle.importedPackages == null) {
-                continue;
+    private static boolean hasOtherProvider(final ImpactIndex index,
+                                            final String serviceInterface,
+                                            final Set<String> bundlesToStopSn,
+                                            final Set<String> alreadyAddedComponents) {
+        // the components of the stopping bundles are no providers anymore
+        for (final XComponentDTO provider : index.providersOf(serviceInterface)) {
+            if (!alreadyAddedComponents.contains(provider.name) && !bundlesToStopSn.contains(provider.registeringBundle)
+                    && ("SATISFIED".equals(provider.state) || "ACTIVE".equals(provider.state))) {
+                return true;
             }
-            final Set<String> importedPackages = bundle.importedPackages.stream().map(p -> p.name).collect(toSet());
-            for (final XBundleDTO provider : allBundles) {
-                if (bundle == provider || provider.exportedPackages == null) {
-                    continue;
-                }
-                final boolean providesPackage = provider.exportedPackages.stream()
-                        .anyMatch(p -> importedPackages.contains(p.name));
-                if (providesPackage) {
-                    graph.addEdge(provider, bundle);
-                }
+        }
+        // also check the bundles that are not stopping and registered this service
+        for (final XBundleDTO provider : index.registrarsOf(serviceInterface)) {
+            if (!bundlesToStopSn.contains(provider.symbolicName)) {
+                return true;
             }
         }
-        return graph;
+        return false;
     }
 }
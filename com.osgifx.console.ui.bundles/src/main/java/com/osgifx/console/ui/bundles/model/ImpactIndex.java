@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.bundles.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.SimpleDirectedGraph;
+
+import com.osgifx.console.agent.dto.XBundleDTO;
+import com.osgifx.console.agent.dto.XComponentDTO;
+
+/**
+ * The reverse indexes of a bundle and component snapshot which are required to compute
+ * the impacts of starting or stopping bundles.
+ * <p>
+ * The bundles and components are referred to by their position in the snapshot, hence
+ * the union of several lookups can be iterated in the order of the snapshot. Service
+ * interfaces are indexed by every single name of a comma-separated list of interfaces.
+ */
+final class ImpactIndex {
+
+    private final List<XBundleDTO>    bundles;
+    private final List<XComponentDTO> components;
+
+    private final Graph<XBundleDTO, DefaultEdge> wiringGraph;
+
+    private final Map<Long, BitSet>   serviceConsumers      = new HashMap<>();
+    private final Map<String, BitSet> serviceRegistrars     = new HashMap<>();
+    private final Map<Long, BitSet>   bundleComponents      = new HashMap<>();
+    private final Map<String, BitSet> providingComponents   = new HashMap<>();
+    private final Map<String, BitSet> boundComponents       = new HashMap<>();
+    private final Map<String, BitSet> referencingComponents = new HashMap<>();
+
+    ImpactIndex(final Collection<XBundleDTO> allBundles, final Collection<XComponentDTO> allComponents) {
+        bundles     = new ArrayList<>(allBundles);
+        components  = allComponents == null ? null : new ArrayList<>(allComponents);
+        wiringGraph = buildWiringGraph(bundles);
+
+        for (var i = 0; i < bundles.size(); i++) {
+            final var bundle = bundles.get(i);
+            if (bundle.usedServices != null) {
+                for (final var service : bundle.usedServices) {
+                    index(serviceConsumers, service.id, i);
+                }
+            }
+            if (bundle.registeredServices != null) {
+                for (final var service : bundle.registeredServices) {
+                    index(serviceRegistrars, interfaces(service.objectClass), i);
+                }
+            }
+        }
+        if (components == null) {
+            return;
+        }
+        for (var i = 0; i < components.size(); i++) {
+            final var component = components.get(i);
+            index(bundleComponents, component.registeringBundleId, i);
+            if (component.serviceInterfaces != null) {
+                for (final var serviceInterface : component.serviceInterfaces) {
+                    index(providingComponents, interfaces(serviceInterface), i);
+                }
+            }
+            if (component.satisfiedReferences != null) {
+                for (final var reference : component.satisfiedReferences) {
+                    index(boundComponents, interfaces(reference.objectClass), i);
+                }
+            }
+            if (component.references != null) {
+                for (final var reference : component.references) {
+                    index(referencingComponents, interfaces(reference.interfaceName), i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether this index has been built from the specified bundles and components.
+     * The data suppliers retain the unchanged DTOs, hence a snapshot is identified by the
+     * identity of its DTOs.
+     */
+    boolean isSnapshotOf(final Collection<XBundleDTO> allBundles, final Collection<XComponentDTO> allComponents) {
+        return sameElements(bundles, allBundles) && sameElements(components, allComponents);
+    }
+
+    /**
+     * Returns the graph of the package wirings in which every exporter has an edge to
+     * every bundle importing one of its packages.
+     */
+    Graph<XBundleDTO, DefaultEdge> wiringGraph() {
+        return wiringGraph;
+    }
+
+    /**
+     * Returns the bundles using any of the services with the specified IDs.
+     */
+    Iterable<XBundleDTO> consumersOf(final Collection<Long> serviceIds) {
+        return lookup(serviceConsumers, serviceIds, bundles);
+    }
+
+    /**
+     * Returns the bundles registering a service with any of the specified interfaces.
+     */
+    Iterable<XBundleDTO> registrarsOf(final String serviceInterfaces) {
+        return lookup(serviceRegistrars, interfaces(serviceInterfaces), bundles);
+    }
+
+    /**
+     * Returns the components of the bundles with the specified IDs.
+     */
+    Iterable<XComponentDTO> componentsOf(final Collection<Long> bundleIds) {
+        return lookup(bundleComponents, bundleIds, components);
+    }
+
+    /**
+     * Returns the components declaring a service with any of the specified interfaces.
+     */
+    Iterable<XComponentDTO> providersOf(final String serviceInterfaces) {
+        return lookup(providingComponents, interfaces(serviceInterfaces), components);
+    }
+
+    /**
+     * Returns the components having a satisfied reference to any of the specified
+     * interfaces.
+     */
+    Iterable<XComponentDTO> componentsBoundTo(final Collection<String> serviceInterfaces) {
+        return lookup(boundComponents, interfaces(serviceInterfaces), components);
+    }
+
+    /**
+     * Returns the components of the bundles with the specified IDs together with the
+     * components declaring a reference to any of the specified interfaces.
+     */
+    Iterable<XComponentDTO> componentsAffectedBy(final Collection<Long> bundleIds,
+                                                 final Collection<String> serviceInterfaces) {
+        final var positions = positions(bundleComponents, bundleIds);
+        positions.or(positions(referencingComponents, interfaces(serviceInterfaces)));
+        return elements(positions, components);
+    }
+
+    static Set<String> interfaces(final String serviceInterfaces) {
+        final Set<String> result = new HashSet<>();
+        if (serviceInterfaces != null) {
+            for (final var serviceInterface : serviceInterfaces.split(",")) {
+                result.add(serviceInterface.trim());
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> interfaces(final Collection<String> serviceInterfaces) {
+        final Set<String> result = new HashSet<>();
+        for (final var serviceInterface : serviceInterfaces) {
+            result.addAll(interfaces(serviceInterface));
+        }
+        return result;
+    }
+
+    private static Graph<XBundleDTO, DefaultEdge> buildWiringGraph(final List<XBundleDTO> bundles) {
+        final Graph<XBundleDTO, DefaultEdge> graph     = new SimpleDirectedGraph<>(DefaultEdge.class);
+        final Map<String, List<XBundleDTO>>  exporters = new HashMap<>();
+        for (final XBundleDTO bundle : bundles) {
+            graph.addVertex(bundle);
+            if (bundle.exportedPackages != null) {
+                for (final var pkg : bundle.exportedPackages) {
+                    final var pkgExporters = exporters.computeIfAbsent(pkg.name, p -> new ArrayList<>());
+                    // a bundle can export several versions of the same package
+                    if (pkgExporters.isEmpty() || pkgExporters.get(pkgExporters.size() - 1) != bundle) {
+                        pkgExporters.add(bundle);
+                    }
+                }
+            }
+        }
+        for (final XBundleDTO bundle : bundles) {
+            if (bundle.importedPackages == null) {
+                continue;
+            }
+            for (final var pkg : bundle.importedPackages) {
+                for (final XBundleDTO provider : exporters.getOrDefault(pkg.name, List.of())) {
+                    // the simple graph ignores the edges which have already been added
+                    if (provider != bundle) {
+                        graph.addEdge(provider, bundle);
+                    }
+                }
+            }
+        }
+        return graph;
+    }
+
+    private static <K> void index(final Map<K, BitSet> index, final K key, final int position) {
+        index.computeIfAbsent(key, k -> new BitSet()).set(position);
+    }
+
+    private static <K> void index(final Map<K, BitSet> index, final Collection<K> keys, final int position) {
+        for (final K key : keys) {
+            index(index, key, position);
+        }
+    }
+
+    private static <K> BitSet positions(final Map<K, BitSet> index, final Collection<K> keys) {
+        final var positions = new BitSet();
+        for (final K key : keys) {
+            final var keyPositions = index.get(key);
+            if (keyPositions != null) {
+                positions.or(keyPositions);
+            }
+        }
+        return positions;
+    }
+
+    private static <K, T> Iterable<T> lookup(final Map<K, BitSet> index,
+                                             final Collection<K> keys,
+                                             final List<T> elements) {
+        if (elements == null) {
+            return List.of();
+        }
+        return elements(positions(index, keys), elements);
+    }
+
+    private static <T> Iterable<T> elements(final BitSet positions, final List<T> elements) {
+        return () -> positions.stream().mapToObj(elements::get).iterator();
+    }
+
+    private static boolean sameElements(final List<?> indexed, final Collection<?> current) {
+        if (indexed == null || current == null) {
+            return indexed == null && current == null;
+        }
+        if (indexed.size() != current.size()) {
+            return false;
+        }
+        final var iterator = indexed.iterator();
+        for (final Object element : current) {
+            if (iterator.next() != element) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
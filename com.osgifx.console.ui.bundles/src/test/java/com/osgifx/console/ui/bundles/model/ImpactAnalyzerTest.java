@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.bundles.model;
+
+import static com.osgifx.console.ui.bundles.model.ImpactIndexTest.bundle;
+import static com.osgifx.console.ui.bundles.model.ImpactIndexTest.component;
+import static com.osgifx.console.ui.bundles.model.ImpactIndexTest.pkg;
+import static com.osgifx.console.ui.bundles.model.ImpactIndexTest.reference;
+import static com.osgifx.console.ui.bundles.model.ImpactIndexTest.satisfied;
+import static com.osgifx.console.ui.bundles.model.ImpactIndexTest.service;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.osgifx.console.agent.dto.XBundleDTO;
+import com.osgifx.console.agent.dto.XComponentDTO;
+
+public class ImpactAnalyzerTest {
+
+    private XBundleDTO          provider;
+    private List<XBundleDTO>    bundles;
+    private List<XComponentDTO> components;
+
+    @Before
+    public void setUp() {
+        provider                    = bundle(1, "com.acme.provider");
+        provider.exportedPackages   = List.of(pkg("com.acme.api", "1.0.0"));
+        provider.registeredServices = List.of(service(10, "com.acme.Api"), service(11, "com.acme.Spi"));
+
+        final var wired = bundle(2, "com.acme.wired");
+        wired.importedPackages = List.of(pkg("com.acme.api", "1.0.0"));
+        wired.exportedPackages = List.of(pkg("com.acme.wired", "1.0.0"));
+        // only wired to the provider through the wired bundle
+        final var transitive = bundle(3, "com.acme.transitive");
+        transitive.importedPackages = List.of(pkg("com.acme.wired", "1.0.0"));
+        final var consumer = bundle(4, "com.acme.consumer");
+        consumer.usedServices = List.of(service(10, "com.acme.Api"));
+        final var backup = bundle(5, "com.acme.backup");
+        backup.registeredServices = List.of(service(12, "com.acme.Spi"));
+
+        bundles = new ArrayList<>(List.of(provider, wired, transitive, consumer, backup));
+
+        // bound to a service of its own bundle, hence stopped along with it
+        final var api = component("provider.Api", 1, "com.acme.provider");
+        api.serviceInterfaces = List.of("com.acme.Api");
+        bind(api, "spi", "com.acme.Spi", "1..1");
+
+        final var mandatory = component("consumer.Mandatory", 4, "com.acme.consumer");
+        bind(mandatory, "api", "com.acme.Api", "1..1");
+        final var backed = component("consumer.Backed", 4, "com.acme.consumer");
+        bind(backed, "spi", "com.acme.Spi", "1..n");
+        final var optional = component("consumer.Optional", 4, "com.acme.consumer");
+        bind(optional, "api", "com.acme.Api", "0..1");
+        final var unrelated = component("consumer.Unrelated", 4, "com.acme.consumer");
+        bind(unrelated, "log", "org.osgi.service.log.LogService", "1..1");
+        final var waiting = component("consumer.Waiting", 4, "com.acme.consumer");
+        waiting.state      = "UNSATISFIED_REFERENCE";
+        waiting.references = List.of(reference("api", "com.acme.Api", "1..1"));
+
+        components = new ArrayList<>(List.of(api, mandatory, backed, optional, unrelated, waiting));
+    }
+
+    @Test
+    public void testStopImpactThroughPackagesServicesAndReferences() {
+        final var impacts = ImpactAnalyzer.calculateStopImpact("STOP", List.of(provider), bundles, components);
+
+        assertEquals(List.of("com.acme.wired DEPENDENCY", "com.acme.transitive DEPENDENCY",
+                             "com.acme.consumer SERVICE_UNBIND", "consumer.Mandatory DEACTIVATION",
+                             "consumer.Backed SERVICE_UNBIND", "consumer.Optional SERVICE_UNBIND"),
+                     describe(impacts));
+        // the backup bundle still provides the service provider interface
+        assertTrue(impacts.get(4).getDescription().startsWith("One of the providers"));
+        assertTrue(impacts.get(5).getDescription().startsWith("Optional service reference 'api'"));
+
+        final var uninstall = ImpactAnalyzer.calculateStopImpact("UNINSTALL", List.of(provider), bundles, components);
+        assertEquals("com.acme.wired STALE_WIRING", describe(uninstall).get(0));
+        assertEquals("com.acme.transitive STALE_WIRING", describe(uninstall).get(1));
+    }
+
+    @Test
+    public void testStopImpactWithoutOtherProvider() {
+        // the last provider of the service provider interface is stopped as well
+        final var impacts = ImpactAnalyzer.calculateStopImpact("STOP", List.of(provider, bundles.get(4)), bundles,
+                                                               components);
+
+        assertTrue(describe(impacts).contains("consumer.Backed DEACTIVATION"));
+    }
+
+    @Test
+    public void testStartImpact() {
+        provider.state       = "RESOLVED";
+        bundles.get(1).state = "RESOLVED";
+
+        final var impacts = ImpactAnalyzer.calculateStartImpact(List.of(provider), bundles, components);
+
+        assertEquals(List.of("com.acme.wired ACTIVATION", "com.acme.transitive DEPENDENCY",
+                             "provider.Api ACTIVATION", "consumer.Mandatory DEPENDENCY",
+                             "consumer.Backed DEPENDENCY", "consumer.Optional DEPENDENCY",
+                             "consumer.Waiting SATISFACTION"),
+                     describe(impacts));
+    }
+
+    @Test
+    public void testIndexIsReusedUntilSnapshotChanges() throws Exception {
+        ImpactAnalyzer.calculateStopImpact("STOP", List.of(provider), bundles, components);
+        final var index = lastIndex();
+
+        // the data suppliers hand out new lists of the unchanged DTOs
+        ImpactAnalyzer.calculateStopImpact("STOP", List.of(provider), new ArrayList<>(bundles),
+                                           new ArrayList<>(components));
+        assertSame(index, lastIndex());
+
+        // the wired bundle has been updated and does not import the API anymore
+        bundles.set(1, bundle(2, "com.acme.wired"));
+        final var impacts = ImpactAnalyzer.calculateStopImpact("STOP", List.of(provider), bundles, components);
+
+        assertNotSame(index, lastIndex());
+        assertEquals("com.acme.consumer SERVICE_UNBIND", describe(impacts).get(0));
+    }
+
+    private static XComponentDTO component(final String name, final long bundleId, final String bundle) {
+        final var component = ImpactIndexTest.component(name, bundleId);
+        component.registeringBundle = bundle;
+        return component;
+    }
+
+    private static void bind(final XComponentDTO component,
+                             final String name,
+                             final String interfaceName,
+                             final String cardinality) {
+        component.references          = List.of(reference(name, interfaceName, cardinality));
+        component.satisfiedReferences = List.of(satisfied(name, interfaceName));
+    }
+
+    private static List<String> describe(final List<XImpactDTO> impacts) {
+        return impacts.stream().map(i -> i.getAffectedItem() + " " + i.getImpactType()).toList();
+    }
+
+    private static ImpactIndex lastIndex() throws ReflectiveOperationException {
+        final var field = ImpactAnalyzer.class.getDeclaredField("lastIndex");
+        field.setAccessible(true);
+        return (ImpactIndex) field.get(null);
+    }
+
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.bundles.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.osgifx.console.agent.dto.XBundleDTO;
+import com.osgifx.console.agent.dto.XComponentDTO;
+import com.osgifx.console.agent.dto.XPackageDTO;
+import com.osgifx.console.agent.dto.XReferenceDTO;
+import com.osgifx.console.agent.dto.XSatisfiedReferenceDTO;
+import com.osgifx.console.agent.dto.XServiceInfoDTO;
+
+public class ImpactIndexTest {
+
+    @Test
+    public void testWiringGraphConnectsExportersToImporters() {
+        final var provider = bundle(1, "provider");
+        provider.exportedPackages = List.of(pkg("com.acme.api", "1.0.0"), pkg("com.acme.api", "2.0.0"));
+        // a bundle importing its own export is only wired to the other exporters
+        provider.importedPackages = List.of(pkg("com.acme.api", "1.0.0"));
+        final var other = bundle(2, "other");
+        other.exportedPackages = List.of(pkg("com.acme.api", "1.0.0"));
+        final var consumer = bundle(3, "consumer");
+        consumer.importedPackages = List.of(pkg("com.acme.api", "1.0.0"), pkg("com.acme.api", "2.0.0"));
+        final var unrelated = bundle(4, "unrelated");
+
+        final var graph = new ImpactIndex(List.of(provider, other, consumer, unrelated), null).wiringGraph();
+
+        assertEquals(4, graph.vertexSet().size());
+        assertEquals(3, graph.edgeSet().size());
+        assertTrue(graph.containsEdge(provider, consumer));
+        assertTrue(graph.containsEdge(other, consumer));
+        assertTrue(graph.containsEdge(other, provider));
+        assertFalse(graph.containsEdge(provider, provider));
+        assertEquals(0, graph.degreeOf(unrelated));
+    }
+
+    @Test
+    public void testLookupsMatchEverySingleInterface() {
+        final var registrar = bundle(1, "registrar");
+        registrar.registeredServices = List.of(service(10, "com.acme.Api, com.acme.Spi"));
+        final var consumer = bundle(2, "consumer");
+        consumer.usedServices = List.of(service(10, "com.acme.Api, com.acme.Spi"));
+        final var other = bundle(3, "other");
+        other.usedServices = List.of(service(11, "com.acme.Other"));
+
+        final var provider = component("provider", 1);
+        provider.serviceInterfaces = List.of("com.acme.Api,com.acme.Spi");
+        final var bound = component("bound", 2);
+        bound.satisfiedReferences = List.of(satisfied("spi", "com.acme.Spi"));
+
+        final var index = new ImpactIndex(List.of(registrar, consumer, other), List.of(provider, bound));
+
+        assertEquals(List.of(consumer), list(index.consumersOf(List.of(10L))));
+        assertEquals(List.of(consumer, other), list(index.consumersOf(List.of(11L, 10L))));
+        assertEquals(List.of(registrar), list(index.registrarsOf("com.acme.Spi")));
+        assertEquals(List.of(provider), list(index.providersOf("com.acme.Other, com.acme.Api")));
+        assertEquals(List.of(bound), list(index.componentsBoundTo(List.of("com.acme.Api,com.acme.Spi"))));
+        assertEquals(List.of(), list(index.componentsBoundTo(List.of("com.acme.Api"))));
+        assertEquals(List.of(provider, bound), list(index.componentsOf(List.of(2L, 1L))));
+        assertEquals(Set.of("com.acme.Api", "com.acme.Spi"), ImpactIndex.interfaces(" com.acme.Api ,com.acme.Spi"));
+    }
+
+    @Test
+    public void testAffectedComponentsAreReturnedOnceInSnapshotOrder() {
+        final var referencing = component("referencing", 2);
+        referencing.references = List.of(reference("api", "com.acme.Api", "1..1"));
+        final var hosted = component("hosted", 1);
+        // hosted by the bundle as well as referencing the interface
+        final var both = component("both", 1);
+        both.references = List.of(reference("api", "com.acme.Api", "0..n"));
+        final var unrelated = component("unrelated", 3);
+
+        final var index = new ImpactIndex(List.of(), List.of(referencing, hosted, both, unrelated));
+
+        assertEquals(List.of(referencing, hosted, both),
+                     list(index.componentsAffectedBy(List.of(1L), Set.of("com.acme.Api"))));
+    }
+
+    @Test
+    public void testSnapshotIsIdentifiedByItsDTOs() {
+        final var bundle     = bundle(1, "bundle");
+        final var component  = component("component", 1);
+        final var bundles    = List.of(bundle);
+        final var components = List.of(component);
+        final var index      = new ImpactIndex(bundles, components);
+
+        assertTrue(index.isSnapshotOf(new ArrayList<>(bundles), new ArrayList<>(components)));
+        // an equal but updated DTO replaces the previous one
+        assertFalse(index.isSnapshotOf(List.of(bundle(1, "bundle")), components));
+        assertFalse(index.isSnapshotOf(bundles, List.of()));
+        assertFalse(index.isSnapshotOf(bundles, null));
+
+        final var withoutComponents = new ImpactIndex(bundles, null);
+        assertTrue(withoutComponents.isSnapshotOf(bundles, null));
+        assertEquals(List.of(), list(withoutComponents.providersOf("com.acme.Api")));
+    }
+
+    static XBundleDTO bundle(final long id, final String symbolicName) {
+        final var bundle = new XBundleDTO();
+        bundle.id           = id;
+        bundle.symbolicName = symbolicName;
+        bundle.state        = "ACTIVE";
+        return bundle;
+    }
+
+    static XComponentDTO component(final String name, final long bundleId) {
+        final var component = new XComponentDTO();
+        component.name                = name;
+        component.state               = "ACTIVE";
+        component.registeringBundleId = bundleId;
+        return component;
+    }
+
+    static XPackageDTO pkg(final String name, final String version) {
+        final var pkg = new XPackageDTO();
+        pkg.name    = name;
+        pkg.version = version;
+        return pkg;
+    }
+
+    static XServiceInfoDTO service(final long id, final String objectClass) {
+        final var service = new XServiceInfoDTO();
+        service.id          = id;
+        service.objectClass = objectClass;
+        return service;
+    }
+
+    static XReferenceDTO reference(final String name, final String interfaceName, final String cardinality) {
+        final var reference = new XReferenceDTO();
+        reference.name          = name;
+        reference.interfaceName = interfaceName;
+        reference.cardinality   = cardinality;
+        return reference;
+    }
+
+    static XSatisfiedReferenceDTO satisfied(final String name, final String objectClass) {
+        final var reference = new XSatisfiedReferenceDTO();
+        reference.name        = name;
+        reference.objectClass = objectClass;
+        return reference;
+    }
+
+    static <T> List<T> list(final Iterable<T> elements) {
+        final List<T> result = new ArrayList<>();
+        elements.forEach(result::add);
+        return result;
+    }
+
+}
@@ -62,6 +62,7 @@ import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
 import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
+import javafx.geometry.Insets;
 import javafx.fxml.FXML;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.ChoiceBox;
@@ -76,6 +77,8 @@ import javafx.stage.DirectoryChooser;
 
 public final class GraphFxComponentController implements GraphController {
 
+    private static final int MAX_CYCLES_PER_CLUSTER = 10;
+
     @Log
     @Inject
     private FluentLogger                        logger;
@@ -111,6 +114,7 @@ public final class GraphFxComponentController implements GraphController {
     private WebGraphView                        graphView;
     private Future<?>                           graphGenFuture;
     private Graph<ComponentVertex, DefaultEdge> currentGraph;
+    private boolean                             isCurrentGraphTruncated;
     private ObservableList<ComponentItem>       masterComponentList;
     private AbbreviationSettings                abbreviationSettings;
 
@@ -214,6 +218,14 @@ public final class GraphFxComponentController implements GraphController {
         };
     }
 
+    private Label createTruncationLabel() {
+        final var label = new Label("Only up to " + MAX_CYCLES_PER_CLUSTER
+                + " cycles per cluster are shown, hence some components in cycles are not part of the graph");
+        label.setWrapText(true);
+        label.setPadding(new Insets(5));
+        return label;
+    }
+
     private void addExportToDotContextMenu() {
         final var exportDot = new MenuItem("Export to DOT");
         exportDot.setOnAction(_ -> {
@@ -313,11 +325,14 @@ public final class GraphFxComponentController implements GraphController {
                 if (selection == 0) {
                     logger.atDebug().log("Generating all graph paths for service components that are required by '%s'",
                             selectedComponents);
-                    currentGraph = runtimeGraph.getAllServiceComponentsThatAreRequiredBy(selectedComponents,
+                    currentGraph            = runtimeGraph.getAllServiceComponentsThatAreRequiredBy(selectedComponents,
                             isTransitive);
+                    isCurrentGraphTruncated = false;
                 } else {
                     logger.atDebug().log("Generating service component cycles");
-                    currentGraph = runtimeGraph.getAllCycles();
+                    final var cycles = runtimeGraph.getCycles(MAX_CYCLES_PER_CLUSTER);
+                    currentGraph            = cycles.graph();
+                    isCurrentGraphTruncated = cycles.isTruncated();
                 }
                 return null;
             }
@@ -333,6 +348,7 @@ public final class GraphFxComponentController implements GraphController {
                 graphView = new WebGraphView();
                 progressPane.setVisible(false);
                 graphPane.setCenter(graphView);
+                graphPane.setTop(isCurrentGraphTruncated ? createTruncationLabel() : null);
                 graphView.loadGraph(json);
 
                 // Apply selected layout
@@ -347,6 +363,7 @@ public final class GraphFxComponentController implements GraphController {
             }
         };
         progressPane.setVisible(true);
+        graphPane.setTop(null);
         graphPane.setCenter(progressPane);
         if (graphGenFuture != null) {
             graphGenFuture.cancel(true);
@@ -17,12 +17,14 @@ package com.osgifx.console.ui.graph.component;
 
 import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_COMPONENTS_TOPIC;
 
-import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
@@ -32,7 +34,7 @@ import org.eclipse.e4.core.di.annotations.Optional;
 import org.eclipse.e4.core.di.extensions.EventTopic;
 import org.eclipse.fx.core.ThreadSynchronize;
 import org.jgrapht.Graph;
-import org.jgrapht.alg.cycle.TarjanSimpleCycles;
+import org.jgrapht.alg.connectivity.GabowStrongConnectivityInspector;
 import org.jgrapht.graph.AsSubgraph;
 import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
@@ -40,6 +42,7 @@ import org.jgrapht.traverse.BreadthFirstIterator;
 import org.osgi.framework.dto.ServiceReferenceDTO;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.osgifx.console.agent.dto.XComponentDTO;
 import com.osgifx.console.agent.dto.XSatisfiedReferenceDTO;
@@ -94,67 +97,146 @@ public final class RuntimeComponentGraph {
         return vertices;
     }
 
-    public Graph<ComponentVertex, DefaultEdge> getAllCycles() {
-        final var                                 tarjan = new TarjanSimpleCycles<>(graph);
-        final var                                 cycles = tarjan.findSimpleCycles();
-        final Graph<ComponentVertex, DefaultEdge> graph  = new DefaultDirectedGraph<>(DefaultEdge.class);
-
-        for (final List<ComponentVertex> group : cycles) {
-            Node<ComponentVertex> node = CircularLinkedList.create(group);
-            if (node != null) {
-                for (final var _ : group) {
-                    node = node.getNext();
-                    final var source = node.getData();
-                    graph.addVertex(source);
-                    final var target = node.getNext().getData();
-                    graph.addVertex(target);
-                    graph.addEdge(source, target);
+    /**
+     * Returns representative cycles of every cyclic cluster. Starting with a component of
+     * the cluster which is not part of any reported cycle yet, the shortest cycle through
+     * it is reported until the specified number of cycles has been reached. In contrast to
+     * enumerating all cycles, the cost is bounded by the number of cycles per cluster times
+     * the size of the cluster.
+     *
+     * @param maxCyclesPerCluster the maximum number of cycles to report per cluster
+     * @return the representative cycles
+     */
+    public Cycles getCycles(final int maxCyclesPerCluster) {
+        final var                                 graph       = this.graph;
+        final Graph<ComponentVertex, DefaultEdge> cycles      = new DefaultDirectedGraph<>(DefaultEdge.class);
+        var                                       isTruncated = false;
+
+        for (final Set<ComponentVertex> cluster : getCyclicClusters(graph)) {
+            final var found   = findCycles(graph, cluster, maxCyclesPerCluster);
+            final var covered = found.stream().flatMap(List::stream).distinct().count();
+            // the limit has been reached before every component of the cluster is part of a reported cycle
+            isTruncated |= covered < cluster.size();
+            for (final List<ComponentVertex> group : found) {
+                Node<ComponentVertex> node = CircularLinkedList.create(group);
+                if (node != null) {
+                    for (final var _ : group) {
+                        node = node.getNext();
+                        final var source = node.getData();
+                        cycles.addVertex(source);
+                        final var target = node.getNext().getData();
+                        cycles.addVertex(target);
+                        cycles.addEdge(source, target);
+                    }
                 }
             }
         }
-        return graph;
+        return new Cycles(cycles, isTruncated);
     }
 
-    private Graph<ComponentVertex, DefaultEdge> buildGraph(final List<XComponentDTO> components) {
-        final List<Entry<XComponentDTO, XComponentDTO>> edges = Lists.newArrayList();
-        prepareEdges(components, edges);
-
-        final Graph<ComponentVertex, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
-        components.forEach(c -> graph.addVertex(toVertex(c)));
-        edges.forEach(edge -> {
-            final var source = edge.getKey();
-            final var target = edge.getValue();
-            if (source == null || target == null) {
-                return;
+    /**
+     * The representative cycles of the cyclic clusters.
+     *
+     * @param graph the graph consisting of the representative cycles
+     * @param isTruncated {@code true} if the limit of cycles per cluster has been reached
+     *            before every component of a cluster was part of a reported cycle
+     */
+    public record Cycles(Graph<ComponentVertex, DefaultEdge> graph, boolean isTruncated) {
+    }
+
+    private List<Set<ComponentVertex>> getCyclicClusters(final Graph<ComponentVertex, DefaultEdge> graph) {
+        final var inspector = new GabowStrongConnectivityInspector<>(graph);
+        return inspector.stronglyConnectedSets().stream().filter(cluster -> isCyclic(graph, cluster)).toList();
+    }
+
+    private boolean isCyclic(final Graph<ComponentVertex, DefaultEdge> graph, final Set<ComponentVertex> cluster) {
+        if (cluster.size() > 1) {
+            return true;
+        }
+        final var vertex = cluster.iterator().next();
+        return graph.containsEdge(vertex, vertex);
+    }
+
+    private List<List<ComponentVertex>> findCycles(final Graph<ComponentVertex, DefaultEdge> graph,
+                                                   final Set<ComponentVertex> cluster,
+                                                   final int maxCycles) {
+        final List<List<ComponentVertex>> cycles  = Lists.newArrayList();
+        final Set<ComponentVertex>        covered = Sets.newHashSet();
+        for (final ComponentVertex start : cluster) {
+            if (cycles.size() >= maxCycles) {
+                break;
             }
-            graph.addEdge(toVertex(source), toVertex(target));
-        });
-        return graph;
+            // a cycle through an uncovered component has not been reported yet
+            if (!covered.contains(start)) {
+                final var cycle = findShortestCycle(graph, cluster, start);
+                covered.addAll(cycle);
+                cycles.add(cycle);
+            }
+        }
+        return cycles;
     }
 
-    private void prepareEdges(final List<XComponentDTO> components,
-                              final List<Entry<XComponentDTO, XComponentDTO>> edges) {
-        for (final XComponentDTO sourceComponent : components) {
-            final var boundServices         = sourceComponent.satisfiedReferences;
-            final var componentNameProperty = "component.name";
-            for (final XSatisfiedReferenceDTO refDTO : boundServices) {
-                final var srvRefDTOs = refDTO.serviceReferences;
-
-                for (final ServiceReferenceDTO srvRefDTO : srvRefDTOs) {
-                    final var     property = (String) srvRefDTO.properties.get(componentNameProperty);
-                    XComponentDTO targetComponent;
-                    if (property == null) { // not a DS component
-                        continue;
+    // every component of a cyclic cluster is part of a cycle within the cluster
+    private List<ComponentVertex> findShortestCycle(final Graph<ComponentVertex, DefaultEdge> graph,
+                                                    final Set<ComponentVertex> cluster,
+                                                    final ComponentVertex start) {
+        final Map<ComponentVertex, ComponentVertex> predecessors = Maps.newHashMap();
+        final Deque<ComponentVertex>                queue        = new ArrayDeque<>();
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            final var source = queue.poll();
+            for (final DefaultEdge edge : graph.outgoingEdgesOf(source)) {
+                final var target = graph.getEdgeTarget(edge);
+                if (target.equals(start)) {
+                    final List<ComponentVertex> cycle = Lists.newArrayList();
+                    for (var vertex = source; vertex != null; vertex = predecessors.get(vertex)) {
+                        cycle.add(vertex);
                     }
-                    targetComponent = findComponentByName(components, property);
-                    edges.add(new SimpleEntry<>(sourceComponent, targetComponent));
+                    return Lists.reverse(cycle);
+                }
+                if (cluster.contains(target) && !predecessors.containsKey(target)) {
+                    predecessors.put(target, source);
+                    queue.add(target);
                 }
             }
         }
+        return List.of(start);
+    }
+
+    private Graph<ComponentVertex, DefaultEdge> buildGraph(final List<XComponentDTO> components) {
+        final Graph<ComponentVertex, DefaultEdge> graph    = new DefaultDirectedGraph<>(DefaultEdge.class);
+        final Map<String, ComponentVertex>        vertices = Maps.newHashMap();
+        for (final XComponentDTO component : components) {
+            final var vertex = toVertex(component);
+            vertices.putIfAbsent(component.name, vertex);
+            graph.addVertex(vertex);
+        }
+        for (final XComponentDTO sourceComponent : components) {
+            final var source = vertices.get(sourceComponent.name);
+            prepareEdges(sourceComponent, targetName -> {
+                final var target = vertices.get(targetName);
+                if (target != null) {
+                    graph.addEdge(source, target);
+                }
+            });
+        }
+        return graph;
     }
 
-    private XComponentDTO findComponentByName(final List<XComponentDTO> components, final String name) {
-        return components.stream().filter(c -> name.equals(c.name)).findAny().orElse(null);
+    private void prepareEdges(final XComponentDTO sourceComponent, final Consumer<String> edgeTargets) {
+        final var boundServices         = sourceComponent.satisfiedReferences;
+        final var componentNameProperty = "component.name";
+        for (final XSatisfiedReferenceDTO refDTO : boundServices) {
+            final var srvRefDTOs = refDTO.serviceReferences;
+
+            for (final ServiceReferenceDTO srvRefDTO : srvRefDTOs) {
+                final var property = (String) srvRefDTO.properties.get(componentNameProperty);
+                if (property == null) { // not a DS component
+                    continue;
+                }
+                edgeTargets.accept(property);
+            }
+        }
     }
 
     private ComponentVertex toVertex(final XComponentDTO component) {
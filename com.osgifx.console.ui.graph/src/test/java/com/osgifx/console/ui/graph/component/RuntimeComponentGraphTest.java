@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.graph.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.fx.core.ThreadSynchronize;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.Test;
+import org.osgi.framework.dto.ServiceReferenceDTO;
+
+import com.osgifx.console.agent.dto.XComponentDTO;
+import com.osgifx.console.agent.dto.XSatisfiedReferenceDTO;
+import com.osgifx.console.data.provider.DataProvider;
+
+import javafx.collections.FXCollections;
+
+public class RuntimeComponentGraphTest {
+
+    @Test
+    public void testSelfLoopAndSeparateClustersAreReported() throws Exception {
+        final var graph = graph(component("self", "self"), component("a", "b"), component("b", "c"),
+                                component("c", "a"), component("d", "e"), component("e", "d"),
+                                // only refers to a cluster, hence not part of any cycle
+                                component("f", "a"), component("g", (String) null));
+
+        final var cycles = graph.getCycles(10);
+
+        assertFalse(cycles.isTruncated());
+        assertEquals(Set.of("self", "a", "b", "c", "d", "e"), names(cycles.graph()));
+        assertEquals(Set.of("self->self", "a->b", "b->c", "c->a", "d->e", "e->d"), edges(cycles.graph()));
+    }
+
+    @Test
+    public void testCyclesPerClusterAreCapped() throws Exception {
+        // every shortest cycle covers the hub and a single spoke
+        final var graph = graph(component("hub", "s1", "s2", "s3", "s4"), component("s1", "hub"),
+                                component("s2", "hub"), component("s3", "hub"), component("s4", "hub"));
+
+        final var capped = graph.getCycles(2);
+        assertTrue(capped.isTruncated());
+        assertEquals(3, capped.graph().vertexSet().size());
+        assertEquals(4, capped.graph().edgeSet().size());
+        assertTrue(names(capped.graph()).contains("hub"));
+
+        assertTrue(graph.getCycles(3).isTruncated());
+
+        final var complete = graph.getCycles(4);
+        assertFalse(complete.isTruncated());
+        assertEquals(5, complete.graph().vertexSet().size());
+        assertEquals(8, complete.graph().edgeSet().size());
+    }
+
+    @Test
+    public void testAcyclicGraphHasNoCycles() throws Exception {
+        final var cycles = graph(component("a", "b"), component("b", "c"), component("c")).getCycles(10);
+
+        assertFalse(cycles.isTruncated());
+        assertTrue(cycles.graph().vertexSet().isEmpty());
+    }
+
+    @Test
+    public void testRequiredComponents() throws Exception {
+        final var a     = component("a", "b");
+        final var graph = graph(a, component("b", "c"), component("c"), component("d", "a"));
+
+        final var direct = graph.getAllServiceComponentsThatAreRequiredBy(List.of(a), false);
+        assertEquals(Set.of("a", "b"), names(direct));
+        assertEquals(Set.of("a->b"), edges(direct));
+
+        final var transitive = graph.getAllServiceComponentsThatAreRequiredBy(List.of(a), true);
+        assertEquals(Set.of("a", "b", "c"), names(transitive));
+        assertEquals(Set.of("a->b", "b->c"), edges(transitive));
+
+        // a component which is not part of the runtime anymore
+        assertTrue(graph.getAllServiceComponentsThatAreRequiredBy(List.of(component("x")), true).vertexSet()
+                .isEmpty());
+    }
+
+    private static RuntimeComponentGraph graph(final XComponentDTO... components) throws Exception {
+        final var graph = new RuntimeComponentGraph();
+        inject(graph, "dataProvider", proxy(DataProvider.class,
+                (name, args) -> "components".equals(name) ? FXCollections.observableArrayList(components) : null));
+        inject(graph, "threadSync", proxy(ThreadSynchronize.class, (name, args) -> ((Callable<?>) args[0]).call()));
+        graph.init();
+        return graph;
+    }
+
+    // every target is bound by a reference of its own, a null target refers to a service which is not a component
+    private static XComponentDTO component(final String name, final String... targets) {
+        final var component = new XComponentDTO();
+        component.name                = name;
+        component.satisfiedReferences = Stream.of(targets).map(RuntimeComponentGraphTest::reference).toList();
+        return component;
+    }
+
+    private static XSatisfiedReferenceDTO reference(final String target) {
+        final var service = new ServiceReferenceDTO();
+        service.properties = target == null ? Map.of() : Map.of("component.name", target);
+
+        final var reference = new XSatisfiedReferenceDTO();
+        reference.name              = String.valueOf(target);
+        reference.serviceReferences = new ServiceReferenceDTO[] { service };
+        return reference;
+    }
+
+    private static Set<String> names(final Graph<ComponentVertex, DefaultEdge> graph) {
+        return graph.vertexSet().stream().map(ComponentVertex::name).collect(Collectors.toSet());
+    }
+
+    private static Set<String> edges(final Graph<ComponentVertex, DefaultEdge> graph) {
+        return graph.edgeSet().stream().map(e -> graph.getEdgeSource(e).name() + "->" + graph.getEdgeTarget(e).name())
+                .collect(Collectors.toSet());
+    }
+
+    private static void inject(final RuntimeComponentGraph graph,
+                               final String field,
+                               final Object value) throws Exception {
+        final var declared = RuntimeComponentGraph.class.getDeclaredField(field);
+        declared.setAccessible(true);
+        declared.set(graph, value);
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(String method, Object[] args) throws Exception;
+    }
+
+    private static <T> T proxy(final Class<T> type, final Handler handler) {
+        return type.cast(Proxy.newProxyInstance(RuntimeComponentGraphTest.class.getClassLoader(),
+                new Class<?>[] { type }, (proxy, method, args) -> handler.invoke(method.getName(), args)));
+    }
+
+}
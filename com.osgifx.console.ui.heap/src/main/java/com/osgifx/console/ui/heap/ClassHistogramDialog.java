@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.heap;
+
+import static com.osgifx.console.constants.FxConstants.STANDARD_CSS;
+import static javafx.scene.control.ButtonType.CLOSE;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.osgifx.console.agent.dto.XClassHistogramDTO;
+import com.osgifx.console.util.fx.Fx;
+
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import javafx.scene.control.TabPane.TabClosingPolicy;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableColumn.SortType;
+import javafx.scene.control.TableView;
+
+/**
+ * Shows a class histogram per bundle and per class. If a previous histogram is available,
+ * the growth since then is shown as well and the fastest growing entries come first.
+ */
+public final class ClassHistogramDialog extends Dialog<Void> {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+
+    private record HistogramRow(String name, String bundle, long instances, long bytes, Long instancesDelta,
+            Long bytesDelta) {
+    }
+
+    public void init(final XClassHistogramDTO histogram,
+                     final XClassHistogramDTO previous,
+                     final Map<Long, String> bundleNames) {
+        final var dialogPane = getDialogPane();
+        setResizable(true);
+        setTitle("Class Histogram");
+        final var header = new StringBuilder(String.format("%,d objects with %,d bytes%s at %s",
+                histogram.totalInstances, histogram.totalBytes, histogram.isLiveOnly ? " reachable" : "",
+                TIME_FORMAT.format(Instant.ofEpochMilli(histogram.timestamp))));
+        if (previous != null) {
+            header.append(String.format("%ncompared with %,d bytes at %s",
+                    previous.totalBytes, TIME_FORMAT.format(Instant.ofEpochMilli(previous.timestamp))));
+        }
+        dialogPane.setHeaderText(header.toString());
+        dialogPane.getStylesheets().add(getClass().getResource(STANDARD_CSS).toExternalForm());
+        dialogPane.getButtonTypes().addAll(CLOSE);
+
+        final Function<Long, String> bundleName = id -> id == -1 ? "JVM"
+                : bundleNames.getOrDefault(id, "Bundle " + id);
+
+        final var bundleRows = new ArrayList<HistogramRow>();
+        final var previousBundles = previous == null ? null
+                : index(previous.bundleIds.length, i -> String.valueOf(previous.bundleIds[i]),
+                        previous.bundleInstances, previous.bundleBytes);
+        for (var i = 0; i < histogram.bundleIds.length; i++) {
+            final var key = String.valueOf(histogram.bundleIds[i]);
+            bundleRows.add(row(bundleName.apply(histogram.bundleIds[i]), null, histogram.bundleInstances[i],
+                    histogram.bundleBytes[i], previousBundles, key));
+        }
+
+        final var classRows = new ArrayList<HistogramRow>();
+        final var previousClasses = previous == null ? null
+                : index(previous.classNames.length, i -> previous.classNames[i], previous.classInstances,
+                        previous.classBytes);
+        for (var i = 0; i < histogram.classNames.length; i++) {
+            final var key = histogram.classNames[i];
+            classRows.add(row(key, bundleName.apply(histogram.classBundles[i]), histogram.classInstances[i],
+                    histogram.classBytes[i], previousClasses, key));
+        }
+
+        final var tabPane = new TabPane(new Tab("Bundles", createTable(bundleRows, false, previous != null)),
+                                        new Tab("Classes", createTable(classRows, true, previous != null)));
+        tabPane.setTabClosingPolicy(TabClosingPolicy.UNAVAILABLE);
+        tabPane.setPrefSize(1000, 650);
+
+        dialogPane.setContent(tabPane);
+    }
+
+    // the instances and the bytes of every entry of the previous histogram
+    private static Map<String, long[]> index(final int size,
+                                             final Function<Integer, String> key,
+                                             final long[] instances,
+                                             final long[] bytes) {
+        final var index = new HashMap<String, long[]>();
+        for (var i = 0; i < size; i++) {
+            index.put(key.apply(i), new long[] { instances[i], bytes[i] });
+        }
+        return index;
+    }
+
+    private static HistogramRow row(final String name,
+                                    final String bundle,
+                                    final long instances,
+                                    final long bytes,
+                                    final Map<String, long[]> previousIndex,
+                                    final String key) {
+        if (previousIndex == null) {
+            return new HistogramRow(name, bundle, instances, bytes, null, null);
+        }
+        // the entries absent from the previous histogram have grown from nothing
+        final var previous = previousIndex.getOrDefault(key, new long[2]);
+        return new HistogramRow(name, bundle, instances, bytes, instances - previous[0], bytes - previous[1]);
+    }
+
+    private static TableView<HistogramRow> createTable(final List<HistogramRow> rows,
+                                                       final boolean isClassTable,
+                                                       final boolean hasPrevious) {
+        final var table = new TableView<HistogramRow>(FXCollections.observableArrayList(rows));
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_ALL_COLUMNS);
+
+        final var nameColumn = new TableColumn<HistogramRow, String>(isClassTable ? "Class" : "Bundle");
+        nameColumn.setCellValueFactory(p -> new ReadOnlyObjectWrapper<>(p.getValue().name()));
+        table.getColumns().add(nameColumn);
+
+        if (isClassTable) {
+            final var bundleColumn = new TableColumn<HistogramRow, String>("Bundle");
+            bundleColumn.setCellValueFactory(p -> new ReadOnlyObjectWrapper<>(p.getValue().bundle()));
+            table.getColumns().add(bundleColumn);
+        }
+        final var instancesColumn = numberColumn("Instances", HistogramRow::instances);
+        final var bytesColumn     = numberColumn("Size (bytes)", HistogramRow::bytes);
+        table.getColumns().add(instancesColumn);
+        table.getColumns().add(bytesColumn);
+
+        var sortColumn = bytesColumn;
+        if (hasPrevious) {
+            final var instancesDeltaColumn = numberColumn("Growth (instances)", HistogramRow::instancesDelta);
+            final var bytesDeltaColumn     = numberColumn("Growth (bytes)", HistogramRow::bytesDelta);
+            table.getColumns().add(instancesDeltaColumn);
+            table.getColumns().add(bytesDeltaColumn);
+            sortColumn = bytesDeltaColumn;
+        }
+        // the largest or the fastest growing entries first
+        sortColumn.setSortType(SortType.DESCENDING);
+        table.getSortOrder().add(sortColumn);
+        table.sort();
+
+        Fx.addContextMenuToCopyContent(table);
+        return table;
+    }
+
+    private static TableColumn<HistogramRow, Long> numberColumn(final String title,
+                                                                final Function<HistogramRow, Long> value) {
+        final var column = new TableColumn<HistogramRow, Long>(title);
+        column.setCellValueFactory(p -> new ReadOnlyObjectWrapper<>(value.apply(p.getValue())));
+        column.setCellFactory(_ -> new TableCell<>() {
+            @Override
+            protected void updateItem(final Long item, final boolean empty) {
+                super.updateItem(item, empty);
+                setText(item == null || empty ? null : String.format("%,d", item));
+            }
+        });
+        return column;
+    }
+
+}
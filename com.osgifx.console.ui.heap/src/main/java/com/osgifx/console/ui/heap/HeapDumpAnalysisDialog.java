@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.heap;
+
+import static com.osgifx.console.constants.FxConstants.STANDARD_CSS;
+import static javafx.scene.control.ButtonType.CLOSE;
+
+import java.util.function.Function;
+
+import com.osgifx.console.ui.heap.hprof.HeapDumpAnalysis;
+import com.osgifx.console.ui.heap.hprof.HeapDumpAnalysis.BundleUsage;
+import com.osgifx.console.ui.heap.hprof.HeapDumpAnalysis.LeakedClassLoader;
+import com.osgifx.console.util.fx.Fx;
+
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import javafx.scene.control.TabPane.TabClosingPolicy;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableColumn.SortType;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeView;
+
+/**
+ * Shows the retained size per bundle computed from a heap dump and the paths from the GC
+ * roots keeping the class loaders of the leaking bundles alive.
+ */
+public final class HeapDumpAnalysisDialog extends Dialog<Void> {
+
+    public void init(final String heapDumpName, final HeapDumpAnalysis analysis) {
+        final var dialogPane = getDialogPane();
+        setResizable(true);
+        setTitle("Heap Dump Analysis");
+        dialogPane.setHeaderText(String.format("%s%n%,d objects of which %,d with %,d bytes are reachable",
+                heapDumpName, analysis.objects(), analysis.reachableObjects(), analysis.reachableBytes()));
+        dialogPane.getStylesheets().add(getClass().getResource(STANDARD_CSS).toExternalForm());
+        dialogPane.getButtonTypes().addAll(CLOSE);
+
+        final var tabPane = new TabPane(new Tab("Retained by Bundle", createBundleTable(analysis)),
+                                        new Tab("Leaked Class Loaders", createLeakTree(analysis)));
+        tabPane.setTabClosingPolicy(TabClosingPolicy.UNAVAILABLE);
+        tabPane.setPrefSize(1000, 650);
+
+        dialogPane.setContent(tabPane);
+    }
+
+    private static TableView<BundleUsage> createBundleTable(final HeapDumpAnalysis analysis) {
+        final var table = new TableView<BundleUsage>(FXCollections.observableArrayList(analysis.bundles()));
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_ALL_COLUMNS);
+
+        final var nameColumn = new TableColumn<BundleUsage, String>("Bundle");
+        nameColumn.setCellValueFactory(p -> new ReadOnlyObjectWrapper<>(p.getValue().bundleName()));
+        table.getColumns().add(nameColumn);
+
+        final var retainedColumn = numberColumn("Retained Size (bytes)", BundleUsage::retainedBytes);
+        table.getColumns().add(numberColumn("Objects", BundleUsage::objects));
+        table.getColumns().add(numberColumn("Shallow Size (bytes)", BundleUsage::shallowBytes));
+        table.getColumns().add(retainedColumn);
+
+        retainedColumn.setSortType(SortType.DESCENDING);
+        table.getSortOrder().add(retainedColumn);
+        table.sort();
+
+        Fx.addContextMenuToCopyContent(table);
+        return table;
+    }
+
+    private static TreeView<String> createLeakTree(final HeapDumpAnalysis analysis) {
+        final var root = new TreeItem<String>();
+        for (final LeakedClassLoader leak : analysis.leakedClassLoaders()) {
+            final var item = new TreeItem<>(String.format("%s [%s] retains %,d bytes from GC root '%s'",
+                    leak.classLoader(), leak.bundleName(), leak.retainedBytes(), leak.gcRoot()));
+            for (final var element : leak.path()) {
+                final var reference = element.reference() == null ? "" : " ." + element.reference();
+                item.getChildren().add(new TreeItem<>(element.object() + reference));
+            }
+            item.setExpanded(true);
+            root.getChildren().add(item);
+        }
+        if (root.getChildren().isEmpty()) {
+            // a tree view has no placeholder of its own
+            root.getChildren().add(new TreeItem<>("No class loaders of leaking bundles found in the heap dump"));
+        }
+        final var tree = new TreeView<>(root);
+        tree.setShowRoot(false);
+        return tree;
+    }
+
+    private static TableColumn<BundleUsage, Long> numberColumn(final String title,
+                                                               final Function<BundleUsage, Long> value) {
+        final var column = new TableColumn<BundleUsage, Long>(title);
+        column.setCellValueFactory(p -> new ReadOnlyObjectWrapper<>(value.apply(p.getValue())));
+        column.setCellFactory(_ -> new TableCell<>() {
+            @Override
+            protected void updateItem(final Long item, final boolean empty) {
+                super.updateItem(item, empty);
+                setText(item == null || empty ? null : String.format("%,d", item));
+            }
+        });
+        return column;
+    }
+
+}
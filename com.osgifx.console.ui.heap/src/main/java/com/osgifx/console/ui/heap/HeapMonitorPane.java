@@ -18,10 +18,11 @@ package com.osgifx.console.ui.heap;
 import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_CAPABILITIES_TOPIC;
 
 import java.io.File;
-import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -42,16 +43,21 @@ import org.eclipse.fx.core.log.FluentLogger;
 import org.eclipse.fx.core.log.Log;
 
 import com.google.common.collect.Lists;
+import com.osgifx.console.agent.dto.XClassHistogramDTO;
 import com.osgifx.console.agent.dto.XHeapUsageDTO;
 import com.osgifx.console.agent.dto.XHeapUsageDTO.XGarbageCollectorMXBean;
 import com.osgifx.console.agent.dto.XHeapUsageDTO.XMemoryPoolMXBean;
 import com.osgifx.console.agent.dto.XHeapUsageDTO.XMemoryUsage;
+import com.osgifx.console.agent.rpc.codec.BinaryCodec;
+import com.osgifx.console.agent.rpc.codec.SnapshotDecoder;
 import com.osgifx.console.agent.spi.payload.LargePayloadHandler;
 import com.osgifx.console.agent.spi.payload.PayloadMetadata;
 import com.osgifx.console.agent.spi.payload.PayloadType;
 import com.osgifx.console.data.provider.DataProvider;
 import com.osgifx.console.executor.Executor;
 import com.osgifx.console.supervisor.Supervisor;
+import com.osgifx.console.ui.heap.hprof.HeapDumpAnalysis;
+import com.osgifx.console.ui.heap.hprof.HeapDumpAnalyzer;
 import com.osgifx.console.util.fx.Fx;
 import com.osgifx.console.util.fx.FxDialog;
 import com.osgifx.console.util.io.IO;
@@ -69,6 +75,7 @@ import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.Separator;
@@ -86,6 +93,7 @@ import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.text.TextAlignment;
 import javafx.stage.DirectoryChooser;
+import javafx.stage.FileChooser;
 import javafx.util.Duration;
 
 @Creatable
@@ -104,25 +112,26 @@ public final class HeapMonitorPane extends BorderPane {
 
     @Log
     @Inject
-    private FluentLogger      logger;
+    private FluentLogger       logger;
     @Inject
-    private Executor          executor;
+    private Executor           executor;
     @Inject
     @Optional
-    private Supervisor        supervisor;
+    private Supervisor         supervisor;
     @Inject
-    private DataProvider      dataProvider;
+    private DataProvider       dataProvider;
     @Inject
     @Named("is_connected")
-    private boolean           isConnected;
+    private boolean            isConnected;
     @Inject
-    private ThreadSynchronize threadSync;
+    private ThreadSynchronize  threadSync;
     @Inject
     @Named("is_snapshot_agent")
-    private boolean           isSnapshotAgent;
+    private boolean            isSnapshotAgent;
     @Inject
-    private IEclipseContext   eclipseContext;
-    private ProgressDialog    progressDialog;
+    private IEclipseContext    eclipseContext;
+    private ProgressDialog     progressDialog;
+    private XClassHistogramDTO previousHistogram;
 
     @PostConstruct
     public void init() {
@@ -307,6 +316,20 @@ public final class HeapMonitorPane extends BorderPane {
         heapDumpBtn.setMaxWidth(Double.MAX_VALUE);
         heapDumpBtn.setOnAction(_ -> heapDump());
 
+        // counting only the reachable objects forces a full GC, hence it must be requested explicitly
+        final var liveOnlyCheckBox = new CheckBox("Live objects only (forces GC)");
+        liveOnlyCheckBox.setDisable(!isConnected || isSnapshotAgent);
+
+        final var classHistogramBtn = new Button("Class Histogram");
+        classHistogramBtn.setDisable(!isConnected || isSnapshotAgent);
+        classHistogramBtn.setMaxWidth(Double.MAX_VALUE);
+        classHistogramBtn.setOnAction(_ -> classHistogram(liveOnlyCheckBox.isSelected()));
+
+        // the analysis runs on the console, hence it does not need the remote runtime
+        final var analyzeHeapDumpBtn = new Button("Analyze Heap Dump");
+        analyzeHeapDumpBtn.setMaxWidth(Double.MAX_VALUE);
+        analyzeHeapDumpBtn.setOnAction(_ -> analyzeHeapDump());
+
         final var startStopBtn = new Button("Start");
         startStopBtn.setDisable(!isConnected || isSnapshotAgent);
         startStopBtn.setMaxWidth(Double.MAX_VALUE);
@@ -329,6 +352,9 @@ public final class HeapMonitorPane extends BorderPane {
         children.add(startStopBtn);
         children.add(garbageCollectBtn);
         children.add(heapDumpBtn);
+        children.add(classHistogramBtn);
+        children.add(liveOnlyCheckBox);
+        children.add(analyzeHeapDumpBtn);
 
         return vBox;
     }
@@ -359,6 +385,106 @@ public final class HeapMonitorPane extends BorderPane {
         executor.runAsync(gcTask);
     }
 
+    private void classHistogram(final boolean isLiveOnly) {
+        final var agent = supervisor.getAgent();
+        if (agent == null) {
+            return;
+        }
+        final Task<XClassHistogramDTO> histogramTask = new Task<>() {
+
+            @Override
+            protected XClassHistogramDTO call() throws Exception {
+                try {
+                    updateMessage(isLiveOnly ? "Counting reachable objects per class" : "Counting objects per class");
+                    final var decoder   = new SnapshotDecoder(new BinaryCodec());
+                    final var histogram = decoder.decode(agent.classHistogram(isLiveOnly), XClassHistogramDTO.class);
+                    if (histogram == null) {
+                        throw new IllegalStateException("The remote runtime does not support class histograms");
+                    }
+                    return histogram;
+                } catch (final Exception e) {
+                    logger.atError().withException(e).log("Cannot take class histogram");
+                    threadSync.asyncExec(() -> {
+                        progressDialog.close();
+                        FxDialog.showExceptionDialog(e, getClass().getClassLoader());
+                    });
+                    throw e;
+                }
+            }
+        };
+
+        histogramTask.valueProperty().addListener((ChangeListener<XClassHistogramDTO>) (_, _, histogram) -> {
+            if (histogram != null) {
+                final var bundleNames = new HashMap<Long, String>();
+                dataProvider.bundles().forEach(b -> bundleNames.put(b.id, b.symbolicName));
+                final var last     = previousHistogram;
+                // a histogram of all objects cannot be compared with one of the reachable objects only
+                final var previous = last != null && last.isLiveOnly == histogram.isLiveOnly ? last : null;
+                previousHistogram = histogram;
+                threadSync.asyncExec(() -> {
+                    final var dialog = new ClassHistogramDialog();
+                    ContextInjectionFactory.inject(dialog, eclipseContext);
+                    dialog.init(histogram, previous, bundleNames);
+                    dialog.show();
+                });
+            }
+        });
+
+        final var taskFuture = executor.runAsync(histogramTask);
+        progressDialog = FxDialog.showProgressDialog("Class Histogram", histogramTask, getClass().getClassLoader(),
+                () -> taskFuture.cancel(true));
+    }
+
+    private void analyzeHeapDump() {
+        final var fileChooser = new FileChooser();
+        fileChooser.getExtensionFilters()
+                .add(new FileChooser.ExtensionFilter("Heap Dumps (.hprof, .hprof.gz)", "*.hprof", "*.hprof.gz"));
+        final var heapDumpFile = fileChooser.showOpenDialog(null);
+        if (heapDumpFile == null) {
+            return;
+        }
+        // the bundles are attributed by their packages and the leaking ones are reported
+        final var bundles       = List.copyOf(dataProvider.bundles());
+        final var leakedBundles = List.copyOf(dataProvider.leaks());
+
+        final Task<HeapDumpAnalysis> analysisTask = new Task<>() {
+
+            @Override
+            protected HeapDumpAnalysis call() throws Exception {
+                try {
+                    final var analyzer = new HeapDumpAnalyzer(heapDumpFile.toPath(), bundles, leakedBundles,
+                                                              (stage, workDone, totalWork) -> {
+                                                                  updateMessage(stage);
+                                                                  updateProgress(workDone, totalWork);
+                                                              });
+                    return analyzer.analyze();
+                } catch (final Exception e) {
+                    logger.atError().withException(e).log("Cannot analyze heap dump '%s'", heapDumpFile);
+                    threadSync.asyncExec(() -> {
+                        progressDialog.close();
+                        FxDialog.showExceptionDialog(e, getClass().getClassLoader());
+                    });
+                    throw e;
+                }
+            }
+        };
+
+        analysisTask.valueProperty().addListener((ChangeListener<HeapDumpAnalysis>) (_, _, analysis) -> {
+            if (analysis != null) {
+                threadSync.asyncExec(() -> {
+                    final var dialog = new HeapDumpAnalysisDialog();
+                    ContextInjectionFactory.inject(dialog, eclipseContext);
+                    dialog.init(heapDumpFile.getName(), analysis);
+                    dialog.show();
+                });
+            }
+        });
+
+        final var taskFuture = executor.runAsync(analysisTask);
+        progressDialog = FxDialog.showProgressDialog("Analyze Heap Dump", analysisTask, getClass().getClassLoader(),
+                () -> taskFuture.cancel(true));
+    }
+
     private void heapDump() {
         if (!isConnected) {
             return;
@@ -475,17 +601,33 @@ public final class HeapMonitorPane extends BorderPane {
         }
         final var agent = supervisor.getAgent();
 
-        final Task<byte[]> heapdumpTask = new Task<>() {
+        final Task<File> heapdumpTask = new Task<>() {
             @Override
-            protected byte[] call() throws Exception {
+            protected File call() throws Exception {
                 try {
-                    updateMessage("Stage 1/3: Generating heap dump file");
-                    Thread.sleep(100);
-                    updateMessage("Stage 2/3: Compressing heap dump (this may take 30 seconds)");
-                    Thread.sleep(100);
-                    final var data = agent.heapdump();
-                    updateMessage("Stage 3/3: Transferring heap dump");
-                    return data;
+                    if (supervisor.isLegacyAgent()) {
+                        // legacy agents do not support chunked transfers
+                        updateMessage("Generating and transferring heap dump");
+                        final var data = agent.heapdump();
+                        if (data == null) {
+                            throw new IllegalStateException("Heap dump is not supported by the remote runtime");
+                        }
+                        final var heapdumpFile = new File(location, IO.prepareFilenameFor("hprof"));
+                        FileUtils.writeByteArrayToFile(heapdumpFile, data);
+                        return heapdumpFile;
+                    }
+                    updateMessage("Stage 1/2: Generating and compressing heap dump (this may take 30 seconds)");
+                    final var transfer = agent.openHeapdumpTransfer();
+                    if (transfer == null) {
+                        throw new IllegalStateException("Heap dump is not supported by the remote runtime");
+                    }
+                    updateMessage("Stage 2/2: Transferring heap dump");
+                    final var heapdumpFile = new File(location, transfer.name);
+                    return supervisor.download(transfer, heapdumpFile, bytes -> updateProgress(bytes, transfer.size),
+                            this::isCancelled);
+                } catch (final CancellationException e) {
+                    logger.atInfo().log("Heapdump capture has been cancelled");
+                    throw e;
                 } catch (final Exception e) {
                     logger.atError().withException(e).log("Cannot capture heapdump");
                     threadSync.asyncExec(() -> {
@@ -497,23 +639,17 @@ public final class HeapMonitorPane extends BorderPane {
             }
         };
 
-        heapdumpTask.valueProperty().addListener((ChangeListener<byte[]>) (_, _, newValue) -> {
-            if (newValue != null) {
-                threadSync.asyncExec(() -> {
-                    try {
-                        final var heapdumpFile = new File(location, IO.prepareFilenameFor("hprof"));
-                        FileUtils.writeByteArrayToFile(heapdumpFile, newValue);
-                        Fx.showSuccessNotification("Heapdump Successfully Captured", heapdumpFile.getAbsolutePath());
-                    } catch (final IOException e) {
-                        FxDialog.showExceptionDialog(e, getClass().getClassLoader());
-                    }
-                });
+        heapdumpTask.valueProperty().addListener((ChangeListener<File>) (_, _, heapdumpFile) -> {
+            if (heapdumpFile != null) {
+                threadSync.asyncExec(() -> Fx.showSuccessNotification("Heapdump Successfully Captured",
+                        heapdumpFile.getAbsolutePath()));
             }
         });
 
         final var taskFuture = executor.runAsync(heapdumpTask);
+        // the download checks the cancellation on its own, an interrupt would close the open channels
         progressDialog = FxDialog.showProgressDialog("Capture Heapdump", heapdumpTask, getClass().getClassLoader(),
-                () -> taskFuture.cancel(true));
+                () -> taskFuture.cancel(false), false);
     }
 
     private void heapDumpLocally() {
@@ -619,6 +755,8 @@ public final class HeapMonitorPane extends BorderPane {
     }
 
     public void stopUpdates() {
+        // the histograms of different runtimes must not be compared
+        previousHistogram = null;
         animation.pause();
     }
 
@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.heap.hprof;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+
+/**
+ * Computes the immediate dominators of a graph in compressed sparse row form with the
+ * algorithm of Lengauer and Tarjan, using path compression without balancing. An object
+ * dominates another one if every path from the GC roots to the latter passes through it,
+ * hence the retained size of an object is the size of all objects it dominates.
+ * <p>
+ * The depth-first search and the path compression are iterative, so that the depth of the
+ * graph is not bounded by the stack of the thread, and every array is mapped.
+ */
+final class DominatorTree implements AutoCloseable {
+
+    private final int         root;
+    private final MappedArray vertices;
+    private final MappedArray dominators;
+    private final int         reachable;
+
+    /**
+     * Computes the dominator tree.
+     *
+     * @param directory the directory of the mapped arrays
+     * @param size the number of vertices
+     * @param root the vertex every path starts from
+     * @param successors the successors of every vertex {@code v} from
+     *            {@code successorOffsets[v]} to {@code successorOffsets[v + 1]}
+     * @param successorOffsets the offsets of the successors
+     * @param predecessors the predecessors of every vertex likewise
+     * @param predecessorOffsets the offsets of the predecessors
+     */
+    DominatorTree(final Path directory,
+                  final int size,
+                  final int root,
+                  final MappedArray successors,
+                  final MappedArray successorOffsets,
+                  final MappedArray predecessors,
+                  final MappedArray predecessorOffsets) throws IOException {
+        this.root = root;
+        // the vertices in depth-first preorder from 1
+        vertices   = MappedArray.ofInts(directory, "vertices", size + 1L);
+        dominators = MappedArray.ofInts(directory, "dominators", size);
+        try (var semi = MappedArray.ofInts(directory, "semi", size);
+                var parents = MappedArray.ofInts(directory, "parents", size);
+                var ancestors = MappedArray.ofInts(directory, "ancestors", size);
+                var labels = MappedArray.ofInts(directory, "labels", size);
+                var buckets = MappedArray.ofInts(directory, "buckets", size);
+                var next = MappedArray.ofInts(directory, "next", size);
+                var stack = MappedArray.ofInts(directory, "stack", size);
+                var cursors = MappedArray.ofLongs(directory, "cursors", size)) {
+
+            ancestors.fillMinusOne(size);
+            buckets.fillMinusOne(size);
+            dominators.fillMinusOne(size);
+
+            reachable = search(successors, successorOffsets, semi, parents, labels, stack, cursors);
+
+            for (var i = reachable; i >= 2; i--) {
+                checkInterrupted(i);
+                final var w = vertices.getInt(i);
+                // the semidominator is the vertex with the smallest number among the predecessors
+                // and the semidominators of their ancestors with a greater number
+                for (var p = predecessorOffsets.getLong(w); p < predecessorOffsets.getLong(w + 1L); p++) {
+                    final var v = predecessors.getInt(p);
+                    if (semi.getInt(v) == 0) {
+                        // unreachable from the root
+                        continue;
+                    }
+                    final var u = eval(v, semi, ancestors, labels, stack);
+                    if (semi.getInt(u) < semi.getInt(w)) {
+                        semi.setInt(w, semi.getInt(u));
+                    }
+                }
+                final var s = vertices.getInt(semi.getInt(w));
+                next.setInt(w, buckets.getInt(s));
+                buckets.setInt(s, w);
+
+                final var parent = parents.getInt(w);
+                ancestors.setInt(w, parent);
+
+                for (var v = buckets.getInt(parent); v != -1; v = next.getInt(v)) {
+                    final var u = eval(v, semi, ancestors, labels, stack);
+                    dominators.setInt(v, semi.getInt(u) < semi.getInt(v) ? u : parent);
+                }
+                buckets.setInt(parent, -1);
+            }
+            for (var i = 2; i <= reachable; i++) {
+                final var w = vertices.getInt(i);
+                if (dominators.getInt(w) != vertices.getInt(semi.getInt(w))) {
+                    dominators.setInt(w, dominators.getInt(dominators.getInt(w)));
+                }
+            }
+            dominators.setInt(root, -1);
+        } catch (final IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of vertices reachable from the root, including the root.
+     */
+    int reachable() {
+        return reachable;
+    }
+
+    /**
+     * Returns the reachable vertex with the specified number in depth-first preorder from
+     * {@code 1} for the root to {@link #reachable()}. A vertex is numbered after its
+     * dominators.
+     */
+    int vertex(final int number) {
+        return vertices.getInt(number);
+    }
+
+    /**
+     * Returns the immediate dominator of the specified vertex, or {@code -1} for the root and
+     * the unreachable vertices.
+     */
+    int dominator(final int vertex) {
+        return dominators.getInt(vertex);
+    }
+
+    private int search(final MappedArray successors,
+                       final MappedArray successorOffsets,
+                       final MappedArray semi,
+                       final MappedArray parents,
+                       final MappedArray labels,
+                       final MappedArray stack,
+                       final MappedArray cursors) throws IOException {
+        var number = 0;
+        var top    = 0;
+        semi.setInt(root, ++number);
+        vertices.setInt(number, root);
+        labels.setInt(root, root);
+        stack.setInt(top, root);
+        cursors.setLong(top++, successorOffsets.getLong(root));
+        while (top > 0) {
+            final var v      = stack.getInt(top - 1);
+            final var cursor = cursors.getLong(top - 1);
+            if (cursor == successorOffsets.getLong(v + 1L)) {
+                top--;
+                continue;
+            }
+            cursors.setLong(top - 1, cursor + 1);
+            final var w = successors.getInt(cursor);
+            if (semi.getInt(w) == 0) {
+                checkInterrupted(number);
+                parents.setInt(w, v);
+                semi.setInt(w, ++number);
+                vertices.setInt(number, w);
+                labels.setInt(w, w);
+                stack.setInt(top, w);
+                cursors.setLong(top++, successorOffsets.getLong(w));
+            }
+        }
+        return number;
+    }
+
+    private static int eval(final int v,
+                            final MappedArray semi,
+                            final MappedArray ancestors,
+                            final MappedArray labels,
+                            final MappedArray stack) {
+        if (ancestors.getInt(v) == -1) {
+            return v;
+        }
+        // compresses the path from the vertex to the root of its tree in the forest
+        var top = 0;
+        for (var u = v; ancestors.getInt(ancestors.getInt(u)) != -1; u = ancestors.getInt(u)) {
+            stack.setInt(top++, u);
+        }
+        while (top > 0) {
+            final var u        = stack.getInt(--top);
+            final var ancestor = ancestors.getInt(u);
+            if (semi.getInt(labels.getInt(ancestor)) < semi.getInt(labels.getInt(u))) {
+                labels.setInt(u, labels.getInt(ancestor));
+            }
+            ancestors.setInt(u, ancestors.getInt(ancestor));
+        }
+        return labels.getInt(v);
+    }
+
+    private static void checkInterrupted(final int count) throws InterruptedIOException {
+        if ((count & 0xFFFF) == 0 && Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Computing the dominators has been interrupted");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            vertices.close();
+        } finally {
+            dominators.close();
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.heap.hprof;
+
+import java.util.List;
+
+/**
+ * The result of a {@link HeapDumpAnalyzer}. The sizes are estimated from the heap dump as
+ * the JVM lays out the objects without compressed references.
+ *
+ * @param objects the number of objects in the heap dump
+ * @param reachableObjects the number of objects reachable from the GC roots
+ * @param reachableBytes the size of the reachable objects in bytes
+ * @param bundles the reachable objects per bundle, the largest retained size first
+ * @param leakedClassLoaders the class loaders of the bundles suspected to leak, the
+ *            largest retained size first
+ */
+public record HeapDumpAnalysis(long objects,
+                               long reachableObjects,
+                               long reachableBytes,
+                               List<BundleUsage> bundles,
+                               List<LeakedClassLoader> leakedClassLoaders) {
+
+    /**
+     * The reachable objects whose classes are defined by the class loader of a bundle. The
+     * class loaders of a bundle and the class objects it defines belong to the bundle as well.
+     *
+     * @param bundleId the ID of the bundle, or {@code -1} for the JVM and the class loaders
+     *            not attributed to a bundle
+     * @param bundleName the symbolic name of the bundle
+     * @param objects the number of objects
+     * @param shallowBytes the size of the objects in bytes
+     * @param retainedBytes the size of the objects that would be garbage collected along with
+     *            the objects of the bundle in bytes
+     */
+    public record BundleUsage(long bundleId,
+                              String bundleName,
+                              long objects,
+                              long shallowBytes,
+                              long retainedBytes) {
+    }
+
+    /**
+     * A class loader of a bundle suspected to leak along with the shortest path from a GC
+     * root keeping it alive.
+     *
+     * @param bundleId the ID of the bundle
+     * @param bundleName the symbolic name of the bundle
+     * @param classLoader the class and the address of the class loader
+     * @param retainedBytes the size of the objects that would be garbage collected along with
+     *            the class loader in bytes
+     * @param gcRoot the kind of the GC root the path starts from
+     * @param path the objects from the GC root to the class loader
+     */
+    public record LeakedClassLoader(long bundleId,
+                                    String bundleName,
+                                    String classLoader,
+                                    long retainedBytes,
+                                    String gcRoot,
+                                    List<PathElement> path) {
+    }
+
+    /**
+     * An object on the path from a GC root.
+     *
+     * @param object the class and the address of the object
+     * @param reference the field or the element of the object referencing the next object on
+     *            the path, or {@code null} for the last one
+     */
+    public record PathElement(String object, String reference) {
+    }
+
+}
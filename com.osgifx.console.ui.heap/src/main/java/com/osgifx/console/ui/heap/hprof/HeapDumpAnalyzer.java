@@ -0,0 +1,857 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.heap.hprof;
+
+import static com.osgifx.console.ui.heap.hprof.HprofReader.OBJECT;
+import static java.util.Comparator.comparingLong;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.osgifx.console.agent.dto.XBundleDTO;
+import com.osgifx.console.ui.heap.hprof.HeapDumpAnalysis.BundleUsage;
+import com.osgifx.console.ui.heap.hprof.HeapDumpAnalysis.LeakedClassLoader;
+import com.osgifx.console.ui.heap.hprof.HeapDumpAnalysis.PathElement;
+import com.osgifx.console.ui.heap.hprof.HprofVisitor.ClassDump;
+
+/**
+ * Analyzes a heap dump without loading it into the heap of the console.
+ * <p>
+ * The heap dump is streamed up to three times: to index the objects, to collect the
+ * references between them and, if class loaders of leaking bundles are found, to describe
+ * the paths keeping them alive. The object graph, its dominator tree and the sizes are kept
+ * in memory-mapped temporary files, only the classes and the bundles are kept on the heap.
+ * <p>
+ * The objects are attributed to the bundle whose class loader defines their class. As the
+ * heap dump does not know bundles, a class loader is attributed to the bundle that exports
+ * the packages of most of its classes, or whose symbolic name is the longest prefix of them.
+ * The referents of {@link java.lang.ref.Reference}s are ignored, since they do not keep
+ * objects alive.
+ */
+public final class HeapDumpAnalyzer {
+
+    /**
+     * Receives the progress of an analysis.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        /**
+         * @param stage the current stage of the analysis
+         * @param workDone the work done in the stage, or {@code -1} if unknown
+         * @param totalWork the total work of the stage, or {@code -1} if unknown
+         */
+        void onProgress(String stage, long workDone, long totalWork);
+    }
+
+    private static final String JVM            = "JVM";
+    private static final String REFERENCE      = "java.lang.ref.Reference";
+    private static final String REFERENT       = "referent";
+    private static final int    JVM_SLOT       = 0;
+    private static final int    MAX_OBJECTS    = Integer.MAX_VALUE - 1;
+    private static final String STAGE_INDEX    = "Stage 1/5: Indexing objects";
+    private static final String STAGE_GRAPH    = "Stage 2/5: Reading references";
+    private static final String STAGE_DOMINATE = "Stage 3/5: Computing dominators";
+    private static final String STAGE_RETAIN   = "Stage 4/5: Computing retained sizes";
+    private static final String STAGE_PATHS    = "Stage 5/5: Finding paths to leaked class loaders";
+
+    private final Path              heapDump;
+    private final ProgressListener  listener;
+    private final Map<String, Long> exporters       = new HashMap<>();
+    private final Map<String, Long> symbolicNames   = new HashMap<>();
+    private final Map<Long, String> bundleNames     = new HashMap<>();
+    private final Set<Long>         leakedBundleIds = new HashSet<>();
+
+    // the state of the analysis
+    private final List<MappedArray>    arrays      = new ArrayList<>();
+    private final Map<Long, ClassInfo> classes     = new HashMap<>();
+    // the bundle slot of every class loader attributed to a bundle
+    private final Map<Long, Integer>   loaderSlots = new HashMap<>();
+    // the ID of the bundle of every slot, the slot 0 is the JVM
+    private final List<Long>           slotBundles = new ArrayList<>();
+    private Path                       directory;
+    private int                        idSize;
+    private long                       fileSize;
+    private long                       idCount;
+    private ObjectIndex                index;
+    private MappedArray                roots;
+    private MappedArray                rootTypes;
+    private long                       rootCount;
+    private MappedArray                sizes;
+    private MappedArray                owners;
+    private MappedArray                edgeSources;
+    private MappedArray                edgeTargets;
+    private long                       edgeCount;
+
+    /**
+     * Creates an analyzer for a single heap dump.
+     *
+     * @param heapDump the heap dump, either plain or compressed with GZIP
+     * @param bundles the bundles of the runtime the heap dump has been taken from
+     * @param leakedBundles the bundles suspected to leak class loaders
+     * @param listener the listener to receive the progress
+     */
+    public HeapDumpAnalyzer(final Path heapDump,
+                            final Collection<XBundleDTO> bundles,
+                            final Collection<XBundleDTO> leakedBundles,
+                            final ProgressListener listener) {
+        this.heapDump = heapDump;
+        this.listener = listener;
+        for (final XBundleDTO bundle : bundles) {
+            addBundle(bundle);
+        }
+        for (final XBundleDTO bundle : leakedBundles) {
+            addBundle(bundle);
+            leakedBundleIds.add(bundle.id);
+        }
+        slotBundles.add(-1L);
+    }
+
+    private void addBundle(final XBundleDTO bundle) {
+        bundleNames.put(bundle.id, bundle.symbolicName);
+        if (bundle.symbolicName != null) {
+            symbolicNames.putIfAbsent(bundle.symbolicName, bundle.id);
+        }
+        if (bundle.exportedPackages != null) {
+            bundle.exportedPackages.forEach(p -> exporters.putIfAbsent(p.name, bundle.id));
+        }
+    }
+
+    /**
+     * Analyzes the heap dump.
+     *
+     * @return the analysis
+     * @throws IOException if the heap dump cannot be read, or the thread has been interrupted
+     */
+    public HeapDumpAnalysis analyze() throws IOException {
+        directory = Files.createTempDirectory("osgifx-heapdump-");
+        try {
+            fileSize = Files.size(heapDump);
+            indexObjects();
+            readReferences();
+            return analyzeGraph();
+        } finally {
+            for (final MappedArray array : arrays) {
+                array.close();
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private MappedArray longs(final String name, final long capacity) throws IOException {
+        final var array = MappedArray.ofLongs(directory, name, capacity);
+        arrays.add(array);
+        return array;
+    }
+
+    private MappedArray ints(final String name, final long capacity) throws IOException {
+        final var array = MappedArray.ofInts(directory, name, capacity);
+        arrays.add(array);
+        return array;
+    }
+
+    private MappedArray bytes(final String name, final long capacity) throws IOException {
+        final var array = MappedArray.ofBytes(directory, name, capacity);
+        arrays.add(array);
+        return array;
+    }
+
+    // --- Pass 1: the objects, the classes and the GC roots ---
+
+    private void indexObjects() throws IOException {
+        final var ids        = longs("ids", fileSize / 32);
+        final var strings    = new HashMap<Long, String>();
+        final var classNames = new HashMap<Long, Long>();
+        roots     = longs("roots", 1024);
+        rootTypes = bytes("root-types", 1024);
+
+        try (var reader = read(STAGE_INDEX)) {
+            idSize = reader.idSize();
+            reader.accept(new HprofVisitor() {
+
+                @Override
+                public void utf8(final long id, final String value) {
+                    strings.put(id, value);
+                }
+
+                @Override
+                public void loadClass(final long classId, final long nameId) {
+                    classNames.put(classId, nameId);
+                }
+
+                @Override
+                public void gcRoot(final long objectId, final int type) throws IOException {
+                    roots.ensureCapacity(rootCount + 1);
+                    rootTypes.ensureCapacity(rootCount + 1);
+                    roots.setLong(rootCount, objectId);
+                    rootTypes.setByte(rootCount++, (byte) type);
+                }
+
+                @Override
+                public void classDump(final ClassDump dump) throws IOException {
+                    classes.put(dump.id(), new ClassInfo(dump, reader));
+                    add(dump.id());
+                }
+
+                @Override
+                public void instance(final long id, final long classId, final byte[] values, final int length)
+                        throws IOException {
+                    add(id);
+                }
+
+                @Override
+                public void objectArray(final long id,
+                                        final long arrayClassId,
+                                        final long[] elements,
+                                        final int length) throws IOException {
+                    add(id);
+                }
+
+                @Override
+                public void primitiveArray(final long id, final int elementType, final int length)
+                        throws IOException {
+                    add(id);
+                }
+
+                private void add(final long id) throws IOException {
+                    if (idCount == MAX_OBJECTS) {
+                        throw new IOException("The heap dump contains more than " + MAX_OBJECTS + " objects");
+                    }
+                    ids.ensureCapacity(idCount + 1);
+                    ids.setLong(idCount++, id);
+                }
+            }, true);
+        }
+        listener.onProgress(STAGE_INDEX, -1, -1);
+        index = new ObjectIndex(ids, idCount, directory);
+
+        for (final ClassInfo info : classes.values()) {
+            final var nameId = classNames.get(info.id);
+            info.name = nameId == null ? "0x" + Long.toHexString(info.id)
+                    : strings.getOrDefault(nameId, "").replace('/', '.');
+            info.superClass = classes.get(info.superId);
+            info.resolveNames(strings);
+        }
+        for (final ClassInfo info : classes.values()) {
+            info.resolveReferenceFields();
+        }
+        attributeClassLoaders();
+    }
+
+    private void attributeClassLoaders() {
+        // the number of classes of every bundle per class loader
+        final var votes    = new HashMap<Long, Map<Long, Integer>>();
+        final var packages = new HashMap<String, Long>();
+        for (final ClassInfo info : classes.values()) {
+            final var dot = info.name.lastIndexOf('.');
+            // the boot loader, array classes and the default package
+            if (info.loaderId == 0 || info.name.startsWith("[") || dot == -1) {
+                continue;
+            }
+            final long bundleId = packages.computeIfAbsent(info.name.substring(0, dot), this::packageOwner);
+            if (bundleId != -1) {
+                votes.computeIfAbsent(info.loaderId, _ -> new HashMap<>()).merge(bundleId, 1, Integer::sum);
+            }
+        }
+        final var slots = new HashMap<Long, Integer>();
+        slots.put(-1L, JVM_SLOT);
+        votes.forEach((loaderId, bundles) -> {
+            final var bundleId = bundles.entrySet().stream().max(Map.Entry.comparingByValue()).orElseThrow()
+                    .getKey();
+            loaderSlots.put(loaderId, slots.computeIfAbsent(bundleId, _ -> {
+                slotBundles.add(bundleId);
+                return slotBundles.size() - 1;
+            }));
+        });
+        for (final ClassInfo info : classes.values()) {
+            info.slot = loaderSlots.getOrDefault(info.loaderId, JVM_SLOT);
+        }
+    }
+
+    // the exporter of the package, otherwise the bundle with the longest symbolic name prefixing it
+    private long packageOwner(final String packageName) {
+        final var exporter = exporters.get(packageName);
+        if (exporter != null) {
+            return exporter;
+        }
+        for (var name = packageName; !name.isEmpty(); name = name.substring(0, Math.max(name.lastIndexOf('.'), 0))) {
+            final var bundleId = symbolicNames.get(name);
+            if (bundleId != null) {
+                return bundleId;
+            }
+        }
+        return -1;
+    }
+
+    // --- Pass 2: the sizes, the owners and the references of the objects ---
+
+    private void readReferences() throws IOException {
+        final var size = objectCount();
+        sizes       = longs("sizes", size + 1L);
+        owners      = ints("owners", size + 1L);
+        edgeSources = ints("edge-sources", size * 2L);
+        edgeTargets = ints("edge-targets", size * 2L);
+
+        try (var reader = read(STAGE_GRAPH)) {
+            reader.accept(new HprofVisitor() {
+
+                private ClassInfo lastClass;
+
+                @Override
+                public void classDump(final ClassDump dump) throws IOException {
+                    final var object = index.indexOf(dump.id());
+                    final var info   = classes.get(dump.id());
+                    sizes.setLong(object, align(2L * idSize + info.staticBytes));
+                    owners.setInt(object, info.slot);
+                    addEdge(object, info.superId);
+                    addEdge(object, info.loaderId);
+                    for (final long reference : info.references) {
+                        addEdge(object, reference);
+                    }
+                }
+
+                @Override
+                public void instance(final long id, final long classId, final byte[] values, final int length)
+                        throws IOException {
+                    final var object = index.indexOf(id);
+                    sizes.setLong(object, align(2L * idSize + length));
+                    addEdge(object, classId);
+                    final var info = classOf(classId);
+                    if (info == null) {
+                        return;
+                    }
+                    owners.setInt(object, info.slot);
+                    for (final int offset : info.referenceOffsets) {
+                        addEdge(object, reader.readId(values, offset));
+                    }
+                }
+
+                @Override
+                public void objectArray(final long id,
+                                        final long arrayClassId,
+                                        final long[] elements,
+                                        final int length) throws IOException {
+                    final var object = index.indexOf(id);
+                    sizes.setLong(object, align(2L * idSize + 4 + (long) length * idSize));
+                    addEdge(object, arrayClassId);
+                    final var info = classOf(arrayClassId);
+                    if (info != null) {
+                        owners.setInt(object, info.slot);
+                    }
+                    for (var i = 0; i < length; i++) {
+                        addEdge(object, elements[i]);
+                    }
+                }
+
+                @Override
+                public void primitiveArray(final long id, final int elementType, final int length)
+                        throws IOException {
+                    final var object = index.indexOf(id);
+                    sizes.setLong(object, align(2L * idSize + 4 + (long) length * reader.sizeOf(elementType)));
+                }
+
+                // the instances of a class are mostly dumped consecutively
+                private ClassInfo classOf(final long classId) {
+                    if (lastClass == null || lastClass.id != classId) {
+                        lastClass = classes.get(classId);
+                    }
+                    return lastClass;
+                }
+            }, false);
+        }
+        // the class loaders belong to the bundles they define the classes of
+        loaderSlots.forEach((loaderId, slot) -> {
+            final var object = index.indexOf(loaderId);
+            if (object != -1) {
+                owners.setInt(object, slot);
+            }
+        });
+        // the GC roots are referenced by a virtual root
+        for (long i = 0; i < rootCount; i++) {
+            addEdge(size, roots.getLong(i));
+        }
+    }
+
+    private void addEdge(final int source, final long targetId) throws IOException {
+        if (targetId == 0) {
+            return;
+        }
+        final var target = index.indexOf(targetId);
+        if (target == -1 || target == source) {
+            return;
+        }
+        edgeSources.ensureCapacity(edgeCount + 1);
+        edgeTargets.ensureCapacity(edgeCount + 1);
+        edgeSources.setInt(edgeCount, source);
+        edgeTargets.setInt(edgeCount++, target);
+    }
+
+    private static long align(final long bytes) {
+        return bytes + 7 & ~7L;
+    }
+
+    // --- The dominator tree, the retained sizes and the paths ---
+
+    private HeapDumpAnalysis analyzeGraph() throws IOException {
+        final var size = objectCount();
+        final var root = size;
+
+        listener.onProgress(STAGE_DOMINATE, -1, -1);
+        final var successorOffsets   = longs("successor-offsets", size + 2L);
+        final var successors         = ints("successors", edgeCount);
+        final var predecessorOffsets = longs("predecessor-offsets", size + 2L);
+        final var predecessors       = ints("predecessors", edgeCount);
+        adjacency(edgeSources, edgeTargets, size + 1, successorOffsets, successors);
+        adjacency(edgeTargets, edgeSources, size + 1, predecessorOffsets, predecessors);
+        close(edgeSources, edgeTargets);
+
+        try (var tree = new DominatorTree(directory, size + 1, root, successors, successorOffsets, predecessors,
+                                          predecessorOffsets)) {
+            close(predecessors, predecessorOffsets);
+
+            listener.onProgress(STAGE_RETAIN, -1, -1);
+            final var retained = longs("retained", size + 1L);
+            final var slots    = slotBundles.size();
+            final var objects  = new long[slots];
+            final var shallow  = new long[slots];
+            for (var number = tree.reachable(); number >= 2; number--) {
+                checkInterrupted(number);
+                final var object = tree.vertex(number);
+                final var bytes  = retained.getLong(object) + sizes.getLong(object);
+                retained.setLong(object, bytes);
+                retained.setLong(tree.dominator(object),
+                        retained.getLong(tree.dominator(object)) + bytes);
+                final var slot = owners.getInt(object);
+                objects[slot]++;
+                shallow[slot] += sizes.getLong(object);
+            }
+            final var retainedPerSlot = retainedPerSlot(tree, retained, slots);
+
+            final var bundles = new ArrayList<BundleUsage>();
+            for (var slot = 0; slot < slots; slot++) {
+                if (objects[slot] > 0) {
+                    final long bundleId = slotBundles.get(slot);
+                    bundles.add(new BundleUsage(bundleId, bundleName(bundleId), objects[slot], shallow[slot],
+                                                retainedPerSlot[slot]));
+                }
+            }
+            bundles.sort(comparingLong(BundleUsage::retainedBytes).reversed());
+
+            final var leakedClassLoaders = findLeakedClassLoaders(successors, successorOffsets, retained);
+            return new HeapDumpAnalysis(size, tree.reachable() - 1L, retained.getLong(root), bundles,
+                                        leakedClassLoaders);
+        }
+    }
+
+    // converts the edges into the adjacency lists in compressed sparse row form
+    private void adjacency(final MappedArray sources,
+                           final MappedArray targets,
+                           final int vertices,
+                           final MappedArray offsets,
+                           final MappedArray adjacent) throws IOException {
+        for (long i = 0; i < edgeCount; i++) {
+            checkInterrupted(i);
+            final var source = sources.getInt(i);
+            offsets.setLong(source, offsets.getLong(source) + 1);
+        }
+        // the end of the adjacency list of every vertex
+        var end = 0L;
+        for (var v = 0; v <= vertices; v++) {
+            end += offsets.getLong(v);
+            offsets.setLong(v, end);
+        }
+        // filled backwards, so that every offset ends up at the start of its list
+        for (long i = 0; i < edgeCount; i++) {
+            checkInterrupted(i);
+            final var source = sources.getInt(i);
+            final var offset = offsets.getLong(source) - 1;
+            offsets.setLong(source, offset);
+            adjacent.setInt(offset, targets.getInt(i));
+        }
+    }
+
+    /**
+     * The objects retained by a bundle are those dominated by its objects. To not count them
+     * twice, only the objects not dominated by another object of the same bundle are summed
+     * up while the dominator tree is traversed.
+     */
+    private long[] retainedPerSlot(final DominatorTree tree, final MappedArray retained, final int slots)
+            throws IOException {
+        final var size     = objectCount();
+        final var offsets  = longs("children-offsets", size + 2L);
+        final var children = ints("children", Math.max(tree.reachable() - 1L, 1));
+        final var stack    = ints("tree-stack", size + 1L);
+        final var cursors  = longs("tree-cursors", size + 1L);
+        for (var number = 2; number <= tree.reachable(); number++) {
+            final var dominator = tree.dominator(tree.vertex(number));
+            offsets.setLong(dominator, offsets.getLong(dominator) + 1);
+        }
+        var end = 0L;
+        for (var v = 0; v <= size + 1; v++) {
+            end += offsets.getLong(v);
+            offsets.setLong(v, end);
+        }
+        for (var number = 2; number <= tree.reachable(); number++) {
+            final var object    = tree.vertex(number);
+            final var dominator = tree.dominator(object);
+            final var offset    = offsets.getLong(dominator) - 1;
+            offsets.setLong(dominator, offset);
+            children.setInt(offset, object);
+        }
+
+        final var result = new long[slots];
+        // the number of objects of every bundle on the path from the root
+        final var active = new int[slots];
+        var       top    = 0;
+        stack.setInt(top, size);
+        cursors.setLong(top++, offsets.getLong(size));
+        while (top > 0) {
+            final var object = stack.getInt(top - 1);
+            final var cursor = cursors.getLong(top - 1);
+            if (cursor == offsets.getLong(object + 1L)) {
+                top--;
+                if (object != size) {
+                    active[owners.getInt(object)]--;
+                }
+                continue;
+            }
+            cursors.setLong(top - 1, cursor + 1);
+            final var child = children.getInt(cursor);
+            final var slot  = owners.getInt(child);
+            if (active[slot]++ == 0) {
+                result[slot] += retained.getLong(child);
+            }
+            checkInterrupted(cursor);
+            stack.setInt(top, child);
+            cursors.setLong(top++, offsets.getLong(child));
+        }
+        close(offsets, children, stack, cursors);
+        return result;
+    }
+
+    private List<LeakedClassLoader> findLeakedClassLoaders(final MappedArray successors,
+                                                           final MappedArray successorOffsets,
+                                                           final MappedArray retained) throws IOException {
+        final var leakedLoaders = new ArrayList<Integer>();
+        loaderSlots.forEach((loaderId, slot) -> {
+            final var object = index.indexOf(loaderId);
+            if (object != -1 && leakedBundleIds.contains(slotBundles.get(slot))) {
+                leakedLoaders.add(object);
+            }
+        });
+        if (leakedLoaders.isEmpty()) {
+            return List.of();
+        }
+        listener.onProgress(STAGE_PATHS, -1, -1);
+        final var size    = objectCount();
+        final var parents = shortestPaths(successors, successorOffsets);
+
+        // the objects on the paths and their successors
+        final var paths             = new ArrayList<long[]>();
+        final var successorsOnPaths = new HashMap<Long, Set<Long>>();
+        for (final int loader : leakedLoaders) {
+            final var path = new ArrayList<Long>();
+            for (var object = loader; object != size && object != -1; object = parents.getInt(object)) {
+                path.add(0, index.idOf(object));
+            }
+            final var ids = path.stream().mapToLong(Long::longValue).toArray();
+            for (var i = 0; i + 1 < ids.length; i++) {
+                successorsOnPaths.computeIfAbsent(ids[i], _ -> new HashSet<>()).add(ids[i + 1]);
+            }
+            successorsOnPaths.computeIfAbsent(ids[ids.length - 1], _ -> new HashSet<>());
+            paths.add(ids);
+        }
+        final var descriptions = new HashMap<Long, String>();
+        final var references   = new HashMap<Long, Map<Long, String>>();
+        describe(successorsOnPaths, descriptions, references);
+
+        final var result = new ArrayList<LeakedClassLoader>();
+        for (var i = 0; i < paths.size(); i++) {
+            final var ids      = paths.get(i);
+            final var loaderId = ids[ids.length - 1];
+            final var elements = new ArrayList<PathElement>();
+            for (var j = 0; j < ids.length; j++) {
+                final var reference = j + 1 < ids.length
+                        ? references.getOrDefault(ids[j], Map.of()).getOrDefault(ids[j + 1], "?")
+                        : null;
+                elements.add(new PathElement(descriptions.get(ids[j]), reference));
+            }
+            final var  loader   = leakedLoaders.get(i);
+            final long bundleId = slotBundles.get(loaderSlots.get(loaderId));
+            final var  gcRoot   = parents.getInt(loader) == -1 ? "None" : gcRoot(ids[0]);
+            result.add(new LeakedClassLoader(bundleId, bundleName(bundleId), descriptions.get(loaderId),
+                                             retained.getLong(loader), gcRoot, List.copyOf(elements)));
+        }
+        result.sort(comparingLong(LeakedClassLoader::retainedBytes).reversed());
+        return result;
+    }
+
+    // a breadth-first search from the GC roots, the parent of every reachable object on a shortest path
+    private MappedArray shortestPaths(final MappedArray successors, final MappedArray successorOffsets)
+            throws IOException {
+        final var size    = objectCount();
+        final var parents = ints("parents", size + 1L);
+        final var queue   = ints("queue", size + 1L);
+        parents.fillMinusOne(size + 1L);
+        long head = 0;
+        long tail = 0;
+        queue.setInt(tail++, size);
+        parents.setInt(size, size);
+        while (head < tail) {
+            checkInterrupted(head);
+            final var object = queue.getInt(head++);
+            for (var i = successorOffsets.getLong(object); i < successorOffsets.getLong(object + 1L); i++) {
+                final var successor = successors.getInt(i);
+                if (parents.getInt(successor) == -1) {
+                    parents.setInt(successor, object);
+                    queue.setInt(tail++, successor);
+                }
+            }
+        }
+        close(queue);
+        return parents;
+    }
+
+    // --- Pass 3: the classes of the objects on the paths and the fields referencing their successors ---
+
+    private void describe(final Map<Long, Set<Long>> successors,
+                          final Map<Long, String> descriptions,
+                          final Map<Long, Map<Long, String>> references) throws IOException {
+        for (final Map.Entry<Long, Set<Long>> entry : successors.entrySet()) {
+            final var info = classes.get(entry.getKey());
+            if (info != null) {
+                descriptions.put(entry.getKey(), "class " + displayName(info.name));
+                for (final long successor : entry.getValue()) {
+                    references.computeIfAbsent(entry.getKey(), _ -> new HashMap<>()).put(successor,
+                            info.referenceName(successor));
+                }
+            }
+        }
+        try (var reader = read(STAGE_PATHS)) {
+            reader.accept(new HprofVisitor() {
+
+                @Override
+                public void instance(final long id, final long classId, final byte[] values, final int length) {
+                    final var targets = successors.get(id);
+                    if (targets == null) {
+                        return;
+                    }
+                    final var info = classes.get(classId);
+                    descriptions.put(id, describe(info == null ? null : info.name, id));
+                    for (final long target : targets) {
+                        var name = classId == target ? "<class>" : "?";
+                        for (var i = 0; info != null && i < info.referenceOffsets.length; i++) {
+                            if (reader.readId(values, info.referenceOffsets[i]) == target) {
+                                name = info.referenceFieldNames[i];
+                                break;
+                            }
+                        }
+                        references.computeIfAbsent(id, _ -> new HashMap<>()).put(target, name);
+                    }
+                }
+
+                @Override
+                public void objectArray(final long id,
+                                        final long arrayClassId,
+                                        final long[] elements,
+                                        final int length) {
+                    final var targets = successors.get(id);
+                    if (targets == null) {
+                        return;
+                    }
+                    final var info = classes.get(arrayClassId);
+                    descriptions.put(id, describe(info == null ? null : info.name, id));
+                    for (final long target : targets) {
+                        var name = arrayClassId == target ? "<class>" : "?";
+                        for (var i = 0; i < length; i++) {
+                            if (elements[i] == target) {
+                                name = "[" + i + "]";
+                                break;
+                            }
+                        }
+                        references.computeIfAbsent(id, _ -> new HashMap<>()).put(target, name);
+                    }
+                }
+            }, false);
+        }
+    }
+
+    private static String describe(final String className, final long id) {
+        return (className == null ? "?" : displayName(className)) + " @ 0x" + Long.toHexString(id);
+    }
+
+    // the source code notation of array classes, e.g. java.lang.String[] for [Ljava.lang.String;
+    private static String displayName(final String className) {
+        if (!className.startsWith("[")) {
+            return className;
+        }
+        final var dimensions = className.lastIndexOf('[') + 1;
+        final var component  = switch (className.charAt(dimensions)) {
+                                 case 'Z' -> "boolean";
+                                 case 'B' -> "byte";
+                                 case 'C' -> "char";
+                                 case 'S' -> "short";
+                                 case 'I' -> "int";
+                                 case 'J' -> "long";
+                                 case 'F' -> "float";
+                                 case 'D' -> "double";
+                                 default -> className.substring(dimensions + 1, className.length() - 1);
+                             };
+        return component + "[]".repeat(dimensions);
+    }
+
+    private String gcRoot(final long id) {
+        for (long i = 0; i < rootCount; i++) {
+            if (roots.getLong(i) == id) {
+                return switch (rootTypes.getByte(i) & 0xFF) {
+                    case HprofReader.ROOT_JNI_GLOBAL -> "JNI global";
+                    case HprofReader.ROOT_JNI_LOCAL -> "JNI local";
+                    case HprofReader.ROOT_JAVA_FRAME -> "Java frame";
+                    case HprofReader.ROOT_NATIVE_STACK -> "Native stack";
+                    case HprofReader.ROOT_STICKY_CLASS -> "System class";
+                    case HprofReader.ROOT_THREAD_BLOCK -> "Thread block";
+                    case HprofReader.ROOT_MONITOR_USED -> "Busy monitor";
+                    case HprofReader.ROOT_THREAD_OBJECT -> "Thread";
+                    default -> "Unknown";
+                };
+            }
+        }
+        return "Unknown";
+    }
+
+    private String bundleName(final long bundleId) {
+        return bundleId == -1 ? JVM : bundleNames.getOrDefault(bundleId, "Bundle " + bundleId);
+    }
+
+    private int objectCount() {
+        return index.size();
+    }
+
+    private HprofReader read(final String stage) throws IOException {
+        listener.onProgress(stage, 0, fileSize);
+        return new HprofReader(heapDump, position -> listener.onProgress(stage, position, fileSize));
+    }
+
+    private void close(final MappedArray... closed) throws IOException {
+        for (final MappedArray array : closed) {
+            arrays.remove(array);
+            array.close();
+        }
+    }
+
+    private static void checkInterrupted(final long count) throws InterruptedIOException {
+        if ((count & 0xFFFFF) == 0 && Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("The heap dump analysis has been interrupted");
+        }
+    }
+
+    private static final class ClassInfo {
+
+        final long   id;
+        final long   superId;
+        final long   loaderId;
+        final long[] references;
+        final long[] referenceNameIds;
+        final byte[] fieldTypes;
+        final long[] fieldNameIds;
+        final int    staticBytes;
+        final int[]  fieldSizes;
+
+        String    name;
+        ClassInfo superClass;
+        int       slot;
+        String[]  referenceNames;
+        String[]  fieldNames;
+        // the offsets of the references in the values of the instances, including the inherited ones
+        int[]     referenceOffsets;
+        String[]  referenceFieldNames;
+
+        ClassInfo(final ClassDump dump, final HprofReader reader) throws IOException {
+            id               = dump.id();
+            superId          = dump.superId();
+            loaderId         = dump.loaderId();
+            references       = dump.references();
+            referenceNameIds = dump.referenceNames();
+            fieldTypes       = dump.fieldTypes();
+            fieldNameIds     = dump.fieldNames();
+            staticBytes      = dump.staticBytes();
+            fieldSizes       = new int[fieldTypes.length];
+            for (var i = 0; i < fieldTypes.length; i++) {
+                fieldSizes[i] = reader.sizeOf(fieldTypes[i]);
+            }
+        }
+
+        void resolveNames(final Map<Long, String> strings) {
+            fieldNames = new String[fieldNameIds.length];
+            for (var i = 0; i < fieldNameIds.length; i++) {
+                fieldNames[i] = strings.getOrDefault(fieldNameIds[i], "?");
+            }
+            referenceNames = new String[referenceNameIds.length];
+            for (var i = 0; i < referenceNameIds.length; i++) {
+                // the signers, the protection domain and the constant pool have no names
+                referenceNames[i] = switch (i) {
+                    case 0 -> "<signers>";
+                    case 1 -> "<protection domain>";
+                    default -> referenceNameIds[i] == 0 ? "<constant pool>"
+                            : "static " + strings.getOrDefault(referenceNameIds[i], "?");
+                };
+            }
+        }
+
+        void resolveReferenceFields() {
+            final var offsets = new ArrayList<Integer>();
+            final var names   = new ArrayList<String>();
+            var       offset  = 0;
+            for (var info = this; info != null; info = info.superClass) {
+                final var isReference = REFERENCE.equals(info.name);
+                for (var i = 0; i < info.fieldTypes.length; i++) {
+                    if (info.fieldTypes[i] == OBJECT && !(isReference && REFERENT.equals(info.fieldNames[i]))) {
+                        offsets.add(offset);
+                        names.add(info.fieldNames[i]);
+                    }
+                    offset += info.fieldSizes[i];
+                }
+            }
+            referenceOffsets    = offsets.stream().mapToInt(Integer::intValue).toArray();
+            referenceFieldNames = names.toArray(String[]::new);
+        }
+
+        String referenceName(final long target) {
+            if (target == superId) {
+                return "<super>";
+            }
+            if (target == loaderId) {
+                return "<class loader>";
+            }
+            for (var i = 0; i < references.length; i++) {
+                if (references[i] == target) {
+                    return referenceNames[i];
+                }
+            }
+            return "?";
+        }
+    }
+
+}
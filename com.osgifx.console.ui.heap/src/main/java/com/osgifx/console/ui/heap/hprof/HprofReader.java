@@ -0,0 +1,405 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.heap.hprof;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPInputStream;
+
+import com.osgifx.console.ui.heap.hprof.HprofVisitor.ClassDump;
+
+/**
+ * Reads a heap dump in the HPROF format in a single streaming pass, decompressing it on the
+ * fly if it is compressed with GZIP. Nothing but the record being read is kept in memory,
+ * hence heap dumps of any size can be read repeatedly.
+ */
+final class HprofReader implements Closeable {
+
+    // the record tags
+    private static final int UTF8              = 0x01;
+    private static final int LOAD_CLASS        = 0x02;
+    private static final int HEAP_DUMP         = 0x0C;
+    private static final int HEAP_DUMP_SEGMENT = 0x1C;
+
+    // the tags of the records within a heap dump
+    static final int ROOT_UNKNOWN       = 0xFF;
+    static final int ROOT_JNI_GLOBAL    = 0x01;
+    static final int ROOT_JNI_LOCAL     = 0x02;
+    static final int ROOT_JAVA_FRAME    = 0x03;
+    static final int ROOT_NATIVE_STACK  = 0x04;
+    static final int ROOT_STICKY_CLASS  = 0x05;
+    static final int ROOT_THREAD_BLOCK  = 0x06;
+    static final int ROOT_MONITOR_USED  = 0x07;
+    static final int ROOT_THREAD_OBJECT = 0x08;
+
+    private static final int CLASS_DUMP      = 0x20;
+    private static final int INSTANCE_DUMP   = 0x21;
+    private static final int OBJ_ARRAY_DUMP  = 0x22;
+    private static final int PRIM_ARRAY_DUMP = 0x23;
+
+    // the basic types
+    static final int OBJECT  = 2;
+    static final int BOOLEAN = 4;
+    static final int CHAR    = 5;
+    static final int FLOAT   = 6;
+    static final int DOUBLE  = 7;
+    static final int BYTE    = 8;
+    static final int SHORT   = 9;
+    static final int INT     = 10;
+    static final int LONG    = 11;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel  channel;
+    private final InputStream  in;
+    private final LongConsumer progress;
+    private final byte[]       buffer = new byte[BUFFER_SIZE];
+    private final int          idSize;
+
+    private int    position;
+    private int    limit;
+    private byte[] values   = new byte[256];
+    private long[] elements = new long[256];
+
+    /**
+     * Opens the specified heap dump and reads its header.
+     *
+     * @param heapDump the heap dump, either plain or compressed with GZIP
+     * @param progress receives the number of bytes read from the file while it is read
+     * @throws IOException if the file cannot be read or is not a heap dump
+     */
+    HprofReader(final Path heapDump, final LongConsumer progress) throws IOException {
+        final var file = new FileInputStream(heapDump.toFile());
+        try {
+            final var buffered = new BufferedInputStream(file, BUFFER_SIZE);
+            buffered.mark(2);
+            final var isCompressed = buffered.read() == 0x1F && buffered.read() == 0x8B;
+            buffered.reset();
+
+            this.channel  = file.getChannel();
+            this.in       = isCompressed ? new GZIPInputStream(buffered, BUFFER_SIZE) : buffered;
+            this.progress = progress;
+
+            final var format = new StringBuilder();
+            for (int b; (b = readU1()) != 0;) {
+                format.append((char) b);
+            }
+            if (!format.toString().startsWith("JAVA PROFILE")) {
+                throw new IOException("Not a HPROF heap dump");
+            }
+            idSize = readU4();
+            if (idSize != 4 && idSize != 8) {
+                throw new IOException("Unsupported identifier size " + idSize);
+            }
+            // the timestamp of the heap dump
+            skip(8);
+        } catch (final IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    int idSize() {
+        return idSize;
+    }
+
+    /**
+     * Returns the size of a value of the specified basic type in bytes.
+     */
+    int sizeOf(final int type) throws IOException {
+        return switch (type) {
+            case OBJECT -> idSize;
+            case BOOLEAN, BYTE -> 1;
+            case CHAR, SHORT -> 2;
+            case FLOAT, INT -> 4;
+            case DOUBLE, LONG -> 8;
+            default -> throw new IOException("Unsupported basic type " + type);
+        };
+    }
+
+    /**
+     * Reads all records of the heap dump.
+     *
+     * @param visitor the visitor to receive the records
+     * @param isStringsRequired whether the strings are decoded and passed to the visitor
+     * @throws IOException if the heap dump cannot be read or the thread has been interrupted
+     */
+    void accept(final HprofVisitor visitor, final boolean isStringsRequired) throws IOException {
+        while (hasRemaining()) {
+            final var tag = readU1();
+            // the time offset of the record
+            skip(4);
+            final var length = readU4() & 0xFFFFFFFFL;
+            switch (tag) {
+                case UTF8 -> {
+                    final var id = readId();
+                    if (isStringsRequired) {
+                        final var bytes = new byte[(int) (length - idSize)];
+                        readFully(bytes, bytes.length);
+                        visitor.utf8(id, new String(bytes, UTF_8));
+                    } else {
+                        skip(length - idSize);
+                    }
+                }
+                case LOAD_CLASS -> {
+                    // the class serial number
+                    skip(4);
+                    final var classId = readId();
+                    // the stack trace serial number
+                    skip(4);
+                    visitor.loadClass(classId, readId());
+                }
+                case HEAP_DUMP, HEAP_DUMP_SEGMENT -> readHeapDump(visitor, length);
+                default -> skip(length);
+            }
+        }
+    }
+
+    private void readHeapDump(final HprofVisitor visitor, long length) throws IOException {
+        while (length > 0) {
+            final var tag = readU1();
+            length -= 1 + idSize;
+            final var id = readId();
+            switch (tag) {
+                case ROOT_UNKNOWN, ROOT_STICKY_CLASS, ROOT_MONITOR_USED -> visitor.gcRoot(id, tag);
+                case ROOT_JNI_GLOBAL -> {
+                    // the ID of the JNI global reference
+                    skip(idSize);
+                    length -= idSize;
+                    visitor.gcRoot(id, tag);
+                }
+                case ROOT_JNI_LOCAL, ROOT_JAVA_FRAME, ROOT_THREAD_OBJECT -> {
+                    // the thread serial number and the frame number or the stack trace serial number
+                    skip(8);
+                    length -= 8;
+                    visitor.gcRoot(id, tag);
+                }
+                case ROOT_NATIVE_STACK, ROOT_THREAD_BLOCK -> {
+                    // the thread serial number
+                    skip(4);
+                    length -= 4;
+                    visitor.gcRoot(id, tag);
+                }
+                case CLASS_DUMP -> length -= readClassDump(visitor, id);
+                case INSTANCE_DUMP -> {
+                    // the stack trace serial number
+                    skip(4);
+                    final var classId = readId();
+                    final var size    = readU4();
+                    if (values.length < size) {
+                        values = new byte[Math.max(size, values.length * 2)];
+                    }
+                    readFully(values, size);
+                    length -= 8L + idSize + size;
+                    visitor.instance(id, classId, values, size);
+                }
+                case OBJ_ARRAY_DUMP -> {
+                    skip(4);
+                    final var size         = readU4();
+                    final var arrayClassId = readId();
+                    if (elements.length < size) {
+                        elements = new long[Math.max(size, elements.length * 2)];
+                    }
+                    for (var i = 0; i < size; i++) {
+                        elements[i] = readId();
+                    }
+                    length -= 8L + idSize + (long) size * idSize;
+                    visitor.objectArray(id, arrayClassId, elements, size);
+                }
+                case PRIM_ARRAY_DUMP -> {
+                    skip(4);
+                    final var size        = readU4();
+                    final var elementType = readU1();
+                    final var bytes       = (long) size * sizeOf(elementType);
+                    skip(bytes);
+                    length -= 9 + bytes;
+                    visitor.primitiveArray(id, elementType, size);
+                }
+                default -> throw new IOException("Unsupported heap dump record 0x" + Integer.toHexString(tag));
+            }
+        }
+    }
+
+    // returns the number of bytes read after the ID
+    private long readClassDump(final HprofVisitor visitor, final long id) throws IOException {
+        skip(4);
+        final var superId     = readId();
+        final var loaderId    = readId();
+        final var signersId   = readId();
+        final var domainId    = readId();
+        long      read        = 4 + 4L * idSize;
+        // the reserved IDs and the instance size
+        skip(2L * idSize + 4);
+        read += 2L * idSize + 4;
+
+        var references     = new long[] { signersId, domainId };
+        var referenceNames = new long[2];
+        var count          = 2;
+
+        final var constants = readU2();
+        read += 2;
+        for (var i = 0; i < constants; i++) {
+            // the constant pool index
+            skip(2);
+            final var type = readU1();
+            read += 3 + sizeOf(type);
+            if (type == OBJECT) {
+                if (count == references.length) {
+                    references     = Arrays.copyOf(references, count * 2);
+                    referenceNames = Arrays.copyOf(referenceNames, count * 2);
+                }
+                references[count++] = readId();
+            } else {
+                skip(sizeOf(type));
+            }
+        }
+        final var statics     = readU2();
+        var       staticBytes = 0;
+        read += 2;
+        for (var i = 0; i < statics; i++) {
+            final var nameId = readId();
+            final var type   = readU1();
+            read        += idSize + 1 + sizeOf(type);
+            staticBytes += sizeOf(type);
+            if (type == OBJECT) {
+                if (count == references.length) {
+                    references     = Arrays.copyOf(references, count * 2);
+                    referenceNames = Arrays.copyOf(referenceNames, count * 2);
+                }
+                referenceNames[count] = nameId;
+                references[count++]   = readId();
+            } else {
+                skip(sizeOf(type));
+            }
+        }
+        final var fields     = readU2();
+        final var fieldTypes = new byte[fields];
+        final var fieldNames = new long[fields];
+        read += 2 + (long) fields * (idSize + 1);
+        for (var i = 0; i < fields; i++) {
+            fieldNames[i] = readId();
+            fieldTypes[i] = (byte) readU1();
+        }
+        visitor.classDump(new ClassDump(id, superId, loaderId, Arrays.copyOf(references, count),
+                                        Arrays.copyOf(referenceNames, count), fieldTypes, fieldNames, staticBytes));
+        return read;
+    }
+
+    private boolean hasRemaining() throws IOException {
+        if (position < limit) {
+            return true;
+        }
+        position = 0;
+        limit    = Math.max(in.read(buffer), 0);
+        return limit > 0;
+    }
+
+    private void require(final int bytes) throws IOException {
+        if (limit - position >= bytes) {
+            return;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Reading the heap dump has been interrupted");
+        }
+        final var remaining = limit - position;
+        System.arraycopy(buffer, position, buffer, 0, remaining);
+        position = 0;
+        limit    = remaining;
+        while (limit < bytes) {
+            final var read = in.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                throw new EOFException("The heap dump is truncated");
+            }
+            limit += read;
+        }
+        progress.accept(channel.position());
+    }
+
+    private int readU1() throws IOException {
+        require(1);
+        return buffer[position++] & 0xFF;
+    }
+
+    private int readU2() throws IOException {
+        require(2);
+        final var value = (buffer[position] & 0xFF) << 8 | buffer[position + 1] & 0xFF;
+        position += 2;
+        return value;
+    }
+
+    private int readU4() throws IOException {
+        require(4);
+        final var value = (buffer[position] & 0xFF) << 24 | (buffer[position + 1] & 0xFF) << 16
+                | (buffer[position + 2] & 0xFF) << 8 | buffer[position + 3] & 0xFF;
+        position += 4;
+        return value;
+    }
+
+    private long readId() throws IOException {
+        if (idSize == 4) {
+            return readU4() & 0xFFFFFFFFL;
+        }
+        return (long) readU4() << 32 | readU4() & 0xFFFFFFFFL;
+    }
+
+    private void readFully(final byte[] bytes, final int length) throws IOException {
+        var read = 0;
+        while (read < length) {
+            require(1);
+            final var chunk = Math.min(length - read, limit - position);
+            System.arraycopy(buffer, position, bytes, read, chunk);
+            position += chunk;
+            read     += chunk;
+        }
+    }
+
+    private void skip(long bytes) throws IOException {
+        while (bytes > 0) {
+            require(1);
+            final var chunk = (int) Math.min(bytes, limit - position);
+            position += chunk;
+            bytes    -= chunk;
+        }
+    }
+
+    /**
+     * Reads an ID from the values of an instance.
+     */
+    long readId(final byte[] values, final int offset) {
+        var id = 0L;
+        for (var i = 0; i < idSize; i++) {
+            id = id << 8 | values[offset + i] & 0xFF;
+        }
+        return id;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+}
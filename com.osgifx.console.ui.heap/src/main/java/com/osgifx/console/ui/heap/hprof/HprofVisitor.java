@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.heap.hprof;
+
+import java.io.IOException;
+
+/**
+ * Receives the records of a heap dump in the order they are read by the {@link HprofReader}.
+ * <p>
+ * The arrays passed to the callbacks are reused for the subsequent records and must not be
+ * retained.
+ */
+interface HprofVisitor {
+
+    /**
+     * The class dump of a class, including array classes.
+     *
+     * @param id the ID of the class object
+     * @param superId the ID of the super class, or {@code 0}
+     * @param loaderId the ID of the defining class loader, or {@code 0} for the boot loader
+     * @param references the IDs referenced by the class itself: the signers, the protection
+     *            domain, the constant pool and the static fields, {@code 0} if absent
+     * @param referenceNames the name IDs of the static fields in {@code references}, or
+     *            {@code 0} for the other references
+     * @param fieldTypes the basic types of the declared instance fields in dump order
+     * @param fieldNames the name IDs of the declared instance fields
+     * @param staticBytes the size of the values of the static fields in bytes
+     */
+    record ClassDump(long id,
+                     long superId,
+                     long loaderId,
+                     long[] references,
+                     long[] referenceNames,
+                     byte[] fieldTypes,
+                     long[] fieldNames,
+                     int staticBytes) {
+    }
+
+    default void utf8(final long id, final String value) throws IOException {
+    }
+
+    default void loadClass(final long classId, final long nameId) throws IOException {
+    }
+
+    default void gcRoot(final long objectId, final int type) throws IOException {
+    }
+
+    default void classDump(final ClassDump dump) throws IOException {
+    }
+
+    /**
+     * An instance with the values of its fields, those of its class first followed by the
+     * ones of its super classes.
+     */
+    default void instance(final long id, final long classId, final byte[] values, final int length)
+            throws IOException {
+    }
+
+    default void objectArray(final long id, final long arrayClassId, final long[] elements, final int length)
+            throws IOException {
+    }
+
+    default void primitiveArray(final long id, final int elementType, final int length) throws IOException {
+    }
+
+}
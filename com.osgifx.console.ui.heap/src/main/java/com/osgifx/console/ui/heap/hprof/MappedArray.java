@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.heap.hprof;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A zero-initialized array of primitive values backed by a memory-mapped temporary file
+ * instead of the Java heap, so that the indexes of a heap dump can outgrow the heap of the
+ * console. The operating system pages the array in and out as it is accessed.
+ * <p>
+ * The array grows on demand and its file is deleted when it is closed. It is not thread
+ * safe.
+ */
+final class MappedArray implements AutoCloseable {
+
+    private final Path        file;
+    private final FileChannel channel;
+    private final ValueLayout layout;
+
+    private Arena         arena;
+    private MemorySegment segment;
+    private long          capacity;
+
+    private MappedArray(final Path file, final ValueLayout layout, final long capacity) throws IOException {
+        this.file    = file;
+        this.layout  = layout;
+        this.channel = FileChannel.open(file, CREATE_NEW, READ, WRITE);
+        map(Math.max(capacity, 1));
+    }
+
+    static MappedArray ofLongs(final Path directory, final String name, final long capacity) throws IOException {
+        return new MappedArray(directory.resolve(name), JAVA_LONG, capacity);
+    }
+
+    static MappedArray ofInts(final Path directory, final String name, final long capacity) throws IOException {
+        return new MappedArray(directory.resolve(name), JAVA_INT, capacity);
+    }
+
+    static MappedArray ofBytes(final Path directory, final String name, final long capacity) throws IOException {
+        return new MappedArray(directory.resolve(name), JAVA_BYTE, capacity);
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    long getLong(final long index) {
+        return segment.getAtIndex(JAVA_LONG, index);
+    }
+
+    void setLong(final long index, final long value) {
+        segment.setAtIndex(JAVA_LONG, index, value);
+    }
+
+    int getInt(final long index) {
+        return segment.getAtIndex(JAVA_INT, index);
+    }
+
+    void setInt(final long index, final int value) {
+        segment.setAtIndex(JAVA_INT, index, value);
+    }
+
+    byte getByte(final long index) {
+        return segment.get(JAVA_BYTE, index);
+    }
+
+    void setByte(final long index, final byte value) {
+        segment.set(JAVA_BYTE, index, value);
+    }
+
+    /**
+     * Sets the first {@code size} elements to {@code -1}.
+     */
+    void fillMinusOne(final long size) {
+        // -1 has all bits set in every width
+        segment.asSlice(0, size * layout.byteSize()).fill((byte) -1);
+    }
+
+    /**
+     * Ensures that the array can hold at least the specified number of elements by doubling
+     * its capacity. The elements already stored are retained.
+     */
+    void ensureCapacity(final long minCapacity) throws IOException {
+        if (minCapacity > capacity) {
+            map(Math.max(minCapacity, capacity * 2));
+        }
+    }
+
+    private void map(final long newCapacity) throws IOException {
+        final var newArena = Arena.ofConfined();
+        try {
+            // mapping beyond the end of the file extends it with zeros
+            segment = channel.map(MapMode.READ_WRITE, 0, newCapacity * layout.byteSize(), newArena);
+        } catch (final IOException | RuntimeException e) {
+            newArena.close();
+            throw e;
+        }
+        if (arena != null) {
+            arena.close();
+        }
+        arena    = newArena;
+        capacity = newCapacity;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            arena.close();
+            channel.close();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+}
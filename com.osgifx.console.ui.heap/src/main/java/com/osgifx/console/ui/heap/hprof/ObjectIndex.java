@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.heap.hprof;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Maps the IDs of the objects in a heap dump, i.e. their addresses, to dense indexes from
+ * {@code 0} to {@code size - 1}, so that the graph of the objects can be kept in arrays.
+ * <p>
+ * The IDs are sorted in a mapped array and the index of an ID is its position. Every
+ * {@value #FENCE_INTERVAL}th ID is kept on the heap as a fence, so that a lookup only
+ * touches a single page of the mapped array.
+ */
+final class ObjectIndex {
+
+    private static final int FENCE_INTERVAL = 512;
+    private static final int BLOCK_SIZE     = 1 << 16;
+
+    private final MappedArray ids;
+    private final int         size;
+    private final long[]      fences;
+
+    /**
+     * Sorts the specified IDs in place and removes the duplicates.
+     *
+     * @param ids the IDs of the objects
+     * @param count the number of IDs
+     * @param directory the directory of the temporary mapped arrays
+     */
+    ObjectIndex(final MappedArray ids, final long count, final Path directory) throws IOException {
+        if (!isSorted(ids, count)) {
+            sort(ids, count, directory);
+        }
+        var size = 0L;
+        for (long i = 0; i < count; i++) {
+            final var id = ids.getLong(i);
+            if (size == 0 || ids.getLong(size - 1) != id) {
+                ids.setLong(size++, id);
+            }
+        }
+        this.ids    = ids;
+        this.size   = (int) size;
+        this.fences = new long[(this.size + FENCE_INTERVAL - 1) / FENCE_INTERVAL];
+        for (var i = 0; i < fences.length; i++) {
+            fences[i] = ids.getLong((long) i * FENCE_INTERVAL);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long idOf(final int index) {
+        return ids.getLong(index);
+    }
+
+    /**
+     * Returns the index of the object with the specified ID, or {@code -1} if the heap dump
+     * does not contain such an object.
+     */
+    int indexOf(final long id) {
+        // the last fence not greater than the ID
+        var low  = 0;
+        var high = fences.length - 1;
+        if (high < 0 || Long.compareUnsigned(id, fences[0]) < 0) {
+            return -1;
+        }
+        while (low < high) {
+            final var middle = low + high + 1 >>> 1;
+            if (Long.compareUnsigned(fences[middle], id) <= 0) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        var from = low * FENCE_INTERVAL;
+        var to   = Math.min(from + FENCE_INTERVAL, size) - 1;
+        while (from <= to) {
+            final var middle    = from + to >>> 1;
+            final var candidate = ids.getLong(middle);
+            final var order     = Long.compareUnsigned(candidate, id);
+            if (order < 0) {
+                from = middle + 1;
+            } else if (order > 0) {
+                to = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    // the IDs are mostly written in the order of the addresses
+    private static boolean isSorted(final MappedArray ids, final long count) {
+        for (long i = 1; i < count; i++) {
+            if (Long.compareUnsigned(ids.getLong(i - 1), ids.getLong(i)) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A merge sort, which unlike a quicksort does not degrade on the interleaved ascending
+     * runs written by parallel heap dumpers. The blocks are sorted on the heap and then merged
+     * sequentially back and forth between the IDs and a scratch array, which suits paging.
+     */
+    private static void sort(final MappedArray ids, final long count, final Path directory) throws IOException {
+        final var block = new long[BLOCK_SIZE];
+        for (long from = 0; from < count; from += BLOCK_SIZE) {
+            final var length = (int) Math.min(BLOCK_SIZE, count - from);
+            for (var i = 0; i < length; i++) {
+                // flipping the sign bit orders the unsigned IDs as signed values
+                block[i] = ids.getLong(from + i) ^ Long.MIN_VALUE;
+            }
+            Arrays.sort(block, 0, length);
+            for (var i = 0; i < length; i++) {
+                ids.setLong(from + i, block[i] ^ Long.MIN_VALUE);
+            }
+        }
+        if (count <= BLOCK_SIZE) {
+            return;
+        }
+        try (var scratch = MappedArray.ofLongs(directory, "ids-scratch", count)) {
+            var source = ids;
+            var target = scratch;
+            for (long width = BLOCK_SIZE; width < count; width *= 2) {
+                for (long from = 0; from < count; from += 2 * width) {
+                    merge(source, target, from, Math.min(from + width, count), Math.min(from + 2 * width, count));
+                }
+                final var merged = target;
+                target = source;
+                source = merged;
+            }
+            if (source != ids) {
+                for (long i = 0; i < count; i++) {
+                    ids.setLong(i, source.getLong(i));
+                }
+            }
+        }
+    }
+
+    private static void merge(final MappedArray source,
+                              final MappedArray target,
+                              final long from,
+                              final long middle,
+                              final long to) {
+        var left  = from;
+        var right = middle;
+        for (var i = from; i < to; i++) {
+            if (right == to
+                    || left < middle && Long.compareUnsigned(source.getLong(left), source.getLong(right)) <= 0) {
+                target.setLong(i, source.getLong(left++));
+            } else {
+                target.setLong(i, source.getLong(right++));
+            }
+        }
+    }
+
+}
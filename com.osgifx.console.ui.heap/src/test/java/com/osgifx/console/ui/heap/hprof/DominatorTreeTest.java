@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.heap.hprof;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DominatorTreeTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path              directory;
+    private List<MappedArray> arrays;
+
+    @Before
+    public void setUp() {
+        directory = folder.getRoot().toPath();
+        arrays    = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (final MappedArray array : arrays) {
+            array.close();
+        }
+    }
+
+    @Test
+    public void testDiamondAndUnreachableVertex() throws IOException {
+        // 1 and 4 are reached on two paths each, 6 only references the graph
+        final int[][] edges = { { 0, 1 }, { 1, 2 }, { 1, 3 }, { 2, 4 }, { 3, 4 }, { 4, 5 }, { 5, 1 }, { 6, 4 } };
+        try (var tree = dominatorTree(7, 0, edges)) {
+            assertEquals(6, tree.reachable());
+            assertDominators(tree, -1, 0, 1, 1, 1, 4, -1);
+        }
+    }
+
+    @Test
+    public void testSemidominatorIsNotTheDominator() throws IOException {
+        // the example of Lengauer and Tarjan: R=0, A=1, B=2, C=3, D=4, E=5, F=6, G=7, H=8, I=9, J=10, K=11, L=12
+        final int[][] edges = { { 0, 1 }, { 0, 2 }, { 0, 3 }, { 1, 4 }, { 2, 1 }, { 2, 4 }, { 2, 5 }, { 3, 6 },
+                { 3, 7 }, { 4, 12 }, { 5, 8 }, { 6, 9 }, { 7, 9 }, { 7, 10 }, { 8, 5 }, { 8, 11 }, { 9, 11 },
+                { 10, 9 }, { 11, 9 }, { 11, 0 }, { 12, 8 } };
+        try (var tree = dominatorTree(13, 0, edges)) {
+            assertEquals(13, tree.reachable());
+            assertDominators(tree, -1, 0, 0, 0, 0, 0, 3, 3, 0, 0, 7, 0, 4);
+        }
+    }
+
+    @Test
+    public void testRootIsNotTheFirstVertex() throws IOException {
+        // the virtual root of a heap dump is the last vertex, the roots reference each other
+        final int[][] edges = { { 3, 0 }, { 3, 1 }, { 0, 1 }, { 1, 0 }, { 1, 2 }, { 2, 2 } };
+        try (var tree = dominatorTree(4, 3, edges)) {
+            assertEquals(4, tree.reachable());
+            assertEquals(3, tree.vertex(1));
+            assertDominators(tree, 3, 3, 1, -1);
+        }
+    }
+
+    private static void assertDominators(final DominatorTree tree, final int... expected) {
+        final var numbers = new int[expected.length];
+        for (var number = 1; number <= tree.reachable(); number++) {
+            numbers[tree.vertex(number)] = number;
+        }
+        for (var v = 0; v < expected.length; v++) {
+            assertEquals("Dominator of " + v, expected[v], tree.dominator(v));
+            if (expected[v] != -1) {
+                assertTrue("Numbered before " + v, numbers[expected[v]] < numbers[v]);
+            }
+        }
+    }
+
+    private DominatorTree dominatorTree(final int size, final int root, final int[][] edges) throws IOException {
+        final var successorOffsets   = array(MappedArray.ofLongs(directory, "successor-offsets", size + 1L));
+        final var successors         = array(MappedArray.ofInts(directory, "successors", edges.length));
+        final var predecessorOffsets = array(MappedArray.ofLongs(directory, "predecessor-offsets", size + 1L));
+        final var predecessors       = array(MappedArray.ofInts(directory, "predecessors", edges.length));
+        adjacency(edges, 0, size, successorOffsets, successors);
+        adjacency(edges, 1, size, predecessorOffsets, predecessors);
+        return new DominatorTree(directory, size, root, successors, successorOffsets, predecessors,
+                                 predecessorOffsets);
+    }
+
+    // the adjacency lists of the edges from their source (0) or their target (1) in compressed sparse row form
+    private static void adjacency(final int[][] edges,
+                                  final int from,
+                                  final int size,
+                                  final MappedArray offsets,
+                                  final MappedArray adjacent) {
+        var offset = 0L;
+        for (var v = 0; v < size; v++) {
+            offsets.setLong(v, offset);
+            for (final int[] edge : edges) {
+                if (edge[from] == v) {
+                    adjacent.setInt(offset++, edge[1 - from]);
+                }
+            }
+        }
+        offsets.setLong(size, offset);
+    }
+
+    private MappedArray array(final MappedArray array) {
+        arrays.add(array);
+        return array;
+    }
+
+}
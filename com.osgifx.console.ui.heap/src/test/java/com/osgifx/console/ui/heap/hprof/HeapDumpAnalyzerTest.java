@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.heap.hprof;
+
+import static com.osgifx.console.ui.heap.hprof.HprofReader.ROOT_JNI_GLOBAL;
+import static com.osgifx.console.ui.heap.hprof.HprofReader.ROOT_STICKY_CLASS;
+import static com.osgifx.console.ui.heap.hprof.HprofReader.ROOT_THREAD_OBJECT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.osgifx.console.agent.dto.XBundleDTO;
+import com.osgifx.console.agent.dto.XPackageDTO;
+import com.osgifx.console.ui.heap.hprof.HeapDumpAnalysis.BundleUsage;
+import com.osgifx.console.ui.heap.hprof.HeapDumpAnalysis.LeakedClassLoader;
+import com.osgifx.console.ui.heap.hprof.HeapDumpAnalysis.PathElement;
+
+/**
+ * Analyzes the following heap, the classes reference their super class and their class
+ * loader, the instances their class:
+ *
+ * <pre>
+ * JNI global  R ─left─▶ A ─left─▶ D ─left─▶ X (byte[10])
+ *               └right▶ B ─left───┘
+ *                       U ─left───┘ (unreachable)
+ * Thread      TH (Object[]) ─[1]─▶ CACHE
+ * System class java.lang.Object, EquinoxClassLoader
+ * </pre>
+ *
+ * R, A, B, D and U are instances of com.acme.Node defined by the loader LA of the bundle
+ * com.acme.core exporting com.acme, CACHE is an instance of com.leak.impl.Cache defined by
+ * the loader LB of the bundle com.leak. Hence D is dominated by R rather than by A or B,
+ * and LB is only kept alive by TH.
+ */
+public class HeapDumpAnalyzerTest {
+
+    private static final String LOADER = "org.eclipse.osgi.internal.loader.EquinoxClassLoader";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final XBundleDTO core = bundle(1, "com.acme.core", "com.acme");
+    private final XBundleDTO leak = bundle(2, "com.leak");
+
+    @Test
+    public void testFourByteIdentifiers() throws IOException {
+        final var base     = 0x8000_0000L;
+        final var analysis = analyze(heapDump(4, base, false), List.of(leak));
+
+        // the classes and the loaders take 8 bytes, the nodes 16, X 24 and TH 24
+        assertEquals(15, analysis.objects());
+        assertEquals(14, analysis.reachableObjects());
+        assertEquals(176, analysis.reachableBytes());
+        // R retains the nodes, com.acme.Node, LA and X; TH retains CACHE, com.leak.impl.Cache, LB and Object[]
+        assertEquals(List.of(new BundleUsage(1, "com.acme.core", 6, 80, 104), new BundleUsage(-1, "JVM", 5, 72, 96),
+                new BundleUsage(2, "com.leak", 3, 24, 24)), analysis.bundles());
+        assertLeakedClassLoader(analysis, base, 8);
+    }
+
+    @Test
+    public void testEightByteIdentifiers() throws IOException {
+        final var base     = 0xFFFF_8000_0000_0000L;
+        final var analysis = analyze(heapDump(8, base, false), List.of(leak));
+
+        // the classes and the loaders take 16 bytes, the nodes 32, X 32 and TH 40
+        assertEquals(15, analysis.objects());
+        assertEquals(14, analysis.reachableObjects());
+        assertEquals(328, analysis.reachableBytes());
+        assertEquals(List.of(new BundleUsage(1, "com.acme.core", 6, 160, 192),
+                new BundleUsage(-1, "JVM", 5, 120, 168), new BundleUsage(2, "com.leak", 3, 48, 48)),
+                analysis.bundles());
+        assertLeakedClassLoader(analysis, base, 16);
+    }
+
+    @Test
+    public void testCompressedHeapDump() throws IOException {
+        final var base = 0xFFFF_8000_0000_0000L;
+        assertEquals(analyze(heapDump(8, base, false), List.of(leak)),
+                analyze(heapDump(8, base, true), List.of(leak)));
+    }
+
+    @Test
+    public void testPathsAreOnlyFoundForLeakedBundles() throws IOException {
+        final var stages   = new ArrayList<String>();
+        final var analysis = new HeapDumpAnalyzer(heapDump(8, 0x1000, false), List.of(core, leak), List.of(),
+                                                  (stage, _, _) -> stages.add(stage)).analyze();
+
+        assertTrue(analysis.leakedClassLoaders().isEmpty());
+        assertEquals(3, analysis.bundles().size());
+        assertTrue(stages.stream().anyMatch(stage -> stage.startsWith("Stage 4/5")));
+        assertFalse(stages.stream().anyMatch(stage -> stage.startsWith("Stage 5/5")));
+    }
+
+    private static void assertLeakedClassLoader(final HeapDumpAnalysis analysis,
+                                                final long base,
+                                                final long retainedBytes) {
+        final var path = List.of(new PathElement("java.lang.Object[] @ 0x" + hex(base + 0x400), "[1]"),
+                new PathElement("com.leak.impl.Cache @ 0x" + hex(base + 0x408), "<class>"),
+                new PathElement("class com.leak.impl.Cache", "<class loader>"),
+                new PathElement(LOADER + " @ 0x" + hex(base + 0x208), null));
+        assertEquals(List.of(new LeakedClassLoader(2, "com.leak", LOADER + " @ 0x" + hex(base + 0x208),
+                retainedBytes, "Thread", path)), analysis.leakedClassLoaders());
+    }
+
+    private HeapDumpAnalysis analyze(final Path heapDump, final List<XBundleDTO> leakedBundles) throws IOException {
+        return new HeapDumpAnalyzer(heapDump, List.of(core), leakedBundles, (_, _, _) -> {}).analyze();
+    }
+
+    private Path heapDump(final int idSize, final long base, final boolean compressed) throws IOException {
+        final var object   = base + 0x100;
+        final var loader   = base + 0x108;
+        final var node     = base + 0x110;
+        final var cache    = base + 0x118;
+        final var array    = base + 0x120;
+        final var la       = base + 0x200;
+        final var lb       = base + 0x208;
+        final var r        = base + 0x300;
+        final var b        = base + 0x308;
+        final var a        = base + 0x310;
+        final var d        = base + 0x318;
+        final var x        = base + 0x320;
+        final var u        = base + 0x328;
+        final var th       = base + 0x400;
+        final var instance = base + 0x408;
+
+        final var builder = new HprofBuilder(idSize);
+        builder.classDump(object, "java.lang.Object", 0, 0, Map.of());
+        builder.classDump(loader, LOADER, object, 0, Map.of());
+        builder.classDump(node, "com.acme.Node", object, la, Map.of(), "left", "right");
+        builder.classDump(cache, "com.leak.impl.Cache", object, lb, Map.of());
+        builder.classDump(array, "[Ljava.lang.Object;", object, 0, Map.of());
+        builder.root(ROOT_STICKY_CLASS, object);
+        builder.root(ROOT_STICKY_CLASS, loader);
+        builder.root(ROOT_JNI_GLOBAL, r);
+        builder.root(ROOT_THREAD_OBJECT, th);
+        // not in the order of the addresses
+        builder.instance(u, node, d, 0);
+        builder.instance(r, node, a, b);
+        builder.instance(d, node, x, 0);
+        builder.instance(a, node, d, 0);
+        builder.instance(b, node, d, 0);
+        builder.byteArray(x, 10);
+        builder.instance(lb, loader);
+        builder.instance(la, loader);
+        builder.objectArray(th, array, 0, instance);
+        builder.instance(instance, cache);
+        return builder.write(folder.newFile().toPath(), compressed);
+    }
+
+    private static XBundleDTO bundle(final long id, final String symbolicName, final String... exportedPackages) {
+        final var bundle = new XBundleDTO();
+        bundle.id               = id;
+        bundle.symbolicName     = symbolicName;
+        bundle.exportedPackages = new ArrayList<>();
+        for (final String name : exportedPackages) {
+            final var pkg = new XPackageDTO();
+            pkg.name = name;
+            bundle.exportedPackages.add(pkg);
+        }
+        return bundle;
+    }
+
+    private static String hex(final long id) {
+        return Long.toHexString(id);
+    }
+
+}
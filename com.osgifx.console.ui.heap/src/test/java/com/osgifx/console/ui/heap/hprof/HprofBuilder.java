@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.heap.hprof;
+
+import static com.osgifx.console.ui.heap.hprof.HprofReader.BYTE;
+import static com.osgifx.console.ui.heap.hprof.HprofReader.OBJECT;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a synthetic heap dump in the HPROF format. The objects are written into two heap
+ * dump segments, the roots and the classes into the first one and the other objects into
+ * the second one. All instance and static fields are references.
+ */
+final class HprofBuilder {
+
+    private static final int UTF8              = 0x01;
+    private static final int LOAD_CLASS        = 0x02;
+    private static final int STACK_TRACE       = 0x05;
+    private static final int HEAP_DUMP_SEGMENT = 0x1C;
+    private static final int HEAP_DUMP_END     = 0x2C;
+
+    private final int                   idSize;
+    private final ByteArrayOutputStream records  = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream classes  = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream objects  = new ByteArrayOutputStream();
+    private long                        stringId = 1;
+    private int                         serial   = 1;
+
+    HprofBuilder(final int idSize) {
+        this.idSize = idSize;
+    }
+
+    /**
+     * Writes the UTF8 record of the specified string.
+     *
+     * @return the ID of the string
+     */
+    long string(final String value) throws IOException {
+        final var id    = stringId++;
+        final var bytes = value.getBytes(StandardCharsets.UTF_8);
+        record(records, UTF8, idSize + bytes.length);
+        id(records, id);
+        records.write(bytes);
+        return id;
+    }
+
+    HprofBuilder root(final int type, final long id) throws IOException {
+        final var out = new DataOutputStream(classes);
+        out.writeByte(type);
+        id(out, id);
+        switch (type) {
+            case HprofReader.ROOT_JNI_GLOBAL -> id(out, 0);
+            case HprofReader.ROOT_JNI_LOCAL, HprofReader.ROOT_JAVA_FRAME, HprofReader.ROOT_THREAD_OBJECT -> out
+                    .writeLong(0);
+            case HprofReader.ROOT_NATIVE_STACK, HprofReader.ROOT_THREAD_BLOCK -> out.writeInt(0);
+            default -> {
+                // the ID only
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Writes the class dump and the load class record of a class.
+     *
+     * @param statics the values of the static fields by their names
+     * @param fields the names of the instance fields
+     */
+    HprofBuilder classDump(final long id,
+                           final String name,
+                           final long superId,
+                           final long loaderId,
+                           final Map<String, Long> statics,
+                           final String... fields) throws IOException {
+        final var nameId = string(name.replace('.', '/'));
+        final var load   = new DataOutputStream(records);
+        record(records, LOAD_CLASS, 8 + 2 * idSize);
+        load.writeInt(serial++);
+        id(load, id);
+        load.writeInt(0);
+        id(load, nameId);
+
+        final var staticNames = new HashMap<Long, Long>();
+        for (final Map.Entry<String, Long> entry : statics.entrySet()) {
+            staticNames.put(string(entry.getKey()), entry.getValue());
+        }
+        final var fieldNames = new long[fields.length];
+        for (var i = 0; i < fields.length; i++) {
+            fieldNames[i] = string(fields[i]);
+        }
+        final var out = new DataOutputStream(classes);
+        out.writeByte(0x20);
+        id(out, id);
+        out.writeInt(0);
+        id(out, superId);
+        id(out, loaderId);
+        // the signers, the protection domain and the reserved IDs
+        for (var i = 0; i < 4; i++) {
+            id(out, 0);
+        }
+        out.writeInt(fields.length * idSize);
+        out.writeShort(0);
+        out.writeShort(staticNames.size());
+        for (final Map.Entry<Long, Long> entry : staticNames.entrySet()) {
+            id(out, entry.getKey());
+            out.writeByte(OBJECT);
+            id(out, entry.getValue());
+        }
+        out.writeShort(fields.length);
+        for (final long fieldName : fieldNames) {
+            id(out, fieldName);
+            out.writeByte(OBJECT);
+        }
+        return this;
+    }
+
+    /**
+     * Writes an instance whose fields, those of its class first, are all references.
+     */
+    HprofBuilder instance(final long id, final long classId, final long... references) throws IOException {
+        final var out = new DataOutputStream(objects);
+        out.writeByte(0x21);
+        id(out, id);
+        out.writeInt(0);
+        id(out, classId);
+        out.writeInt(references.length * idSize);
+        for (final long reference : references) {
+            id(out, reference);
+        }
+        return this;
+    }
+
+    HprofBuilder objectArray(final long id, final long arrayClassId, final long... elements) throws IOException {
+        final var out = new DataOutputStream(objects);
+        out.writeByte(0x22);
+        id(out, id);
+        out.writeInt(0);
+        out.writeInt(elements.length);
+        id(out, arrayClassId);
+        for (final long element : elements) {
+            id(out, element);
+        }
+        return this;
+    }
+
+    HprofBuilder byteArray(final long id, final int length) throws IOException {
+        final var out = new DataOutputStream(objects);
+        out.writeByte(0x23);
+        id(out, id);
+        out.writeInt(0);
+        out.writeInt(length);
+        out.writeByte(BYTE);
+        out.write(new byte[length]);
+        return this;
+    }
+
+    /**
+     * Writes the heap dump into the specified file.
+     *
+     * @param compressed whether the file is compressed with GZIP
+     * @return the file
+     */
+    Path write(final Path file, final boolean compressed) throws IOException {
+        try (var plain = Files.newOutputStream(file);
+                OutputStream stream = compressed ? new GZIPOutputStream(plain) : plain) {
+            final var out = new DataOutputStream(stream);
+            out.write("JAVA PROFILE 1.0.2".getBytes(StandardCharsets.US_ASCII));
+            out.writeByte(0);
+            out.writeInt(idSize);
+            out.writeLong(System.currentTimeMillis());
+            records.writeTo(out);
+            // a record the reader is not interested in
+            record(out, STACK_TRACE, 12);
+            out.write(new byte[12]);
+            for (final ByteArrayOutputStream segment : new ByteArrayOutputStream[] { classes, objects }) {
+                record(out, HEAP_DUMP_SEGMENT, segment.size());
+                segment.writeTo(out);
+            }
+            record(out, HEAP_DUMP_END, 0);
+        }
+        return file;
+    }
+
+    private void id(final OutputStream stream, final long id) throws IOException {
+        final var out = new DataOutputStream(stream);
+        if (idSize == 4) {
+            out.writeInt((int) id);
+        } else {
+            out.writeLong(id);
+        }
+    }
+
+    private static void record(final OutputStream stream, final int tag, final int length) throws IOException {
+        final var out = new DataOutputStream(stream);
+        out.writeByte(tag);
+        out.writeInt(0);
+        out.writeInt(length);
+    }
+
+}
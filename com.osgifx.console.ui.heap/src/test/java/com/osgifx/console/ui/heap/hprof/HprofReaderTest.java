@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.heap.hprof;
+
+import static com.osgifx.console.ui.heap.hprof.HprofReader.BYTE;
+import static com.osgifx.console.ui.heap.hprof.HprofReader.OBJECT;
+import static com.osgifx.console.ui.heap.hprof.HprofReader.ROOT_JNI_GLOBAL;
+import static com.osgifx.console.ui.heap.hprof.HprofReader.ROOT_STICKY_CLASS;
+import static com.osgifx.console.ui.heap.hprof.HprofReader.ROOT_THREAD_OBJECT;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.osgifx.console.ui.heap.hprof.HprofVisitor.ClassDump;
+
+public class HprofReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testFourByteIdentifiers() throws Exception {
+        assertRecords(4, 0x8000_0000L, false);
+    }
+
+    @Test
+    public void testEightByteIdentifiers() throws Exception {
+        assertRecords(8, 0xFFFF_8000_0000_0000L, false);
+    }
+
+    @Test
+    public void testCompressedHeapDump() throws Exception {
+        assertRecords(8, 0xFFFF_8000_0000_0000L, true);
+    }
+
+    @Test
+    public void testTruncatedHeapDump() throws Exception {
+        for (final boolean compressed : new boolean[] { false, true }) {
+            final var file = heapDump(8, 0x1000, compressed);
+            try (var truncated = new RandomAccessFile(file.toFile(), "rw")) {
+                truncated.setLength(truncated.length() - 10);
+            }
+            try (var reader = new HprofReader(file, _ -> {})) {
+                assertThrows(EOFException.class, () -> reader.accept(new HprofVisitor() {}, true));
+            }
+        }
+    }
+
+    @Test
+    public void testNotAHeapDump() throws Exception {
+        final var file = folder.newFile().toPath();
+        Files.writeString(file, "not a heap dump\0");
+        assertThrows(IOException.class, () -> new HprofReader(file, _ -> {}));
+
+        // an identifier size of two bytes
+        Files.write(file, ByteBuffer.allocate(31).put("JAVA PROFILE 1.0.2\0".getBytes(US_ASCII)).putInt(2).array());
+        assertEquals("Unsupported identifier size 2",
+                assertThrows(IOException.class, () -> new HprofReader(file, _ -> {})).getMessage());
+    }
+
+    private void assertRecords(final int idSize, final long base, final boolean compressed) throws Exception {
+        final var file     = heapDump(idSize, base, compressed);
+        final var progress = new AtomicLong();
+        final var visitor  = new RecordingVisitor();
+        try (var reader = new HprofReader(file, progress::set)) {
+            assertEquals(idSize, reader.idSize());
+            reader.accept(visitor, true);
+
+            final var node = base + 0x10;
+            assertEquals("com/acme/Node", visitor.strings.get(visitor.classNames.get(node)));
+            assertEquals(List.of(List.of(node, (long) ROOT_STICKY_CLASS), List.of(base + 0x20, (long) ROOT_JNI_GLOBAL),
+                    List.of(base + 0x50, (long) ROOT_THREAD_OBJECT)), visitor.roots);
+
+            final var dump = visitor.classes.get(0);
+            assertEquals(node, dump.id());
+            assertEquals(0, dump.superId());
+            assertEquals(base + 0x08, dump.loaderId());
+            // the signers, the protection domain and the static field
+            assertArrayEquals(new long[] { 0, 0, base + 0x20 }, dump.references());
+            assertEquals("INSTANCE", visitor.strings.get(dump.referenceNames()[2]));
+            assertArrayEquals(new byte[] { OBJECT, OBJECT }, dump.fieldTypes());
+            assertEquals("right", visitor.strings.get(dump.fieldNames()[1]));
+            assertEquals(idSize, dump.staticBytes());
+
+            assertEquals(List.of(List.of(base + 0x20, node, base + 0x30, 0L), List.of(base + 0x30, node, base + 0x40,
+                    base + 0x20)), visitor.instances(reader));
+            assertEquals(List.of(List.of(base + 0x50, base + 0x18, 0L, base + 0x30)), visitor.arrays);
+            assertEquals(List.of(List.of(base + 0x40, (long) BYTE, 10L)), visitor.primitiveArrays);
+        }
+        // the progress refers to the bytes read from the file, compressed or not
+        assertEquals(Files.size(file), progress.get());
+
+        final var withoutStrings = new RecordingVisitor();
+        try (var reader = new HprofReader(file, _ -> {})) {
+            reader.accept(withoutStrings, false);
+        }
+        assertTrue(withoutStrings.strings.isEmpty());
+        assertEquals(visitor.classNames, withoutStrings.classNames);
+    }
+
+    private Path heapDump(final int idSize, final long base, final boolean compressed) throws IOException {
+        final var builder = new HprofBuilder(idSize);
+        builder.classDump(base + 0x10, "com.acme.Node", 0, base + 0x08, Map.of("INSTANCE", base + 0x20), "left",
+                "right");
+        builder.root(ROOT_STICKY_CLASS, base + 0x10);
+        builder.root(ROOT_JNI_GLOBAL, base + 0x20);
+        builder.root(ROOT_THREAD_OBJECT, base + 0x50);
+        builder.instance(base + 0x20, base + 0x10, base + 0x30, 0);
+        builder.instance(base + 0x30, base + 0x10, base + 0x40, base + 0x20);
+        builder.objectArray(base + 0x50, base + 0x18, 0, base + 0x30);
+        builder.byteArray(base + 0x40, 10);
+        return builder.write(folder.newFile().toPath(), compressed);
+    }
+
+    private static final class RecordingVisitor implements HprofVisitor {
+
+        final Map<Long, String> strings         = new HashMap<>();
+        final Map<Long, Long>   classNames      = new HashMap<>();
+        final List<List<Long>>  roots           = new ArrayList<>();
+        final List<ClassDump>   classes         = new ArrayList<>();
+        final List<byte[]>      values          = new ArrayList<>();
+        final List<List<Long>>  arrays          = new ArrayList<>();
+        final List<List<Long>>  primitiveArrays = new ArrayList<>();
+        final List<Long>        instanceIds     = new ArrayList<>();
+        final List<Long>        instanceClasses = new ArrayList<>();
+
+        @Override
+        public void utf8(final long id, final String value) {
+            strings.put(id, value);
+        }
+
+        @Override
+        public void loadClass(final long classId, final long nameId) {
+            classNames.put(classId, nameId);
+        }
+
+        @Override
+        public void gcRoot(final long objectId, final int type) {
+            roots.add(List.of(objectId, (long) type));
+        }
+
+        @Override
+        public void classDump(final ClassDump dump) {
+            classes.add(dump);
+        }
+
+        @Override
+        public void instance(final long id, final long classId, final byte[] values, final int length) {
+            instanceIds.add(id);
+            instanceClasses.add(classId);
+            // the values are reused for the next record
+            this.values.add(Arrays.copyOf(values, length));
+        }
+
+        @Override
+        public void objectArray(final long id, final long arrayClassId, final long[] elements, final int length) {
+            final var array = new ArrayList<Long>(List.of(id, arrayClassId));
+            for (var i = 0; i < length; i++) {
+                array.add(elements[i]);
+            }
+            arrays.add(array);
+        }
+
+        @Override
+        public void primitiveArray(final long id, final int elementType, final int length) {
+            primitiveArrays.add(List.of(id, (long) elementType, (long) length));
+        }
+
+        // the ID and the class of every instance followed by its references
+        List<List<Long>> instances(final HprofReader reader) {
+            final var result = new ArrayList<List<Long>>();
+            for (var i = 0; i < instanceIds.size(); i++) {
+                final var instance = new ArrayList<Long>(List.of(instanceIds.get(i), instanceClasses.get(i)));
+                for (var offset = 0; offset < values.get(i).length; offset += reader.idSize()) {
+                    instance.add(reader.readId(values.get(i), offset));
+                }
+                result.add(instance);
+            }
+            return result;
+        }
+    }
+
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.heap.hprof;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedArrayTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testArrayGrowsAndRetainsItsElements() throws IOException {
+        try (var longs = MappedArray.ofLongs(folder.getRoot().toPath(), "longs", 2)) {
+            longs.setLong(0, Long.MIN_VALUE);
+            longs.setLong(1, 42);
+
+            longs.ensureCapacity(3);
+            assertEquals(4, longs.capacity());
+            longs.ensureCapacity(100);
+            assertEquals(100, longs.capacity());
+
+            assertEquals(Long.MIN_VALUE, longs.getLong(0));
+            assertEquals(42, longs.getLong(1));
+            // the new elements are zero-initialized
+            assertEquals(0, longs.getLong(99));
+        }
+    }
+
+    @Test
+    public void testFillMinusOne() throws IOException {
+        final var directory = folder.getRoot().toPath();
+        try (var ints = MappedArray.ofInts(directory, "ints", 4);
+                var bytes = MappedArray.ofBytes(directory, "bytes", 4)) {
+            ints.fillMinusOne(3);
+            bytes.fillMinusOne(3);
+
+            assertEquals(-1, ints.getInt(2));
+            assertEquals(0, ints.getInt(3));
+            assertEquals(-1, bytes.getByte(2));
+            assertEquals(0, bytes.getByte(3));
+        }
+    }
+
+    @Test
+    public void testFileIsDeletedWhenClosed() throws IOException {
+        final var file  = folder.getRoot().toPath().resolve("ints");
+        final var array = MappedArray.ofInts(folder.getRoot().toPath(), "ints", 0);
+        assertTrue(Files.exists(file));
+        assertEquals(1, array.capacity());
+
+        array.close();
+        assertFalse(Files.exists(file));
+    }
+
+}
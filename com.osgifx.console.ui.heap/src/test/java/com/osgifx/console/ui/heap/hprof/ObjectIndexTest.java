@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.heap.hprof;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ObjectIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSortedIds() throws IOException {
+        try (var ids = ids(0x10, 0x20, 0x20, 0x30, 0x8000_0000_0000_0000L, 0xFFFF_FFFF_FFFF_FFF0L)) {
+            final var index = new ObjectIndex(ids, 6, folder.getRoot().toPath());
+
+            assertEquals(5, index.size());
+            assertEquals(0, index.indexOf(0x10));
+            assertEquals(2, index.indexOf(0x30));
+            // the IDs are unsigned addresses
+            assertEquals(3, index.indexOf(0x8000_0000_0000_0000L));
+            assertEquals(0xFFFF_FFFF_FFFF_FFF0L, index.idOf(4));
+
+            assertEquals(-1, index.indexOf(0x08));
+            assertEquals(-1, index.indexOf(0x28));
+            assertEquals(-1, index.indexOf(0xFFFF_FFFF_FFFF_FFFFL));
+        }
+    }
+
+    @Test
+    public void testUnsortedIdsSpanningSeveralBlocks() throws IOException {
+        final var random   = new Random(42);
+        final var count    = 3 * (1 << 16) + 1234;
+        final var values   = new long[count];
+        for (var i = 0; i < count; i++) {
+            // every tenth ID is a duplicate, the IDs are multiples of 8
+            values[i] = i % 10 == 9 ? values[random.nextInt(i)] : random.nextLong() & ~7L;
+        }
+        final var expected = Arrays.stream(values).map(v -> v ^ Long.MIN_VALUE).sorted().distinct()
+                .map(v -> v ^ Long.MIN_VALUE).toArray();
+
+        try (var ids = ids(values)) {
+            final var index = new ObjectIndex(ids, count, folder.getRoot().toPath());
+
+            assertEquals(expected.length, index.size());
+            for (var i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], index.idOf(i));
+                assertEquals(i, index.indexOf(expected[i]));
+                // never an ID, since every ID is a multiple of 8
+                assertEquals(-1, index.indexOf(expected[i] + 1));
+            }
+        }
+        // the scratch array of the merge sort has been deleted
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void testEmptyIndex() throws IOException {
+        try (var ids = ids()) {
+            final var index = new ObjectIndex(ids, 0, folder.getRoot().toPath());
+
+            assertEquals(0, index.size());
+            assertEquals(-1, index.indexOf(0x10));
+        }
+    }
+
+    private MappedArray ids(final long... values) throws IOException {
+        final var ids = MappedArray.ofLongs(folder.getRoot().toPath(), "ids", values.length);
+        for (var i = 0; i < values.length; i++) {
+            ids.setLong(i, values[i]);
+        }
+        return ids;
+    }
+
+}
@@ -26,8 +26,12 @@ import static java.util.concurrent.CompletableFuture.completedFuture;
 import static javafx.geometry.Orientation.VERTICAL;
 
 import java.text.DecimalFormat;
+import java.time.Instant;
 import java.time.LocalTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -51,7 +55,10 @@ import org.eclipse.fx.core.log.FluentLogger;
 import org.eclipse.fx.core.log.Log;
 
 import com.osgifx.console.agent.dto.XMemoryInfoDTO;
+import com.osgifx.console.agent.dto.XMetricsDTO;
 import com.osgifx.console.data.provider.DataProvider;
+import com.osgifx.console.supervisor.MetricsListener;
+import com.osgifx.console.supervisor.Supervisor;
 import com.osgifx.console.ui.ConsoleStatusBar;
 import com.osgifx.console.util.fx.Fx;
 
@@ -92,10 +99,12 @@ import javafx.util.Duration;
 
 public final class OverviewFxUI {
 
-    private static final double REFRESH_DELAY = 5;
-    private static final int    CYCLE_COUNT   = 5;
-    private static final Color  MUTED_GREEN   = Color.web("#3EB16E");
-    private static final Color  MUTED_RED     = Color.web("#CE4844");
+    private static final double            REFRESH_DELAY       = 5;
+    private static final int               CYCLE_COUNT         = 5;
+    private static final int               MEMORY_HISTORY_SIZE = 20;
+    private static final Color             MUTED_GREEN         = Color.web("#3EB16E");
+    private static final Color             MUTED_RED           = Color.web("#CE4844");
+    private static final DateTimeFormatter TIME_FORMATTER      = DateTimeFormatter.ofPattern("HH:mm:ss");
 
     @Log
     @Inject
@@ -116,6 +125,9 @@ public final class OverviewFxUI {
     private boolean           isSnapshotAgent;
     @Inject
     private IEclipseContext   eclipseContext;
+    @Inject
+    @Optional
+    private Supervisor        supervisor;
 
     private Tile runtimeInfoTile;
     private Tile noOfServicesTile;
@@ -137,6 +149,11 @@ public final class OverviewFxUI {
     // Chart Data Series
     private XYChart.Series<String, Number> memoryDataSeries;
 
+    // the heap usage pushed by the agent, only accessed on the FX thread
+    private final MetricsListener memoryHistoryListener = this::appendMemoryHistory;
+    private long                  oldestMemorySampleTime = Long.MAX_VALUE;
+    private long                  latestMemorySampleTime;
+
     private Button   timelineButton;
     private Timeline dataRetrieverTimeline;
 
@@ -149,6 +166,7 @@ public final class OverviewFxUI {
         updateStaticOverviewInfo();
         retrieveRuntimeInfo();
         createUIComponents(parent);
+        subscribeMemoryHistory();
         initTimeline();
 
         logger.atDebug().log("Overview part has been initialized");
@@ -164,6 +182,9 @@ public final class OverviewFxUI {
 
     @PreDestroy
     public void destroy() {
+        if (supervisor != null) {
+            supervisor.removeMetricsListener(memoryHistoryListener);
+        }
         dataRetrieverTimeline.stop();
         cleanupTiles();
     }
@@ -286,13 +307,15 @@ public final class OverviewFxUI {
 
             threadSync.asyncExec(() -> { 
 
-                // Update Memory History Tile
-                final var timestamp = LocalTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss"));
-                memoryDataSeries.getData().add(new XYChart.Data<>(timestamp, usedMemoryInMB));
-                
-                // Keep only last 20 data points
-                if (memoryDataSeries.getData().size() > 20) {
-                    memoryDataSeries.getData().remove(0);
+                // Update Memory History Tile, unless the agent pushes the heap usage
+                if (!isMemoryHistoryPushed()) {
+                    final var timestamp = LocalTime.now().format(TIME_FORMATTER);
+                    memoryDataSeries.getData().add(new XYChart.Data<>(timestamp, usedMemoryInMB));
+
+                    // Keep only last 20 data points
+                    if (memoryDataSeries.getData().size() > MEMORY_HISTORY_SIZE) {
+                        memoryDataSeries.getData().remove(0);
+                    }
                 }
                 
                 var memoryConsumptionInfoInPercentage = 0D;
@@ -354,6 +377,91 @@ public final class OverviewFxUI {
         };
     }
 
+    /**
+     * Keeps the memory history up to date with the heap usage pushed by the agent instead of
+     * polling it, and prepends the heap usage retained by the agent, such that the history
+     * does not start empty whenever the view is opened.
+     */
+    private void subscribeMemoryHistory() {
+        if (supervisor == null) {
+            return;
+        }
+        // the finest resolution is downsampled to the refresh delay of the view
+        final var metrics = isConnected ? dataProvider.metrics(0, 0) : null;
+        if (metrics == null) {
+            // the supervisor subscribes to the metrics as soon as the agent supports them
+            supervisor.addMetricsListener(memoryHistoryListener);
+            return;
+        }
+        metrics.thenAccept(window -> threadSync.asyncExec(() -> prependMemoryHistory(window)))
+               .exceptionally(e -> {
+                   logger.atWarning().withException(e).log("Memory history cannot be retrieved");
+                   return null;
+               })
+               .thenRun(() -> supervisor.addMetricsListener(memoryHistoryListener));
+    }
+
+    private boolean isMemoryHistoryPushed() {
+        return supervisor != null && !supervisor.isLegacyAgent();
+    }
+
+    private void appendMemoryHistory(final XMetricsDTO metrics) {
+        if (!isRealtimeUpdateRunning.get()) {
+            return;
+        }
+        threadSync.asyncExec(() -> {
+            final var step   = memoryHistoryStep();
+            final var points = new ArrayList<XYChart.Data<String, Number>>();
+            for (var i = 0; i < metrics.timestamps.length; i++) {
+                final var sampledAt = metrics.timestamps[i];
+                if (sampledAt >= latestMemorySampleTime + step) {
+                    points.add(toMemoryHistoryPoint(sampledAt, metrics.heapUsed[i]));
+                    latestMemorySampleTime = sampledAt;
+                    oldestMemorySampleTime = Math.min(oldestMemorySampleTime, sampledAt);
+                }
+            }
+            final var data = memoryDataSeries.getData();
+            data.addAll(points);
+            while (data.size() > MEMORY_HISTORY_SIZE) {
+                data.remove(0);
+            }
+        });
+    }
+
+    private void prependMemoryHistory(final XMetricsDTO window) {
+        if (window == null || window.timestamps == null) {
+            return;
+        }
+        final var step   = memoryHistoryStep();
+        final var data   = memoryDataSeries.getData();
+        final var points = new ArrayList<XYChart.Data<String, Number>>();
+        // walks back from the samples pushed in the meantime which are retained
+        var bound = oldestMemorySampleTime == Long.MAX_VALUE ? Long.MAX_VALUE : oldestMemorySampleTime - step;
+        for (var i = window.timestamps.length - 1; i >= 0; i--) {
+            if (data.size() + points.size() >= MEMORY_HISTORY_SIZE) {
+                break;
+            }
+            final var sampledAt = window.timestamps[i];
+            if (sampledAt <= bound) {
+                points.add(toMemoryHistoryPoint(sampledAt, window.heapUsed[i]));
+                latestMemorySampleTime = Math.max(latestMemorySampleTime, sampledAt);
+                oldestMemorySampleTime = sampledAt;
+                bound                  = sampledAt - step;
+            }
+        }
+        Collections.reverse(points);
+        data.addAll(0, points);
+    }
+
+    private long memoryHistoryStep() {
+        return Math.round(refreshDelayInSeconds * 1000);
+    }
+
+    private XYChart.Data<String, Number> toMemoryHistoryPoint(final long sampledAt, final long heapUsed) {
+        final var time = Instant.ofEpochMilli(sampledAt).atZone(ZoneId.systemDefault());
+        return new XYChart.Data<>(time.format(TIME_FORMATTER), toMB(heapUsed));
+    }
+
     private void updateStaticOverviewInfo() {
         if (!isConnected) {
             cachedStaticOverviewInfo = new StaticOverviewInfo("", "", "", "", "", "", "", 0);
@@ -714,6 +822,7 @@ public final class OverviewFxUI {
     private void updateOnAgentConnectedEvent(@UIEventTopic(AGENT_CONNECTED_EVENT_TOPIC) final String data,
                                              final BorderPane parent) {
         logger.atInfo().log("Agent connected event received");
+        subscribeMemoryHistory();
         playTimelineAnimation();
         parent.setBottom(null);
         statusBar.addTo(parent);
@@ -730,6 +839,8 @@ public final class OverviewFxUI {
         updateStaticOverviewInfo();
         retrieveRuntimeInfo();
         createUIComponents(parent);
+        oldestMemorySampleTime = Long.MAX_VALUE;
+        latestMemorySampleTime = 0;
         createPeriodicTaskToSetRuntimeInfo(REFRESH_DELAY);
     }
 
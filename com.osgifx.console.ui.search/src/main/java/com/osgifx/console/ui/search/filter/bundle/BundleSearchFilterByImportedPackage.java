@@ -17,6 +17,7 @@ package com.osgifx.console.ui.search.filter.bundle;
 
 import static com.osgifx.console.ui.search.filter.SearchComponent.BUNDLES;
 import static com.osgifx.console.ui.search.filter.SearchOperation.EQUALS_TO;
+import static com.osgifx.console.ui.search.index.IndexedField.BUNDLE_IMPORTED_PACKAGE;
 
 import java.util.Collection;
 import java.util.List;
@@ -24,6 +25,7 @@ import java.util.function.Predicate;
 
 import org.apache.commons.lang3.Strings;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
 
 import com.dlsc.formsfx.model.validators.CustomValidator;
 import com.dlsc.formsfx.model.validators.Validator;
@@ -33,19 +35,24 @@ import com.osgifx.console.agent.dto.XBundleDTO;
 import com.osgifx.console.ui.search.filter.SearchComponent;
 import com.osgifx.console.ui.search.filter.SearchFilter;
 import com.osgifx.console.ui.search.filter.SearchOperation;
+import com.osgifx.console.ui.search.index.SearchIndex;
 
 @Component
 public final class BundleSearchFilterByImportedPackage implements SearchFilter {
 
+    @Reference
+    private SearchIndex index;
+
     @Override
     public Predicate<XBundleDTO> predicate(final String input, final SearchOperation searchOperation) {
-        return switch (searchOperation) {
+        final Predicate<XBundleDTO> predicate = switch (searchOperation) {
             case EQUALS_TO -> bundle -> {
                 final var importedPackages = bundle.importedPackages;
                 return importedPackages.stream().anyMatch(p -> Strings.CI.contains(p.name, input.strip()));
             };
             default -> throw new VerifyException("no matching case found");
         };
+        return index.narrow(BUNDLE_IMPORTED_PACKAGE, input.strip(), predicate);
     }
 
     @Override
@@ -17,6 +17,7 @@ package com.osgifx.console.ui.search.filter.bundle;
 
 import static com.osgifx.console.ui.search.filter.SearchComponent.BUNDLES;
 import static com.osgifx.console.ui.search.filter.SearchOperation.EQUALS_TO;
+import static com.osgifx.console.ui.search.index.IndexedField.BUNDLE_MANIFEST_HEADER_KEY;
 
 import java.util.Collection;
 import java.util.List;
@@ -24,6 +25,7 @@ import java.util.function.Predicate;
 
 import org.apache.commons.lang3.Strings;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
 
 import com.dlsc.formsfx.model.validators.CustomValidator;
 import com.dlsc.formsfx.model.validators.Validator;
@@ -35,23 +37,31 @@ import com.osgifx.console.agent.dto.XBundleDTO;
 import com.osgifx.console.ui.search.filter.SearchComponent;
 import com.osgifx.console.ui.search.filter.SearchFilter;
 import com.osgifx.console.ui.search.filter.SearchOperation;
+import com.osgifx.console.ui.search.index.SearchIndex;
 
 @Component
 public final class BundleSearchFilterByManifestHeader implements SearchFilter {
 
+    @Reference
+    private SearchIndex index;
+
     @Override
     public Predicate<XBundleDTO> predicate(final String input, final SearchOperation searchOperation) {
         final var split       = Splitter.on("=").splitToList(input.strip());
         final var headerKey   = split.get(0);
         final var headerValue = split.get(1);
 
-        return switch (searchOperation) {
+        final Predicate<XBundleDTO> predicate = switch (searchOperation) {
             case EQUALS_TO -> bundle -> //
                 BiStream.from(bundle.manifestHeaders) //
                         .anyMatch((k, v) -> //
                 Strings.CI.contains(k, headerKey) && Strings.CI.contains(v, headerValue));
             default -> throw new VerifyException("no matching case found");
         };
+        // only the candidates having a matching key are checked for a matching value
+        final Predicate<XBundleDTO> hasHeader = bundle -> BiStream.from(bundle.manifestHeaders) //
+                .anyMatch((k, _) -> Strings.CI.contains(k, headerKey));
+        return index.narrow(BUNDLE_MANIFEST_HEADER_KEY, headerKey, hasHeader).and(predicate);
     }
 
     @Override
@@ -17,6 +17,7 @@ package com.osgifx.console.ui.search.filter.component;
 
 import static com.osgifx.console.ui.search.filter.SearchComponent.COMPONENTS;
 import static com.osgifx.console.ui.search.filter.SearchOperation.EQUALS_TO;
+import static com.osgifx.console.ui.search.index.IndexedField.COMPONENT_PROPERTY_KEY;
 
 import java.util.Collection;
 import java.util.List;
@@ -24,6 +25,7 @@ import java.util.function.Predicate;
 
 import org.apache.commons.lang3.Strings;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
 
 import com.dlsc.formsfx.model.validators.CustomValidator;
 import com.dlsc.formsfx.model.validators.Validator;
@@ -35,23 +37,31 @@ import com.osgifx.console.agent.dto.XComponentDTO;
 import com.osgifx.console.ui.search.filter.SearchComponent;
 import com.osgifx.console.ui.search.filter.SearchFilter;
 import com.osgifx.console.ui.search.filter.SearchOperation;
+import com.osgifx.console.ui.search.index.SearchIndex;
 
 @Component
 public final class ComponentSearchFilterByProperty implements SearchFilter {
 
+    @Reference
+    private SearchIndex index;
+
     @Override
     public Predicate<XComponentDTO> predicate(final String input, final SearchOperation searchOperation) {
         final var split = Splitter.on("=").splitToList(input.strip());
         final var key   = split.get(0);
         final var value = split.get(1);
 
-        return switch (searchOperation) {
+        final Predicate<XComponentDTO> predicate = switch (searchOperation) {
             case EQUALS_TO -> component -> //
                 BiStream.from(component.properties) //
                         .anyMatch((k, v) -> //
                 Strings.CI.contains(k, key) && Strings.CI.contains(v, value));
             default -> throw new VerifyException("no matching case found");
         };
+        // only the candidates having a matching key are checked for a matching value
+        final Predicate<XComponentDTO> hasProperty = component -> BiStream.from(component.properties) //
+                .anyMatch((k, _) -> Strings.CI.contains(k, key));
+        return index.narrow(COMPONENT_PROPERTY_KEY, key, hasProperty).and(predicate);
     }
 
     @Override
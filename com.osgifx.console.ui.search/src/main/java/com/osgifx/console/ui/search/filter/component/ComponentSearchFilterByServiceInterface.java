@@ -17,6 +17,7 @@ package com.osgifx.console.ui.search.filter.component;
 
 import static com.osgifx.console.ui.search.filter.SearchComponent.COMPONENTS;
 import static com.osgifx.console.ui.search.filter.SearchOperation.EQUALS_TO;
+import static com.osgifx.console.ui.search.index.IndexedField.COMPONENT_SERVICE_INTERFACE;
 
 import java.util.Collection;
 import java.util.List;
@@ -24,6 +25,7 @@ import java.util.function.Predicate;
 
 import org.apache.commons.lang3.Strings;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
 
 import com.dlsc.formsfx.model.validators.CustomValidator;
 import com.dlsc.formsfx.model.validators.Validator;
@@ -33,17 +35,22 @@ import com.osgifx.console.agent.dto.XComponentDTO;
 import com.osgifx.console.ui.search.filter.SearchComponent;
 import com.osgifx.console.ui.search.filter.SearchFilter;
 import com.osgifx.console.ui.search.filter.SearchOperation;
+import com.osgifx.console.ui.search.index.SearchIndex;
 
 @Component
 public final class ComponentSearchFilterByServiceInterface implements SearchFilter {
 
+    @Reference
+    private SearchIndex index;
+
     @Override
     public Predicate<XComponentDTO> predicate(final String input, final SearchOperation searchOperation) {
-        return switch (searchOperation) {
+        final Predicate<XComponentDTO> predicate = switch (searchOperation) {
             case EQUALS_TO -> component -> component.serviceInterfaces.stream()
                     .anyMatch(i -> Strings.CI.contains(i, input.strip()));
             default -> throw new VerifyException("no matching case found");
         };
+        return index.narrow(COMPONENT_SERVICE_INTERFACE, input.strip(), predicate);
     }
 
     @Override
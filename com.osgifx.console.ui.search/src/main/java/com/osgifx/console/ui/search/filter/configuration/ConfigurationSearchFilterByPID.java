@@ -18,6 +18,7 @@ package com.osgifx.console.ui.search.filter.configuration;
 import static com.osgifx.console.ui.search.filter.SearchComponent.CONFIGURATIONS;
 import static com.osgifx.console.ui.search.filter.SearchOperation.CONTAINS;
 import static com.osgifx.console.ui.search.filter.SearchOperation.EQUALS_TO;
+import static com.osgifx.console.ui.search.index.IndexedField.CONFIGURATION_PID;
 
 import java.util.Collection;
 import java.util.List;
@@ -25,6 +26,7 @@ import java.util.function.Predicate;
 
 import org.apache.commons.lang3.Strings;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
 
 import com.dlsc.formsfx.model.validators.CustomValidator;
 import com.dlsc.formsfx.model.validators.Validator;
@@ -34,17 +36,22 @@ import com.osgifx.console.agent.dto.XConfigurationDTO;
 import com.osgifx.console.ui.search.filter.SearchComponent;
 import com.osgifx.console.ui.search.filter.SearchFilter;
 import com.osgifx.console.ui.search.filter.SearchOperation;
+import com.osgifx.console.ui.search.index.SearchIndex;
 
 @Component
 public final class ConfigurationSearchFilterByPID implements SearchFilter {
 
+    @Reference
+    private SearchIndex index;
+
     @Override
     public Predicate<XConfigurationDTO> predicate(final String input, final SearchOperation searchOperation) {
-        return switch (searchOperation) {
+        final Predicate<XConfigurationDTO> predicate = switch (searchOperation) {
             case EQUALS_TO -> conf -> Strings.CI.contains(conf.pid, input.strip());
             case CONTAINS -> conf -> Strings.CI.contains(conf.pid, input.strip());
             default -> throw new VerifyException("no matching case found");
         };
+        return index.narrow(CONFIGURATION_PID, input.strip(), predicate);
     }
 
     @Override
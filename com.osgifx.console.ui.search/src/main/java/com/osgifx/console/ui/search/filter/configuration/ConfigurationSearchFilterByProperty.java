@@ -17,6 +17,7 @@ package com.osgifx.console.ui.search.filter.configuration;
 
 import static com.osgifx.console.ui.search.filter.SearchComponent.CONFIGURATIONS;
 import static com.osgifx.console.ui.search.filter.SearchOperation.EQUALS_TO;
+import static com.osgifx.console.ui.search.index.IndexedField.CONFIGURATION_PROPERTY_KEY;
 
 import java.util.Collection;
 import java.util.List;
@@ -24,6 +25,7 @@ import java.util.function.Predicate;
 
 import org.apache.commons.lang3.Strings;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
 
 import com.dlsc.formsfx.model.validators.CustomValidator;
 import com.dlsc.formsfx.model.validators.Validator;
@@ -35,23 +37,31 @@ import com.osgifx.console.agent.dto.XConfigurationDTO;
 import com.osgifx.console.ui.search.filter.SearchComponent;
 import com.osgifx.console.ui.search.filter.SearchFilter;
 import com.osgifx.console.ui.search.filter.SearchOperation;
+import com.osgifx.console.ui.search.index.SearchIndex;
 
 @Component
 public final class ConfigurationSearchFilterByProperty implements SearchFilter {
 
+    @Reference
+    private SearchIndex index;
+
     @Override
     public Predicate<XConfigurationDTO> predicate(final String input, final SearchOperation searchOperation) {
         final var split = Splitter.on("=").trimResults().splitToList(input.strip());
         final var key   = split.get(0);
         final var value = split.get(1);
 
-        return switch (searchOperation) {
+        final Predicate<XConfigurationDTO> predicate = switch (searchOperation) {
             case EQUALS_TO -> configuration -> //
                 BiStream.from(configuration.properties) //
                         .anyMatch((_, v) -> //
                 Strings.CI.contains(v.key, key) && Strings.CI.contains(v.value.toString(), value));
             default -> throw new VerifyException("no matching case found");
         };
+        // only the candidates having a matching key are checked for a matching value
+        final Predicate<XConfigurationDTO> hasProperty = configuration -> BiStream.from(configuration.properties) //
+                .anyMatch((_, v) -> Strings.CI.contains(v.key, key));
+        return index.narrow(CONFIGURATION_PROPERTY_KEY, key, hasProperty).and(predicate);
     }
 
     @Override
@@ -17,6 +17,7 @@ package com.osgifx.console.ui.search.filter.service;
 
 import static com.osgifx.console.ui.search.filter.SearchComponent.SERVICES;
 import static com.osgifx.console.ui.search.filter.SearchOperation.EQUALS_TO;
+import static com.osgifx.console.ui.search.index.IndexedField.SERVICE_PROPERTY_KEY;
 
 import java.util.Collection;
 import java.util.List;
@@ -24,6 +25,7 @@ import java.util.function.Predicate;
 
 import org.apache.commons.lang3.Strings;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
 
 import com.dlsc.formsfx.model.validators.CustomValidator;
 import com.dlsc.formsfx.model.validators.Validator;
@@ -35,23 +37,31 @@ import com.osgifx.console.agent.dto.XServiceDTO;
 import com.osgifx.console.ui.search.filter.SearchComponent;
 import com.osgifx.console.ui.search.filter.SearchFilter;
 import com.osgifx.console.ui.search.filter.SearchOperation;
+import com.osgifx.console.ui.search.index.SearchIndex;
 
 @Component
 public final class ServiceSearchFilterByProperty implements SearchFilter {
 
+    @Reference
+    private SearchIndex index;
+
     @Override
     public Predicate<XServiceDTO> predicate(final String input, final SearchOperation searchOperation) {
         final var split = Splitter.on("=").splitToList(input.strip());
         final var key   = split.get(0);
         final var value = split.get(1);
 
-        return switch (searchOperation) {
+        final Predicate<XServiceDTO> predicate = switch (searchOperation) {
             case EQUALS_TO -> service -> //
                 BiStream.from(service.properties) //
                         .anyMatch((k, v) -> //
                 Strings.CI.contains(k, key) && Strings.CI.contains(v, value));
             default -> throw new VerifyException("no matching case found");
         };
+        // only the candidates having a matching key are checked for a matching value
+        final Predicate<XServiceDTO> hasProperty = service -> BiStream.from(service.properties) //
+                .anyMatch((k, _) -> Strings.CI.contains(k, key));
+        return index.narrow(SERVICE_PROPERTY_KEY, key, hasProperty).and(predicate);
     }
 
     @Override
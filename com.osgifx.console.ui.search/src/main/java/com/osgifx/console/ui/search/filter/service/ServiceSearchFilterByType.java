@@ -18,6 +18,7 @@ package com.osgifx.console.ui.search.filter.service;
 import static com.osgifx.console.ui.search.filter.SearchComponent.SERVICES;
 import static com.osgifx.console.ui.search.filter.SearchOperation.CONTAINS;
 import static com.osgifx.console.ui.search.filter.SearchOperation.EQUALS_TO;
+import static com.osgifx.console.ui.search.index.IndexedField.SERVICE_TYPE;
 
 import java.util.Collection;
 import java.util.List;
@@ -25,6 +26,7 @@ import java.util.function.Predicate;
 
 import org.apache.commons.lang3.Strings;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
 
 import com.dlsc.formsfx.model.validators.CustomValidator;
 import com.dlsc.formsfx.model.validators.Validator;
@@ -34,17 +36,22 @@ import com.osgifx.console.agent.dto.XServiceDTO;
 import com.osgifx.console.ui.search.filter.SearchComponent;
 import com.osgifx.console.ui.search.filter.SearchFilter;
 import com.osgifx.console.ui.search.filter.SearchOperation;
+import com.osgifx.console.ui.search.index.SearchIndex;
 
 @Component
 public final class ServiceSearchFilterByType implements SearchFilter {
 
+    @Reference
+    private SearchIndex index;
+
     @Override
     public Predicate<XServiceDTO> predicate(final String input, final SearchOperation searchOperation) {
-        return switch (searchOperation) {
+        final Predicate<XServiceDTO> predicate = switch (searchOperation) {
             case EQUALS_TO -> service -> service.types.stream().anyMatch(s -> Strings.CI.contains(s, input.strip()));
             case CONTAINS -> service -> service.types.stream().anyMatch(s -> Strings.CI.contains(s, input.strip()));
             default -> throw new VerifyException("no matching case found");
         };
+        return index.narrow(SERVICE_TYPE, input.strip(), predicate);
     }
 
     @Override
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.search.index;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The postings of a single {@link IndexedField}.
+ * <p>
+ * Every distinct term (a normalized field value) refers to the DTOs containing it and
+ * every trigram to the terms containing it. A case-insensitive substring query therefore
+ * intersects the terms of the query's trigrams, verifies the remaining terms and unites
+ * their DTOs, instead of scanning every single DTO. Queries shorter than a trigram only
+ * scan the term dictionary which is usually much smaller than the DTOs.
+ * <p>
+ * Not thread-safe, the {@link SearchIndex} guards it.
+ */
+final class FieldIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private final Map<String, Set<Object>> postings = new HashMap<>();
+    private final Map<String, Set<String>> grams    = new HashMap<>();
+    private final Map<Object, Set<String>> terms    = new IdentityHashMap<>();
+
+    void add(final Object dto, final Collection<String> values) {
+        final Set<String> dtoTerms = new HashSet<>();
+        for (final String value : values) {
+            if (value != null) {
+                dtoTerms.add(normalize(value));
+            }
+        }
+        if (dtoTerms.isEmpty()) {
+            return;
+        }
+        terms.put(dto, dtoTerms);
+        for (final String term : dtoTerms) {
+            postings.computeIfAbsent(term, t -> {
+                for (final String gram : grams(t)) {
+                    grams.computeIfAbsent(gram, g -> new HashSet<>()).add(t);
+                }
+                return newIdentitySet();
+            }).add(dto);
+        }
+    }
+
+    void remove(final Object dto) {
+        final Set<String> dtoTerms = terms.remove(dto);
+        if (dtoTerms == null) {
+            return;
+        }
+        for (final String term : dtoTerms) {
+            final Set<Object> dtos = postings.get(term);
+            dtos.remove(dto);
+            if (!dtos.isEmpty()) {
+                continue;
+            }
+            postings.remove(term);
+            for (final String gram : grams(term)) {
+                final Set<String> gramTerms = grams.get(gram);
+                gramTerms.remove(term);
+                if (gramTerms.isEmpty()) {
+                    grams.remove(gram);
+                }
+            }
+        }
+    }
+
+    void clear() {
+        postings.clear();
+        grams.clear();
+        terms.clear();
+    }
+
+    /**
+     * Returns the DTOs having a value which contains the specified input, ignoring case.
+     *
+     * @param input the input to look for
+     * @return the matching DTOs
+     */
+    Set<Object> lookup(final String input) {
+        final String      query      = normalize(input);
+        final Set<Object> dtos       = newIdentitySet();
+        final Set<String> candidates = candidates(query);
+        for (final String term : candidates) {
+            if (term.contains(query)) {
+                dtos.addAll(postings.get(term));
+            }
+        }
+        return dtos;
+    }
+
+    private Set<String> candidates(final String query) {
+        if (query.length() < GRAM_LENGTH) {
+            return postings.keySet();
+        }
+        Set<String> smallest = null;
+        for (final String gram : grams(query)) {
+            final Set<String> gramTerms = grams.get(gram);
+            if (gramTerms == null) {
+                return Collections.emptySet();
+            }
+            if (smallest == null || gramTerms.size() < smallest.size()) {
+                smallest = gramTerms;
+            }
+        }
+        // the terms of the rarest trigram are verified against the complete query anyway
+        return smallest;
+    }
+
+    private static Set<String> grams(final String term) {
+        final Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= term.length(); i++) {
+            result.add(term.substring(i, i + GRAM_LENGTH));
+        }
+        return result;
+    }
+
+    // the same case folding as String#regionMatches(boolean, ...), hence the length is retained
+    private static String normalize(final String value) {
+        final char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
+    private static Set<Object> newIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.search.index;
+
+import static com.osgifx.console.ui.search.filter.SearchComponent.BUNDLES;
+import static com.osgifx.console.ui.search.filter.SearchComponent.COMPONENTS;
+import static com.osgifx.console.ui.search.filter.SearchComponent.CONFIGURATIONS;
+import static com.osgifx.console.ui.search.filter.SearchComponent.PACKAGES;
+import static com.osgifx.console.ui.search.filter.SearchComponent.SERVICES;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.osgifx.console.agent.dto.XBundleDTO;
+import com.osgifx.console.agent.dto.XComponentDTO;
+import com.osgifx.console.agent.dto.XConfigurationDTO;
+import com.osgifx.console.agent.dto.XServiceDTO;
+import com.osgifx.console.data.provider.PackageDTO;
+import com.osgifx.console.ui.search.filter.SearchComponent;
+
+/**
+ * The DTO fields maintained by the {@link SearchIndex}
+ */
+public enum IndexedField {
+
+    // @formatter:off
+    BUNDLE_SYMBOLIC_NAME(BUNDLES, XBundleDTO.class, b -> value(b.symbolicName)),
+    BUNDLE_EXPORTED_PACKAGE(BUNDLES, XBundleDTO.class, b -> values(b.exportedPackages, p -> p.name)),
+    BUNDLE_IMPORTED_PACKAGE(BUNDLES, XBundleDTO.class, b -> values(b.importedPackages, p -> p.name)),
+    BUNDLE_REGISTERED_SERVICE(BUNDLES, XBundleDTO.class, b -> values(b.registeredServices, s -> s.objectClass)),
+    BUNDLE_USED_SERVICE(BUNDLES, XBundleDTO.class, b -> values(b.usedServices, s -> s.objectClass)),
+    BUNDLE_MANIFEST_HEADER_KEY(BUNDLES, XBundleDTO.class, b -> keys(b.manifestHeaders)),
+    COMPONENT_IMPLEMENTATION_CLASS(COMPONENTS, XComponentDTO.class, c -> value(c.implementationClass)),
+    COMPONENT_CONFIGURATION_PID(COMPONENTS, XComponentDTO.class, c -> values(c.configurationPid)),
+    COMPONENT_SERVICE_INTERFACE(COMPONENTS, XComponentDTO.class, c -> values(c.serviceInterfaces)),
+    COMPONENT_PROPERTY_KEY(COMPONENTS, XComponentDTO.class, c -> keys(c.properties)),
+    CONFIGURATION_PID(CONFIGURATIONS, XConfigurationDTO.class, c -> value(c.pid)),
+    CONFIGURATION_FACTORY_PID(CONFIGURATIONS, XConfigurationDTO.class, c -> value(c.factoryPid)),
+    CONFIGURATION_PROPERTY_KEY(CONFIGURATIONS, XConfigurationDTO.class,
+            c -> c.properties == null ? List.of() : values(c.properties.values(), v -> v.key)),
+    SERVICE_TYPE(SERVICES, XServiceDTO.class, s -> values(s.types)),
+    SERVICE_PROPERTY_KEY(SERVICES, XServiceDTO.class, s -> keys(s.properties)),
+    PACKAGE_NAME(PACKAGES, PackageDTO.class, p -> value(p.name));
+    // @formatter:on
+
+    private final SearchComponent                      component;
+    private final Function<Object, Collection<String>> terms;
+
+    <T> IndexedField(final SearchComponent component,
+                     final Class<T> type,
+                     final Function<T, Collection<String>> terms) {
+        this.component = component;
+        this.terms     = dto -> terms.apply(type.cast(dto));
+    }
+
+    public SearchComponent component() {
+        return component;
+    }
+
+    Collection<String> terms(final Object dto) {
+        return terms.apply(dto);
+    }
+
+    private static Collection<String> value(final String value) {
+        return Collections.singletonList(value);
+    }
+
+    private static Collection<String> values(final Collection<String> values) {
+        return values == null ? List.of() : values;
+    }
+
+    private static <E> Collection<String> values(final Collection<E> elements, final Function<E, String> mapper) {
+        return elements == null ? List.of() : elements.stream().map(mapper).toList();
+    }
+
+    private static Collection<String> keys(final Map<String, ?> map) {
+        return map == null ? List.of() : map.keySet();
+    }
+
+}
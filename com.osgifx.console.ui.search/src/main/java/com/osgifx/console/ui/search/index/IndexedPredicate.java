@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.search.index;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A predicate resolved by the {@link SearchIndex} which matches the indexed DTOs by the
+ * set of candidates looked up from the index instead of evaluating a predicate for each
+ * one of them.
+ * <p>
+ * Combining two predicates resolved from the same index state intersects their
+ * candidates, whereas any other predicate is only evaluated for the remaining candidates
+ * as a post filter. DTOs which have not been indexed yet are evaluated by the complete
+ * predicate.
+ *
+ * @param <T> the DTO type
+ */
+public final class IndexedPredicate<T> implements Predicate<T> {
+
+    private final Set<Object>  indexed;
+    private final Set<Object>  candidates;
+    private final Predicate<T> predicate;
+    private final Predicate<T> filter;
+
+    IndexedPredicate(final Set<Object> indexed, final Set<Object> candidates, final Predicate<T> predicate) {
+        this(indexed, candidates, predicate, null);
+    }
+
+    private IndexedPredicate(final Set<Object> indexed,
+                             final Set<Object> candidates,
+                             final Predicate<T> predicate,
+                             final Predicate<T> filter) {
+        this.indexed    = indexed;
+        this.candidates = candidates;
+        this.predicate  = predicate;
+        this.filter     = filter;
+    }
+
+    @Override
+    public boolean test(final T dto) {
+        if (!indexed.contains(dto)) {
+            return predicate.test(dto);
+        }
+        return candidates.contains(dto) && (filter == null || filter.test(dto));
+    }
+
+    @Override
+    public IndexedPredicate<T> and(final Predicate<? super T> other) {
+        if (other instanceof final IndexedPredicate<?> that && that.indexed == indexed) {
+            // resolved from the same index state, hence the DTOs are of the same type
+            @SuppressWarnings("unchecked")
+            final var same = (IndexedPredicate<T>) that;
+            return new IndexedPredicate<>(indexed, intersect(candidates, same.candidates),
+                                          predicate.and(same.predicate), both(filter, same.filter));
+        }
+        return new IndexedPredicate<>(indexed, candidates, predicate.and(other), both(filter, other::test));
+    }
+
+    // the indexed DTOs which are matched unless the post filter rejects them
+    int candidates() {
+        return candidates.size();
+    }
+
+    private static Set<Object> intersect(final Set<Object> first, final Set<Object> second) {
+        final var smaller = first.size() <= second.size() ? first : second;
+        final var larger  = smaller == first ? second : first;
+        final var result  = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        for (final Object dto : smaller) {
+            if (larger.contains(dto)) {
+                result.add(dto);
+            }
+        }
+        return result;
+    }
+
+    private static <T> Predicate<T> both(final Predicate<T> first, final Predicate<T> second) {
+        if (first == null || second == null) {
+            return first == null ? second : first;
+        }
+        return first.and(second);
+    }
+
+}
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.search.index;
+
+import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_BUNDLES_TOPIC;
+import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_COMPONENTS_TOPIC;
+import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_CONFIGURATIONS_TOPIC;
+import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_PACKAGES_TOPIC;
+import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_SERVICES_TOPIC;
+import static com.osgifx.console.supervisor.Supervisor.AGENT_DISCONNECTED_EVENT_TOPIC;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.eclipse.fx.core.ThreadSynchronize;
+import org.eclipse.fx.core.log.FluentLogger;
+import org.eclipse.fx.core.log.LoggerFactory;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.event.Event;
+import org.osgi.service.event.EventHandler;
+import org.osgi.service.event.propertytypes.EventTopics;
+
+import com.osgifx.console.data.provider.DataProvider;
+import com.osgifx.console.ui.search.filter.SearchComponent;
+
+/**
+ * An in-memory inverted index of the searchable DTO fields which is updated whenever
+ * the corresponding data has been retrieved from the remote runtime.
+ * <p>
+ * The data suppliers retain unchanged DTOs across retrievals, hence an update only
+ * indexes the DTOs which have been added or replaced and drops the ones which are gone.
+ */
+@Component(service = { SearchIndex.class, EventHandler.class })
+// @formatter:off
+@EventTopics({
+    DATA_RETRIEVED_BUNDLES_TOPIC,
+    DATA_RETRIEVED_COMPONENTS_TOPIC,
+    DATA_RETRIEVED_CONFIGURATIONS_TOPIC,
+    DATA_RETRIEVED_PACKAGES_TOPIC,
+    DATA_RETRIEVED_SERVICES_TOPIC,
+    AGENT_DISCONNECTED_EVENT_TOPIC })
+// @formatter:on
+public final class SearchIndex implements EventHandler {
+
+    @Reference
+    private LoggerFactory     factory;
+    @Reference
+    private DataProvider      dataProvider;
+    @Reference
+    private ThreadSynchronize threadSync;
+    private FluentLogger      logger;
+
+    private final Map<SearchComponent, ComponentIndex> indices = new EnumMap<>(SearchComponent.class);
+
+    @Activate
+    void activate() {
+        logger = FluentLogger.of(factory.createLogger(getClass().getName()));
+    }
+
+    /**
+     * Resolves the indexed DTOs having a value of the indexed field which contains the
+     * specified input, ignoring case. The returned predicate matches these DTOs without
+     * evaluating the specified predicate, hence it must match exactly the same DTOs. It is
+     * only evaluated for the DTOs which have not been indexed yet.
+     * <p>
+     * Any further condition is to be combined by {@link IndexedPredicate#and(Predicate)},
+     * such that it is only evaluated for the resolved candidates.
+     *
+     * @param <T> the DTO type
+     * @param field the indexed field the predicate matches on
+     * @param input the input the value of the field must contain
+     * @param predicate the predicate matching the same DTOs as the index
+     * @return the indexed predicate
+     */
+    public <T> IndexedPredicate<T> narrow(final IndexedField field, final String input, final Predicate<T> predicate) {
+        synchronized (indices) {
+            final var index = indices.get(field.component());
+            if (index == null) {
+                return new IndexedPredicate<>(Set.of(), Set.of(), predicate);
+            }
+            return new IndexedPredicate<>(index.dtos, index.fields.get(field).lookup(input), predicate);
+        }
+    }
+
+    @Override
+    public void handleEvent(final Event event) {
+        final var topic = event.getTopic();
+        if (AGENT_DISCONNECTED_EVENT_TOPIC.equals(topic)) {
+            synchronized (indices) {
+                indices.clear();
+            }
+            return;
+        }
+        final var component = switch (topic) {
+            case DATA_RETRIEVED_BUNDLES_TOPIC -> SearchComponent.BUNDLES;
+            case DATA_RETRIEVED_COMPONENTS_TOPIC -> SearchComponent.COMPONENTS;
+            case DATA_RETRIEVED_CONFIGURATIONS_TOPIC -> SearchComponent.CONFIGURATIONS;
+            case DATA_RETRIEVED_PACKAGES_TOPIC -> SearchComponent.PACKAGES;
+            case DATA_RETRIEVED_SERVICES_TOPIC -> SearchComponent.SERVICES;
+            default -> null;
+        };
+        if (component == null) {
+            return;
+        }
+        final List<?> dtos = threadSync.syncExec(() -> new ArrayList<>(data(component)), List.of());
+        synchronized (indices) {
+            indices.computeIfAbsent(component, ComponentIndex::new).update(dtos);
+        }
+        logger.atDebug().log("Search index of '%s' has been updated", component);
+    }
+
+    private List<?> data(final SearchComponent component) {
+        return switch (component) {
+            case BUNDLES -> dataProvider.bundles();
+            case COMPONENTS -> dataProvider.components();
+            case CONFIGURATIONS -> dataProvider.configurations();
+            case PACKAGES -> dataProvider.packages();
+            case SERVICES -> dataProvider.services();
+            default -> List.of();
+        };
+    }
+
+    private static final class ComponentIndex {
+
+        private final Map<IndexedField, FieldIndex> fields = new EnumMap<>(IndexedField.class);
+        // replaced on every update, so that the narrowed predicates keep the one they were created with
+        private Set<Object>                         dtos   = newIdentitySet();
+
+        private ComponentIndex(final SearchComponent component) {
+            for (final IndexedField field : IndexedField.values()) {
+                if (field.component() == component) {
+                    fields.put(field, new FieldIndex());
+                }
+            }
+        }
+
+        private void update(final List<?> current) {
+            final Set<Object> next = newIdentitySet();
+            next.addAll(current);
+            for (final Object dto : dtos) {
+                if (!next.contains(dto)) {
+                    fields.values().forEach(index -> index.remove(dto));
+                }
+            }
+            for (final Object dto : next) {
+                if (!dtos.contains(dto)) {
+                    fields.forEach((field, index) -> index.add(dto, field.terms(dto)));
+                }
+            }
+            dtos = Collections.unmodifiableSet(next);
+        }
+
+        private static Set<Object> newIdentitySet() {
+            return Collections.newSetFromMap(new IdentityHashMap<>());
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.search.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class FieldIndexTest {
+
+    private final FieldIndex index = new FieldIndex();
+
+    @Test
+    public void testLookupIgnoresCase() {
+        final var core = new Object();
+        final var api  = new Object();
+        index.add(core, List.of("com.Acme.Core"));
+        index.add(api, List.of("org.acme.API"));
+
+        assertEquals(Set.of(core, api), index.lookup("ACME"));
+        assertEquals(Set.of(core), index.lookup("acme.core"));
+        assertEquals(Set.of(api), index.lookup("Acme.Api"));
+    }
+
+    @Test
+    public void testLookupVerifiesTheTermsOfTheRarestTrigram() {
+        final var first  = new Object();
+        final var second = new Object();
+        index.add(first, List.of("com.example.service"));
+        index.add(second, List.of("com.sample.servlet"));
+
+        // all trigrams of the query are contained, but not the query itself
+        assertEquals(Set.of(), index.lookup("example.servlet"));
+        assertEquals(Set.of(first), index.lookup("example.serv"));
+        assertEquals(Set.of(first, second), index.lookup("ample."));
+        // a trigram which no term contains
+        assertEquals(Set.of(), index.lookup("xyz.service"));
+    }
+
+    @Test
+    public void testShortQueryScansTheTermDictionary() {
+        final var first  = new Object();
+        final var second = new Object();
+        index.add(first, List.of("ab"));
+        index.add(second, List.of("xaby"));
+
+        assertEquals(Set.of(first, second), index.lookup("AB"));
+        assertEquals(Set.of(second), index.lookup("y"));
+        assertEquals(Set.of(first, second), index.lookup(""));
+        assertEquals(Set.of(), index.lookup("ba"));
+    }
+
+    @Test
+    public void testEveryValueOfADtoIsATerm() {
+        final var dto = new Object();
+        index.add(dto, Arrays.asList("com.acme.api", null, "com.acme.spi"));
+        index.add(new Object(), Arrays.asList((String) null));
+
+        assertEquals(Set.of(dto), index.lookup("spi"));
+        assertEquals(Set.of(dto), index.lookup("acme.api"));
+        // a DTO without any value is no candidate at all
+        assertEquals(Set.of(dto), index.lookup(""));
+    }
+
+    @Test
+    public void testRemoveDropsOnlyUnsharedTerms() {
+        final var first  = new Object();
+        final var second = new Object();
+        index.add(first, List.of("com.acme.shared", "com.acme.first"));
+        index.add(second, List.of("com.acme.shared"));
+
+        index.remove(first);
+        assertEquals(Set.of(second), index.lookup("shared"));
+        assertEquals(Set.of(), index.lookup("first"));
+        assertEquals(Set.of(), index.lookup("fi"));
+
+        index.remove(second);
+        // neither terms nor trigrams are left behind
+        assertEquals(Set.of(), index.lookup("com"));
+        assertEquals(Set.of(), index.lookup(""));
+
+        // removing a DTO which has not been indexed is a no-op
+        index.remove(first);
+        index.add(first, List.of("com.acme.first"));
+        assertEquals(Set.of(first), index.lookup("acme"));
+    }
+
+    @Test
+    public void testClear() {
+        index.add(new Object(), List.of("com.acme.api"));
+        index.clear();
+
+        assertTrue(index.lookup("").isEmpty());
+        assertTrue(index.lookup("acme").isEmpty());
+    }
+
+}
@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.search.index;
+
+import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_BUNDLES_TOPIC;
+import static com.osgifx.console.event.topics.DataRetrievedEventTopics.DATA_RETRIEVED_PACKAGES_TOPIC;
+import static com.osgifx.console.supervisor.Supervisor.AGENT_DISCONNECTED_EVENT_TOPIC;
+import static com.osgifx.console.ui.search.index.IndexedField.BUNDLE_EXPORTED_PACKAGE;
+import static com.osgifx.console.ui.search.index.IndexedField.BUNDLE_SYMBOLIC_NAME;
+import static com.osgifx.console.ui.search.index.IndexedField.PACKAGE_NAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.eclipse.fx.core.ThreadSynchronize;
+import org.eclipse.fx.core.log.Logger;
+import org.eclipse.fx.core.log.LoggerFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.service.event.Event;
+
+import com.osgifx.console.agent.dto.XBundleDTO;
+import com.osgifx.console.agent.dto.XPackageDTO;
+import com.osgifx.console.data.provider.DataProvider;
+import com.osgifx.console.data.provider.PackageDTO;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+public class SearchIndexTest {
+
+    private final ObservableList<XBundleDTO> bundles  = FXCollections.observableArrayList();
+    private final ObservableList<PackageDTO> packages = FXCollections.observableArrayList();
+    private final AtomicInteger              tests    = new AtomicInteger();
+
+    private SearchIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        index = new SearchIndex();
+        inject("factory", proxy(LoggerFactory.class,
+                (name, args) -> "createLogger".equals(name) ? proxy(Logger.class, (n, a) -> null) : null));
+        inject("dataProvider", proxy(DataProvider.class, (name, args) -> switch (name) {
+            case "bundles" -> bundles;
+            case "packages" -> packages;
+            default -> FXCollections.observableArrayList();
+        }));
+        inject("threadSync", proxy(ThreadSynchronize.class, (name, args) -> ((Callable<?>) args[0]).call()));
+        index.activate();
+    }
+
+    @Test
+    public void testIndexedDtosAreMatchedWithoutEvaluatingThePredicate() {
+        final var core  = bundle("com.acme.core");
+        final var other = bundle("org.other");
+        bundles.setAll(core, other);
+        retrieved(DATA_RETRIEVED_BUNDLES_TOPIC);
+
+        final var predicate = index.narrow(BUNDLE_SYMBOLIC_NAME, "ACME",
+                counting((XBundleDTO b) -> b.symbolicName.contains("acme")));
+        assertTrue(predicate.test(core));
+        assertFalse(predicate.test(other));
+        assertEquals(0, tests.get());
+
+        // a bundle which has been retrieved after the last update is evaluated as usual
+        assertTrue(predicate.test(bundle("com.acme.api")));
+        assertEquals(1, tests.get());
+    }
+
+    @Test
+    public void testRetrievedDataIsIndexedIncrementally() {
+        final var core  = bundle("com.acme.core");
+        final var other = bundle("org.other");
+        bundles.setAll(core, other);
+        retrieved(DATA_RETRIEVED_BUNDLES_TOPIC);
+
+        // the suppliers retain the unchanged DTOs, hence they are not indexed again
+        core.symbolicName = "com.renamed.core";
+        final var api = bundle("com.acme.api");
+        bundles.setAll(core, api);
+        retrieved(DATA_RETRIEVED_BUNDLES_TOPIC);
+
+        final var predicate = index.narrow(BUNDLE_SYMBOLIC_NAME, "acme", counting(b -> true));
+        assertTrue(predicate.test(core));
+        assertTrue(predicate.test(api));
+        assertEquals(2, predicate.candidates());
+        // the removed bundle is not indexed anymore
+        assertTrue(predicate.test(other));
+        assertEquals(1, tests.get());
+        assertEquals(0, index.narrow(BUNDLE_SYMBOLIC_NAME, "other", b -> false).candidates());
+    }
+
+    @Test
+    public void testEveryComponentIsIndexedOnItsOwn() {
+        final var pkg = new PackageDTO();
+        pkg.name = "com.acme.api";
+        packages.setAll(pkg);
+        bundles.setAll(bundle("com.acme.core"));
+        retrieved(DATA_RETRIEVED_PACKAGES_TOPIC);
+
+        assertEquals(1, index.narrow(PACKAGE_NAME, "acme", p -> true).candidates());
+        // the bundles have not been retrieved yet
+        assertEquals(0, index.narrow(BUNDLE_SYMBOLIC_NAME, "acme", b -> true).candidates());
+        assertTrue(index.narrow(BUNDLE_SYMBOLIC_NAME, "acme", counting(b -> true)).test(bundles.get(0)));
+        assertEquals(1, tests.get());
+    }
+
+    @Test
+    public void testCompoundFiltersIntersectTheirCandidates() {
+        final var core     = bundle("com.acme.core", "com.acme.api");
+        final var impl     = bundle("com.acme.impl");
+        final var consumer = bundle("org.consumer", "com.acme.api");
+        bundles.setAll(core, impl, consumer);
+        retrieved(DATA_RETRIEVED_BUNDLES_TOPIC);
+
+        final var predicate = index.<XBundleDTO> narrow(BUNDLE_SYMBOLIC_NAME, "acme", b -> true)
+                .and(index.narrow(BUNDLE_EXPORTED_PACKAGE, "acme.api", b -> true))
+                .and(counting(b -> b.symbolicName.endsWith("core")));
+        assertEquals(1, predicate.candidates());
+
+        assertTrue(predicate.test(core));
+        assertFalse(predicate.test(impl));
+        assertFalse(predicate.test(consumer));
+        // the post filter is only evaluated for the remaining candidate
+        assertEquals(1, tests.get());
+    }
+
+    @Test
+    public void testDisconnectClearsTheIndex() {
+        final var core = bundle("com.acme.core");
+        bundles.setAll(core);
+        retrieved(DATA_RETRIEVED_BUNDLES_TOPIC);
+        index.handleEvent(new Event(AGENT_DISCONNECTED_EVENT_TOPIC, Map.of()));
+
+        final var predicate = index.narrow(BUNDLE_SYMBOLIC_NAME, "acme", counting(b -> false));
+        assertEquals(0, predicate.candidates());
+        assertFalse(predicate.test(core));
+        assertEquals(1, tests.get());
+    }
+
+    private void retrieved(final String topic) {
+        index.handleEvent(new Event(topic, Map.of()));
+    }
+
+    private <T> Predicate<T> counting(final Predicate<T> predicate) {
+        return dto -> {
+            tests.incrementAndGet();
+            return predicate.test(dto);
+        };
+    }
+
+    private void inject(final String field, final Object value) throws Exception {
+        final var declared = SearchIndex.class.getDeclaredField(field);
+        declared.setAccessible(true);
+        declared.set(index, value);
+    }
+
+    private static XBundleDTO bundle(final String symbolicName, final String... exportedPackages) {
+        final var bundle = new XBundleDTO();
+        bundle.symbolicName     = symbolicName;
+        bundle.exportedPackages = Stream.of(exportedPackages).map(SearchIndexTest::xpackage).toList();
+        return bundle;
+    }
+
+    private static XPackageDTO xpackage(final String name) {
+        final var pkg = new XPackageDTO();
+        pkg.name = name;
+        return pkg;
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(String method, Object[] args) throws Exception;
+    }
+
+    private static <T> T proxy(final Class<T> type, final Handler handler) {
+        return type.cast(Proxy.newProxyInstance(SearchIndexTest.class.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> handler.invoke(method.getName(), args)));
+    }
+
+}
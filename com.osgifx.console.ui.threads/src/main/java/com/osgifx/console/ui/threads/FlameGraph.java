@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.threads;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.osgifx.console.agent.dto.XProfileDTO;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+
+/**
+ * Renders the call tree of an {@link XProfileDTO} as a flame graph with the root on top.
+ * The width of every frame is proportional to the number of samples it is part of and
+ * its colour identifies the bundle defining its class. Clicking a frame zooms into it,
+ * clicking the root resets the zoom.
+ */
+final class FlameGraph extends Region {
+
+    private static final double ROW_HEIGHT = 18;
+    private static final double CHAR_WIDTH = 7;
+    private static final Color  JVM_COLOR  = Color.rgb(190, 190, 190);
+
+    private final XProfileDTO       profile;
+    private final Map<Long, String> bundleNames;
+    private final Canvas            canvas = new Canvas();
+    private final int[][]           children;
+    private final int[]             depths;
+    private final double[]          nodeX;
+    private final double[]          nodeWidths;
+
+    private int              zoomed;
+    private Consumer<String> onHover = _ -> {
+    };
+
+    public FlameGraph(final XProfileDTO profile, final Map<Long, String> bundleNames) {
+        this.profile     = profile;
+        this.bundleNames = bundleNames;
+
+        final var nodes = profile.nodeFrames.length;
+        depths     = new int[nodes];
+        nodeX      = new double[nodes];
+        nodeWidths = new double[nodes];
+        children   = new int[nodes][];
+
+        // a parent always precedes its children
+        final var childCounts = new int[nodes];
+        var       maxDepth    = 0;
+        for (var node = 1; node < nodes; node++) {
+            final var parent = profile.nodeParents[node];
+            depths[node] = depths[parent] + 1;
+            maxDepth     = Math.max(maxDepth, depths[node]);
+            childCounts[parent]++;
+        }
+        for (var node = 0; node < nodes; node++) {
+            children[node] = new int[childCounts[node]];
+            childCounts[node] = 0;
+        }
+        for (var node = 1; node < nodes; node++) {
+            final var parent = profile.nodeParents[node];
+            children[parent][childCounts[parent]++] = node;
+        }
+        canvas.setHeight((maxDepth + 1) * ROW_HEIGHT);
+        getChildren().add(canvas);
+
+        canvas.setOnMouseMoved(e -> onHover.accept(describe(nodeAt(e.getX(), e.getY()))));
+        canvas.setOnMouseExited(_ -> onHover.accept(""));
+        canvas.setOnMouseClicked(e -> {
+            final var node = nodeAt(e.getX(), e.getY());
+            if (node != -1) {
+                zoomed = node;
+                draw();
+            }
+        });
+    }
+
+    public void setOnHover(final Consumer<String> onHover) {
+        this.onHover = onHover;
+    }
+
+    public String bundleName(final long bundleId) {
+        if (bundleId == -1) {
+            return "JVM";
+        }
+        return bundleNames.getOrDefault(bundleId, "Bundle " + bundleId);
+    }
+
+    @Override
+    protected void layoutChildren() {
+        if (canvas.getWidth() != getWidth()) {
+            canvas.setWidth(getWidth());
+            draw();
+        }
+    }
+
+    @Override
+    protected double computePrefHeight(final double width) {
+        return canvas.getHeight();
+    }
+
+    private void draw() {
+        final var gc = canvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        gc.setFont(Font.font("Monospaced", 11));
+        Arrays.fill(nodeWidths, 0);
+
+        final var width = canvas.getWidth();
+        // the callers of the zoomed frame span the whole width
+        for (var node = profile.nodeParents[zoomed]; node != -1; node = profile.nodeParents[node]) {
+            drawNode(node, 0, width, true);
+        }
+        drawTree(zoomed, 0, width / Math.max(1, profile.nodeSamples[zoomed]));
+    }
+
+    private void drawTree(final int node, final double x, final double scale) {
+        final var width = profile.nodeSamples[node] * scale;
+        // frames narrower than a pixel would not be visible anyway
+        if (width < 1) {
+            return;
+        }
+        drawNode(node, x, width, false);
+        var childX = x;
+        for (final int child : children[node]) {
+            drawTree(child, childX, scale);
+            childX += profile.nodeSamples[child] * scale;
+        }
+    }
+
+    private void drawNode(final int node, final double x, final double width, final boolean isCaller) {
+        nodeX[node]      = x;
+        nodeWidths[node] = width;
+
+        final var gc    = canvas.getGraphicsContext2D();
+        final var y     = depths[node] * ROW_HEIGHT;
+        final var color = colorOf(node);
+        gc.setFill(isCaller ? color.desaturate() : color);
+        gc.fillRect(x, y, width - 1, ROW_HEIGHT - 1);
+
+        final var maxChars = (int) ((width - 6) / CHAR_WIDTH);
+        if (maxChars > 2) {
+            final var label = label(node);
+            gc.setFill(Color.BLACK);
+            gc.fillText(label.length() <= maxChars ? label : label.substring(0, maxChars - 2) + "..", x + 3,
+                    y + ROW_HEIGHT - 5);
+        }
+    }
+
+    private int nodeAt(final double x, final double y) {
+        final var depth = (int) (y / ROW_HEIGHT);
+        for (var node = 0; node < nodeWidths.length; node++) {
+            final var isHit = x >= nodeX[node] && x < nodeX[node] + nodeWidths[node];
+            if (depths[node] == depth && nodeWidths[node] > 0 && isHit) {
+                return node;
+            }
+        }
+        return -1;
+    }
+
+    private String describe(final int node) {
+        if (node == -1) {
+            return "";
+        }
+        final var samples = profile.nodeSamples[node];
+        final var percent = 100.0 * samples / Math.max(1, profile.samples);
+        if (node == 0) {
+            return String.format("all threads: %d samples (%.2f%%)", samples, percent);
+        }
+        final var frame = profile.nodeFrames[node];
+        return String.format("%s [%s]: %d samples (%.2f%%)", profile.frames[frame],
+                bundleName(profile.frameBundles[frame]), samples, percent);
+    }
+
+    private String label(final int node) {
+        if (node == 0) {
+            return "all threads";
+        }
+        final var frame = profile.frames[profile.nodeFrames[node]];
+        // strip the package to keep the labels short
+        final var method = frame.lastIndexOf('.');
+        return frame.substring(frame.lastIndexOf('.', method - 1) + 1);
+    }
+
+    private Color colorOf(final int node) {
+        if (node == 0) {
+            return JVM_COLOR;
+        }
+        final var bundleId = profile.frameBundles[profile.nodeFrames[node]];
+        if (bundleId == -1) {
+            return JVM_COLOR;
+        }
+        // spread the bundles across the warm hues of a classic flame graph
+        final var hash = Long.hashCode(bundleId * 0x9E3779B97F4A7C15L) & 0x7fffffff;
+        return Color.hsb(hash % 60, 0.45 + hash % 7 * 0.05, 0.95);
+    }
+
+}
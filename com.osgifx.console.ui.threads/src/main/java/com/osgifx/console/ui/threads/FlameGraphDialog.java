@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.threads;
+
+import static com.osgifx.console.constants.FxConstants.STANDARD_CSS;
+import static javafx.scene.control.ButtonType.CLOSE;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.osgifx.console.agent.dto.XProfileDTO;
+
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.VBox;
+
+public final class FlameGraphDialog extends Dialog<Void> {
+
+    public void init(final XProfileDTO profile, final Map<Long, String> bundleNames) {
+        final var dialogPane = getDialogPane();
+        setResizable(true);
+        setTitle("CPU Profile");
+        dialogPane.setHeaderText(String.format("%d samples of runnable threads over %d s (every %d ms)%s",
+                profile.samples, (profile.endTime - profile.startTime) / 1000, profile.interval,
+                profile.isTruncated ? " - deep call paths have been truncated" : ""));
+        dialogPane.getStylesheets().add(getClass().getResource(STANDARD_CSS).toExternalForm());
+        dialogPane.getButtonTypes().addAll(CLOSE);
+
+        final var flameGraph = new FlameGraph(profile, bundleNames);
+        final var hoverLabel = new Label();
+        flameGraph.setOnHover(hoverLabel::setText);
+
+        final var scrollPane = new ScrollPane(flameGraph);
+        scrollPane.setFitToWidth(true);
+
+        final var hotBundles = new ListView<String>();
+        hotBundles.setPrefWidth(280);
+        final var bundles = selfSamplesByBundle(profile).entrySet().stream()
+                .sorted(Entry.<Long, Integer> comparingByValue().reversed()).toList();
+        for (final var entry : bundles) {
+            final var percent = 100.0 * entry.getValue() / Math.max(1, profile.samples);
+            hotBundles.getItems().add(String.format("%5.1f%%  %s", percent, flameGraph.bundleName(entry.getKey())));
+        }
+
+        final var sidePane = new VBox(5, new Label("Self time per bundle"), hotBundles);
+
+        final var content = new BorderPane();
+        content.setCenter(scrollPane);
+        content.setRight(sidePane);
+        content.setBottom(hoverLabel);
+        content.setPrefSize(1200, 700);
+
+        dialogPane.setContent(content);
+    }
+
+    // the samples a frame is part of but none of its callees is, i.e. the samples it was on the CPU itself
+    private static Map<Long, Integer> selfSamplesByBundle(final XProfileDTO profile) {
+        final var selfSamples = profile.nodeSamples.clone();
+        for (var node = 1; node < selfSamples.length; node++) {
+            selfSamples[profile.nodeParents[node]] -= profile.nodeSamples[node];
+        }
+        final var result = new HashMap<Long, Integer>();
+        for (var node = 1; node < selfSamples.length; node++) {
+            if (selfSamples[node] > 0) {
+                result.merge(profile.frameBundles[profile.nodeFrames[node]], selfSamples[node], Integer::sum);
+            }
+        }
+        return result;
+    }
+
+}
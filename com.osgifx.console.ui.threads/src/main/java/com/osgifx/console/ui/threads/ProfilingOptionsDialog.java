@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.ui.threads;
+
+import static com.osgifx.console.constants.FxConstants.STANDARD_CSS;
+import static javafx.scene.control.ButtonType.CANCEL;
+
+import javafx.scene.control.ButtonBar.ButtonData;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Label;
+import javafx.scene.control.Spinner;
+import javafx.scene.control.SpinnerValueFactory.IntegerSpinnerValueFactory;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.VBox;
+import javafx.stage.StageStyle;
+
+public final class ProfilingOptionsDialog extends Dialog<ProfilingOptionsDialog.ProfilingOptions> {
+
+    public record ProfilingOptions(long interval, long duration) {
+    }
+
+    public void init() {
+        final var dialogPane = getDialogPane();
+        initStyle(StageStyle.UNDECORATED);
+        dialogPane.setHeaderText("CPU Profiling Options");
+        dialogPane.getStylesheets().add(getClass().getResource(STANDARD_CSS).toExternalForm());
+        dialogPane.getButtonTypes().addAll(CANCEL);
+
+        final var durationSpinner = new Spinner<Integer>();
+        durationSpinner.setValueFactory(new IntegerSpinnerValueFactory(1, 600, 30));
+        durationSpinner.setEditable(true);
+
+        final var intervalSpinner = new Spinner<Integer>();
+        intervalSpinner.setValueFactory(new IntegerSpinnerValueFactory(5, 1000, 20, 5));
+        intervalSpinner.setEditable(true);
+
+        final var descLabel = new Label("""
+                The stacks of all runnable threads are sampled periodically on the agent.
+                Shorter intervals give more precise results but add more overhead to the remote runtime.""");
+        descLabel.setWrapText(true);
+        descLabel.setStyle("-fx-text-fill: #6b7280;");
+
+        final var grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.addRow(0, new Label("Duration (s)"), durationSpinner);
+        grid.addRow(1, new Label("Sampling Interval (ms)"), intervalSpinner);
+
+        final var content = new VBox(10);
+        content.getChildren().addAll(descLabel, grid);
+
+        dialogPane.setContent(content);
+
+        final var startButtonType = new ButtonType("Start", ButtonData.OK_DONE);
+        dialogPane.getButtonTypes().addAll(startButtonType);
+
+        setResultConverter(dialogButton -> {
+            if (dialogButton == CANCEL) {
+                return null;
+            }
+            return new ProfilingOptions(intervalSpinner.getValue(), durationSpinner.getValue() * 1000L);
+        });
+    }
+
+}
@@ -16,9 +16,10 @@
 package com.osgifx.console.ui.threads;
 
 import java.io.File;
-import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.concurrent.CancellationException;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -33,7 +34,10 @@ import org.eclipse.fx.core.ThreadSynchronize;
 import org.eclipse.fx.core.log.FluentLogger;
 import org.eclipse.fx.core.log.Log;
 
+import com.osgifx.console.agent.dto.XProfileDTO;
 import com.osgifx.console.agent.dto.XThreadDTO;
+import com.osgifx.console.agent.rpc.codec.BinaryCodec;
+import com.osgifx.console.agent.rpc.codec.SnapshotDecoder;
 import com.osgifx.console.agent.spi.payload.LargePayloadHandler;
 import com.osgifx.console.agent.spi.payload.PayloadMetadata;
 import com.osgifx.console.agent.spi.payload.PayloadType;
@@ -45,11 +49,15 @@ import com.osgifx.console.util.fx.Fx;
 import com.osgifx.console.util.fx.FxDialog;
 import com.osgifx.console.util.io.IO;
 
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
+import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableColumn.SortType;
 import javafx.scene.control.TableView;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
@@ -79,6 +87,10 @@ public final class ThreadsFxController {
     private TableColumn<XThreadDTO, String> isDaemonColumn;
     @FXML
     private TableColumn<XThreadDTO, String> isDeadlockedColumn;
+    @FXML
+    private TableColumn<XThreadDTO, Double> cpuUsageColumn;
+    @FXML
+    private TableColumn<XThreadDTO, Double> allocationRateColumn;
     @Inject
     @Named("is_connected")
     private boolean                         isConnected;
@@ -95,6 +107,8 @@ public final class ThreadsFxController {
     private Supervisor                      supervisor;
     @FXML
     private Button                          threadDumpButton;
+    @FXML
+    private Button                          profileButton;
     @Inject
     @Named("is_snapshot_agent")
     private boolean                         isSnapshotAgent;
@@ -244,17 +258,33 @@ public final class ThreadsFxController {
         }
         final var agent = supervisor.getAgent();
 
-        final Task<byte[]> threadDumpTask = new Task<>() {
+        final Task<File> threadDumpTask = new Task<>() {
             @Override
-            protected byte[] call() throws Exception {
+            protected File call() throws Exception {
                 try {
-                    updateMessage("Stage 1/3: Generating thread dump");
-                    Thread.sleep(100);
-                    updateMessage("Stage 2/3: Compressing thread dump");
-                    Thread.sleep(100);
-                    final var data = agent.threadDump();
-                    updateMessage("Stage 3/3: Transferring thread dump");
-                    return data;
+                    if (supervisor.isLegacyAgent()) {
+                        // legacy agents do not support chunked transfers
+                        updateMessage("Generating and transferring thread dump");
+                        final var data = agent.threadDump();
+                        if (data == null) {
+                            throw new IllegalStateException("Thread dump is not supported by the remote runtime");
+                        }
+                        final var threadDumpFile = new File(location, IO.prepareFilenameFor("tdump.gz"));
+                        FileUtils.writeByteArrayToFile(threadDumpFile, data);
+                        return threadDumpFile;
+                    }
+                    updateMessage("Stage 1/2: Generating and compressing thread dump");
+                    final var transfer = agent.openThreadDumpTransfer();
+                    if (transfer == null) {
+                        throw new IllegalStateException("Thread dump is not supported by the remote runtime");
+                    }
+                    updateMessage("Stage 2/2: Transferring thread dump");
+                    final var threadDumpFile = new File(location, transfer.name);
+                    return supervisor.download(transfer, threadDumpFile,
+                            bytes -> updateProgress(bytes, transfer.size), this::isCancelled);
+                } catch (final CancellationException e) {
+                    logger.atInfo().log("Thread dump capture has been cancelled");
+                    throw e;
                 } catch (final Exception e) {
                     logger.atError().withException(e).log("Cannot capture thread dump");
                     threadSync.asyncExec(() -> {
@@ -268,24 +298,17 @@ public final class ThreadsFxController {
             }
         };
 
-        threadDumpTask.valueProperty().addListener((ChangeListener<byte[]>) (_, _, newValue) -> {
-            if (newValue != null) {
-                threadSync.asyncExec(() -> {
-                    try {
-                        final var threadDumpFile = new File(location, IO.prepareFilenameFor("tdump.gz"));
-                        FileUtils.writeByteArrayToFile(threadDumpFile, newValue);
-                        Fx.showSuccessNotification("Thread Dump Successfully Captured",
-                                threadDumpFile.getAbsolutePath());
-                    } catch (final IOException e) {
-                        FxDialog.showExceptionDialog(e, getClass().getClassLoader());
-                    }
-                });
+        threadDumpTask.valueProperty().addListener((ChangeListener<File>) (_, _, threadDumpFile) -> {
+            if (threadDumpFile != null) {
+                threadSync.asyncExec(() -> Fx.showSuccessNotification("Thread Dump Successfully Captured",
+                        threadDumpFile.getAbsolutePath()));
             }
         });
 
         final var taskFuture = executor.runAsync(threadDumpTask);
+        // the download checks the cancellation on its own, an interrupt would close the open channels
         progressDialog = FxDialog.showProgressDialog("Capture Thread Dump", threadDumpTask, getClass().getClassLoader(),
-                () -> taskFuture.cancel(true));
+                () -> taskFuture.cancel(false), false);
     }
 
     private void threadDumpLocally() {
@@ -342,6 +365,86 @@ public final class ThreadsFxController {
                 () -> taskFuture.cancel(true));
     }
 
+    @FXML
+    public void profile() {
+        if (!isConnected) {
+            return;
+        }
+        final var agent = supervisor.getAgent();
+        if (agent == null) {
+            return;
+        }
+        final var optionsDialog = new ProfilingOptionsDialog();
+        ContextInjectionFactory.inject(optionsDialog, eclipseContext);
+        optionsDialog.init();
+
+        final var optionsResult = optionsDialog.showAndWait();
+        if (optionsResult.isEmpty()) {
+            return;
+        }
+        final var options = optionsResult.get();
+
+        final Task<XProfileDTO> profilingTask = new Task<>() {
+            @Override
+            protected XProfileDTO call() throws Exception {
+                try {
+                    updateMessage("Stage 1/2: Sampling threads");
+                    if (!agent.startProfiling(options.interval(), options.duration())) {
+                        throw new IllegalStateException("Another profiling is already running on the agent");
+                    }
+                    final var start = System.currentTimeMillis();
+                    try {
+                        var elapsed = 0L;
+                        while (elapsed < options.duration()) {
+                            updateProgress(elapsed, options.duration());
+                            Thread.sleep(Math.min(250, options.duration() - elapsed));
+                            elapsed = System.currentTimeMillis() - start;
+                        }
+                    } finally {
+                        // also stops the sampling on the agent if the profiling has been cancelled
+                        agent.stopProfiling();
+                    }
+                    updateMessage("Stage 2/2: Transferring call tree");
+                    final var decoder = new SnapshotDecoder(new BinaryCodec());
+                    final var profile = decoder.decode(agent.profile(), XProfileDTO.class);
+                    if (profile == null) {
+                        throw new IllegalStateException("The agent did not return any call tree");
+                    }
+                    return profile;
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                } catch (final Exception e) {
+                    logger.atError().withException(e).log("Cannot profile the remote runtime");
+                    threadSync.asyncExec(() -> {
+                        if (progressDialog != null) {
+                            progressDialog.close();
+                        }
+                        FxDialog.showExceptionDialog(e, getClass().getClassLoader());
+                    });
+                    throw e;
+                }
+            }
+        };
+
+        profilingTask.valueProperty().addListener((ChangeListener<XProfileDTO>) (_, _, profile) -> {
+            if (profile != null) {
+                final var bundleNames = new HashMap<Long, String>();
+                dataProvider.bundles().forEach(b -> bundleNames.put(b.id, b.symbolicName));
+                threadSync.asyncExec(() -> {
+                    final var flameGraphDialog = new FlameGraphDialog();
+                    ContextInjectionFactory.inject(flameGraphDialog, eclipseContext);
+                    flameGraphDialog.init(profile, bundleNames);
+                    flameGraphDialog.show();
+                });
+            }
+        });
+
+        executor.runAsync(profilingTask);
+        progressDialog = FxDialog.showProgressDialog("Profile CPU", profilingTask, getClass().getClassLoader(),
+                profilingTask::cancel);
+    }
+
     private void initButtonIcons() {
         final var image     = new Image(getClass().getResourceAsStream("/graphic/icons/threaddump.png"));
         final var imageView = new ImageView(image);
@@ -354,6 +457,7 @@ public final class ThreadsFxController {
     private void updateButtonStates() {
         final var disableActions = !isConnected || isSnapshotAgent;
         threadDumpButton.setDisable(disableActions);
+        profileButton.setDisable(disableActions);
     }
 
     private void initCells() {
@@ -370,12 +474,33 @@ public final class ThreadsFxController {
         isDeadlockedColumn.setCellValueFactory(new DTOCellValueFactory<>("isDeadlocked", String.class));
         Fx.addCellFactory(isDeadlockedColumn, b -> b.isDeadlocked, Color.RED, Color.BLACK);
 
+        cpuUsageColumn.setCellValueFactory(p -> usage(p.getValue().cpuUsage));
+        cpuUsageColumn.setCellFactory(_ -> new UsageCell());
+        allocationRateColumn.setCellValueFactory(p -> usage(p.getValue().allocationRate / (1024 * 1024)));
+        allocationRateColumn.setCellFactory(_ -> new UsageCell());
+
         threadSync.asyncExec(() -> {
             table.setItems(dataProvider.threads());
             TableFilter.forTableView(table).lazy(true).apply();
+            // the hottest threads first, the ones without usage last
+            cpuUsageColumn.setSortType(SortType.DESCENDING);
+            table.getSortOrder().add(cpuUsageColumn);
             table.getSortOrder().add(nameColumn);
             table.sort();
         });
     }
 
+    // the usage is negative if not available
+    private static ObservableValue<Double> usage(final double value) {
+        return new ReadOnlyObjectWrapper<>(value >= 0 ? value : null);
+    }
+
+    private static final class UsageCell extends TableCell<XThreadDTO, Double> {
+        @Override
+        protected void updateItem(final Double item, final boolean empty) {
+            super.updateItem(item, empty);
+            setText(item == null || empty ? null : String.format("%.1f", item));
+        }
+    }
+
 }
@@ -0,0 +1,618 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.util.filter;
+
+import static java.lang.invoke.MethodHandles.publicLookup;
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import com.osgifx.console.util.filter.FilterParser.And;
+import com.osgifx.console.util.filter.FilterParser.ApproximateExpression;
+import com.osgifx.console.util.filter.FilterParser.Expression;
+import com.osgifx.console.util.filter.FilterParser.ExpressionVisitor;
+import com.osgifx.console.util.filter.FilterParser.Not;
+import com.osgifx.console.util.filter.FilterParser.Op;
+import com.osgifx.console.util.filter.FilterParser.Or;
+import com.osgifx.console.util.filter.FilterParser.PatternExpression;
+import com.osgifx.console.util.filter.FilterParser.RangeExpression;
+import com.osgifx.console.util.filter.FilterParser.SimpleExpression;
+
+/**
+ * Compiles LDAP filters into predicates on attribute maps which follow the matching rules
+ * of {@code org.osgi.framework.Filter#match(Dictionary)}, i.e. attribute keys are matched
+ * case-insensitively, missing attributes never match a comparison (whereas they match its
+ * negation) and multi-valued attributes match if any of their values matches.
+ * <p>
+ * In contrast to evaluating the parsed {@link Expression} tree, the compiled predicate
+ * converts every literal value only once, interns the attribute keys and evaluates the
+ * operands of a conjunction or disjunction from the cheapest to the most expensive one.
+ * The compiled predicates are immutable and kept in a bounded cache, hence they can be
+ * shared between threads.
+ *
+ * @since 1.1
+ */
+public final class FilterCompiler {
+
+    private static final int CACHE_SIZE = 256;
+
+    private static final Map<String, Predicate<Map<String, ?>>> cache = Collections
+            .synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, Predicate<Map<String, ?>>> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    private FilterCompiler() {
+        throw new IllegalAccessError("Cannot be instantiated");
+    }
+
+    /**
+     * Returns the compiled predicate of the specified filter.
+     *
+     * @param filter the LDAP filter
+     * @return the compiled predicate
+     * @throws RuntimeException if the filter cannot be parsed
+     */
+    public static Predicate<Map<String, ?>> compile(final String filter) {
+        Predicate<Map<String, ?>> predicate = cache.get(filter);
+        if (predicate == null) {
+            predicate = compile(new FilterParser().parse(filter));
+            cache.put(filter, predicate);
+        }
+        return predicate;
+    }
+
+    /**
+     * Compiles the specified expression tree.
+     *
+     * @param expression the parsed expression
+     * @return the compiled predicate
+     */
+    public static Predicate<Map<String, ?>> compile(final Expression expression) {
+        return expression.visit(new Compiler());
+    }
+
+    private static final class Compiler extends ExpressionVisitor<Node> {
+
+        private Compiler() {
+            super(null);
+        }
+
+        @Override
+        public Node visit(final SimpleExpression expr) {
+            return compare(expr.getKey(), expr.getOp(), expr.getValue());
+        }
+
+        @Override
+        public Node visit(final RangeExpression expr) {
+            final List<Node> nodes = new ArrayList<>(2);
+            if (expr.getLow() != null) {
+                nodes.add(expr.getLow().visit(this));
+            }
+            if (expr.getHigh() != null) {
+                nodes.add(expr.getHigh().visit(this));
+            }
+            return new AndNode(nodes);
+        }
+
+        @Override
+        public Node visit(final PatternExpression expr) {
+            final String value = expr.getValue();
+            if ("*".equals(value)) {
+                return new PresentNode(expr.getKey());
+            }
+            final List<String> parts = split(value);
+            if (parts.size() == 1) {
+                // the wildcards have all been escaped
+                return new EqualNode(expr.getKey(), parts.get(0));
+            }
+            return new SubstringNode(expr.getKey(), parts);
+        }
+
+        @Override
+        public Node visit(final ApproximateExpression expr) {
+            return new ApproxNode(expr.getKey(), unescape(expr.getValue()));
+        }
+
+        @Override
+        public Node visit(final And expr) {
+            return new AndNode(compile(expr.getExpressions()));
+        }
+
+        @Override
+        public Node visit(final Or expr) {
+            return new OrNode(compile(expr.getExpressions()));
+        }
+
+        @Override
+        public Node visit(final Not expr) {
+            return new NotNode(expr.expr.visit(this));
+        }
+
+        @Override
+        public Node visitTrue() {
+            return ConstantNode.TRUE;
+        }
+
+        @Override
+        public Node visitFalse() {
+            return ConstantNode.FALSE;
+        }
+
+        private List<Node> compile(final Expression[] expressions) {
+            final List<Node> nodes = new ArrayList<>(expressions.length);
+            for (final Expression expression : expressions) {
+                nodes.add(expression.visit(this));
+            }
+            return nodes;
+        }
+
+        private Node compare(final String key, final Op op, final String value) {
+            switch (op) {
+                case EQUAL:
+                    return new EqualNode(key, unescape(value));
+                case GREATER_OR_EQUAL:
+                case LESS_OR_EQUAL:
+                    return new CompareNode(key, op, unescape(value));
+                case NOT_EQUAL:
+                case GREATER:
+                case LESS:
+                    // only created by the parser for negated expressions such as (!(key>=value)), hence they
+                    // are compiled as the negation and match missing attributes just like the OSGi filter does
+                    return new NotNode(compare(key, op.not(), value));
+                default:
+                    throw new IllegalArgumentException("Unsupported operator: " + op);
+            }
+        }
+    }
+
+    private abstract static class Node implements Predicate<Map<String, ?>> {
+        abstract int cost();
+    }
+
+    private static final class ConstantNode extends Node {
+        static final Node TRUE  = new ConstantNode(true);
+        static final Node FALSE = new ConstantNode(false);
+
+        private final boolean value;
+
+        private ConstantNode(final boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean test(final Map<String, ?> map) {
+            return value;
+        }
+
+        @Override
+        int cost() {
+            return 0;
+        }
+    }
+
+    private static final class AndNode extends Node {
+        private final Node[] nodes;
+        private final int    cost;
+
+        private AndNode(final List<Node> nodes) {
+            this.nodes = sortByCost(nodes);
+            cost       = totalCost(this.nodes);
+        }
+
+        @Override
+        public boolean test(final Map<String, ?> map) {
+            for (final Node node : nodes) {
+                if (!node.test(map)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        int cost() {
+            return cost;
+        }
+    }
+
+    private static final class OrNode extends Node {
+        private final Node[] nodes;
+        private final int    cost;
+
+        private OrNode(final List<Node> nodes) {
+            this.nodes = sortByCost(nodes);
+            cost       = totalCost(this.nodes);
+        }
+
+        @Override
+        public boolean test(final Map<String, ?> map) {
+            for (final Node node : nodes) {
+                if (node.test(map)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        int cost() {
+            return cost;
+        }
+    }
+
+    private static final class NotNode extends Node {
+        private final Node node;
+
+        private NotNode(final Node node) {
+            this.node = node;
+        }
+
+        @Override
+        public boolean test(final Map<String, ?> map) {
+            return !node.test(map);
+        }
+
+        @Override
+        int cost() {
+            return node.cost();
+        }
+    }
+
+    private abstract static class AttributeNode extends Node {
+        private final String key;
+
+        AttributeNode(final String key) {
+            this.key = key.intern();
+        }
+
+        @Override
+        public boolean test(final Map<String, ?> map) {
+            final Object value = lookup(map);
+            if (value == null) {
+                return false;
+            }
+            if (value instanceof final Iterable<?> iterable) {
+                for (final Object scalar : iterable) {
+                    if (scalar != null && matches(scalar)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            if (value.getClass().isArray()) {
+                final int length = Array.getLength(value);
+                for (int i = 0; i < length; i++) {
+                    final Object scalar = Array.get(value, i);
+                    if (scalar != null && matches(scalar)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return matches(value);
+        }
+
+        private Object lookup(final Map<String, ?> map) {
+            final Object value = map.get(key);
+            if (value != null) {
+                return value;
+            }
+            for (final Map.Entry<String, ?> entry : map.entrySet()) {
+                if (key.equalsIgnoreCase(entry.getKey())) {
+                    return entry.getValue();
+                }
+            }
+            return null;
+        }
+
+        abstract boolean matches(Object scalar);
+    }
+
+    private static final class PresentNode extends AttributeNode {
+        private PresentNode(final String key) {
+            super(key);
+        }
+
+        @Override
+        boolean matches(final Object scalar) {
+            return true;
+        }
+
+        @Override
+        int cost() {
+            return 1;
+        }
+    }
+
+    private static final class EqualNode extends AttributeNode {
+        private final Literal literal;
+
+        private EqualNode(final String key, final String value) {
+            super(key);
+            literal = new Literal(value);
+        }
+
+        @Override
+        boolean matches(final Object scalar) {
+            final Object value = literal.as(scalar.getClass());
+            return value != null && value.equals(scalar);
+        }
+
+        @Override
+        int cost() {
+            return 2;
+        }
+    }
+
+    private static final class CompareNode extends AttributeNode {
+        private final Literal literal;
+        private final boolean greater;
+
+        private CompareNode(final String key, final Op op, final String value) {
+            super(key);
+            literal = new Literal(value);
+            greater = op == Op.GREATER_OR_EQUAL;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        boolean matches(final Object scalar) {
+            if (!(scalar instanceof Comparable<?>)) {
+                return false;
+            }
+            final Object value = literal.as(scalar.getClass());
+            if (value == null) {
+                return false;
+            }
+            final int result = ((Comparable<Object>) scalar).compareTo(value);
+            return greater ? result >= 0 : result <= 0;
+        }
+
+        @Override
+        int cost() {
+            return 3;
+        }
+    }
+
+    private static final class ApproxNode extends AttributeNode {
+        private final String value;
+
+        private ApproxNode(final String key, final String value) {
+            super(key);
+            this.value = stripWhitespace(value);
+        }
+
+        @Override
+        boolean matches(final Object scalar) {
+            return scalar instanceof final String string && stripWhitespace(string).equalsIgnoreCase(value);
+        }
+
+        @Override
+        int cost() {
+            return 4;
+        }
+
+        private static String stripWhitespace(final String value) {
+            final StringBuilder sb = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (!Character.isWhitespace(c)) {
+                    sb.append(c);
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    private static final class SubstringNode extends AttributeNode {
+        private final String[] parts;
+
+        private SubstringNode(final String key, final List<String> parts) {
+            super(key);
+            this.parts = parts.toArray(new String[0]);
+        }
+
+        @Override
+        boolean matches(final Object scalar) {
+            if (!(scalar instanceof final String string)) {
+                return false;
+            }
+            final String first = parts[0];
+            final String last  = parts[parts.length - 1];
+            if (!string.startsWith(first) || string.length() < first.length() + last.length()) {
+                return false;
+            }
+            int       from = first.length();
+            final int to   = string.length() - last.length();
+            for (int i = 1; i < parts.length - 1; i++) {
+                final int index = string.indexOf(parts[i], from);
+                if (index < 0 || index + parts[i].length() > to) {
+                    return false;
+                }
+                from = index + parts[i].length();
+            }
+            return string.endsWith(last);
+        }
+
+        @Override
+        int cost() {
+            return 5;
+        }
+    }
+
+    /**
+     * A literal value of a filter which is converted to the types of the attribute values
+     * it is compared to. The conversions to the primitive wrapper types are performed
+     * upfront, all others at most once per type.
+     */
+    private static final class Literal {
+        private static final Object INVALID = new Object();
+
+        private final String                value;
+        private final Long                  longValue;
+        private final Integer               intValue;
+        private final Short                 shortValue;
+        private final Byte                  byteValue;
+        private final Double                doubleValue;
+        private final Float                 floatValue;
+        private final Boolean               booleanValue;
+        private final Character             charValue;
+        private final Map<Class<?>, Object> converted = new ConcurrentHashMap<>();
+
+        private Literal(final String value) {
+            final String trimmed = value.trim();
+            this.value   = value;
+            longValue    = parse(() -> Long.valueOf(trimmed));
+            intValue     = parse(() -> Integer.valueOf(trimmed));
+            shortValue   = parse(() -> Short.valueOf(trimmed));
+            byteValue    = parse(() -> Byte.valueOf(trimmed));
+            doubleValue  = parse(() -> Double.valueOf(trimmed));
+            floatValue   = parse(() -> Float.valueOf(trimmed));
+            booleanValue = Boolean.valueOf(trimmed);
+            charValue    = value.isEmpty() ? null : value.charAt(0);
+        }
+
+        /**
+         * Returns this literal converted to the specified type.
+         *
+         * @param type the type of the attribute value
+         * @return the converted literal, or {@code null} if it cannot be converted
+         */
+        Object as(final Class<?> type) {
+            if (type == String.class) {
+                return value;
+            }
+            if (type == Long.class) {
+                return longValue;
+            }
+            if (type == Integer.class) {
+                return intValue;
+            }
+            if (type == Double.class) {
+                return doubleValue;
+            }
+            if (type == Boolean.class) {
+                return booleanValue;
+            }
+            if (type == Short.class) {
+                return shortValue;
+            }
+            if (type == Byte.class) {
+                return byteValue;
+            }
+            if (type == Float.class) {
+                return floatValue;
+            }
+            if (type == Character.class) {
+                return charValue;
+            }
+            final Object result = converted.computeIfAbsent(type, this::convert);
+            return result == INVALID ? null : result;
+        }
+
+        private Object convert(final Class<?> type) {
+            try {
+                MethodHandle mh;
+                try {
+                    mh = publicLookup().findStatic(type, "valueOf", methodType(type, String.class));
+                } catch (NoSuchMethodException | IllegalAccessException e) {
+                    mh = publicLookup().findConstructor(type, methodType(void.class, String.class));
+                }
+                final Object result = mh.invoke(value.trim());
+                return result == null ? INVALID : result;
+            } catch (final Error e) {
+                throw e;
+            } catch (final Throwable e) {
+                return INVALID;
+            }
+        }
+
+        private static <T> T parse(final Supplier<T> parser) {
+            try {
+                return parser.get();
+            } catch (final NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    private static Node[] sortByCost(final List<Node> nodes) {
+        final Node[] sorted = nodes.toArray(new Node[0]);
+        // the operands are free of side effects, hence the cheapest ones can be evaluated first
+        Arrays.sort(sorted, Comparator.comparingInt(Node::cost));
+        return sorted;
+    }
+
+    private static int totalCost(final Node[] nodes) {
+        int cost = 1;
+        for (final Node node : nodes) {
+            cost += node.cost();
+        }
+        return cost;
+    }
+
+    // splits the value at its unescaped wildcards and unescapes the parts
+    private static List<String> split(final String value) {
+        final List<String>  parts = new ArrayList<>();
+        final StringBuilder part  = new StringBuilder();
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                part.append(value.charAt(++i));
+            } else if (c == '*') {
+                parts.add(part.toString());
+                part.setLength(0);
+            } else {
+                part.append(c);
+            }
+        }
+        parts.add(part.toString());
+        return parts;
+    }
+
+    private static String unescape(final String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        final StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                sb.append(value.charAt(++i));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+}
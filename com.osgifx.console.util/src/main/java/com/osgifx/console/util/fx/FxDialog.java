@@ -74,6 +74,28 @@ public final class FxDialog {
                                                     final Task<?> task,
                                                     final ClassLoader cssResLoader,
                                                     final Runnable cancellationRunnable) {
+        return showProgressDialog(header, task, cssResLoader, cancellationRunnable, true);
+    }
+
+    /**
+     * Shows a progress dialog for the specified task.
+     * <p>
+     * Tasks that check {@link Task#isCancelled()} on their own should not be interrupted
+     * on cancellation, since an interrupt closes any interruptible channel (for example,
+     * a file channel) the task is using at that point.
+     *
+     * @param header the header text
+     * @param task the task to track
+     * @param cssResLoader the class loader to load the stylesheet from
+     * @param cancellationRunnable the action to run when the dialog gets cancelled
+     * @param mayInterruptIfRunning whether the task's thread is to be interrupted on cancellation
+     * @return the progress dialog
+     */
+    public static ProgressDialog showProgressDialog(final String header,
+                                                    final Task<?> task,
+                                                    final ClassLoader cssResLoader,
+                                                    final Runnable cancellationRunnable,
+                                                    final boolean mayInterruptIfRunning) {
         final var progressDialog = new ProgressDialog(task);
 
         progressDialog.setHeaderText(header);
@@ -87,7 +109,7 @@ public final class FxDialog {
         progressDialog.setOnCloseRequest(_ -> {
             if (cancellationRunnable != null) {
                 cancellationRunnable.run();
-                task.cancel(true);
+                task.cancel(mayInterruptIfRunning);
             }
         });
         progressDialog.show();
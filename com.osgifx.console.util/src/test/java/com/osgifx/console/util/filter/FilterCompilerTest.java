@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright 2021-2026 Amit Kumar Mondal
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package com.osgifx.console.util.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+import org.osgi.framework.Filter;
+import org.osgi.framework.FrameworkUtil;
+
+public class FilterCompilerTest {
+
+    private static final String EVENT_FILTER = "(&(topic=org/osgi/framework/BundleEvent/STARTED)(bundle.id>=10))";
+
+    // @formatter:off
+    private static final List<String> FILTERS = List.of(
+            EVENT_FILTER,
+            "(topic=org/osgi/framework/BundleEvent/*)",
+            "(bundle.id<=10)",
+            "(!(bundle.id>=10))",
+            "(!(bundle.id<=10))",
+            "(!(topic=org/osgi/framework/BundleEvent/STARTED))",
+            "(BUNDLE.SYMBOLICNAME=com.example.*)",
+            "(objectClass=com.example.Service)",
+            "(|(bundle.id=5)(bundle.id=42))",
+            "(bundle.id=*)");
+
+    private static final List<Map<String, ?>> EVENTS = List.of(
+            Map.of("topic", "org/osgi/framework/BundleEvent/STARTED", "bundle.id", 42L,
+                   "bundle.symbolicName", "com.example.core"),
+            Map.of("topic", "org/osgi/framework/BundleEvent/STOPPED", "bundle.id", 5L,
+                   "bundle.symbolicName", "org.apache.felix.scr"),
+            Map.of("topic", "org/osgi/framework/BundleEvent/STARTED"),
+            Map.of("topic", "org/osgi/framework/ServiceEvent/REGISTERED",
+                   "objectClass", new String[] { "com.example.Api", "com.example.Service" }));
+    // @formatter:on
+
+    @Test
+    public void testMatchesLikeFrameworkFilter() throws Exception {
+        for (final String filter : FILTERS) {
+            final var expected = FrameworkUtil.createFilter(filter);
+            final var compiled = FilterCompiler.compile(filter);
+            for (final Map<String, ?> event : EVENTS) {
+                assertEquals(filter + " on " + event.keySet(), expected.match(new Hashtable<>(event)),
+                        compiled.test(event));
+            }
+        }
+    }
+
+    @Test
+    public void testNegatedComparisonMatchesMissingAttribute() {
+        final Map<String, ?> event = Map.of("topic", "org/osgi/framework/BundleEvent/STARTED");
+
+        assertFalse(FilterCompiler.compile("(bundle.id>=10)").test(event));
+        assertTrue(FilterCompiler.compile("(!(bundle.id>=10))").test(event));
+        assertTrue(FilterCompiler.compile("(!(bundle.id<=10))").test(event));
+        assertTrue(FilterCompiler.compile("(!(bundle.symbolicName=com.example.core))").test(event));
+    }
+
+    /**
+     * Compares the compiled filter with the interpreted evaluation the event path used
+     * before, i.e. parsing the filter with {@link FrameworkUtil} for every event and
+     * matching it against a {@link Hashtable} copy of the event properties.
+     * <p>
+     * The build has no JMH setup, hence this is skipped unless the
+     * {@code osgifx.benchmark} system property is set.
+     */
+    @Test
+    public void testThroughput() throws Exception {
+        assumeTrue(Boolean.getBoolean("osgifx.benchmark"));
+        final var iterations = Integer.getInteger("osgifx.benchmark.iterations", 1_000_000);
+
+        for (int round = 0; round < 2; round++) {
+            // the first round only warms up
+            final var interpreted = measure(iterations, event -> {
+                try {
+                    return FrameworkUtil.createFilter(EVENT_FILTER).match(new Hashtable<>(event));
+                } catch (final Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            final Filter parsed    = FrameworkUtil.createFilter(EVENT_FILTER);
+            final var    preParsed = measure(iterations, event -> parsed.match(new Hashtable<>(event)));
+            final var    compiled  = measure(iterations, event -> FilterCompiler.compile(EVENT_FILTER).test(event));
+            if (round == 1) {
+                System.out.printf("parse and match: %d ns, match parsed: %d ns, compiled: %d ns per event%n",
+                        interpreted, preParsed, compiled);
+            }
+        }
+    }
+
+    private static long measure(final int iterations, final Predicate<Map<String, ?>> filter) {
+        var       matches = 0;
+        final var start   = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            if (filter.test(EVENTS.get(i & 3))) {
+                matches++;
+            }
+        }
+        final var elapsed = System.nanoTime() - start;
+        // only the first of the four events matches
+        assertEquals((iterations + 3) / 4, matches);
+        return elapsed / iterations;
+    }
+
+}